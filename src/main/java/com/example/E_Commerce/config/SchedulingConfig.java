@@ -0,0 +1,12 @@
+package com.example.E_Commerce.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+    // Background jobs (reservation expiry etc.) are declared with @Scheduled on their own components.
+    // They share the pool sized by spring.task.scheduling.pool.size; long-running work is handed
+    // to the job's own executor so one slow job cannot hold up the rest.
+}
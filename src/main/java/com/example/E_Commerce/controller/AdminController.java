@@ -4,16 +4,19 @@ import com.example.E_Commerce.model.*;
 import com.example.E_Commerce.service.*;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import com.example.E_Commerce.validation.UpdateGroup;
 
-import java.util.ArrayList;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -34,27 +37,48 @@ public class AdminController {
     @Autowired
     private DataInitializationService dataInitializationService;
 
+    @Autowired
+    private OrderStatusLogService orderStatusLogService;
+
+    @Autowired
+    private DashboardStatsService dashboardStatsService;
+
+    @Autowired
+    private OrderMetricsAggregator orderMetrics;
+
+    @Autowired
+    private RevenueRollupService revenueRollupService;
+
+    @Autowired
+    private RevenueRollupBackfillService revenueRollupBackfillService;
+
+    @Autowired
+    private LiveDashboardFeed liveDashboardFeed;
+
+    @Autowired
+    private CustomerAnalyticsService customerAnalyticsService;
+
+    @Autowired
+    private CustomerAnalyticsJob customerAnalyticsJob;
+
     @GetMapping("/dashboard")
     public String dashboard(Model model) {
-        List<Product> products = productService.getAllProducts();
-        List<Order> orders = orderService.getAllOrders();
-        List<User> users = userService.getAllUsers();
-        
-        // Calculate total revenue from completed orders
-        double totalRevenue = orders.stream()
-            .filter(o -> o.getPaymentStatus() == PaymentStatus.COMPLETED)
-            .mapToDouble(o -> o.getTotalAmount().doubleValue())
-            .sum();
+        DashboardStats stats = dashboardStatsService.getStats();
         
-        model.addAttribute("totalProducts", products.size());
-        model.addAttribute("totalOrders", orders.size());
-        model.addAttribute("totalUsers", users.size());
-        model.addAttribute("totalRevenue", totalRevenue);
-        model.addAttribute("recentOrders", orders.stream().limit(5).toList());
+        model.addAttribute("totalProducts", stats.getTotalProducts());
+        model.addAttribute("totalOrders", stats.getTotalOrders());
+        model.addAttribute("totalUsers", stats.getTotalUsers());
+        model.addAttribute("totalRevenue", stats.getTotalRevenue());
+        model.addAttribute("recentOrders", stats.getRecentOrders().stream().limit(5).toList());
         
         return "admin/dashboard";
     }
 
+    @GetMapping(value = "/dashboard/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter dashboardStream() {
+        return liveDashboardFeed.subscribe();
+    }
+
     @GetMapping("/products")
     public String products(Model model) {
         List<Product> products = productService.getAllProducts();
@@ -124,41 +148,50 @@ public class AdminController {
         return "redirect:/admin/products";
     }
 
+    @PostMapping("/products/{id}/stock-shards")
+    public String configureStockShards(@PathVariable Long id, @RequestParam int shards,
+                                       RedirectAttributes redirectAttributes) {
+        try {
+            productService.configureStockShards(id, shards);
+            redirectAttributes.addFlashAttribute("success", shards > 0
+                    ? "Stock for product split across " + shards + " shards!"
+                    : "Stock sharding disabled for product!");
+        } catch (RuntimeException e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+        }
+        return "redirect:/admin/products";
+    }
+
     @GetMapping("/orders")
-    public String orders(Model model) {
+    public String orders(@ModelAttribute("criteria") OrderSearchCriteria criteria,
+                         BindingResult bindingResult,
+                         @RequestParam(defaultValue = "0") int page,
+                         @RequestParam(defaultValue = "20") int size,
+                         @RequestParam(defaultValue = "createdAt") String sort,
+                         @RequestParam(defaultValue = "desc") String dir,
+                         Model model) {
+        // Unparseable filter values (e.g. a malformed date) are left unset rather than failing the page
+        model.addAttribute("orderStatuses", OrderStatus.values());
+        model.addAttribute("paymentStatuses", PaymentStatus.values());
+        model.addAttribute("sort", sort);
+        model.addAttribute("dir", dir);
         try {
-            System.out.println("AdminController: Loading orders page...");
-            List<Order> orders = orderService.getAllOrders();
-            System.out.println("AdminController: Found " + (orders != null ? orders.size() : 0) + " orders");
-            
-            // Calculate statistics safely
-            long newOrders = 0;
-            long processingOrders = 0;
-            long shippedOrders = 0;
-            long deliveredOrders = 0;
-            
-            if (orders != null && !orders.isEmpty()) {
-                newOrders = orders.stream().filter(o -> o.getStatus() != null && o.getStatus().name().equals("CREATED")).count();
-                processingOrders = orders.stream().filter(o -> o.getStatus() != null && o.getStatus().name().equals("PROCESSING")).count();
-                shippedOrders = orders.stream().filter(o -> o.getStatus() != null && o.getStatus().name().equals("SHIPPED")).count();
-                deliveredOrders = orders.stream().filter(o -> o.getStatus() != null && o.getStatus().name().equals("DELIVERED")).count();
-            }
+            Page<AdminOrderRow> orders = orderService.searchOrders(criteria,
+                    OrderService.adminOrderPage(page, size, sort, dir));
+            Map<OrderStatus, Long> statusCounts = orderMetrics.getCountsByStatus();
 
             model.addAttribute("orders", orders);
-            model.addAttribute("orderStatuses", OrderStatus.values());
-            model.addAttribute("paymentStatuses", PaymentStatus.values());
-            model.addAttribute("newOrders", newOrders);
-            model.addAttribute("processingOrders", processingOrders);
-            model.addAttribute("shippedOrders", shippedOrders);
-            model.addAttribute("deliveredOrders", deliveredOrders);
-
-            System.out.println("AdminController: Successfully loaded orders page");
+            model.addAttribute("statusCounts", statusCounts);
+            model.addAttribute("newOrders", statusCounts.getOrDefault(OrderStatus.CREATED, 0L));
+            model.addAttribute("processingOrders", statusCounts.getOrDefault(OrderStatus.PROCESSING, 0L));
+            model.addAttribute("shippedOrders", statusCounts.getOrDefault(OrderStatus.SHIPPED, 0L));
+            model.addAttribute("deliveredOrders", statusCounts.getOrDefault(OrderStatus.DELIVERED, 0L));
             return "admin/orders";
         } catch (Exception e) {
             System.err.println("AdminController: Error loading orders page: " + e.getMessage());
             e.printStackTrace();
             model.addAttribute("error", "Error loading orders: " + e.getMessage());
-            model.addAttribute("orders", new ArrayList<>());
+            model.addAttribute("orders", Page.empty());
             model.addAttribute("newOrders", 0);
             model.addAttribute("processingOrders", 0);
             model.addAttribute("shippedOrders", 0);
@@ -172,6 +205,7 @@ public class AdminController {
     public String viewOrderDetail(@PathVariable Long id, Model model) {
         Order order = orderService.getOrderById(id);
         model.addAttribute("order", order);
+        model.addAttribute("statusTimeline", orderStatusLogService.getTimeline(id));
         return "admin/order-detail";
     }
 
@@ -263,36 +297,69 @@ public class AdminController {
 
     @GetMapping("/reports")
     public String reports(Model model) {
-        List<Order> orders = orderService.getAllOrders();
+        DashboardStats stats = dashboardStatsService.getStats();
         
-        // Calculate revenue
-        double totalRevenue = orders.stream()
-            .filter(o -> o.getPaymentStatus() == PaymentStatus.COMPLETED)
-            .mapToDouble(o -> o.getTotalAmount().doubleValue())
-            .sum();
+        model.addAttribute("recentOrders", stats.getRecentOrders());
+        model.addAttribute("totalOrders", stats.getTotalOrders());
+        model.addAttribute("totalRevenue", stats.getTotalRevenue());
+        model.addAttribute("newOrders", stats.getOrderCount(OrderStatus.CREATED));
+        model.addAttribute("processingOrders", stats.getOrderCount(OrderStatus.PROCESSING));
+        model.addAttribute("shippedOrders", stats.getOrderCount(OrderStatus.SHIPPED));
+        model.addAttribute("deliveredOrders", stats.getOrderCount(OrderStatus.DELIVERED));
+        model.addAttribute("cancelledOrders", stats.getOrderCount(OrderStatus.CANCELLED));
         
-        // Order statistics
-        long newOrders = orders.stream().filter(o -> o.getStatus().name().equals("CREATED")).count();
-        long processingOrders = orders.stream().filter(o -> o.getStatus().name().equals("PROCESSING")).count();
-        long shippedOrders = orders.stream().filter(o -> o.getStatus().name().equals("SHIPPED")).count();
-        long deliveredOrders = orders.stream().filter(o -> o.getStatus().name().equals("DELIVERED")).count();
-        long cancelledOrders = orders.stream().filter(o -> o.getStatus().name().equals("CANCELLED")).count();
+        // Last 30 days by category and by day, read from the daily revenue rollups
+        LocalDate revenueTo = LocalDate.now();
+        LocalDate revenueFrom = revenueTo.minusDays(29);
+        model.addAttribute("revenueFrom", revenueFrom);
+        model.addAttribute("revenueTo", revenueTo);
+        model.addAttribute("categoryRevenue", revenueRollupService.getRevenueByCategory(revenueFrom, revenueTo));
+        model.addAttribute("dailyRevenue", revenueRollupService.getDailyRevenue(revenueFrom, revenueTo));
         
-        model.addAttribute("orders", orders);
-        model.addAttribute("totalRevenue", totalRevenue);
-        model.addAttribute("newOrders", newOrders);
-        model.addAttribute("processingOrders", processingOrders);
-        model.addAttribute("shippedOrders", shippedOrders);
-        model.addAttribute("deliveredOrders", deliveredOrders);
-        model.addAttribute("cancelledOrders", cancelledOrders);
+        // Written by the customer analytics batch job
+        model.addAttribute("topCustomers", customerAnalyticsService.getTopCustomers(10));
+        model.addAttribute("cohorts", customerAnalyticsService.getCohortRetention(12));
+        model.addAttribute("analyticsRunning", customerAnalyticsJob.isRunning());
         
         return "admin/reports";
     }
 
+    @PostMapping("/reports/revenue/rebuild")
+    public String rebuildRevenueRollups(RedirectAttributes redirectAttributes) {
+        if (revenueRollupBackfillService.startFullRebuild()) {
+            redirectAttributes.addFlashAttribute("success", "Revenue rollup rebuild started. Figures update as each day completes.");
+        } else {
+            redirectAttributes.addFlashAttribute("error", "A revenue rollup rebuild is already running.");
+        }
+        return "redirect:/admin/reports";
+    }
+
+    @PostMapping("/reports/analytics/run")
+    public String runCustomerAnalytics(@RequestParam(defaultValue = "false") boolean rebuild,
+                                       RedirectAttributes redirectAttributes) {
+        if (customerAnalyticsJob.start(rebuild)) {
+            redirectAttributes.addFlashAttribute("success", rebuild
+                    ? "Customer analytics rebuild started." : "Customer analytics update started.");
+        } else {
+            redirectAttributes.addFlashAttribute("error", "Customer analytics are already being updated.");
+        }
+        return "redirect:/admin/reports";
+    }
+
     @GetMapping("/users")
-    public String users(Model model) {
-        List<User> users = userService.getAllUsers();
+    public String users(@ModelAttribute("criteria") UserSearchCriteria criteria,
+                        BindingResult bindingResult,
+                        @RequestParam(defaultValue = "0") int page,
+                        @RequestParam(defaultValue = "20") int size,
+                        @RequestParam(defaultValue = "createdAt") String sort,
+                        @RequestParam(defaultValue = "desc") String dir,
+                        Model model) {
+        // An unknown role in the query string is left unset rather than failing the page
+        Page<UserSummary> users = userService.searchUsers(criteria, UserService.adminUserPage(page, size, sort, dir));
         model.addAttribute("users", users);
+        model.addAttribute("roles", Role.values());
+        model.addAttribute("sort", sort);
+        model.addAttribute("dir", dir);
         return "admin/users";
     }
     // Show Add User form
@@ -391,6 +458,7 @@ public class AdminController {
             
             // Reinitialize products
             dataInitializationService.initializeProducts();
+            dashboardStatsService.invalidate();
             
             int productCount = productService.getAllProducts().size();
             redirectAttributes.addFlashAttribute("success", "Test data initialized successfully! " + 
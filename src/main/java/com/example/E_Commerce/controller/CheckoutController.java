@@ -16,8 +16,11 @@ import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.util.StringUtils;
 import org.json.JSONObject;
 
+import java.util.UUID;
+
 @Controller
 @RequestMapping("/checkout")
 @PreAuthorize("hasRole('CUSTOMER')")
@@ -34,6 +37,9 @@ public class CheckoutController {
     @Autowired
     private PaymentService paymentService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
     @GetMapping
     public String checkoutForm(Model model, Authentication authentication) {
         User user = (User) authentication.getPrincipal();
@@ -46,19 +52,36 @@ public class CheckoutController {
         model.addAttribute("cart", cart);
         model.addAttribute("order", new Order());
         model.addAttribute("cashfreeAppId", paymentService.getCashfreeAppId());
+        // Submitted back with the form so a double-click or retry replays the first order
+        model.addAttribute("idempotencyKey", UUID.randomUUID().toString());
         return "checkout";
     }
 
     @PostMapping
-    public String createOrder(@ModelAttribute Order order, Authentication authentication, 
+    public String createOrder(@ModelAttribute Order order,
+                             @RequestParam(required = false) String idempotencyKey,
+                             @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKeyHeader,
+                             Authentication authentication,
                              RedirectAttributes redirectAttributes) {
         try {
             User user = (User) authentication.getPrincipal();
-            Order createdOrder = orderService.createOrder(user.getId(), 
-                order.getShippingAddress(), order.getBillingAddress());
+            String key = StringUtils.hasText(idempotencyKeyHeader) ? idempotencyKeyHeader : idempotencyKey;
+            
+            Long orderId;
+            if (StringUtils.hasText(key)) {
+                orderId = idempotencyService.execute(IdempotencyService.CHECKOUT_SCOPE, user.getId() + ":" + key,
+                        () -> orderService.createOrder(user.getId(),
+                                order.getShippingAddress(), order.getBillingAddress()).getId());
+            } else {
+                orderId = orderService.createOrder(user.getId(),
+                        order.getShippingAddress(), order.getBillingAddress()).getId();
+            }
             
-            redirectAttributes.addFlashAttribute("order", createdOrder);
-            return "redirect:/checkout/payment/" + createdOrder.getId();
+            return "redirect:/checkout/payment/" + orderId;
+        } catch (RequestInProgressException e) {
+            // A double submit outlasted the first one; that order will show up in the list
+            redirectAttributes.addFlashAttribute("success", "Your order is being placed and will appear here shortly.");
+            return "redirect:/orders";
         } catch (RuntimeException e) {
             redirectAttributes.addFlashAttribute("error", e.getMessage());
             return "redirect:/checkout";
@@ -82,7 +105,16 @@ public class CheckoutController {
             }
             
             // Create Cashfree payment session
-            String paymentSessionId = paymentService.createPaymentSession(order);
+            String paymentSessionId;
+            try {
+                paymentSessionId = paymentService.createPaymentSession(order);
+            } catch (GatewayUnavailableException e) {
+                // Nothing reached the gateway; the page only offers to try again
+                model.addAttribute("order", order);
+                model.addAttribute("error", e.getMessage());
+                model.addAttribute("gatewayUnavailable", true);
+                return "payment";
+            }
             
             model.addAttribute("order", order);
             model.addAttribute("paymentSessionId", paymentSessionId);
@@ -113,20 +145,31 @@ public class CheckoutController {
                                @RequestParam String razorpaySignature,
                                Authentication authentication,
                                RedirectAttributes redirectAttributes) {
+        Order order;
+        try {
+            order = orderService.getOrderById(Long.parseLong(razorpayOrderId));
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("error", "Payment verification failed");
+            return "redirect:/checkout";
+        }
         try {
             User user = (User) authentication.getPrincipal();
-            Order order = orderService.getOrderById(Long.parseLong(razorpayOrderId));
-            
             if (!order.getUser().getId().equals(user.getId())) {
                 redirectAttributes.addFlashAttribute("error", "Unauthorized access");
                 return "redirect:/orders";
             }
             
-            boolean isValid = paymentService.verifyPayment(razorpayOrderId, razorpayPaymentId);
+            Long confirmedOrderId = idempotencyService.execute(IdempotencyService.PAYMENT_VERIFICATION_SCOPE,
+                    order.getId() + ":" + razorpayPaymentId, () -> {
+                        if (!paymentService.verifyPayment(razorpayOrderId, razorpayPaymentId)) {
+                            return null;
+                        }
+                        orderService.updateRazorpayPaymentId(order.getId(), razorpayPaymentId);
+                        orderService.updatePaymentStatus(order.getId(), PaymentStatus.COMPLETED);
+                        return order.getId();
+                    });
             
-            if (isValid) {
-                orderService.updateRazorpayPaymentId(order.getId(), razorpayPaymentId);
-                orderService.updatePaymentStatus(order.getId(), PaymentStatus.COMPLETED);
+            if (confirmedOrderId != null) {
                 redirectAttributes.addFlashAttribute("success", "Payment successful!");
                 return "redirect:/orders/" + order.getId();
             } else {
@@ -134,6 +177,9 @@ public class CheckoutController {
                 redirectAttributes.addFlashAttribute("error", "Payment verification failed");
                 return "redirect:/checkout/payment/" + order.getId();
             }
+        } catch (RequestInProgressException e) {
+            redirectAttributes.addFlashAttribute("success", "Your payment is being confirmed.");
+            return "redirect:/orders/" + order.getId();
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("error", "Payment verification failed");
             return "redirect:/checkout";
@@ -155,11 +201,15 @@ public class CheckoutController {
                 String paymentId = data.getString("cf_payment_id");
                 String orderId = data.getString("order_id");
                 
-                // Update order status
+                // Update order status; Cashfree may deliver the same webhook more than once
                 Order order = orderService.getOrderById(Long.parseLong(orderId));
                 if (order != null) {
-                    orderService.updateRazorpayPaymentId(order.getId(), paymentId); // Reusing field
-                    orderService.updatePaymentStatus(order.getId(), PaymentStatus.COMPLETED);
+                    idempotencyService.execute(IdempotencyService.PAYMENT_VERIFICATION_SCOPE,
+                            order.getId() + ":" + paymentId, () -> {
+                                orderService.updateRazorpayPaymentId(order.getId(), paymentId); // Reusing field
+                                orderService.updatePaymentStatus(order.getId(), PaymentStatus.COMPLETED);
+                                return order.getId();
+                            });
                 }
             } else if ("PAYMENT_FAILED_WEBHOOK".equals(event)) {
                 // Handle failed payment
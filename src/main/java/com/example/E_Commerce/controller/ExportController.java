@@ -1,20 +1,38 @@
 package com.example.E_Commerce.controller;
 
+import com.example.E_Commerce.model.ExportDataset;
+import com.example.E_Commerce.model.ExportFilter;
+import com.example.E_Commerce.model.ExportFormat;
+import com.example.E_Commerce.model.ExportJob;
 import com.example.E_Commerce.model.Order;
+import com.example.E_Commerce.model.OrderSearchCriteria;
 import com.example.E_Commerce.model.Product;
 import com.example.E_Commerce.model.User;
 import com.example.E_Commerce.service.*;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 
 @Controller
 @RequestMapping("/admin/export")
@@ -31,152 +49,207 @@ public class ExportController {
     private OrderService orderService;
 
     @Autowired
-    private ProductService productService;
+    private FlatExportService flatExportService;
 
     @Autowired
-    private UserService userService;
+    private ExportJobService exportJobService;
+
+    @Autowired
+    private InvoiceCacheService invoiceCacheService;
+
+    @Autowired
+    private BulkInvoiceService bulkInvoiceService;
 
     @GetMapping("/orders/excel")
-    public ResponseEntity<byte[]> exportOrdersToExcel() {
-        try {
-            var orders = orderService.getAllOrders();
-            byte[] excelData = exportService.exportOrdersToExcel(orders);
-            
-            String filename = "orders_report_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".xlsx";
-            
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
-                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                    .body(excelData);
-        } catch (IOException e) {
-            return ResponseEntity.internalServerError().build();
-        }
+    public ResponseEntity<StreamingResponseBody> exportOrdersToExcel(@ModelAttribute ExportFilter filter) {
+        ExportDataset.ORDERS.checkFilter(filter);
+        return excelResponse("orders_report_", out -> exportService.writeOrdersExcel(filter, out));
     }
 
     @GetMapping("/products/excel")
-    public ResponseEntity<byte[]> exportProductsToExcel() {
+    public ResponseEntity<StreamingResponseBody> exportProductsToExcel(@ModelAttribute ExportFilter filter) {
+        ExportDataset.PRODUCTS.checkFilter(filter);
+        return excelResponse("products_report_", out -> exportService.writeProductsExcel(filter, out));
+    }
+
+    @GetMapping("/users/excel")
+    public ResponseEntity<StreamingResponseBody> exportUsersToExcel(@ModelAttribute ExportFilter filter) {
+        ExportDataset.USERS.checkFilter(filter);
+        return excelResponse("users_report_", out -> exportService.writeUsersExcel(filter, out));
+    }
+
+    /**
+     * Warehouse feed: {@code /admin/export/order-lines/ndjson?gzip=true} and the like.
+     * With gzip the download is a {@code .gz} file rather than a compressed transfer encoding.
+     */
+    @GetMapping("/{dataset}/{format:csv|ndjson}")
+    public ResponseEntity<StreamingResponseBody> exportFlatFile(@PathVariable String dataset,
+                                                                @PathVariable String format,
+                                                                @RequestParam(defaultValue = "false") boolean gzip,
+                                                                @ModelAttribute ExportFilter filter) {
+        ExportDataset exportDataset = ExportDataset.fromSlug(dataset);
+        exportDataset.checkFilter(filter);
+        ExportFormat exportFormat = ExportFormat.fromExtension(format);
+        String filename = exportDataset.getSlug() + "_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"))
+                + "." + exportFormat.getExtension() + (gzip ? ".gz" : "");
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip") : MediaType.parseMediaType(exportFormat.getContentType()))
+                .body(out -> flatExportService.write(exportDataset, filter, exportFormat, gzip, out));
+    }
+
+    /**
+     * Queues an export to run in the background; poll the returned job and download it once
+     * its status is {@code COMPLETED}.
+     */
+    @PostMapping("/jobs")
+    public ResponseEntity<ExportJob> submitExportJob(@RequestParam String dataset,
+                                                     @RequestParam String format,
+                                                     @RequestParam(defaultValue = "false") boolean gzip,
+                                                     @ModelAttribute ExportFilter filter,
+                                                     Authentication authentication) {
         try {
-            var products = productService.getAllProducts();
-            byte[] excelData = exportService.exportProductsToExcel(products);
-            
-            String filename = "products_report_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".xlsx";
-            
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
-                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                    .body(excelData);
-        } catch (IOException e) {
-            return ResponseEntity.internalServerError().build();
+            ExportJob job = exportJobService.submit(dataset, format, gzip, filter, authentication.getName());
+            return ResponseEntity.accepted().location(URI.create("/admin/export/jobs/" + job.getId())).body(job);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         }
     }
 
-    @GetMapping("/users/excel")
-    public ResponseEntity<byte[]> exportUsersToExcel() {
+    @GetMapping("/jobs")
+    public ResponseEntity<List<ExportJob>> listExportJobs() {
+        return ResponseEntity.ok(exportJobService.getJobs());
+    }
+
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<ExportJob> getExportJob(@PathVariable String id) {
         try {
-            var users = userService.getAllUsers();
-            byte[] excelData = exportService.exportUsersToExcel(users);
-            
-            String filename = "users_report_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".xlsx";
-            
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
-                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                    .body(excelData);
-        } catch (IOException e) {
-            return ResponseEntity.internalServerError().build();
+            return ResponseEntity.ok(exportJobService.getJob(id));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
         }
     }
 
-    @GetMapping("/orders/pdf")
-    public ResponseEntity<byte[]> exportOrdersToPDF() {
+    @GetMapping("/jobs/{id}/download")
+    public void downloadExportJob(@PathVariable String id, HttpServletRequest request,
+                                  HttpServletResponse response) throws IOException {
+        ExportJob job;
+        Path file;
         try {
-            var orders = orderService.getAllOrders();
-            String htmlContent = generateOrdersReportHTML(orders);
-            byte[] pdfData = pdfService.generateOrdersReportPDF(htmlContent);
-            
-            String filename = "orders_report_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".pdf";
-            
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
-                    .contentType(MediaType.APPLICATION_PDF)
-                    .body(pdfData);
-        } catch (IOException e) {
-            return ResponseEntity.internalServerError().build();
+            job = exportJobService.getJob(id);
+            file = exportJobService.getFile(id);
+        } catch (RuntimeException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
         }
+        sendFile(file, job.getContentType(), job.getFilename(), request, response);
     }
 
+    // Laid out and written page by page as orders are read; see PDFService.writeOrdersReportPDF
+    @GetMapping("/orders/pdf")
+    public ResponseEntity<StreamingResponseBody> exportOrdersToPDF(@ModelAttribute ExportFilter filter) {
+        ExportDataset.ORDERS.checkFilter(filter);
+        String filename = "orders_report_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".pdf";
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .contentType(MediaType.APPLICATION_PDF)
+                .body(out -> pdfService.writeOrdersReportPDF(filter, out));
+    }
+
+    // Served from the invoice cache; rendered only when the order has changed since the cached copy
     @GetMapping("/order/{id}/invoice/pdf")
-    public ResponseEntity<byte[]> exportOrderInvoiceToPDF(@PathVariable Long id) {
+    public void exportOrderInvoiceToPDF(@PathVariable Long id, HttpServletRequest request,
+                                        HttpServletResponse response) throws IOException {
+        Order order;
+        try {
+            order = orderService.getOrderById(id);
+        } catch (RuntimeException e) {
+            order = null;
+        }
+        if (order == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "Order not found");
+            return;
+        }
+
+        // Held open while sending, since the cache may evict or replace the file meanwhile. That rules
+        // out sendfile, which reopens the file by name, so this is a buffered copy
+        FileChannel invoice;
         try {
-            Order order = orderService.getOrderById(id);
-            byte[] pdfData = pdfService.generateOrderInvoicePDF(order);
-            
-            String filename = "invoice_" + order.getOrderNumber() + "_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".pdf";
-            
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
-                    .contentType(MediaType.APPLICATION_PDF)
-                    .body(pdfData);
+            invoice = invoiceCacheService.openInvoice(order);
         } catch (Exception e) {
-            return ResponseEntity.internalServerError().build();
+            response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            return;
+        }
+        String filename = "invoice_" + order.getOrderNumber() + "_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".pdf";
+        try (invoice) {
+            long size = invoice.size();
+            setFileHeaders(response, MediaType.APPLICATION_PDF_VALUE, filename, size);
+            transfer(invoice, size, response);
         }
     }
 
-    private String generateOrdersReportHTML(java.util.List<Order> orders) {
-        StringBuilder html = new StringBuilder();
-        html.append("<!DOCTYPE html>");
-        html.append("<html><head>");
-        html.append("<meta charset='UTF-8'>");
-        html.append("<title>Orders Report</title>");
-        html.append("<style>");
-        html.append("body { font-family: Arial, sans-serif; margin: 20px; }");
-        html.append(".header { text-align: center; margin-bottom: 30px; }");
-        html.append("table { width: 100%; border-collapse: collapse; margin-bottom: 30px; }");
-        html.append("th, td { border: 1px solid #ddd; padding: 8px; text-align: left; }");
-        html.append("th { background-color: #f2f2f2; }");
-        html.append(".summary { margin-top: 30px; }");
-        html.append("</style>");
-        html.append("</head><body>");
-
-        // Header
-        html.append("<div class='header'>");
-        html.append("<h1>E-Commerce Store</h1>");
-        html.append("<h2>Orders Report</h2>");
-        html.append("<p>Generated on: ").append(LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"))).append("</p>");
-        html.append("</div>");
-
-        // Orders table
-        html.append("<table>");
-        html.append("<thead><tr>");
-        html.append("<th>Order Number</th><th>Customer</th><th>Amount</th><th>Status</th><th>Payment</th><th>Date</th>");
-        html.append("</tr></thead><tbody>");
-
-        double totalRevenue = 0;
-        for (Order order : orders) {
-            html.append("<tr>");
-            html.append("<td>").append(order.getOrderNumber()).append("</td>");
-            html.append("<td>").append(order.getUser().getFullName()).append("</td>");
-            html.append("<td>₹").append(String.format("%.2f", order.getTotalAmount())).append("</td>");
-            html.append("<td>").append(order.getStatus()).append("</td>");
-            html.append("<td>").append(order.getPaymentStatus()).append("</td>");
-            html.append("<td>").append(order.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"))).append("</td>");
-            html.append("</tr>");
-            
-            if (order.getPaymentStatus().name().equals("COMPLETED")) {
-                totalRevenue += order.getTotalAmount().doubleValue();
-            }
+    /**
+     * Invoices of every order matching the admin order search filters, as a ZIP. A date
+     * range or a status is required so an unfiltered click cannot archive the whole history.
+     */
+    @GetMapping("/invoices/zip")
+    public ResponseEntity<StreamingResponseBody> exportInvoicesZip(@ModelAttribute OrderSearchCriteria criteria) {
+        if (criteria.getFromDate() == null && criteria.getToDate() == null
+                && criteria.getStatus() == null && criteria.getPaymentStatus() == null) {
+            return ResponseEntity.badRequest().build();
         }
+        String filename = "invoices_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".zip";
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .body(out -> bulkInvoiceService.writeInvoicesZip(criteria, out));
+    }
+
+    /**
+     * Sends a file from local disk. When Tomcat's connector supports sendfile(2) it sends the
+     * file after the handler returns, without copying it through the heap; otherwise it is
+     * a buffered copy through {@link #transfer}.
+     */
+    private void sendFile(Path file, String contentType, String filename, HttpServletRequest request,
+                          HttpServletResponse response) throws IOException {
+        long size = Files.size(file);
+        setFileHeaders(response, contentType, filename, size);
+
+        if (Boolean.TRUE.equals(request.getAttribute("org.apache.tomcat.sendfile.support"))) {
+            request.setAttribute("org.apache.tomcat.sendfile.filename", file.toAbsolutePath().toString());
+            request.setAttribute("org.apache.tomcat.sendfile.start", 0L);
+            request.setAttribute("org.apache.tomcat.sendfile.end", size);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            transfer(channel, size, response);
+        }
+    }
 
-        html.append("</tbody></table>");
+    private static void setFileHeaders(HttpServletResponse response, String contentType, String filename, long size) {
+        response.setContentType(contentType);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
+        response.setContentLengthLong(size);
+    }
 
-        // Summary
-        html.append("<div class='summary'>");
-        html.append("<h3>Summary</h3>");
-        html.append("<p><strong>Total Orders:</strong> ").append(orders.size()).append("</p>");
-        html.append("<p><strong>Total Revenue:</strong> ₹").append(String.format("%.2f", totalRevenue)).append("</p>");
-        html.append("</div>");
+    // The servlet output stream is not a channel, so transferTo copies through a heap buffer here
+    private static void transfer(FileChannel channel, long size, HttpServletResponse response) throws IOException {
+        WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+        long position = 0;
+        while (position < size) {
+            position += channel.transferTo(position, size - position, target);
+        }
+    }
 
-        html.append("</body></html>");
-        return html.toString();
+    // The workbook is written to the response on an async thread as rows are read, never held in memory
+    private ResponseEntity<StreamingResponseBody> excelResponse(String filenamePrefix, StreamingResponseBody body) {
+        String filename = filenamePrefix + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".xlsx";
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .body(body);
     }
 }
@@ -27,23 +27,25 @@ public class OrderController {
                         Model model, Authentication authentication) {
         User user = (User) authentication.getPrincipal();
         Pageable pageable = PageRequest.of(page, size);
-        Page<Order> orders = orderService.getOrdersByUser(user.getId(), pageable);
+        Page<OrderSummary> orders = orderService.getOrderSummariesByUser(user.getId(), pageable);
         
         model.addAttribute("orders", orders);
         return "orders";
     }
 
     @GetMapping("/{id}")
-    public String orderDetail(@PathVariable Long id, Model model, Authentication authentication) {
-        User user = (User) authentication.getPrincipal();
-        Order order = orderService.getOrderById(id);
-        
-        if (!order.getUser().getId().equals(user.getId())) {
+    public String orderDetail(@PathVariable Long id, Model model, Authentication authentication,
+                              RedirectAttributes redirectAttributes) {
+        try {
+            User user = (User) authentication.getPrincipal();
+            Order order = orderService.getOrderDetailForUser(id, user.getId());
+            
+            model.addAttribute("order", order);
+            return "order-detail";
+        } catch (RuntimeException e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
             return "redirect:/orders";
         }
-        
-        model.addAttribute("order", order);
-        return "order-detail";
     }
 
     @PostMapping("/{id}/cancel")
@@ -3,8 +3,11 @@ package com.example.E_Commerce.controller;
 import com.example.E_Commerce.model.Order;
 import com.example.E_Commerce.model.PaymentStatus;
 import com.example.E_Commerce.model.User;
+import com.example.E_Commerce.service.GatewayUnavailableException;
+import com.example.E_Commerce.service.IdempotencyService;
 import com.example.E_Commerce.service.OrderService;
 import com.example.E_Commerce.service.PaymentService;
+import com.example.E_Commerce.service.RequestInProgressException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
@@ -28,6 +31,9 @@ public class PaymentController {
     @Autowired
     private PaymentService paymentService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
     @GetMapping("/{orderId}")
     public String showPaymentPage(@PathVariable Long orderId, Model model, Authentication authentication) {
         try {
@@ -44,7 +50,16 @@ public class PaymentController {
                 return "redirect:/orders";
             }
             
-            String paymentSessionId = paymentService.createPaymentSession(order);
+            String paymentSessionId;
+            try {
+                paymentSessionId = paymentService.createPaymentSession(order);
+            } catch (GatewayUnavailableException e) {
+                // Nothing reached the gateway; the page only offers to try again
+                model.addAttribute("order", order);
+                model.addAttribute("error", e.getMessage());
+                model.addAttribute("gatewayUnavailable", true);
+                return "payment";
+            }
             logger.info("Payment session created: {}", paymentSessionId);
             
             model.addAttribute("order", order);
@@ -66,21 +81,24 @@ public class PaymentController {
                               @RequestParam String paymentId,
                               Authentication authentication,
                               RedirectAttributes redirectAttributes) {
+        Order order;
+        try {
+            order = orderService.getOrderById(Long.parseLong(orderId));
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("error", "Payment verification failed");
+            return "redirect:/orders";
+        }
         try {
             User user = (User) authentication.getPrincipal();
-            Order order = orderService.getOrderById(Long.parseLong(orderId));
-            
             if (!order.getUser().getId().equals(user.getId())) {
                 redirectAttributes.addFlashAttribute("error", "Unauthorized access");
                 return "redirect:/orders";
             }
             
             // Verify payment with Cashfree
-            boolean isPaymentValid = paymentService.verifyPayment(orderId, paymentId);
+            Long confirmedOrderId = confirmPayment(order, orderId, paymentId);
             
-            if (isPaymentValid) {
-                orderService.updatePaymentStatus(order.getId(), PaymentStatus.COMPLETED);
-                orderService.updateRazorpayPaymentId(order.getId(), paymentId); // Reusing field for Cashfree payment ID
+            if (confirmedOrderId != null) {
                 redirectAttributes.addFlashAttribute("success", "Payment successful! Order confirmed.");
                 return "redirect:/orders/" + order.getId();
             } else {
@@ -89,6 +107,10 @@ public class PaymentController {
                 return "redirect:/checkout/payment/" + order.getId();
             }
             
+        } catch (RequestInProgressException e) {
+            // The same payment is still being confirmed by an earlier callback
+            redirectAttributes.addFlashAttribute("success", "Your payment is being confirmed.");
+            return "redirect:/orders/" + order.getId();
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("error", "Payment verification failed");
             return "redirect:/orders";
@@ -127,12 +149,10 @@ public class PaymentController {
                 if (order.getUser().getId().equals(user.getId())) {
                     // Verify payment with Cashfree API
                     logger.info("Verifying payment with Cashfree API");
-                    boolean isPaymentValid = paymentService.verifyPayment(actualOrderId, actualPaymentId);
+                    Long confirmedOrderId = confirmPayment(order, actualOrderId, actualPaymentId);
                     
-                    if (isPaymentValid) {
+                    if (confirmedOrderId != null) {
                         logger.info("Payment verified successfully with Cashfree");
-                        orderService.updatePaymentStatus(order.getId(), PaymentStatus.COMPLETED);
-                        orderService.updateRazorpayPaymentId(order.getId(), actualPaymentId);
                         redirectAttributes.addFlashAttribute("success", "Payment successful! Order confirmed.");
                         return "redirect:/orders/" + order.getId();
                     } else {
@@ -156,6 +176,9 @@ public class PaymentController {
             redirectAttributes.addFlashAttribute("success", "Payment completed! Please check your orders for confirmation.");
             return "redirect:/orders";
             
+        } catch (RequestInProgressException e) {
+            redirectAttributes.addFlashAttribute("success", "Your payment is being confirmed. Please check your orders shortly.");
+            return "redirect:/orders";
         } catch (Exception e) {
             logger.error("Payment success processing failed: {}", e.getMessage(), e);
             redirectAttributes.addFlashAttribute("error", "Payment processing failed");
@@ -163,6 +186,20 @@ public class PaymentController {
         }
     }
 
+    // Verifies the payment and confirms the order once per payment id; a refreshed or
+    // replayed callback returns the earlier confirmation without calling Cashfree again
+    private Long confirmPayment(Order order, String gatewayOrderId, String paymentId) {
+        return idempotencyService.execute(IdempotencyService.PAYMENT_VERIFICATION_SCOPE,
+                order.getId() + ":" + paymentId, () -> {
+                    if (!paymentService.verifyPayment(gatewayOrderId, paymentId)) {
+                        return null;
+                    }
+                    orderService.updatePaymentStatus(order.getId(), PaymentStatus.COMPLETED);
+                    orderService.updateRazorpayPaymentId(order.getId(), paymentId); // Reusing field for Cashfree payment ID
+                    return order.getId();
+                });
+    }
+
     @GetMapping("/test/{orderId}")
     public String testPayment(@PathVariable Long orderId, Model model, Authentication authentication) {
         try {
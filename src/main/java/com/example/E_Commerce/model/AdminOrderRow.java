@@ -0,0 +1,28 @@
+package com.example.E_Commerce.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One row of the admin order list. Built from a page of orders with their customer
+ * plus one grouped item count, so the list never touches order items or products.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AdminOrderRow {
+
+    private Long id;
+    private String orderNumber;
+    private String customerName;
+    private String customerEmail;
+    private Long itemCount;
+    private BigDecimal totalAmount;
+    private OrderStatus status;
+    private PaymentStatus paymentStatus;
+    private LocalDateTime createdAt;
+}
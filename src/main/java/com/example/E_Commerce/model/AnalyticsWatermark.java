@@ -0,0 +1,29 @@
+package com.example.E_Commerce.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Highest order id an incremental analytics job has folded into its results.
+ */
+@Entity
+@Table(name = "analytics_watermarks")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalyticsWatermark {
+
+    @Id
+    @Column(name = "job_name", length = 50)
+    private String jobName;
+
+    @Column(name = "last_order_id", nullable = false)
+    private Long lastOrderId;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,20 @@
+package com.example.E_Commerce.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Paid revenue of one product category over a reporting period, read from the rollups.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryRevenue {
+
+    private ProductCategory category;
+    private BigDecimal revenue;
+    private Long orderCount;
+}
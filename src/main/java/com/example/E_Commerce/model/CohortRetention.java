@@ -0,0 +1,45 @@
+package com.example.E_Commerce.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Number of customers of a monthly cohort who placed a paid order {@code monthOffset}
+ * months after their first one. Offset 0 is the cohort's size.
+ */
+@Entity
+@Table(name = "cohort_retention", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_cohort_retention_cell", columnNames = {"cohort_month", "month_offset"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CohortRetention {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "cohort_month", nullable = false)
+    private LocalDate cohortMonth;
+
+    @Column(name = "month_offset", nullable = false)
+    private Integer monthOffset;
+
+    @Column(name = "active_customers", nullable = false)
+    private Long activeCustomers = 0L;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.E_Commerce.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * One monthly cohort's retention curve: active customers for each month after the first,
+ * starting with the cohort's size at offset 0.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CohortRetentionRow {
+
+    private LocalDate cohortMonth;
+    private List<Long> activeByOffset;
+
+    public long getCustomers() {
+        return activeByOffset.isEmpty() ? 0 : activeByOffset.get(0);
+    }
+
+    public double getRetention(int monthOffset) {
+        long customers = getCustomers();
+        if (customers == 0 || monthOffset >= activeByOffset.size()) {
+            return 0;
+        }
+        return 100.0 * activeByOffset.get(monthOffset) / customers;
+    }
+}
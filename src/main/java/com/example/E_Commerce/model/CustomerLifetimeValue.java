@@ -0,0 +1,57 @@
+package com.example.E_Commerce.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Paid order totals of one customer, maintained by the customer analytics job.
+ * The cohort is the month of the customer's first paid order.
+ */
+@Entity
+@Table(name = "customer_lifetime_value", indexes = {
+    @Index(name = "idx_clv_lifetime_value", columnList = "lifetime_value"),
+    @Index(name = "idx_clv_cohort_month", columnList = "cohort_month")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerLifetimeValue {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount = 0L;
+
+    @Column(name = "lifetime_value", precision = 15, scale = 2, nullable = false)
+    private BigDecimal lifetimeValue = BigDecimal.ZERO;
+
+    @Column(name = "first_order_at", nullable = false)
+    private LocalDateTime firstOrderAt;
+
+    @Column(name = "last_order_at", nullable = false)
+    private LocalDateTime lastOrderAt;
+
+    @Column(name = "cohort_month", nullable = false)
+    private LocalDate cohortMonth;
+
+    // Latest month with a paid order, so a later run knows whether a month is new for the customer
+    @Column(name = "last_active_month", nullable = false)
+    private LocalDate lastActiveMonth;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
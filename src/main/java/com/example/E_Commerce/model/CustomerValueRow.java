@@ -0,0 +1,34 @@
+package com.example.E_Commerce.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * One customer's lifetime value and order frequency, as shown on the admin reports page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerValueRow {
+
+    private Long userId;
+    private String username;
+    private String email;
+    private Long orderCount;
+    private BigDecimal lifetimeValue;
+    private LocalDateTime firstOrderAt;
+    private LocalDateTime lastOrderAt;
+
+    /**
+     * Paid orders per month between the first and last order, counting at least one month.
+     */
+    public double getOrdersPerMonth() {
+        long months = Math.max(1, ChronoUnit.MONTHS.between(firstOrderAt, lastOrderAt) + 1);
+        return (double) orderCount / months;
+    }
+}
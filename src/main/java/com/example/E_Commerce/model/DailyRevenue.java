@@ -0,0 +1,22 @@
+package com.example.E_Commerce.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Paid revenue and distinct paid orders across all categories on one day, read from the
+ * daily totals rollup.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyRevenue {
+
+    private LocalDate date;
+    private BigDecimal revenue;
+    private Long orderCount;
+}
@@ -0,0 +1,34 @@
+package com.example.E_Commerce.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One frame of the live admin dashboard stream.
+ *
+ * Carries the current totals, so a client that missed frames is correct again after the
+ * next one, plus what changed since the previous frame.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DashboardFrame {
+
+    private long totalOrders;
+    private BigDecimal totalRevenue;
+    private Map<OrderStatus, Long> ordersByStatus;
+
+    private long newOrders;
+    private BigDecimal revenueDelta;
+    // Net change per status since the previous frame; statuses that did not move are left out
+    private Map<OrderStatus, Long> statusChanges;
+    private List<LowStockAlert> lowStock;
+
+    private LocalDateTime emittedAt;
+}
@@ -0,0 +1,32 @@
+package com.example.E_Commerce.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Headline figures for the admin dashboard and reports pages, computed with aggregate
+ * queries and served from a short-lived cache; see {@code DashboardStatsService}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DashboardStats {
+
+    private long totalProducts;
+    private long totalOrders;
+    private long totalUsers;
+    private BigDecimal totalRevenue;
+    private Map<OrderStatus, Long> ordersByStatus;
+    private List<AdminOrderRow> recentOrders;
+    private LocalDateTime computedAt;
+
+    public long getOrderCount(OrderStatus status) {
+        return ordersByStatus.getOrDefault(status, 0L);
+    }
+}
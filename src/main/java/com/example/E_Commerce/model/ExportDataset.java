@@ -0,0 +1,59 @@
+package com.example.E_Commerce.model;
+
+/**
+ * Tables available as flat file exports, with the columns each row carries in order and
+ * which {@link ExportFilter} fields apply to them.
+ */
+public enum ExportDataset {
+    ORDERS("orders", true, true, "id", "order_number", "user_id", "customer_email", "total_amount",
+            "status", "payment_status", "created_at", "updated_at"),
+    ORDER_LINES("order-lines", true, true, "id", "order_id", "order_number", "product_id", "product_name",
+            "category", "quantity", "unit_price", "subtotal", "ordered_at"),
+    PRODUCTS("products", false, true, "id", "name", "category", "price", "stock_quantity", "active", "created_at"),
+    USERS("users", false, false, "id", "username", "email", "first_name", "last_name", "role", "enabled", "created_at");
+
+    private final String slug;
+    private final boolean statusFilter;
+    private final boolean categoryFilter;
+    private final String[] columns;
+
+    ExportDataset(String slug, boolean statusFilter, boolean categoryFilter, String... columns) {
+        this.slug = slug;
+        this.statusFilter = statusFilter;
+        this.categoryFilter = categoryFilter;
+        this.columns = columns;
+    }
+
+    public String getSlug() {
+        return slug;
+    }
+
+    public String[] getColumns() {
+        return columns.clone();
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@code filter} uses a filter this dataset does not
+     *                                  support or its date range is reversed
+     */
+    public void checkFilter(ExportFilter filter) {
+        if (filter.getStatus() != null && !statusFilter) {
+            throw new IllegalArgumentException("The " + slug + " export cannot be filtered by order status");
+        }
+        if (filter.getCategory() != null && !categoryFilter) {
+            throw new IllegalArgumentException("The " + slug + " export cannot be filtered by category");
+        }
+        if (filter.getFromDate() != null && filter.getToDate() != null && filter.getFromDate().isAfter(filter.getToDate())) {
+            throw new IllegalArgumentException("The export date range ends before it starts");
+        }
+    }
+
+    public static ExportDataset fromSlug(String slug) {
+        for (ExportDataset dataset : values()) {
+            if (dataset.slug.equals(slug)) {
+                return dataset;
+            }
+        }
+        throw new IllegalArgumentException("Unknown export: " + slug);
+    }
+}
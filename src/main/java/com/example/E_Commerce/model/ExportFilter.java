@@ -0,0 +1,42 @@
+package com.example.E_Commerce.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Optional filters for exports, pushed down into the export queries. The date range is
+ * inclusive of both days and applies to the order date for order datasets and to the
+ * creation date otherwise. Not every dataset supports every filter; see
+ * {@link ExportDataset#checkFilter(ExportFilter)}.
+ */
+@Data
+@NoArgsConstructor
+public class ExportFilter {
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate fromDate;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate toDate;
+
+    private OrderStatus status;
+    private ProductCategory category;
+
+    // Start of the range, or null when unbounded
+    public LocalDateTime getFrom() {
+        return fromDate != null ? fromDate.atStartOfDay() : null;
+    }
+
+    // Exclusive end of the range, or null when unbounded
+    public LocalDateTime getUntil() {
+        return toDate != null ? toDate.plusDays(1).atStartOfDay() : null;
+    }
+
+    public boolean isEmpty() {
+        return fromDate == null && toDate == null && status == null && category == null;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.E_Commerce.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A background export as reported to the admin polling for it. Held in memory by
+ * {@code ExportJobService}; the worker thread updates the volatile fields while requests read them.
+ */
+@Data
+@NoArgsConstructor
+public class ExportJob {
+
+    private String id;
+    private String description;
+    private String filename;
+    private String contentType;
+    private String requestedBy;
+    private LocalDateTime createdAt;
+
+    private volatile ExportJobStatus status;
+    private volatile long bytesWritten;
+    private volatile String error;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+
+    public boolean isFinished() {
+        return status == ExportJobStatus.COMPLETED || status == ExportJobStatus.FAILED;
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.E_Commerce.model;
+
+public enum ExportJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,6 @@
+package com.example.E_Commerce.model;
+
+public enum IdempotencyStatus {
+    IN_PROGRESS,
+    COMPLETED
+}
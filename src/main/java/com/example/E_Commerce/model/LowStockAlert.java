@@ -0,0 +1,18 @@
+package com.example.E_Commerce.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A product whose stock fell to or below the live dashboard's low-stock threshold.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LowStockAlert {
+
+    private Long productId;
+    private String name;
+    private Integer stockQuantity;
+}
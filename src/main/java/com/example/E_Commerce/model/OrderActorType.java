@@ -0,0 +1,8 @@
+package com.example.E_Commerce.model;
+
+// Persisted by ordinal in order_status_events: append new constants at the end
+public enum OrderActorType {
+    SYSTEM,
+    CUSTOMER,
+    ADMIN
+}
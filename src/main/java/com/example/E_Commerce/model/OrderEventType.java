@@ -0,0 +1,12 @@
+package com.example.E_Commerce.model;
+
+public enum OrderEventType {
+    CREATED,
+    PAID,
+    CANCELLED,
+    // A completed payment that was refunded or failed afterwards while the order still stood
+    PAYMENT_REVERSED,
+    STATUS_CHANGED,
+    // A timeline entry, written to order_status_events by the relay
+    STATUS_RECORDED
+}
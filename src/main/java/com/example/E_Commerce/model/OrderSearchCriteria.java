@@ -0,0 +1,35 @@
+package com.example.E_Commerce.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+/**
+ * Filters for the admin order search. Every field is optional; blank text fields are
+ * treated as absent. The date range is inclusive of both days.
+ */
+@Data
+@NoArgsConstructor
+public class OrderSearchCriteria {
+
+    private String orderNumber;
+    private String email;
+    private OrderStatus status;
+    private PaymentStatus paymentStatus;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate fromDate;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate toDate;
+
+    public boolean hasOrderNumber() {
+        return orderNumber != null && !orderNumber.isBlank();
+    }
+
+    public boolean hasEmail() {
+        return email != null && !email.isBlank();
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.E_Commerce.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry of the append-only order timeline: a change of order status, payment status
+ * or both, with when it happened and who caused it. A null "to" column means that value
+ * did not change.
+ *
+ * Rows are kept narrow for very large volumes: enums are stored by ordinal and the actor
+ * as a type plus user id. Ids come from the Snowflake order number generator, so they are
+ * assigned without a database round trip, grow with time (rows append at the end of the
+ * primary key and the table can be range-partitioned by id) and travel with the outbox
+ * event that carries the entry, so a redelivered event is not inserted twice.
+ */
+@Entity
+@Table(name = "order_status_events", indexes = {
+    @Index(name = "idx_order_status_events_order", columnList = "order_id, id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusEvent implements Persistable<Long> {
+
+    @Id
+    private Long id;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+
+    @Enumerated(EnumType.ORDINAL)
+    @Column(name = "status_from")
+    private OrderStatus statusFrom;
+
+    @Enumerated(EnumType.ORDINAL)
+    @Column(name = "status_to")
+    private OrderStatus statusTo;
+
+    @Enumerated(EnumType.ORDINAL)
+    @Column(name = "payment_from")
+    private PaymentStatus paymentFrom;
+
+    @Enumerated(EnumType.ORDINAL)
+    @Column(name = "payment_to")
+    private PaymentStatus paymentTo;
+
+    @Enumerated(EnumType.ORDINAL)
+    @Column(name = "actor_type", nullable = false)
+    private OrderActorType actorType;
+
+    @Column(name = "actor_id")
+    private Long actorId;
+
+    // Events are only ever inserted, so skip the existence check Spring Data does for assigned ids
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
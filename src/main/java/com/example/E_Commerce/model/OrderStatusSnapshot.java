@@ -0,0 +1,22 @@
+package com.example.E_Commerce.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Order and payment status as rebuilt by replaying an order's status events.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusSnapshot {
+
+    private Long orderId;
+    private OrderStatus status;
+    private PaymentStatus paymentStatus;
+    private LocalDateTime lastChangedAt;
+    private int eventCount;
+}
@@ -0,0 +1,8 @@
+package com.example.E_Commerce.model;
+
+public enum OutboxStatus {
+    PENDING,
+    IN_FLIGHT,
+    DISPATCHED,
+    FAILED
+}
@@ -1,5 +1,6 @@
 package com.example.E_Commerce.model;
 
+// Persisted by ordinal in order_status_events: append new constants at the end
 public enum PaymentStatus {
     PENDING,
     COMPLETED,
@@ -44,6 +44,11 @@ public class Product {
     @Column(name = "stock_quantity")
     private Integer stockQuantity = 0;
     
+    // Number of stock shards for flash-sale products; null or 0 keeps stock in stock_quantity.
+    // While sharded, stock_quantity is a periodically refreshed snapshot of the shard total.
+    @Column(name = "stock_shards")
+    private Integer stockShards;
+    
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private ProductCategory category;
@@ -67,4 +72,8 @@ public class Product {
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
     }
+    
+    public boolean isStockSharded() {
+        return stockShards != null && stockShards > 0;
+    }
 }
@@ -0,0 +1,7 @@
+package com.example.E_Commerce.model;
+
+public enum ReservationStatus {
+    HELD,
+    COMMITTED,
+    RELEASED
+}
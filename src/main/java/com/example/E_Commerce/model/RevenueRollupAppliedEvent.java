@@ -0,0 +1,29 @@
+package com.example.E_Commerce.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outbox event already folded into the revenue rollups, so a redelivered event is not
+ * counted twice. Kept for as long as dispatched outbox events are.
+ */
+@Entity
+@Table(name = "revenue_rollup_applied_events", indexes = {
+    @Index(name = "idx_revenue_rollup_applied_at", columnList = "applied_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevenueRollupAppliedEvent {
+
+    @Id
+    @Column(name = "event_id")
+    private Long eventId;
+
+    @Column(name = "applied_at", nullable = false)
+    private LocalDateTime appliedAt;
+}
@@ -0,0 +1,50 @@
+package com.example.E_Commerce.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Paid revenue and order count for one product category on one day; the sum of that
+ * day's {@link RevenueRollupHourly} rows. Reports over long ranges read these.
+ */
+@Entity
+@Table(name = "revenue_rollup_daily", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_revenue_rollup_daily_bucket", columnNames = {"bucket_date", "category"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevenueRollupDaily {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "bucket_date", nullable = false)
+    private LocalDate bucketDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private ProductCategory category;
+
+    @Column(precision = 15, scale = 2, nullable = false)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount = 0L;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
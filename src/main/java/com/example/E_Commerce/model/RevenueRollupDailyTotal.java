@@ -0,0 +1,47 @@
+package com.example.E_Commerce.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Paid revenue and order count for one day across all categories. Kept alongside
+ * {@link RevenueRollupDaily} because summing its per-category counts would count an
+ * order spanning several categories more than once.
+ */
+@Entity
+@Table(name = "revenue_rollup_daily_totals", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_revenue_rollup_daily_totals_bucket", columnNames = {"bucket_date"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevenueRollupDailyTotal {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "bucket_date", nullable = false)
+    private LocalDate bucketDate;
+
+    @Column(precision = 15, scale = 2, nullable = false)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount = 0L;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
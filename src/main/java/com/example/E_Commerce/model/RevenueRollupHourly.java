@@ -0,0 +1,49 @@
+package com.example.E_Commerce.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Paid revenue and order count for one product category in one hour, bucketed by the
+ * order's creation time. An order spanning several categories counts once in each.
+ */
+@Entity
+@Table(name = "revenue_rollup_hourly", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_revenue_rollup_hourly_bucket", columnNames = {"bucket_start", "category"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevenueRollupHourly {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private ProductCategory category;
+
+    @Column(precision = 15, scale = 2, nullable = false)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount = 0L;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -17,7 +17,10 @@ import java.util.Collection;
 import java.util.List;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+    @Index(name = "idx_users_role_created", columnList = "role, created_at"),
+    @Index(name = "idx_users_created", columnList = "created_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,25 @@
+package com.example.E_Commerce.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Filters for the admin user list. Username and email match by prefix; blank fields are
+ * treated as absent.
+ */
+@Data
+@NoArgsConstructor
+public class UserSearchCriteria {
+
+    private String username;
+    private String email;
+    private Role role;
+
+    public boolean hasUsername() {
+        return username != null && !username.isBlank();
+    }
+
+    public boolean hasEmail() {
+        return email != null && !email.isBlank();
+    }
+}
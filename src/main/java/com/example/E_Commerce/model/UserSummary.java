@@ -0,0 +1,31 @@
+package com.example.E_Commerce.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only view of an account for admin listings and exports. Selected column by column,
+ * so the password hash is never loaded and no managed entities are created.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSummary {
+
+    private Long id;
+    private String username;
+    private String email;
+    private String firstName;
+    private String lastName;
+    private String phoneNumber;
+    private Role role;
+    private boolean enabled;
+    private LocalDateTime createdAt;
+
+    public String getFullName() {
+        return firstName + " " + lastName;
+    }
+}
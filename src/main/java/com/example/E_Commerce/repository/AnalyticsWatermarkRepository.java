@@ -0,0 +1,9 @@
+package com.example.E_Commerce.repository;
+
+import com.example.E_Commerce.model.AnalyticsWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface AnalyticsWatermarkRepository extends JpaRepository<AnalyticsWatermark, String> {
+}
@@ -0,0 +1,26 @@
+package com.example.E_Commerce.repository;
+
+import com.example.E_Commerce.model.CohortRetention;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface CohortRetentionRepository extends JpaRepository<CohortRetention, Long> {
+
+    @Modifying
+    @Query("UPDATE CohortRetention r SET r.activeCustomers = r.activeCustomers + :customers, r.updatedAt = :now " +
+           "WHERE r.cohortMonth = :cohortMonth AND r.monthOffset = :monthOffset")
+    int addToCell(@Param("cohortMonth") LocalDate cohortMonth,
+                  @Param("monthOffset") int monthOffset,
+                  @Param("customers") long customers,
+                  @Param("now") LocalDateTime now);
+
+    List<CohortRetention> findByCohortMonthGreaterThanEqualOrderByCohortMonthAscMonthOffsetAsc(LocalDate cohortMonth);
+}
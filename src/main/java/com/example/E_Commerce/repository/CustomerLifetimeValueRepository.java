@@ -0,0 +1,19 @@
+package com.example.E_Commerce.repository;
+
+import com.example.E_Commerce.model.CustomerLifetimeValue;
+import com.example.E_Commerce.model.CustomerValueRow;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface CustomerLifetimeValueRepository extends JpaRepository<CustomerLifetimeValue, Long> {
+
+    @Query("SELECT new com.example.E_Commerce.model.CustomerValueRow(c.userId, u.username, u.email, c.orderCount, " +
+           "c.lifetimeValue, c.firstOrderAt, c.lastOrderAt) " +
+           "FROM CustomerLifetimeValue c JOIN User u ON u.id = c.userId ORDER BY c.lifetimeValue DESC")
+    List<CustomerValueRow> findTopByLifetimeValue(Pageable pageable);
+}
@@ -0,0 +1,98 @@
+package com.example.E_Commerce.repository;
+
+import com.example.E_Commerce.model.ExportDataset;
+import com.example.E_Commerce.model.ExportFilter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Forward-only scalar reads for the flat file exports.
+ *
+ * Each dataset is one JPQL projection returning plain column values in
+ * {@link ExportDataset#getColumns()} order, so no entities are hydrated. Filters become
+ * WHERE conditions of that same query, so the database only returns matching rows. Rows
+ * are pulled from the open JDBC result set as the stream is consumed, {@code fetchSize} at
+ * a time; callers must consume the stream inside a transaction and close it.
+ */
+@Repository
+public class ExportRowRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public Stream<Object[]> streamRows(ExportDataset dataset, ExportFilter filter, int fetchSize) {
+        QueryParts parts = partsFor(dataset);
+        StringBuilder jpql = new StringBuilder(parts.select());
+        List<String> conditions = new ArrayList<>();
+        if (filter.getFrom() != null) {
+            conditions.add(parts.dateColumn() + " >= :from");
+        }
+        if (filter.getUntil() != null) {
+            conditions.add(parts.dateColumn() + " < :until");
+        }
+        if (filter.getStatus() != null) {
+            conditions.add(parts.statusCondition());
+        }
+        if (filter.getCategory() != null) {
+            conditions.add(parts.categoryCondition());
+        }
+        if (!conditions.isEmpty()) {
+            jpql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        jpql.append(" ORDER BY ").append(parts.orderBy());
+
+        TypedQuery<Object[]> query = entityManager.createQuery(jpql.toString(), Object[].class);
+        if (filter.getFrom() != null) {
+            query.setParameter("from", filter.getFrom());
+        }
+        if (filter.getUntil() != null) {
+            query.setParameter("until", filter.getUntil());
+        }
+        if (filter.getStatus() != null) {
+            query.setParameter("status", filter.getStatus());
+        }
+        if (filter.getCategory() != null) {
+            query.setParameter("category", filter.getCategory());
+        }
+        return query.setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    public void clear() {
+        entityManager.clear();
+    }
+
+    // Unsupported filters are rejected by ExportDataset.checkFilter, so their conditions are null
+    private record QueryParts(String select, String dateColumn, String statusCondition,
+                              String categoryCondition, String orderBy) {
+    }
+
+    private static QueryParts partsFor(ExportDataset dataset) {
+        return switch (dataset) {
+            case ORDERS -> new QueryParts(
+                    "SELECT o.id, o.orderNumber, u.id, u.email, o.totalAmount, o.status, o.paymentStatus, " +
+                    "o.createdAt, o.updatedAt FROM Order o JOIN o.user u",
+                    "o.createdAt", "o.status = :status",
+                    "EXISTS (SELECT 1 FROM OrderItem ci WHERE ci.order = o AND ci.product.category = :category)",
+                    "o.id");
+            case ORDER_LINES -> new QueryParts(
+                    "SELECT i.id, o.id, o.orderNumber, p.id, p.name, p.category, i.quantity, i.unitPrice, " +
+                    "i.subtotal, o.createdAt FROM OrderItem i JOIN i.order o JOIN i.product p",
+                    "o.createdAt", "o.status = :status", "p.category = :category", "i.id");
+            case PRODUCTS -> new QueryParts(
+                    "SELECT p.id, p.name, p.category, p.price, p.stockQuantity, p.active, p.createdAt FROM Product p",
+                    "p.createdAt", null, "p.category = :category", "p.id");
+            case USERS -> new QueryParts(
+                    "SELECT u.id, u.username, u.email, u.firstName, u.lastName, u.role, u.enabled, u.createdAt FROM User u",
+                    "u.createdAt", null, null, "u.id");
+        };
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.E_Commerce.repository;
+
+import com.example.E_Commerce.model.InventoryReservation;
+import com.example.E_Commerce.model.ReservationStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface InventoryReservationRepository extends JpaRepository<InventoryReservation, Long> {
+
+    List<InventoryReservation> findByOrderIdAndStatus(Long orderId, ReservationStatus status);
+
+    boolean existsByOrderIdAndStatus(Long orderId, ReservationStatus status);
+
+    // Locked rows held by another node's sweep are skipped rather than waited on (lock timeout -2 = SKIP LOCKED)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT r FROM InventoryReservation r WHERE r.status = :status AND r.expiresAt < :now ORDER BY r.expiresAt")
+    List<InventoryReservation> findExpiredForUpdate(@Param("status") ReservationStatus status,
+                                                    @Param("now") LocalDateTime now,
+                                                    Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT r FROM InventoryReservation r WHERE r.orderId IN :orderIds AND r.status = :status ORDER BY r.id")
+    List<InventoryReservation> findByOrderIdInAndStatusForUpdate(@Param("orderIds") Collection<Long> orderIds,
+                                                                 @Param("status") ReservationStatus status);
+
+    @Query("SELECT DISTINCT r.orderId FROM InventoryReservation r WHERE r.orderId IN :orderIds")
+    List<Long> findOrderIdsWithReservations(@Param("orderIds") Collection<Long> orderIds);
+
+    @Query("SELECT r.orderId, COUNT(r) FROM InventoryReservation r WHERE r.orderId IN :orderIds AND r.status = :status GROUP BY r.orderId")
+    List<Object[]> countByOrderIdInAndStatus(@Param("orderIds") Collection<Long> orderIds,
+                                             @Param("status") ReservationStatus status);
+
+    @Modifying
+    @Query("UPDATE InventoryReservation r SET r.status = :to, r.updatedAt = :now WHERE r.orderId = :orderId AND r.status = :from")
+    int transitionByOrderId(@Param("orderId") Long orderId,
+                            @Param("from") ReservationStatus from,
+                            @Param("to") ReservationStatus to,
+                            @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE InventoryReservation r SET r.status = :to, r.updatedAt = :now WHERE r.id IN :ids AND r.status = :from")
+    int transitionByIds(@Param("ids") Collection<Long> ids,
+                        @Param("from") ReservationStatus from,
+                        @Param("to") ReservationStatus to,
+                        @Param("now") LocalDateTime now);
+
+    @Query("SELECT r.productId, SUM(r.quantity) FROM InventoryReservation r WHERE r.status = :status GROUP BY r.productId")
+    List<Object[]> sumQuantityByProduct(@Param("status") ReservationStatus status);
+}
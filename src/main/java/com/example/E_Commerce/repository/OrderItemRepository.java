@@ -2,9 +2,15 @@ package com.example.E_Commerce.repository;
 
 import com.example.E_Commerce.model.OrderItem;
 import com.example.E_Commerce.model.Order;
+import com.example.E_Commerce.model.OrderStatus;
+import com.example.E_Commerce.model.PaymentStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -13,4 +19,31 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     List<OrderItem> findByOrder(Order order);
     
     void deleteByOrder(Order order);
+    
+    @Query("SELECT i.product.id, SUM(i.quantity) FROM OrderItem i WHERE i.order.id IN :orderIds GROUP BY i.product.id")
+    List<Object[]> sumQuantityByProductForOrders(@Param("orderIds") Collection<Long> orderIds);
+    
+    @Query("SELECT i.order.id, COUNT(i) FROM OrderItem i WHERE i.order.id IN :orderIds GROUP BY i.order.id")
+    List<Object[]> countByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+    
+    @Query("SELECT p.category, SUM(i.subtotal) FROM OrderItem i JOIN i.product p WHERE i.order.id = :orderId GROUP BY p.category")
+    List<Object[]> sumSubtotalByCategoryForOrder(@Param("orderId") Long orderId);
+    
+    // Revenue rollup backfill for one time partition: [hour of day, category, revenue, distinct orders]
+    @Query("SELECT EXTRACT(HOUR FROM o.createdAt), p.category, SUM(i.subtotal), COUNT(DISTINCT o.id) " +
+           "FROM OrderItem i JOIN i.order o JOIN i.product p " +
+           "WHERE o.createdAt >= :from AND o.createdAt < :to AND o.paymentStatus = :paymentStatus AND o.status <> :excludedStatus " +
+           "GROUP BY EXTRACT(HOUR FROM o.createdAt), p.category")
+    List<Object[]> sumRevenueByHourAndCategory(@Param("from") LocalDateTime from,
+                                               @Param("to") LocalDateTime to,
+                                               @Param("paymentStatus") PaymentStatus paymentStatus,
+                                               @Param("excludedStatus") OrderStatus excludedStatus);
+
+    // Revenue rollup backfill for one day across all categories: a single [revenue, distinct orders] row
+    @Query("SELECT COALESCE(SUM(i.subtotal), 0), COUNT(DISTINCT o.id) FROM OrderItem i JOIN i.order o " +
+           "WHERE o.createdAt >= :from AND o.createdAt < :to AND o.paymentStatus = :paymentStatus AND o.status <> :excludedStatus")
+    List<Object[]> sumRevenueForDay(@Param("from") LocalDateTime from,
+                                    @Param("to") LocalDateTime to,
+                                    @Param("paymentStatus") PaymentStatus paymentStatus,
+                                    @Param("excludedStatus") OrderStatus excludedStatus);
 }
@@ -2,21 +2,30 @@ package com.example.E_Commerce.repository;
 
 import com.example.E_Commerce.model.Order;
 import com.example.E_Commerce.model.OrderStatus;
+import com.example.E_Commerce.model.OrderSummary;
 import com.example.E_Commerce.model.PaymentStatus;
 import com.example.E_Commerce.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecificationExecutor<Order>, OrderRepositoryCustom {
     
     List<Order> findByUser(User user);
     
@@ -24,6 +33,23 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     
     List<Order> findByUserOrderByCreatedAtDesc(User user);
     
+    // Order history page: one grouped query per page, newest first with id as tie-breaker for a stable order
+    @Query(value = "SELECT new com.example.E_Commerce.model.OrderSummary(o.id, o.orderNumber, o.createdAt, " +
+                   "o.totalAmount, o.status, o.paymentStatus, COUNT(i)) " +
+                   "FROM Order o LEFT JOIN o.orderItems i WHERE o.user.id = :userId " +
+                   "GROUP BY o.id, o.orderNumber, o.createdAt, o.totalAmount, o.status, o.paymentStatus " +
+                   "ORDER BY o.createdAt DESC, o.id DESC",
+           countQuery = "SELECT COUNT(o) FROM Order o WHERE o.user.id = :userId")
+    Page<OrderSummary> findSummariesByUserId(@Param("userId") Long userId, Pageable pageable);
+    
+    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.orderItems i LEFT JOIN FETCH i.product " +
+           "WHERE o.id = :id AND o.user.id = :userId")
+    Optional<Order> findDetailByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+    
+    @Query("SELECT o FROM Order o JOIN FETCH o.user LEFT JOIN FETCH o.orderItems i LEFT JOIN FETCH i.product " +
+           "WHERE o.id = :id")
+    Optional<Order> findDetailById(@Param("id") Long id);
+    
     Optional<Order> findByOrderNumber(String orderNumber);
     
     Optional<Order> findByRazorpayOrderId(String razorpayOrderId);
@@ -41,6 +67,57 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     @Query("SELECT COUNT(o) FROM Order o WHERE o.status = :status")
     Long countByStatus(@Param("status") OrderStatus status);
     
+    @Query("SELECT o.status, COUNT(o) FROM Order o GROUP BY o.status")
+    List<Object[]> countGroupedByStatus();
+    
+    @Query("SELECT o.paymentStatus, COUNT(o) FROM Order o GROUP BY o.paymentStatus")
+    List<Object[]> countGroupedByPaymentStatus();
+    
+    @Query("SELECT SUM(o.totalAmount) FROM Order o WHERE o.paymentStatus = :paymentStatus")
+    BigDecimal sumTotalAmountByPaymentStatus(@Param("paymentStatus") PaymentStatus paymentStatus);
+    
+    // Newest orders with their customers; reads the top of idx_orders_created instead of sorting the table
+    @Query("SELECT o FROM Order o JOIN FETCH o.user ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findRecentWithUser(Pageable pageable);
+    
     @Query("SELECT SUM(o.totalAmount) FROM Order o WHERE o.paymentStatus = 'COMPLETED' AND o.createdAt BETWEEN :startDate AND :endDate")
     Double getTotalRevenue(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
+    
+    @Query("SELECT MIN(o.createdAt) FROM Order o")
+    LocalDateTime findEarliestCreatedAt();
+    
+    @Query("SELECT MAX(o.id) FROM Order o WHERE o.createdAt < :before")
+    Long findMaxIdCreatedBefore(@Param("before") LocalDateTime before);
+    
+    // (id, user id, total, created at) of paid, uncancelled orders in an id range, read by the analytics job
+    @Query("SELECT o.id, o.user.id, o.totalAmount, o.createdAt FROM Order o " +
+           "WHERE o.id > :afterId AND o.id <= :toId AND o.paymentStatus = :paymentStatus AND o.status <> :excludedStatus")
+    List<Object[]> findPaidOrderFactsInIdRange(@Param("afterId") long afterId,
+                                               @Param("toId") long toId,
+                                               @Param("paymentStatus") PaymentStatus paymentStatus,
+                                               @Param("excludedStatus") OrderStatus excludedStatus);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id IN :ids AND o.paymentStatus = :paymentStatus ORDER BY o.id")
+    List<Order> findByIdInAndPaymentStatusForUpdate(@Param("ids") Collection<Long> ids,
+                                                    @Param("paymentStatus") PaymentStatus paymentStatus);
+    
+    // Range scan on (payment_status, created_at); orders locked by another node's sweep are skipped (lock timeout -2 = SKIP LOCKED)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT o FROM Order o WHERE o.paymentStatus = :paymentStatus AND o.createdAt < :cutoff " +
+           "AND o.status IN :statuses ORDER BY o.createdAt")
+    List<Order> findStaleForUpdate(@Param("paymentStatus") PaymentStatus paymentStatus,
+                                   @Param("cutoff") LocalDateTime cutoff,
+                                   @Param("statuses") Collection<OrderStatus> statuses,
+                                   Pageable pageable);
+    
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :status, o.paymentStatus = :paymentStatus, o.updatedAt = :now " +
+           "WHERE o.id IN :ids AND o.paymentStatus = :expectedPaymentStatus")
+    int updateStatusesWherePaymentStatus(@Param("ids") Collection<Long> ids,
+                                         @Param("expectedPaymentStatus") PaymentStatus expectedPaymentStatus,
+                                         @Param("status") OrderStatus status,
+                                         @Param("paymentStatus") PaymentStatus paymentStatus,
+                                         @Param("now") LocalDateTime now);
 }
@@ -0,0 +1,22 @@
+package com.example.E_Commerce.repository;
+
+import com.example.E_Commerce.model.AdminOrderRow;
+import com.example.E_Commerce.model.ExportFilter;
+import com.example.E_Commerce.model.OrderSearchCriteria;
+
+import java.util.List;
+
+public interface OrderRepositoryCustom {
+
+    /**
+     * Ids of up to {@code limit} orders matching {@code criteria} with an id above
+     * {@code afterId}, in id order. Only the id column is selected.
+     */
+    List<Long> findIdsMatching(OrderSearchCriteria criteria, long afterId, int limit);
+
+    /**
+     * Up to {@code limit} orders matching {@code filter} with an id above {@code afterId}, in
+     * id order, as admin rows with customer and item count, read in a single query.
+     */
+    List<AdminOrderRow> findAdminRowsAfter(ExportFilter filter, long afterId, int limit);
+}
@@ -0,0 +1,85 @@
+package com.example.E_Commerce.repository;
+
+import com.example.E_Commerce.model.AdminOrderRow;
+import com.example.E_Commerce.model.ExportFilter;
+import com.example.E_Commerce.model.Order;
+import com.example.E_Commerce.model.OrderItem;
+import com.example.E_Commerce.model.OrderSearchCriteria;
+import com.example.E_Commerce.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class OrderRepositoryImpl implements OrderRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Same filters as the admin search; a Long-typed query makes the specification skip its customer fetch
+    @Override
+    public List<Long> findIdsMatching(OrderSearchCriteria criteria, long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> select = cb.createQuery(Long.class);
+        Root<Order> order = select.from(Order.class);
+        select.select(order.get("id"))
+                .where(OrderSpecifications.matching(criteria).toPredicate(order, select, cb),
+                        cb.greaterThan(order.get("id"), afterId))
+                .orderBy(cb.asc(order.get("id")));
+        return entityManager.createQuery(select)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    // Customer columns come from the join and the item count from a correlated subquery, so one query serves a whole chunk
+    @Override
+    public List<AdminOrderRow> findAdminRowsAfter(ExportFilter filter, long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<AdminOrderRow> select = cb.createQuery(AdminOrderRow.class);
+        Root<Order> order = select.from(Order.class);
+        Join<Order, User> user = order.join("user", JoinType.INNER);
+
+        Subquery<Long> itemCount = select.subquery(Long.class);
+        Root<OrderItem> item = itemCount.from(OrderItem.class);
+        itemCount.select(cb.count(item)).where(cb.equal(item.get("order"), order));
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.greaterThan(order.get("id"), afterId));
+        if (filter.getFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(order.get("createdAt"), filter.getFrom()));
+        }
+        if (filter.getUntil() != null) {
+            predicates.add(cb.lessThan(order.get("createdAt"), filter.getUntil()));
+        }
+        if (filter.getStatus() != null) {
+            predicates.add(cb.equal(order.get("status"), filter.getStatus()));
+        }
+        if (filter.getCategory() != null) {
+            Subquery<Integer> inCategory = select.subquery(Integer.class);
+            Root<OrderItem> categoryItem = inCategory.from(OrderItem.class);
+            inCategory.select(cb.literal(1))
+                    .where(cb.equal(categoryItem.get("order"), order),
+                            cb.equal(categoryItem.get("product").get("category"), filter.getCategory()));
+            predicates.add(cb.exists(inCategory));
+        }
+
+        select.select(cb.construct(AdminOrderRow.class,
+                        order.get("id"), order.get("orderNumber"),
+                        cb.concat(cb.concat(user.<String>get("firstName"), " "), user.<String>get("lastName")),
+                        user.get("email"), itemCount, order.get("totalAmount"), order.get("status"),
+                        order.get("paymentStatus"), order.get("createdAt")))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.asc(order.get("id")));
+        return entityManager.createQuery(select)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
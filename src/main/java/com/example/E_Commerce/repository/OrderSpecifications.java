@@ -0,0 +1,70 @@
+package com.example.E_Commerce.repository;
+
+import com.example.E_Commerce.model.Order;
+import com.example.E_Commerce.model.OrderSearchCriteria;
+import com.example.E_Commerce.model.User;
+import com.example.E_Commerce.util.AdminQueries;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Query predicates for the admin order search.
+ *
+ * Each filter maps onto an indexed column: the order-number prefix onto the unique
+ * {@code order_number} index (LIKE 'prefix%' is a range scan), the customer email onto
+ * the unique {@code users.email} index and from there {@code idx_orders_user_created},
+ * and status / payment status with a date range onto their {@code (…, created_at)} indexes.
+ */
+public final class OrderSpecifications {
+
+    private OrderSpecifications() {
+    }
+
+    @SuppressWarnings("unchecked")
+    public static Specification<Order> matching(OrderSearchCriteria criteria) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+
+            // The page query shows the customer on every row, so load it in the same select;
+            // the count query only joins it when filtering by email
+            Join<Order, User> user = null;
+            if (!isCountQuery(query.getResultType())) {
+                user = (Join<Order, User>) root.<Order, User>fetch("user", JoinType.INNER);
+            }
+
+            if (criteria.hasOrderNumber()) {
+                String prefix = criteria.getOrderNumber().trim().toUpperCase(Locale.ROOT);
+                predicates.add(cb.like(root.get("orderNumber"), AdminQueries.likePrefix(prefix), '\\'));
+            }
+            if (criteria.hasEmail()) {
+                if (user == null) {
+                    user = root.join("user", JoinType.INNER);
+                }
+                predicates.add(cb.equal(user.get("email"), criteria.getEmail().trim()));
+            }
+            if (criteria.getStatus() != null) {
+                predicates.add(cb.equal(root.get("status"), criteria.getStatus()));
+            }
+            if (criteria.getPaymentStatus() != null) {
+                predicates.add(cb.equal(root.get("paymentStatus"), criteria.getPaymentStatus()));
+            }
+            if (criteria.getFromDate() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("createdAt"), criteria.getFromDate().atStartOfDay()));
+            }
+            if (criteria.getToDate() != null) {
+                predicates.add(cb.lessThan(root.get("createdAt"), criteria.getToDate().plusDays(1).atStartOfDay()));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    private static boolean isCountQuery(Class<?> resultType) {
+        return Long.class.equals(resultType) || long.class.equals(resultType);
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.E_Commerce.repository;
+
+import com.example.E_Commerce.model.OrderStatusEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OrderStatusEventRepository extends JpaRepository<OrderStatusEvent, Long> {
+
+    List<OrderStatusEvent> findByOrderIdOrderByIdAsc(Long orderId);
+}
@@ -1,20 +1,25 @@
 package com.example.E_Commerce.repository;
 
+import com.example.E_Commerce.model.LowStockAlert;
 import com.example.E_Commerce.model.Product;
 import com.example.E_Commerce.model.ProductCategory;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
     
     List<Product> findByActiveTrue();
     
@@ -49,4 +54,33 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     Optional<Product> findByName(String name);
     
     List<Product> findByNameContainingIgnoreCase(String name);
+    
+    @Modifying
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity + :quantity WHERE p.id = :productId")
+    int incrementStock(@Param("productId") Long productId, @Param("quantity") int quantity);
+    
+    @Modifying
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity - :quantity WHERE p.id = :productId AND p.stockQuantity >= :quantity")
+    int decrementStockIfAvailable(@Param("productId") Long productId, @Param("quantity") int quantity);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id = :productId")
+    Optional<Product> findByIdForUpdate(@Param("productId") Long productId);
+    
+    @Query("SELECT p.stockShards FROM Product p WHERE p.id = :productId")
+    Integer findStockShardsById(@Param("productId") Long productId);
+    
+    @Query("SELECT p.id FROM Product p WHERE p.stockShards > 0")
+    List<Long> findShardedProductIds();
+    
+    @Query("SELECT p.id FROM Product p WHERE p.id IN :productIds AND p.stockShards > 0")
+    List<Long> findShardedProductIdsIn(@Param("productIds") Collection<Long> productIds);
+    
+    @Modifying
+    @Query("UPDATE Product p SET p.stockQuantity = :stockQuantity WHERE p.id = :productId")
+    int updateStockSnapshot(@Param("productId") Long productId, @Param("stockQuantity") int stockQuantity);
+
+    @Query("SELECT new com.example.E_Commerce.model.LowStockAlert(p.id, p.name, p.stockQuantity) FROM Product p " +
+           "WHERE p.id IN :productIds AND p.active = true AND p.stockQuantity <= :threshold ORDER BY p.stockQuantity")
+    List<LowStockAlert> findLowStockIn(@Param("productIds") Collection<Long> productIds, @Param("threshold") int threshold);
 }
@@ -0,0 +1,24 @@
+package com.example.E_Commerce.repository;
+
+import com.example.E_Commerce.model.ExportFilter;
+import com.example.E_Commerce.model.Product;
+
+import java.util.List;
+import java.util.Map;
+
+public interface ProductRepositoryCustom {
+
+    /**
+     * Adds each quantity to its product's {@code stock_quantity} in a single UPDATE statement.
+     * Must be called inside a transaction.
+     *
+     * @return number of product rows updated
+     */
+    int incrementStocks(Map<Long, Integer> quantityByProduct);
+
+    /**
+     * Up to {@code limit} active products matching the category and creation date range of
+     * {@code filter} with an id above {@code afterId}, in id order.
+     */
+    List<Product> findActiveAfter(ExportFilter filter, long afterId, int limit);
+}
@@ -0,0 +1,70 @@
+package com.example.E_Commerce.repository;
+
+import com.example.E_Commerce.model.ExportFilter;
+import com.example.E_Commerce.model.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class ProductRepositoryImpl implements ProductRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int incrementStocks(Map<Long, Integer> quantityByProduct) {
+        if (quantityByProduct.isEmpty()) {
+            return 0;
+        }
+
+        // UPDATE ... SET stock = stock + CASE WHEN id = :id0 THEN :qty0 ... END WHERE id IN (:ids)
+        StringBuilder jpql = new StringBuilder("UPDATE Product p SET p.stockQuantity = p.stockQuantity + CASE");
+        for (int i = 0; i < quantityByProduct.size(); i++) {
+            jpql.append(" WHEN p.id = :id").append(i).append(" THEN :quantity").append(i);
+        }
+        jpql.append(" ELSE 0 END WHERE p.id IN :ids");
+
+        Query update = entityManager.createQuery(jpql.toString());
+        int i = 0;
+        for (Map.Entry<Long, Integer> entry : quantityByProduct.entrySet()) {
+            update.setParameter("id" + i, entry.getKey());
+            update.setParameter("quantity" + i, entry.getValue());
+            i++;
+        }
+        update.setParameter("ids", quantityByProduct.keySet());
+        return update.executeUpdate();
+    }
+
+    @Override
+    public List<Product> findActiveAfter(ExportFilter filter, long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Product> select = cb.createQuery(Product.class);
+        Root<Product> product = select.from(Product.class);
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.isTrue(product.get("active")));
+        predicates.add(cb.greaterThan(product.get("id"), afterId));
+        if (filter.getCategory() != null) {
+            predicates.add(cb.equal(product.get("category"), filter.getCategory()));
+        }
+        if (filter.getFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(product.get("createdAt"), filter.getFrom()));
+        }
+        if (filter.getUntil() != null) {
+            predicates.add(cb.lessThan(product.get("createdAt"), filter.getUntil()));
+        }
+
+        select.where(predicates.toArray(new Predicate[0])).orderBy(cb.asc(product.get("id")));
+        return entityManager.createQuery(select)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.E_Commerce.repository;
+
+import com.example.E_Commerce.model.RevenueRollupAppliedEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface RevenueRollupAppliedEventRepository extends JpaRepository<RevenueRollupAppliedEvent, Long> {
+
+    @Modifying
+    @Query("DELETE FROM RevenueRollupAppliedEvent e WHERE e.appliedAt < :cutoff")
+    int deleteAppliedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,37 @@
+package com.example.E_Commerce.repository;
+
+import com.example.E_Commerce.model.CategoryRevenue;
+import com.example.E_Commerce.model.ProductCategory;
+import com.example.E_Commerce.model.RevenueRollupDaily;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RevenueRollupDailyRepository extends JpaRepository<RevenueRollupDaily, Long> {
+
+    @Modifying
+    @Query("UPDATE RevenueRollupDaily r SET r.revenue = r.revenue + :revenue, r.orderCount = r.orderCount + :orders, " +
+           "r.updatedAt = :now WHERE r.bucketDate = :bucketDate AND r.category = :category")
+    int addToBucket(@Param("bucketDate") LocalDate bucketDate,
+                    @Param("category") ProductCategory category,
+                    @Param("revenue") BigDecimal revenue,
+                    @Param("orders") long orders,
+                    @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM RevenueRollupDaily r WHERE r.bucketDate = :bucketDate")
+    int deleteBucket(@Param("bucketDate") LocalDate bucketDate);
+
+    @Query("SELECT new com.example.E_Commerce.model.CategoryRevenue(r.category, SUM(r.revenue), SUM(r.orderCount)) " +
+           "FROM RevenueRollupDaily r WHERE r.bucketDate BETWEEN :from AND :to " +
+           "GROUP BY r.category ORDER BY SUM(r.revenue) DESC")
+    List<CategoryRevenue> sumByCategory(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -0,0 +1,34 @@
+package com.example.E_Commerce.repository;
+
+import com.example.E_Commerce.model.DailyRevenue;
+import com.example.E_Commerce.model.RevenueRollupDailyTotal;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RevenueRollupDailyTotalRepository extends JpaRepository<RevenueRollupDailyTotal, Long> {
+
+    @Modifying
+    @Query("UPDATE RevenueRollupDailyTotal r SET r.revenue = r.revenue + :revenue, r.orderCount = r.orderCount + :orders, " +
+           "r.updatedAt = :now WHERE r.bucketDate = :bucketDate")
+    int addToBucket(@Param("bucketDate") LocalDate bucketDate,
+                    @Param("revenue") BigDecimal revenue,
+                    @Param("orders") long orders,
+                    @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM RevenueRollupDailyTotal r WHERE r.bucketDate = :bucketDate")
+    int deleteBucket(@Param("bucketDate") LocalDate bucketDate);
+
+    @Query("SELECT new com.example.E_Commerce.model.DailyRevenue(r.bucketDate, r.revenue, r.orderCount) " +
+           "FROM RevenueRollupDailyTotal r WHERE r.bucketDate BETWEEN :from AND :to ORDER BY r.bucketDate")
+    List<DailyRevenue> findByDay(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -0,0 +1,29 @@
+package com.example.E_Commerce.repository;
+
+import com.example.E_Commerce.model.ProductCategory;
+import com.example.E_Commerce.model.RevenueRollupHourly;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Repository
+public interface RevenueRollupHourlyRepository extends JpaRepository<RevenueRollupHourly, Long> {
+
+    @Modifying
+    @Query("UPDATE RevenueRollupHourly r SET r.revenue = r.revenue + :revenue, r.orderCount = r.orderCount + :orders, " +
+           "r.updatedAt = :now WHERE r.bucketStart = :bucketStart AND r.category = :category")
+    int addToBucket(@Param("bucketStart") LocalDateTime bucketStart,
+                    @Param("category") ProductCategory category,
+                    @Param("revenue") BigDecimal revenue,
+                    @Param("orders") long orders,
+                    @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM RevenueRollupHourly r WHERE r.bucketStart >= :from AND r.bucketStart < :to")
+    int deleteBuckets(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
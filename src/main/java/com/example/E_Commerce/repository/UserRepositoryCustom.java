@@ -0,0 +1,24 @@
+package com.example.E_Commerce.repository;
+
+import com.example.E_Commerce.model.ExportFilter;
+import com.example.E_Commerce.model.UserSearchCriteria;
+import com.example.E_Commerce.model.UserSummary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+public interface UserRepositoryCustom {
+
+    /**
+     * One page of accounts matching {@code criteria} as {@link UserSummary} rows, sorted by
+     * the pageable's sort. Properties in the sort must exist on {@code User}.
+     */
+    Page<UserSummary> searchSummaries(UserSearchCriteria criteria, Pageable pageable);
+
+    /**
+     * Up to {@code limit} accounts created within the date range of {@code filter} with an id
+     * above {@code afterId}, in id order, as {@link UserSummary} rows.
+     */
+    List<UserSummary> findSummariesAfter(ExportFilter filter, long afterId, int limit);
+}
@@ -0,0 +1,95 @@
+package com.example.E_Commerce.repository;
+
+import com.example.E_Commerce.model.ExportFilter;
+import com.example.E_Commerce.model.User;
+import com.example.E_Commerce.model.UserSearchCriteria;
+import com.example.E_Commerce.model.UserSummary;
+import com.example.E_Commerce.util.AdminQueries;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CompoundSelection;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class UserRepositoryImpl implements UserRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Prefix filters are range scans on the unique username / email indexes; role uses idx_users_role_created
+    @Override
+    public Page<UserSummary> searchSummaries(UserSearchCriteria criteria, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<UserSummary> select = cb.createQuery(UserSummary.class);
+        Root<User> user = select.from(User.class);
+        select.select(summary(user, cb))
+                .where(predicates(criteria, user, cb))
+                .orderBy(QueryUtils.toOrders(pageable.getSort(), user, cb));
+        List<UserSummary> content = entityManager.createQuery(select)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+
+        // The count query only runs when the page is full, i.e. the total cannot be inferred
+        return PageableExecutionUtils.getPage(content, pageable, () -> {
+            CriteriaQuery<Long> count = cb.createQuery(Long.class);
+            Root<User> countRoot = count.from(User.class);
+            count.select(cb.count(countRoot)).where(predicates(criteria, countRoot, cb));
+            return entityManager.createQuery(count).getSingleResult();
+        });
+    }
+
+    @Override
+    public List<UserSummary> findSummariesAfter(ExportFilter filter, long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UserSummary> select = cb.createQuery(UserSummary.class);
+        Root<User> user = select.from(User.class);
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.greaterThan(user.get("id"), afterId));
+        if (filter.getFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(user.get("createdAt"), filter.getFrom()));
+        }
+        if (filter.getUntil() != null) {
+            predicates.add(cb.lessThan(user.get("createdAt"), filter.getUntil()));
+        }
+
+        select.select(summary(user, cb))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.asc(user.get("id")));
+        return entityManager.createQuery(select)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    private static CompoundSelection<UserSummary> summary(Root<User> user, CriteriaBuilder cb) {
+        return cb.construct(UserSummary.class,
+                user.get("id"), user.get("username"), user.get("email"), user.get("firstName"),
+                user.get("lastName"), user.get("phoneNumber"), user.get("role"), user.get("enabled"),
+                user.get("createdAt"));
+    }
+
+    private Predicate[] predicates(UserSearchCriteria criteria, Root<User> user, CriteriaBuilder cb) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (criteria.hasUsername()) {
+            predicates.add(cb.like(user.get("username"), AdminQueries.likePrefix(criteria.getUsername().trim()), '\\'));
+        }
+        if (criteria.hasEmail()) {
+            predicates.add(cb.like(user.get("email"), AdminQueries.likePrefix(criteria.getEmail().trim()), '\\'));
+        }
+        if (criteria.getRole() != null) {
+            predicates.add(cb.equal(user.get("role"), criteria.getRole()));
+        }
+        return predicates.toArray(new Predicate[0]);
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.E_Commerce.service;
+
+import com.example.E_Commerce.model.Order;
+import com.example.E_Commerce.model.OrderSearchCriteria;
+import com.example.E_Commerce.repository.OrderRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Invoices of every order matching a filter, as one ZIP archive.
+ *
+ * Invoices are taken from the {@link InvoiceCacheService} when already cached and otherwise
+ * rendered in memory, on a small shared pool; bulk renders are not added
+ * to the cache, so a long export neither evicts the invoices customers are downloading nor
+ * writes every PDF to disk and reads it back. Each invoice is added to the archive as soon
+ * as it is ready, in completion order. An export keeps at most twice the pool size invoices in
+ * flight, so memory is bounded by the pool rather than by the number of orders. PDFs are
+ * already compressed, so entries are stored rather than deflated. Each order is loaded in
+ * a short read-only transaction that ends before rendering starts, so a worker holds a
+ * database connection only for that query, never through the CPU-bound render. Orders whose invoice
+ * could not be produced are listed in a {@code failed.txt} entry instead of failing the
+ * whole archive.
+ */
+@Service
+public class BulkInvoiceService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkInvoiceService.class);
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    // Kept well below the connection pool, so a bulk export leaves connections for checkout
+    static final int MAX_WORKERS = 4;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private InvoiceCacheService invoiceCacheService;
+
+    @Autowired
+    private PDFService pdfService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // 0 means one per available core; either way at most MAX_WORKERS
+    @Value("${invoice.bulk.workers:0}")
+    private int workers;
+
+    @Value("${export.chunk-size:1000}")
+    private int chunkSize;
+
+    private int poolSize;
+    private ExecutorService renderPool;
+    private TransactionTemplate readOnlyTransaction;
+
+    private record RenderedInvoice(long orderId, String orderNumber, byte[] content, String error) {
+    }
+
+    @PostConstruct
+    public void init() {
+        poolSize = Math.min(workers > 0 ? workers : Runtime.getRuntime().availableProcessors(), MAX_WORKERS);
+        AtomicInteger threadNumber = new AtomicInteger();
+        renderPool = Executors.newFixedThreadPool(poolSize, runnable -> {
+            Thread thread = new Thread(runnable, "invoice-bulk-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renderPool.shutdownNow();
+    }
+
+    /**
+     * Writes a ZIP of the invoices of all orders matching {@code criteria} to {@code out}.
+     *
+     * @return number of invoices in the archive
+     */
+    public int writeInvoicesZip(OrderSearchCriteria criteria, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(out, WRITE_BUFFER_SIZE));
+        CompletionService<RenderedInvoice> completion = new ExecutorCompletionService<>(renderPool);
+        Set<Future<RenderedInvoice>> pending = new HashSet<>();
+        int maxInFlight = poolSize * 2;
+        List<String> failed = new ArrayList<>();
+        int written = 0;
+
+        try {
+            long afterId = 0;
+            List<Long> ids;
+            do {
+                ids = orderRepository.findIdsMatching(criteria, afterId, chunkSize);
+                for (Long id : ids) {
+                    if (pending.size() == maxInFlight) {
+                        written += writeNext(completion, pending, zip, failed);
+                    }
+                    pending.add(completion.submit(() -> render(id)));
+                    afterId = id;
+                }
+            } while (ids.size() == chunkSize);
+            while (!pending.isEmpty()) {
+                written += writeNext(completion, pending, zip, failed);
+            }
+
+            if (!failed.isEmpty()) {
+                zip.putNextEntry(new ZipEntry("failed.txt"));
+                zip.write(String.join("\n", failed).concat("\n").getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+            zip.finish();
+            zip.flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while generating invoices");
+        } finally {
+            // Client gone or write failed: don't leave the pool rendering for nobody
+            for (Future<RenderedInvoice> future : pending) {
+                future.cancel(true);
+            }
+        }
+        logger.info("Bulk invoice export wrote {} invoices, {} failed", written, failed.size());
+        return written;
+    }
+
+    private int writeNext(CompletionService<RenderedInvoice> completion, Set<Future<RenderedInvoice>> pending,
+                          ZipOutputStream zip, List<String> failed) throws InterruptedException, IOException {
+        Future<RenderedInvoice> done = completion.take();
+        pending.remove(done);
+        RenderedInvoice invoice;
+        try {
+            invoice = done.get();
+        } catch (ExecutionException e) {
+            // render() reports its own failures; this only happens if the task itself broke
+            throw new IOException("Invoice rendering failed", e.getCause());
+        }
+        if (invoice.error() != null) {
+            failed.add("order " + invoice.orderId() + ": " + invoice.error());
+            return 0;
+        }
+
+        byte[] content = invoice.content();
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        ZipEntry entry = new ZipEntry("invoice_" + invoice.orderNumber() + ".pdf");
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(content.length);
+        entry.setCompressedSize(content.length);
+        entry.setCrc(crc.getValue());
+        zip.putNextEntry(entry);
+        zip.write(content);
+        zip.closeEntry();
+        return 1;
+    }
+
+    private RenderedInvoice render(long orderId) {
+        try {
+            // Items and products are fetched with the order, so rendering needs no open session
+            Order order = readOnlyTransaction.execute(status -> orderRepository.findDetailById(orderId).orElse(null));
+            if (order == null) {
+                return new RenderedInvoice(orderId, null, null, "Order not found");
+            }
+            return new RenderedInvoice(orderId, order.getOrderNumber(), readInvoice(order), null);
+        } catch (Exception e) {
+            logger.warn("Could not generate invoice for order {}: {}", orderId, e.getMessage());
+            return new RenderedInvoice(orderId, null, null, e.getMessage());
+        }
+    }
+
+    private byte[] readInvoice(Order order) throws IOException {
+        Optional<FileChannel> cached = invoiceCacheService.openIfCached(order);
+        if (cached.isPresent()) {
+            try (InputStream in = Channels.newInputStream(cached.get())) {
+                return in.readAllBytes();
+            }
+        }
+        ByteArrayOutputStream rendered = new ByteArrayOutputStream(64 * 1024);
+        pdfService.writeOrderInvoicePDF(order, rendered);
+        return rendered.toByteArray();
+    }
+}
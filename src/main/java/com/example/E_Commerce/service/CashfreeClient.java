@@ -0,0 +1,186 @@
+package com.example.E_Commerce.service;
+
+import com.example.E_Commerce.util.CircuitBreaker;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+
+/**
+ * HTTP client for the Cashfree payment gateway API.
+ *
+ * Built on WebClient over a dedicated Reactor Netty connection pool, so connections are
+ * kept alive and reused instead of opened per call. Every call is bounded: connecting by
+ * {@code cashfree.http.connect-timeout-ms}, waiting for a pooled connection by
+ * {@code cashfree.http.pending-acquire-timeout-ms} and the whole exchange by
+ * {@code cashfree.http.response-timeout-ms}. At most {@code cashfree.http.max-concurrent-calls}
+ * calls run at once; further callers are rejected immediately rather than queued, so a slow
+ * gateway cannot tie up every request thread. A {@link CircuitBreaker} stops calling the
+ * gateway after repeated server errors or timeouts and fails fast until it recovers.
+ *
+ * Calls block the calling thread until the response arrives. A call refused by the bulkhead
+ * or the open circuit throws {@link GatewayUnavailableException}; any other failure throws
+ * {@code RuntimeException}.
+ */
+@Component
+public class CashfreeClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(CashfreeClient.class);
+
+    @Value("${cashfree.app.id}")
+    private String appId;
+
+    @Value("${cashfree.secret.key}")
+    private String secretKey;
+
+    @Value("${cashfree.environment}")
+    private String environment;
+
+    @Value("${cashfree.api.version:2023-08-01}")
+    private String apiVersion;
+
+    // Blank means the public endpoint of cashfree.environment
+    @Value("${cashfree.base-url:}")
+    private String baseUrl;
+
+    @Value("${cashfree.http.max-connections:50}")
+    private int maxConnections;
+
+    @Value("${cashfree.http.connect-timeout-ms:2000}")
+    private int connectTimeoutMs;
+
+    @Value("${cashfree.http.pending-acquire-timeout-ms:1000}")
+    private long pendingAcquireTimeoutMs;
+
+    @Value("${cashfree.http.response-timeout-ms:5000}")
+    private long responseTimeoutMs;
+
+    @Value("${cashfree.http.max-idle-ms:30000}")
+    private long maxIdleMs;
+
+    @Value("${cashfree.http.max-concurrent-calls:20}")
+    private int maxConcurrentCalls;
+
+    @Value("${cashfree.circuit.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${cashfree.circuit.open-ms:30000}")
+    private long openMs;
+
+    private ConnectionProvider connectionProvider;
+    private WebClient webClient;
+    private Semaphore bulkhead;
+    private CircuitBreaker circuitBreaker;
+    private Duration responseTimeout;
+
+    @PostConstruct
+    public void init() {
+        responseTimeout = Duration.ofMillis(responseTimeoutMs);
+        connectionProvider = ConnectionProvider.builder("cashfree")
+                .maxConnections(maxConnections)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMs))
+                // Dropped before the gateway's load balancer closes idle connections on us
+                .maxIdleTime(Duration.ofMillis(maxIdleMs))
+                .evictInBackground(Duration.ofMillis(maxIdleMs))
+                .build();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .responseTimeout(responseTimeout);
+
+        webClient = WebClient.builder()
+                .baseUrl(resolveBaseUrl())
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .defaultHeader("x-api-version", apiVersion)
+                .defaultHeader("x-client-id", appId)
+                .defaultHeader("x-client-secret", secretKey)
+                .build();
+        bulkhead = new Semaphore(maxConcurrentCalls);
+        circuitBreaker = new CircuitBreaker("cashfree", failureThreshold, Duration.ofMillis(openMs));
+        logger.info("Cashfree client for {} with up to {} connections and {} concurrent calls",
+                resolveBaseUrl(), maxConnections, maxConcurrentCalls);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        connectionProvider.disposeLater().block(Duration.ofSeconds(5));
+    }
+
+    /**
+     * POSTs {@code body} as JSON to {@code path} and returns the parsed response.
+     */
+    public JsonNode post(String path, Object body) {
+        return execute(path, webClient.post()
+                .uri(path)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body));
+    }
+
+    /**
+     * GETs {@code uriTemplate} with its variables encoded into the path and returns the
+     * parsed response.
+     */
+    public JsonNode get(String uriTemplate, Object... uriVariables) {
+        return execute(uriTemplate, webClient.get().uri(uriTemplate, uriVariables));
+    }
+
+    CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    private JsonNode execute(String path, WebClient.RequestHeadersSpec<?> request) {
+        // Bulkhead first: a rejected caller must not take the circuit breaker's half-open trial
+        if (!bulkhead.tryAcquire()) {
+            throw new GatewayUnavailableException("Payment gateway is busy. Please try again shortly.");
+        }
+        try {
+            if (!circuitBreaker.tryAcquire()) {
+                throw new GatewayUnavailableException("Payment gateway is unavailable. Please try again shortly.");
+            }
+            try {
+                JsonNode response = request.retrieve()
+                        .bodyToMono(JsonNode.class)
+                        // Deadline for the whole exchange, including waiting for a pooled connection
+                        .timeout(responseTimeout)
+                        .block();
+                circuitBreaker.onSuccess();
+                return response;
+            } catch (WebClientResponseException e) {
+                // A 4xx is about this request; only server errors say the gateway is unhealthy
+                if (e.getStatusCode().is5xxServerError()) {
+                    circuitBreaker.onFailure();
+                } else {
+                    circuitBreaker.onSuccess();
+                }
+                throw new RuntimeException("Cashfree " + path + " failed: " + e.getStatusCode().value()
+                        + " - " + e.getResponseBodyAsString(), e);
+            } catch (RuntimeException e) {
+                circuitBreaker.onFailure();
+                throw new RuntimeException("Cashfree " + path + " failed: " + e.getMessage(), e);
+            }
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    private String resolveBaseUrl() {
+        if (baseUrl != null && !baseUrl.isBlank()) {
+            return baseUrl;
+        }
+        return "SANDBOX".equalsIgnoreCase(environment)
+                ? "https://sandbox.cashfree.com/pg"
+                : "https://api.cashfree.com/pg";
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.E_Commerce.service;
+
+import java.util.Arrays;
+
+/**
+ * Per-customer paid-order totals over a range of orders, used by {@link CustomerAnalyticsJob}.
+ *
+ * Keyed by user id in an open-addressing table of primitive arrays, so folding millions of
+ * orders allocates nothing per order. Amounts are in minor units (paise) and timestamps in
+ * epoch seconds. Months are indexed as {@code year * 12 + month - 1}; each customer keeps
+ * the distinct months they ordered in. Not thread-safe: every fork/join leaf fills its own
+ * instance and the results are merged pairwise.
+ */
+final class CustomerAccumulator {
+
+    // User ids start at 1, so 0 marks a free slot
+    private static final long FREE = 0L;
+
+    private long[] keys;
+    private long[] orderCounts;
+    private long[] amountsMinor;
+    private long[] firstOrderAt;
+    private long[] lastOrderAt;
+    private int[][] months;
+    private int[] monthCounts;
+    private int size;
+
+    CustomerAccumulator() {
+        this(64);
+    }
+
+    CustomerAccumulator(int expectedCustomers) {
+        allocate(Integer.highestOneBit(Math.max(16, expectedCustomers * 2 - 1)) << 1);
+    }
+
+    void add(long userId, long amountMinor, long orderedAtEpochSecond, int monthIndex) {
+        int slot = slotFor(userId);
+        orderCounts[slot]++;
+        amountsMinor[slot] += amountMinor;
+        firstOrderAt[slot] = Math.min(firstOrderAt[slot], orderedAtEpochSecond);
+        lastOrderAt[slot] = Math.max(lastOrderAt[slot], orderedAtEpochSecond);
+        addMonth(slot, monthIndex);
+    }
+
+    /**
+     * Folds {@code other} into this accumulator.
+     */
+    void merge(CustomerAccumulator other) {
+        for (int i = 0; i < other.keys.length; i++) {
+            if (other.keys[i] == FREE) {
+                continue;
+            }
+            int slot = slotFor(other.keys[i]);
+            orderCounts[slot] += other.orderCounts[i];
+            amountsMinor[slot] += other.amountsMinor[i];
+            firstOrderAt[slot] = Math.min(firstOrderAt[slot], other.firstOrderAt[i]);
+            lastOrderAt[slot] = Math.max(lastOrderAt[slot], other.lastOrderAt[i]);
+            for (int m = 0; m < other.monthCounts[i]; m++) {
+                addMonth(slot, other.months[i][m]);
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    long[] userIds() {
+        long[] ids = new long[size];
+        int n = 0;
+        for (long key : keys) {
+            if (key != FREE) {
+                ids[n++] = key;
+            }
+        }
+        return ids;
+    }
+
+    long orderCount(long userId) {
+        return orderCounts[existingSlot(userId)];
+    }
+
+    long amountMinor(long userId) {
+        return amountsMinor[existingSlot(userId)];
+    }
+
+    long firstOrderAt(long userId) {
+        return firstOrderAt[existingSlot(userId)];
+    }
+
+    long lastOrderAt(long userId) {
+        return lastOrderAt[existingSlot(userId)];
+    }
+
+    /**
+     * Distinct months the customer ordered in, ascending.
+     */
+    int[] activeMonths(long userId) {
+        int slot = existingSlot(userId);
+        int[] result = Arrays.copyOf(months[slot], monthCounts[slot]);
+        Arrays.sort(result);
+        return result;
+    }
+
+    private void addMonth(int slot, int monthIndex) {
+        int[] list = months[slot];
+        int count = monthCounts[slot];
+        // Orders arrive roughly in time order, so a repeat is almost always the last entry
+        for (int i = count - 1; i >= 0; i--) {
+            if (list[i] == monthIndex) {
+                return;
+            }
+        }
+        if (list == null) {
+            list = months[slot] = new int[2];
+        } else if (count == list.length) {
+            list = months[slot] = Arrays.copyOf(list, count * 2);
+        }
+        list[count] = monthIndex;
+        monthCounts[slot] = count + 1;
+    }
+
+    private int existingSlot(long userId) {
+        int slot = indexOf(keys, userId);
+        if (keys[slot] != userId) {
+            throw new IllegalArgumentException("No orders accumulated for user " + userId);
+        }
+        return slot;
+    }
+
+    private int slotFor(long userId) {
+        int slot = indexOf(keys, userId);
+        if (keys[slot] == userId) {
+            return slot;
+        }
+        if ((size + 1) * 4 > keys.length * 3) {
+            grow();
+            slot = indexOf(keys, userId);
+        }
+        keys[slot] = userId;
+        firstOrderAt[slot] = Long.MAX_VALUE;
+        lastOrderAt[slot] = Long.MIN_VALUE;
+        size++;
+        return slot;
+    }
+
+    // Linear probing; returns the key's slot or the free slot where it would go
+    private static int indexOf(long[] table, long key) {
+        int mask = table.length - 1;
+        int slot = mix(key) & mask;
+        while (table[slot] != FREE && table[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldCounts = orderCounts;
+        long[] oldAmounts = amountsMinor;
+        long[] oldFirst = firstOrderAt;
+        long[] oldLast = lastOrderAt;
+        int[][] oldMonths = months;
+        int[] oldMonthCounts = monthCounts;
+
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == FREE) {
+                continue;
+            }
+            int slot = indexOf(keys, oldKeys[i]);
+            keys[slot] = oldKeys[i];
+            orderCounts[slot] = oldCounts[i];
+            amountsMinor[slot] = oldAmounts[i];
+            firstOrderAt[slot] = oldFirst[i];
+            lastOrderAt[slot] = oldLast[i];
+            months[slot] = oldMonths[i];
+            monthCounts[slot] = oldMonthCounts[i];
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        orderCounts = new long[capacity];
+        amountsMinor = new long[capacity];
+        firstOrderAt = new long[capacity];
+        lastOrderAt = new long[capacity];
+        months = new int[capacity][];
+        monthCounts = new int[capacity];
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.E_Commerce.service;
+
+import com.example.E_Commerce.model.OrderStatus;
+import com.example.E_Commerce.model.PaymentStatus;
+import com.example.E_Commerce.repository.OrderRepository;
+import com.example.E_Commerce.util.MoneyFormat;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Batch job behind the customer lifetime value and cohort retention reports.
+ *
+ * Each run picks up the orders after the stored watermark, up to the newest order old
+ * enough to have settled ({@code analytics.clv.settle-hours}, by which time unpaid orders
+ * have expired). The id range is processed in windows of {@code analytics.clv.window-size}
+ * ids; a window is split recursively on a fork/join pool down to partitions of
+ * {@code analytics.clv.partition-size} ids, each read with one primary-key range query and
+ * folded into a {@link CustomerAccumulator}, and the partial results are merged on the way
+ * back up. Every window is written together with its watermark, so an interrupted run
+ * resumes from the last completed window.
+ *
+ * Orders cancelled or refunded after they were counted are not taken back out; a rebuild
+ * recomputes everything from scratch.
+ */
+@Service
+public class CustomerAnalyticsJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomerAnalyticsJob.class);
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private CustomerAnalyticsService customerAnalyticsService;
+
+    @Value("${analytics.clv.workers:4}")
+    private int workers;
+
+    @Value("${analytics.clv.partition-size:50000}")
+    private int partitionSize;
+
+    @Value("${analytics.clv.window-size:2000000}")
+    private int windowSize;
+
+    @Value("${analytics.clv.settle-hours:24}")
+    private long settleHours;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private ExecutorService coordinator;
+    private ForkJoinPool forkJoinPool;
+
+    @PostConstruct
+    public void init() {
+        forkJoinPool = new ForkJoinPool(workers);
+        coordinator = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "customer-analytics-coordinator");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        coordinator.shutdownNow();
+        forkJoinPool.shutdownNow();
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * Hands the nightly catch-up to the job's own thread, so a run of several minutes does
+     * not hold a scheduler thread the other background jobs need.
+     */
+    @Scheduled(cron = "${analytics.clv.cron:0 30 2 * * *}")
+    public void scheduledRun() {
+        if (!start(false)) {
+            logger.info("Customer analytics run still in progress, skipping the scheduled one");
+        }
+    }
+
+    /**
+     * Starts a run in the background; with {@code rebuild} the result tables are emptied
+     * first and every settled order is processed again.
+     *
+     * @return false if a run is already in progress
+     */
+    public boolean start(boolean rebuild) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        coordinator.submit(() -> {
+            try {
+                if (rebuild) {
+                    customerAnalyticsService.reset();
+                }
+                catchUp();
+            } catch (Exception e) {
+                logger.error("Customer analytics run failed: {}", e.getMessage(), e);
+            } finally {
+                running.set(false);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Processes every settled order after the watermark.
+     *
+     * @return number of orders folded into the results
+     */
+    long catchUp() {
+        long started = System.currentTimeMillis();
+        long watermark = customerAnalyticsService.getWatermark();
+        Long target = orderRepository.findMaxIdCreatedBefore(LocalDateTime.now().minusHours(settleHours));
+        if (target == null || target <= watermark) {
+            return 0;
+        }
+
+        long orders = 0;
+        while (watermark < target) {
+            long windowEnd = Math.min(target, watermark + windowSize);
+            CustomerAccumulator window = forkJoinPool.invoke(new PartitionTask(watermark, windowEnd));
+            customerAnalyticsService.applyWindow(window, windowEnd);
+            for (long userId : window.userIds()) {
+                orders += window.orderCount(userId);
+            }
+            logger.debug("Customer analytics processed order ids {} to {} ({} customers)",
+                    watermark + 1, windowEnd, window.size());
+            watermark = windowEnd;
+        }
+        logger.info("Customer analytics folded in {} paid orders up to id {} in {} ms",
+                orders, target, System.currentTimeMillis() - started);
+        return orders;
+    }
+
+    CustomerAccumulator readPartition(long afterId, long toId) {
+        List<Object[]> rows = orderRepository.findPaidOrderFactsInIdRange(afterId, toId,
+                PaymentStatus.COMPLETED, OrderStatus.CANCELLED);
+        CustomerAccumulator accumulator = new CustomerAccumulator(rows.size());
+        for (Object[] row : rows) {
+            LocalDateTime createdAt = (LocalDateTime) row[3];
+            accumulator.add((Long) row[1], MoneyFormat.toMinorUnits((BigDecimal) row[2]),
+                    createdAt.toEpochSecond(ZoneOffset.UTC), CustomerAnalyticsService.monthIndex(createdAt));
+        }
+        return accumulator;
+    }
+
+    // Orders in (afterId, toId], split in halves until a range fits in one partition
+    private class PartitionTask extends RecursiveTask<CustomerAccumulator> {
+
+        private final long afterId;
+        private final long toId;
+
+        PartitionTask(long afterId, long toId) {
+            this.afterId = afterId;
+            this.toId = toId;
+        }
+
+        @Override
+        protected CustomerAccumulator compute() {
+            if (toId - afterId <= partitionSize) {
+                return readPartition(afterId, toId);
+            }
+            long middle = afterId + (toId - afterId) / 2;
+            PartitionTask lower = new PartitionTask(afterId, middle);
+            lower.fork();
+            CustomerAccumulator result = new PartitionTask(middle, toId).compute();
+            result.merge(lower.join());
+            return result;
+        }
+    }
+}
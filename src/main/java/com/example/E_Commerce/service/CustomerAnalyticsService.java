@@ -0,0 +1,174 @@
+package com.example.E_Commerce.service;
+
+import com.example.E_Commerce.model.*;
+import com.example.E_Commerce.repository.AnalyticsWatermarkRepository;
+import com.example.E_Commerce.repository.CohortRetentionRepository;
+import com.example.E_Commerce.repository.CustomerLifetimeValueRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Result tables of the customer analytics job: lifetime value per customer and monthly
+ * cohort retention. {@link CustomerAnalyticsJob} computes each window of orders and hands
+ * it here to be merged into the tables together with the new watermark, in one transaction.
+ */
+@Service
+@Transactional
+public class CustomerAnalyticsService {
+
+    public static final String JOB_NAME = "customer-analytics";
+
+    private static final int WRITE_CHUNK = 1000;
+
+    @Autowired
+    private CustomerLifetimeValueRepository lifetimeValueRepository;
+
+    @Autowired
+    private CohortRetentionRepository cohortRetentionRepository;
+
+    @Autowired
+    private AnalyticsWatermarkRepository watermarkRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Transactional(readOnly = true)
+    public long getWatermark() {
+        return watermarkRepository.findById(JOB_NAME).map(AnalyticsWatermark::getLastOrderId).orElse(0L);
+    }
+
+    /**
+     * Merges one window of accumulated orders into the result tables and moves the
+     * watermark to {@code watermark}. A month counts towards retention the first time a
+     * customer orders in it; months are assumed to arrive in order across windows.
+     */
+    public void applyWindow(CustomerAccumulator window, long watermark) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, Long> cohortCells = new HashMap<>();
+        long[] userIds = window.userIds();
+
+        for (int from = 0; from < userIds.length; from += WRITE_CHUNK) {
+            long[] chunk = Arrays.copyOfRange(userIds, from, Math.min(userIds.length, from + WRITE_CHUNK));
+            Map<Long, CustomerLifetimeValue> existing = lifetimeValueRepository
+                    .findAllById(Arrays.stream(chunk).boxed().toList()).stream()
+                    .collect(Collectors.toMap(CustomerLifetimeValue::getUserId, Function.identity()));
+
+            List<CustomerLifetimeValue> updated = new ArrayList<>(chunk.length);
+            for (long userId : chunk) {
+                int[] months = window.activeMonths(userId);
+                CustomerLifetimeValue customer = existing.get(userId);
+                int cohort;
+                int lastActive;
+                if (customer == null) {
+                    cohort = months[0];
+                    lastActive = -1;
+                    customer = new CustomerLifetimeValue(userId, 0L, BigDecimal.ZERO,
+                            toDateTime(window.firstOrderAt(userId)), toDateTime(window.lastOrderAt(userId)),
+                            toMonth(cohort), toMonth(cohort), now);
+                } else {
+                    cohort = monthIndex(customer.getCohortMonth());
+                    lastActive = monthIndex(customer.getLastActiveMonth());
+                    LocalDateTime first = toDateTime(window.firstOrderAt(userId));
+                    LocalDateTime last = toDateTime(window.lastOrderAt(userId));
+                    if (first.isBefore(customer.getFirstOrderAt())) {
+                        customer.setFirstOrderAt(first);
+                    }
+                    if (last.isAfter(customer.getLastOrderAt())) {
+                        customer.setLastOrderAt(last);
+                    }
+                }
+
+                for (int month : months) {
+                    if (month > lastActive && month >= cohort) {
+                        cohortCells.merge(cellKey(cohort, month - cohort), 1L, Long::sum);
+                        lastActive = month;
+                    }
+                }
+                customer.setOrderCount(customer.getOrderCount() + window.orderCount(userId));
+                customer.setLifetimeValue(customer.getLifetimeValue().add(BigDecimal.valueOf(window.amountMinor(userId), 2)));
+                customer.setLastActiveMonth(toMonth(Math.max(lastActive, monthIndex(customer.getLastActiveMonth()))));
+                updated.add(customer);
+            }
+            lifetimeValueRepository.saveAll(updated);
+            // Keeps the persistence context small across a window of many customers
+            entityManager.flush();
+            entityManager.clear();
+        }
+
+        cohortCells.forEach((key, customers) -> {
+            LocalDate cohortMonth = toMonth((int) (key >>> 16));
+            int offset = (int) (key & 0xFFFF);
+            if (cohortRetentionRepository.addToCell(cohortMonth, offset, customers, now) == 0) {
+                cohortRetentionRepository.save(new CohortRetention(null, cohortMonth, offset, customers, now));
+            }
+        });
+        watermarkRepository.save(new AnalyticsWatermark(JOB_NAME, watermark, now));
+    }
+
+    /**
+     * Empties the result tables and resets the watermark so the next run starts over.
+     */
+    public void reset() {
+        lifetimeValueRepository.deleteAllInBatch();
+        cohortRetentionRepository.deleteAllInBatch();
+        watermarkRepository.deleteById(JOB_NAME);
+    }
+
+    @Transactional(readOnly = true)
+    public List<CustomerValueRow> getTopCustomers(int limit) {
+        return lifetimeValueRepository.findTopByLifetimeValue(PageRequest.of(0, limit));
+    }
+
+    /**
+     * Retention curves of the cohorts from the last {@code months} months, oldest first.
+     */
+    @Transactional(readOnly = true)
+    public List<CohortRetentionRow> getCohortRetention(int months) {
+        LocalDate since = LocalDate.now().withDayOfMonth(1).minusMonths(months - 1);
+        Map<LocalDate, List<Long>> byCohort = new LinkedHashMap<>();
+        for (CohortRetention cell : cohortRetentionRepository
+                .findByCohortMonthGreaterThanEqualOrderByCohortMonthAscMonthOffsetAsc(since)) {
+            List<Long> curve = byCohort.computeIfAbsent(cell.getCohortMonth(), k -> new ArrayList<>());
+            // Offsets nobody returned in have no row
+            while (curve.size() < cell.getMonthOffset()) {
+                curve.add(0L);
+            }
+            curve.add(cell.getActiveCustomers());
+        }
+        List<CohortRetentionRow> rows = new ArrayList<>(byCohort.size());
+        byCohort.forEach((cohortMonth, curve) -> rows.add(new CohortRetentionRow(cohortMonth, curve)));
+        return rows;
+    }
+
+    static int monthIndex(LocalDateTime time) {
+        return time.getYear() * 12 + time.getMonthValue() - 1;
+    }
+
+    static int monthIndex(LocalDate month) {
+        return month.getYear() * 12 + month.getMonthValue() - 1;
+    }
+
+    static LocalDate toMonth(int monthIndex) {
+        return LocalDate.of(monthIndex / 12, monthIndex % 12 + 1, 1);
+    }
+
+    private static LocalDateTime toDateTime(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+
+    private static long cellKey(int cohort, int offset) {
+        return ((long) cohort << 16) | offset;
+    }
+}
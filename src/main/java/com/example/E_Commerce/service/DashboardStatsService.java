@@ -0,0 +1,87 @@
+package com.example.E_Commerce.service;
+
+import com.example.E_Commerce.model.DashboardStats;
+import com.example.E_Commerce.repository.ProductRepository;
+import com.example.E_Commerce.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Admin dashboard and report figures.
+ *
+ * Product and user totals come from COUNT queries, order counts and revenue from
+ * {@link OrderMetricsAggregator}, and recent orders from a top-N query; the result is
+ * cached as one snapshot.
+ * Once the snapshot is older than {@code dashboard.stats.refresh-seconds} the next read
+ * still returns it immediately and triggers a background reload, so page views never
+ * wait on the aggregates after the first one.
+ */
+@Service
+public class DashboardStatsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DashboardStatsService.class);
+
+    private static final String SNAPSHOT_KEY = "dashboard";
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderMetricsAggregator orderMetrics;
+
+    @Value("${dashboard.stats.refresh-seconds:30}")
+    private long refreshSeconds;
+
+    @Value("${dashboard.stats.recent-orders:10}")
+    private int recentOrderCount;
+
+    private LoadingCache<String, DashboardStats> snapshot;
+
+    @PostConstruct
+    public void init() {
+        snapshot = Caffeine.newBuilder()
+                .maximumSize(1)
+                .refreshAfterWrite(Duration.ofSeconds(refreshSeconds))
+                .build(key -> computeStats());
+    }
+
+    public DashboardStats getStats() {
+        return snapshot.get(SNAPSHOT_KEY);
+    }
+
+    /**
+     * Drops the cached snapshot, e.g. after bulk data changes; the next read recomputes it.
+     */
+    public void invalidate() {
+        snapshot.invalidateAll();
+    }
+
+    DashboardStats computeStats() {
+        long started = System.currentTimeMillis();
+        DashboardStats stats = new DashboardStats(
+                productRepository.count(),
+                orderMetrics.getTotalOrders(),
+                userRepository.count(),
+                orderMetrics.getCompletedRevenue(),
+                orderMetrics.getCountsByStatus(),
+                orderService.getRecentOrderRows(recentOrderCount),
+                LocalDateTime.now());
+        logger.debug("Computed dashboard stats in {} ms", System.currentTimeMillis() - started);
+        return stats;
+    }
+}
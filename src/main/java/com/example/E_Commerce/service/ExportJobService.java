@@ -0,0 +1,260 @@
+package com.example.E_Commerce.service;
+
+import com.example.E_Commerce.model.ExportDataset;
+import com.example.E_Commerce.model.ExportFilter;
+import com.example.E_Commerce.model.ExportFormat;
+import com.example.E_Commerce.model.ExportJob;
+import com.example.E_Commerce.model.ExportJobStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs exports in the background instead of on the request thread.
+ *
+ * A submitted job is queued for a small fixed pool of workers (bounded queue, so a burst of
+ * requests is turned away rather than piling up), written to a file in the spool directory
+ * and then downloaded straight from disk. Job state lives in memory on this node; finished
+ * jobs and their files are removed after {@code export.jobs.retention-minutes}.
+ */
+@Service
+public class ExportJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportJobService.class);
+
+    private static final String XLSX_CONTENT_TYPE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private FlatExportService flatExportService;
+
+    @Autowired
+    private PDFService pdfService;
+
+    @Value("${export.jobs.workers:2}")
+    private int workers;
+
+    @Value("${export.jobs.queue-capacity:20}")
+    private int queueCapacity;
+
+    @Value("${export.jobs.spool-dir:${java.io.tmpdir}/emart-exports}")
+    private String spoolDir;
+
+    @Value("${export.jobs.retention-minutes:60}")
+    private long retentionMinutes;
+
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor executor;
+    private Path spool;
+
+    @PostConstruct
+    public void init() throws IOException {
+        spool = Paths.get(spoolDir);
+        Files.createDirectories(spool);
+        // Job state does not survive a restart, so anything left over can never be downloaded
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(spool)) {
+            for (Path file : leftovers) {
+                deleteQuietly(file);
+            }
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "export-job-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Queues an export of the rows of {@code dataset} matching {@code filter} as {@code xlsx},
+     * {@code csv} or {@code ndjson}, or the orders report as {@code pdf}; gzip applies to the
+     * flat formats only.
+     *
+     * @throws IllegalArgumentException for an unknown dataset or format, or a filter the
+     *                                  dataset does not support
+     */
+    public ExportJob submit(String dataset, String format, boolean gzip, ExportFilter filter, String requestedBy) {
+        ExportDataset exportDataset = ExportDataset.fromSlug(dataset);
+        exportDataset.checkFilter(filter);
+        ExportWriter writer;
+        String extension;
+        String contentType;
+        if ("xlsx".equals(format)) {
+            writer = excelWriter(exportDataset, filter);
+            extension = "xlsx";
+            contentType = XLSX_CONTENT_TYPE;
+        } else if ("pdf".equals(format)) {
+            if (exportDataset != ExportDataset.ORDERS) {
+                throw new IllegalArgumentException("No PDF report for " + exportDataset.getSlug());
+            }
+            writer = out -> pdfService.writeOrdersReportPDF(filter, out);
+            extension = "pdf";
+            contentType = "application/pdf";
+        } else {
+            ExportFormat exportFormat = ExportFormat.fromExtension(format);
+            writer = out -> flatExportService.write(exportDataset, filter, exportFormat, gzip, out);
+            extension = exportFormat.getExtension() + (gzip ? ".gz" : "");
+            contentType = gzip ? "application/gzip" : exportFormat.getContentType();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        ExportJob job = new ExportJob();
+        job.setId(UUID.randomUUID().toString());
+        job.setDescription(exportDataset.getSlug() + " (" + extension + (filter.isEmpty() ? "" : ", filtered") + ")");
+        job.setFilename(exportDataset.getSlug() + "_" + now.format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + "." + extension);
+        job.setContentType(contentType);
+        job.setRequestedBy(requestedBy);
+        job.setCreatedAt(now);
+        job.setStatus(ExportJobStatus.QUEUED);
+
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> run(job, writer));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw new RuntimeException("Too many exports are queued. Please try again shortly.");
+        }
+        logger.info("Export job {} queued by {}: {}", job.getId(), requestedBy, job.getDescription());
+        return job;
+    }
+
+    public ExportJob getJob(String id) {
+        ExportJob job = jobs.get(id);
+        if (job == null) {
+            throw new RuntimeException("Export job not found: " + id);
+        }
+        return job;
+    }
+
+    /**
+     * All jobs still retained, newest first.
+     */
+    public List<ExportJob> getJobs() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparing(ExportJob::getCreatedAt).reversed())
+                .toList();
+    }
+
+    /**
+     * The finished file of a completed job.
+     */
+    public Path getFile(String id) {
+        ExportJob job = getJob(id);
+        if (job.getStatus() != ExportJobStatus.COMPLETED) {
+            throw new RuntimeException("Export job " + id + " is not ready for download");
+        }
+        return fileFor(job);
+    }
+
+    @Scheduled(fixedDelayString = "${export.jobs.cleanup-interval-ms:300000}")
+    public void cleanUp() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(retentionMinutes);
+        jobs.values().removeIf(job -> {
+            if (!job.isFinished() || job.getFinishedAt().isAfter(cutoff)) {
+                return false;
+            }
+            deleteQuietly(fileFor(job));
+            logger.debug("Removed expired export job {}", job.getId());
+            return true;
+        });
+    }
+
+    void run(ExportJob job, ExportWriter writer) {
+        job.setStatus(ExportJobStatus.RUNNING);
+        job.setStartedAt(LocalDateTime.now());
+        // Written under a temporary name and renamed, so a half-written file is never served
+        Path part = spool.resolve(job.getId() + ".part");
+        try {
+            try (OutputStream out = new BufferedOutputStream(
+                    new ProgressOutputStream(Files.newOutputStream(part), job), WRITE_BUFFER_SIZE)) {
+                writer.write(out);
+            }
+            Files.move(part, fileFor(job), StandardCopyOption.ATOMIC_MOVE);
+            // finishedAt goes first: a finished status is what makes the job eligible for clean-up
+            job.setFinishedAt(LocalDateTime.now());
+            job.setStatus(ExportJobStatus.COMPLETED);
+            logger.info("Export job {} finished: {} bytes", job.getId(), job.getBytesWritten());
+        } catch (Exception e) {
+            logger.error("Export job {} failed: {}", job.getId(), e.getMessage(), e);
+            deleteQuietly(part);
+            job.setError(e.getMessage());
+            job.setFinishedAt(LocalDateTime.now());
+            job.setStatus(ExportJobStatus.FAILED);
+        }
+    }
+
+    private ExportWriter excelWriter(ExportDataset dataset, ExportFilter filter) {
+        return switch (dataset) {
+            case ORDERS -> out -> exportService.writeOrdersExcel(filter, out);
+            case PRODUCTS -> out -> exportService.writeProductsExcel(filter, out);
+            case USERS -> out -> exportService.writeUsersExcel(filter, out);
+            default -> throw new IllegalArgumentException("No Excel export for " + dataset.getSlug());
+        };
+    }
+
+    private Path fileFor(ExportJob job) {
+        return spool.resolve(job.getId());
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete export file {}: {}", file, e.getMessage());
+        }
+    }
+
+    @FunctionalInterface
+    interface ExportWriter {
+        void write(OutputStream out) throws IOException;
+    }
+
+    // Counts bytes as they reach the file; only the job's worker thread writes the counter
+    private static class ProgressOutputStream extends FilterOutputStream {
+
+        private final ExportJob job;
+
+        ProgressOutputStream(OutputStream out, ExportJob job) {
+            super(out);
+            this.job = job;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            job.setBytesWritten(job.getBytesWritten() + 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            job.setBytesWritten(job.getBytesWritten() + len);
+        }
+    }
+}
@@ -1,236 +1,272 @@
 package com.example.E_Commerce.service;
 
+import com.example.E_Commerce.model.AdminOrderRow;
+import com.example.E_Commerce.model.ExportFilter;
 import com.example.E_Commerce.model.Order;
+import com.example.E_Commerce.model.OrderItem;
 import com.example.E_Commerce.model.Product;
-import com.example.E_Commerce.model.User;
+import com.example.E_Commerce.model.UserSummary;
+import com.example.E_Commerce.util.MoneyFormat;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.time.LocalDateTime;
+import java.io.OutputStream;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
-
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Spreadsheet exports and invoice markup.
+ *
+ * Workbooks are written with POI's streaming SXSSF API: only the last
+ * {@code export.excel.row-window} rows are kept in memory, older ones are flushed to a
+ * compressed temp file, and the finished workbook is written straight to the caller's
+ * stream. Rows are read from the database in id-ordered chunks of {@code export.chunk-size},
+ * so heap use does not grow with the number of rows. Column widths are estimated from the
+ * first {@code export.excel.width-sample-rows} rows instead of autosizing, which would have
+ * to rescan every row.
+ */
 @Service
 public class ExportService {
 
-    public byte[] exportOrdersToExcel(List<Order> orders) throws IOException {
-        Workbook workbook = new XSSFWorkbook();
-        Sheet sheet = workbook.createSheet("Orders Report");
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
 
-        // Create header row
-        Row headerRow = sheet.createRow(0);
-        String[] headers = {
-            "Order Number", "Customer Name", "Customer Email", "Total Amount", 
-            "Status", "Payment Status", "Order Date", "Items Count"
-        };
+    // Static parts of the invoice markup, assembled once; only order data is appended per render
+    private static final String INVOICE_HEAD = "<!DOCTYPE html><html><head><meta charset='UTF-8'><title>Invoice - ";
 
-        CellStyle headerStyle = workbook.createCellStyle();
-        Font headerFont = workbook.createFont();
-        headerFont.setBold(true);
-        headerStyle.setFont(headerFont);
-        headerStyle.setFillForegroundColor(IndexedColors.LIGHT_BLUE.getIndex());
-        headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-
-        for (int i = 0; i < headers.length; i++) {
-            Cell cell = headerRow.createCell(i);
-            cell.setCellValue(headers[i]);
-            cell.setCellStyle(headerStyle);
-        }
+    private static final String INVOICE_STYLE_AND_HEADER = "</title><style>"
+            + "body { font-family: Arial, sans-serif; margin: 20px; }"
+            + ".header { text-align: center; margin-bottom: 30px; }"
+            + ".invoice-details { margin-bottom: 30px; }"
+            + ".customer-info, .order-info { display: inline-block; width: 48%; vertical-align: top; }"
+            + "table { width: 100%; border-collapse: collapse; margin-bottom: 30px; }"
+            + "th, td { border: 1px solid #ddd; padding: 8px; text-align: left; }"
+            + "th { background-color: #f2f2f2; }"
+            + ".total { text-align: right; font-weight: bold; }"
+            + "</style>"
+            + "</head><body>"
+            + "<div class='header'>"
+            + "<h1>E-Commerce Store</h1>"
+            + "<h2>Invoice</h2>"
+            + "</div>"
+            + "<div class='invoice-details'><div class='customer-info'><h3>Bill To:</h3><p><strong>";
 
-        // Create data rows
-        int rowNum = 1;
-        for (Order order : orders) {
-            Row row = sheet.createRow(rowNum++);
-            row.createCell(0).setCellValue(order.getOrderNumber());
-            row.createCell(1).setCellValue(order.getUser().getFullName());
-            row.createCell(2).setCellValue(order.getUser().getEmail());
-            row.createCell(3).setCellValue(order.getTotalAmount().doubleValue());
-            row.createCell(4).setCellValue(order.getStatus().toString());
-            row.createCell(5).setCellValue(order.getPaymentStatus().toString());
-            row.createCell(6).setCellValue(order.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")));
-            row.createCell(7).setCellValue(order.getOrderItems().size());
-        }
+    private static final String INVOICE_ITEMS_HEADER = "</p></div></div>"
+            + "<table><thead><tr>"
+            + "<th>Item</th><th>Description</th><th>Quantity</th><th>Unit Price</th><th>Total</th>"
+            + "</tr></thead><tbody>";
 
-        // Auto-size columns
-        for (int i = 0; i < headers.length; i++) {
-            sheet.autoSizeColumn(i);
-        }
+    private static final String INVOICE_TOTAL = "</tbody></table><div class='total'><p><strong>Total Amount: ₹";
 
-        // Convert to byte array
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        workbook.write(outputStream);
-        workbook.close();
+    private static final String INVOICE_END = "</strong></p></div></body></html>";
 
-        return outputStream.toByteArray();
-    }
+    // Rough size of the fixed markup and of one item row, to size the builder up front
+    private static final int INVOICE_FIXED_LENGTH = 2048;
+    private static final int INVOICE_ROW_LENGTH = 160;
 
-    public byte[] exportProductsToExcel(List<Product> products) throws IOException {
-        Workbook workbook = new XSSFWorkbook();
-        Sheet sheet = workbook.createSheet("Products Report");
+    // Excel's maximum column width, in characters
+    private static final int MAX_COLUMN_WIDTH = 255;
 
-        // Create header row
-        Row headerRow = sheet.createRow(0);
-        String[] headers = {
-            "Product Name", "Description", "Price", "Stock", "Category", "Created Date"
-        };
+    @Autowired
+    private OrderService orderService;
 
-        CellStyle headerStyle = workbook.createCellStyle();
-        Font headerFont = workbook.createFont();
-        headerFont.setBold(true);
-        headerStyle.setFont(headerFont);
-        headerStyle.setFillForegroundColor(IndexedColors.LIGHT_GREEN.getIndex());
-        headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-
-        for (int i = 0; i < headers.length; i++) {
-            Cell cell = headerRow.createCell(i);
-            cell.setCellValue(headers[i]);
-            cell.setCellStyle(headerStyle);
-        }
+    @Autowired
+    private ProductService productService;
 
-        // Create data rows
-        int rowNum = 1;
-        for (Product product : products) {
-            Row row = sheet.createRow(rowNum++);
-            row.createCell(0).setCellValue(product.getName());
-            row.createCell(1).setCellValue(product.getDescription());
-            row.createCell(2).setCellValue(product.getPrice().doubleValue());
-            row.createCell(3).setCellValue(product.getStockQuantity());
-            row.createCell(4).setCellValue(product.getCategory().toString());
-            row.createCell(5).setCellValue(product.getCreatedAt() != null ? 
-                product.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")) : "N/A");
-        }
+    @Autowired
+    private UserService userService;
 
-        // Auto-size columns
-        for (int i = 0; i < headers.length; i++) {
-            sheet.autoSizeColumn(i);
-        }
+    @Value("${export.excel.row-window:100}")
+    private int rowWindow;
 
-        // Convert to byte array
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        workbook.write(outputStream);
-        workbook.close();
+    @Value("${export.excel.width-sample-rows:200}")
+    private int widthSampleRows;
 
-        return outputStream.toByteArray();
+    @Value("${export.chunk-size:1000}")
+    private int chunkSize;
+
+    public void writeOrdersExcel(ExportFilter filter, OutputStream out) throws IOException {
+        String[] headers = {
+            "Order Number", "Customer Name", "Customer Email", "Total Amount", 
+            "Status", "Payment Status", "Order Date", "Items Count"
+        };
+        writeWorkbook(out, "Orders Report", headers, IndexedColors.LIGHT_BLUE,
+                (afterId, limit) -> orderService.getAdminOrderRowsAfter(filter, afterId, limit),
+                AdminOrderRow::getId, (row, order) -> {
+                    row.createCell(0).setCellValue(order.getOrderNumber());
+                    row.createCell(1).setCellValue(order.getCustomerName());
+                    row.createCell(2).setCellValue(order.getCustomerEmail());
+                    row.createCell(3).setCellValue(order.getTotalAmount().doubleValue());
+                    row.createCell(4).setCellValue(order.getStatus().toString());
+                    row.createCell(5).setCellValue(order.getPaymentStatus().toString());
+                    row.createCell(6).setCellValue(order.getCreatedAt().format(DATE_TIME));
+                    row.createCell(7).setCellValue(order.getItemCount());
+                });
     }
 
-    public byte[] exportUsersToExcel(List<User> users) throws IOException {
-        Workbook workbook = new XSSFWorkbook();
-        Sheet sheet = workbook.createSheet("Users Report");
+    public void writeProductsExcel(ExportFilter filter, OutputStream out) throws IOException {
+        String[] headers = {
+            "Product Name", "Description", "Price", "Stock", "Category", "Created Date"
+        };
+        writeWorkbook(out, "Products Report", headers, IndexedColors.LIGHT_GREEN,
+                (afterId, limit) -> productService.getActiveProductsAfter(filter, afterId, limit),
+                Product::getId, (row, product) -> {
+                    row.createCell(0).setCellValue(product.getName());
+                    row.createCell(1).setCellValue(product.getDescription());
+                    row.createCell(2).setCellValue(product.getPrice().doubleValue());
+                    row.createCell(3).setCellValue(product.getStockQuantity());
+                    row.createCell(4).setCellValue(product.getCategory().toString());
+                    row.createCell(5).setCellValue(product.getCreatedAt() != null ? 
+                        product.getCreatedAt().format(DATE_TIME) : "N/A");
+                });
+    }
 
-        // Create header row
-        Row headerRow = sheet.createRow(0);
+    public void writeUsersExcel(ExportFilter filter, OutputStream out) throws IOException {
         String[] headers = {
             "Full Name", "Email", "Phone", "Role", "Registration Date", "Active"
         };
+        writeWorkbook(out, "Users Report", headers, IndexedColors.LIGHT_ORANGE,
+                (afterId, limit) -> userService.getUserSummariesAfter(filter, afterId, limit),
+                UserSummary::getId, (row, user) -> {
+                    row.createCell(0).setCellValue(user.getFullName());
+                    row.createCell(1).setCellValue(user.getEmail());
+                    row.createCell(2).setCellValue(user.getPhoneNumber() != null ? user.getPhoneNumber() : "N/A");
+                    row.createCell(3).setCellValue(user.getRole().toString());
+                    row.createCell(4).setCellValue(user.getCreatedAt() != null ? 
+                        user.getCreatedAt().format(DATE_TIME) : "N/A");
+                    row.createCell(5).setCellValue(user.isEnabled() ? "Yes" : "No");
+                });
+    }
 
-        CellStyle headerStyle = workbook.createCellStyle();
-        Font headerFont = workbook.createFont();
-        headerFont.setBold(true);
-        headerStyle.setFont(headerFont);
-        headerStyle.setFillForegroundColor(IndexedColors.LIGHT_ORANGE.getIndex());
-        headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-
-        for (int i = 0; i < headers.length; i++) {
-            Cell cell = headerRow.createCell(i);
-            cell.setCellValue(headers[i]);
-            cell.setCellStyle(headerStyle);
-        }
-
-        // Create data rows
-        int rowNum = 1;
-        for (User user : users) {
-            Row row = sheet.createRow(rowNum++);
-            row.createCell(0).setCellValue(user.getFullName());
-            row.createCell(1).setCellValue(user.getEmail());
-            row.createCell(2).setCellValue(user.getPhoneNumber() != null ? user.getPhoneNumber() : "N/A");
-            row.createCell(3).setCellValue(user.getRole().toString());
-            row.createCell(4).setCellValue(user.getCreatedAt() != null ? 
-                user.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")) : "N/A");
-            row.createCell(5).setCellValue(user.isEnabled() ? "Yes" : "No");
+    /**
+     * Streams one sheet: a styled header row, then every record returned by
+     * {@code readChunk(afterId, chunkSize)}, starting after id 0 and continuing from the
+     * last id of each chunk until a short chunk is returned.
+     */
+    private <T> void writeWorkbook(OutputStream out, String sheetName, String[] headers, IndexedColors headerColor,
+                                   BiFunction<Long, Integer, List<T>> readChunk, ToLongFunction<T> idOf,
+                                   BiConsumer<Row, T> writeRow) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(rowWindow);
+        workbook.setCompressTempFiles(true);
+        try {
+            Sheet sheet = workbook.createSheet(sheetName);
+
+            CellStyle headerStyle = workbook.createCellStyle();
+            Font headerFont = workbook.createFont();
+            headerFont.setBold(true);
+            headerStyle.setFont(headerFont);
+            headerStyle.setFillForegroundColor(headerColor.getIndex());
+            headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+
+            Row headerRow = sheet.createRow(0);
+            int[] widths = new int[headers.length];
+            for (int i = 0; i < headers.length; i++) {
+                Cell cell = headerRow.createCell(i);
+                cell.setCellValue(headers[i]);
+                cell.setCellStyle(headerStyle);
+                widths[i] = headers[i].length();
+            }
+
+            int rowNum = 1;
+            long afterId = 0;
+            List<T> chunk;
+            do {
+                chunk = readChunk.apply(afterId, chunkSize);
+                for (T record : chunk) {
+                    Row row = sheet.createRow(rowNum);
+                    writeRow.accept(row, record);
+                    if (rowNum <= widthSampleRows) {
+                        sampleWidths(row, widths);
+                    }
+                    rowNum++;
+                    afterId = idOf.applyAsLong(record);
+                }
+            } while (chunk.size() == chunkSize);
+
+            for (int i = 0; i < widths.length; i++) {
+                sheet.setColumnWidth(i, Math.min(widths[i] + 2, MAX_COLUMN_WIDTH) * 256);
+            }
+            workbook.write(out);
+        } finally {
+            // Deletes the temp files holding the flushed rows
+            workbook.dispose();
+            workbook.close();
         }
+    }
 
-        // Auto-size columns
-        for (int i = 0; i < headers.length; i++) {
-            sheet.autoSizeColumn(i);
+    private static void sampleWidths(Row row, int[] widths) {
+        for (Cell cell : row) {
+            int length = cell.getCellType() == CellType.NUMERIC
+                    ? String.valueOf(cell.getNumericCellValue()).length()
+                    : cell.getStringCellValue().length();
+            widths[cell.getColumnIndex()] = Math.max(widths[cell.getColumnIndex()], length);
         }
-
-        // Convert to byte array
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        workbook.write(outputStream);
-        workbook.close();
-
-        return outputStream.toByteArray();
     }
 
+    /**
+     * Invoice markup for {@code order}, whose items and products must be loadable. The
+     * markup is written in one pass into a builder sized for the number of items, from
+     * constant fragments and escaped order data.
+     */
     public String generateOrderInvoiceHTML(Order order) {
-        StringBuilder html = new StringBuilder();
-        html.append("<!DOCTYPE html>");
-        html.append("<html><head>");
-        html.append("<meta charset='UTF-8'>");
-        html.append("<title>Invoice - ").append(order.getOrderNumber()).append("</title>");
-        html.append("<style>");
-        html.append("body { font-family: Arial, sans-serif; margin: 20px; }");
-        html.append(".header { text-align: center; margin-bottom: 30px; }");
-        html.append(".invoice-details { margin-bottom: 30px; }");
-        html.append(".customer-info, .order-info { display: inline-block; width: 48%; vertical-align: top; }");
-        html.append("table { width: 100%; border-collapse: collapse; margin-bottom: 30px; }");
-        html.append("th, td { border: 1px solid #ddd; padding: 8px; text-align: left; }");
-        html.append("th { background-color: #f2f2f2; }");
-        html.append(".total { text-align: right; font-weight: bold; }");
-        html.append("</style>");
-        html.append("</head><body>");
-
-        // Header
-        html.append("<div class='header'>");
-        html.append("<h1>E-Commerce Store</h1>");
-        html.append("<h2>Invoice</h2>");
-        html.append("</div>");
+        List<OrderItem> items = order.getOrderItems();
+        StringBuilder html = new StringBuilder(INVOICE_FIXED_LENGTH + items.size() * INVOICE_ROW_LENGTH);
+
+        html.append(INVOICE_HEAD);
+        appendEscaped(html, order.getOrderNumber());
+        html.append(INVOICE_STYLE_AND_HEADER);
 
         // Invoice details
-        html.append("<div class='invoice-details'>");
-        html.append("<div class='customer-info'>");
-        html.append("<h3>Bill To:</h3>");
-        html.append("<p><strong>").append(order.getUser().getFullName()).append("</strong></p>");
-        html.append("<p>").append(order.getUser().getEmail()).append("</p>");
-        html.append("<p>").append(order.getBillingAddress()).append("</p>");
-        html.append("</div>");
-
-        html.append("<div class='order-info'>");
-        html.append("<h3>Order Details:</h3>");
-        html.append("<p><strong>Invoice #:</strong> ").append(order.getOrderNumber()).append("</p>");
-        html.append("<p><strong>Order Date:</strong> ").append(order.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"))).append("</p>");
-        html.append("<p><strong>Status:</strong> ").append(order.getStatus()).append("</p>");
-        html.append("<p><strong>Payment Status:</strong> ").append(order.getPaymentStatus()).append("</p>");
-        html.append("</div>");
-        html.append("</div>");
+        appendEscaped(html, order.getUser().getFullName()).append("</strong></p><p>");
+        appendEscaped(html, order.getUser().getEmail()).append("</p><p>");
+        appendEscaped(html, order.getBillingAddress()).append("</p></div>");
+        html.append("<div class='order-info'><h3>Order Details:</h3><p><strong>Invoice #:</strong> ");
+        appendEscaped(html, order.getOrderNumber());
+        html.append("</p><p><strong>Order Date:</strong> ");
+        DATE_TIME.formatTo(order.getCreatedAt(), html);
+        html.append("</p><p><strong>Status:</strong> ").append(order.getStatus());
+        html.append("</p><p><strong>Payment Status:</strong> ").append(order.getPaymentStatus());
 
         // Items table
-        html.append("<table>");
-        html.append("<thead><tr>");
-        html.append("<th>Item</th><th>Description</th><th>Quantity</th><th>Unit Price</th><th>Total</th>");
-        html.append("</tr></thead><tbody>");
-
-        for (var item : order.getOrderItems()) {
-            html.append("<tr>");
-            html.append("<td>").append(item.getProduct().getName()).append("</td>");
-            html.append("<td>").append(item.getProduct().getDescription()).append("</td>");
-            html.append("<td>").append(item.getQuantity()).append("</td>");
-            html.append("<td>₹").append(String.format("%.2f", item.getUnitPrice())).append("</td>");
-            html.append("<td>₹").append(String.format("%.2f", item.getSubtotal())).append("</td>");
-            html.append("</tr>");
+        html.append(INVOICE_ITEMS_HEADER);
+        for (OrderItem item : items) {
+            html.append("<tr><td>");
+            appendEscaped(html, item.getProduct().getName()).append("</td><td>");
+            appendEscaped(html, item.getProduct().getDescription()).append("</td><td>");
+            html.append(item.getQuantity()).append("</td><td>₹");
+            MoneyFormat.append(html, item.getUnitPrice()).append("</td><td>₹");
+            MoneyFormat.append(html, item.getSubtotal()).append("</td></tr>");
         }
 
-        html.append("</tbody></table>");
-
         // Total
-        html.append("<div class='total'>");
-        html.append("<p><strong>Total Amount: ₹").append(String.format("%.2f", order.getTotalAmount())).append("</strong></p>");
-        html.append("</div>");
-
-        html.append("</body></html>");
+        html.append(INVOICE_TOTAL);
+        MoneyFormat.append(html, order.getTotalAmount());
+        html.append(INVOICE_END);
         return html.toString();
     }
+
+    // Customer-entered text must not be able to inject markup into the invoice
+    private static StringBuilder appendEscaped(StringBuilder html, String text) {
+        if (text == null) {
+            return html;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&' -> html.append("&amp;");
+                case '<' -> html.append("&lt;");
+                case '>' -> html.append("&gt;");
+                case '"' -> html.append("&quot;");
+                case '\'' -> html.append("&#39;");
+                default -> html.append(c);
+            }
+        }
+        return html;
+    }
 }
@@ -0,0 +1,223 @@
+package com.example.E_Commerce.service;
+
+import com.example.E_Commerce.model.ExportDataset;
+import com.example.E_Commerce.model.ExportFilter;
+import com.example.E_Commerce.model.ExportFormat;
+import com.example.E_Commerce.repository.ExportRowRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * CSV and NDJSON exports for the data warehouse.
+ *
+ * Rows come off a forward-only cursor ({@link ExportRowRepository}) as plain column
+ * values and are formatted into one reused line buffer, then copied through a reused char
+ * array into a large buffered writer, optionally gzip-compressed. Nothing is kept per row,
+ * so memory stays flat and throughput is bounded by the database and the client.
+ */
+@Service
+public class FlatExportService {
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private ExportRowRepository exportRowRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${export.stream.fetch-size:1000}")
+    private int fetchSize;
+
+    // The persistence context is cleared this often in case a provider keeps anything per row
+    @Value("${export.chunk-size:1000}")
+    private int chunkSize;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    @PostConstruct
+    public void init() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Writes the rows of {@code dataset} matching {@code filter} to {@code out}. CSV output
+     * starts with a header line; NDJSON writes one object per line keyed by column name.
+     *
+     * @return number of rows written
+     */
+    public long write(ExportDataset dataset, ExportFilter filter, ExportFormat format, boolean gzip,
+                      OutputStream out) throws IOException {
+        try {
+            Long rows = readOnlyTransaction.execute(status -> {
+                try {
+                    return writeRows(dataset, filter, format, gzip, out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            return rows != null ? rows : 0;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private long writeRows(ExportDataset dataset, ExportFilter filter, ExportFormat format, boolean gzip,
+                           OutputStream out) throws IOException {
+        GZIPOutputStream compressed = gzip ? new GZIPOutputStream(out, WRITE_BUFFER_SIZE) : null;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(compressed != null ? compressed : out,
+                StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        String[] columns = dataset.getColumns();
+        StringBuilder line = new StringBuilder(256);
+        char[] chars = new char[1024];
+
+        if (format == ExportFormat.CSV) {
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) {
+                    line.append(',');
+                }
+                line.append(columns[i]);
+            }
+            line.append('\n');
+            chars = flush(line, chars, writer);
+        }
+
+        long count = 0;
+        try (Stream<Object[]> rows = exportRowRepository.streamRows(dataset, filter, fetchSize)) {
+            Iterator<Object[]> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                Object[] row = iterator.next();
+                if (format == ExportFormat.CSV) {
+                    appendCsv(line, row);
+                } else {
+                    appendJson(line, columns, row);
+                }
+                line.append('\n');
+                chars = flush(line, chars, writer);
+                if (++count % chunkSize == 0) {
+                    exportRowRepository.clear();
+                }
+            }
+        }
+
+        writer.flush();
+        if (compressed != null) {
+            compressed.finish();
+        }
+        out.flush();
+        return count;
+    }
+
+    // Copies the line into the reusable char array (growing it if needed) and resets the line
+    private static char[] flush(StringBuilder line, char[] chars, Writer writer) throws IOException {
+        int length = line.length();
+        if (length > chars.length) {
+            chars = new char[Math.max(length, chars.length * 2)];
+        }
+        line.getChars(0, length, chars, 0);
+        writer.write(chars, 0, length);
+        line.setLength(0);
+        return chars;
+    }
+
+    static void appendCsv(StringBuilder line, Object[] row) {
+        for (int i = 0; i < row.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            Object value = row[i];
+            if (value == null) {
+                continue;
+            }
+            if (value instanceof Number || value instanceof Boolean) {
+                appendScalar(line, value);
+                continue;
+            }
+            String text = value instanceof Enum<?> e ? e.name() : value.toString();
+            boolean quote = false;
+            for (int c = 0; c < text.length() && !quote; c++) {
+                char ch = text.charAt(c);
+                quote = ch == ',' || ch == '"' || ch == '\n' || ch == '\r';
+            }
+            if (!quote) {
+                line.append(text);
+                continue;
+            }
+            line.append('"');
+            for (int c = 0; c < text.length(); c++) {
+                char ch = text.charAt(c);
+                if (ch == '"') {
+                    line.append('"');
+                }
+                line.append(ch);
+            }
+            line.append('"');
+        }
+    }
+
+    static void appendJson(StringBuilder line, String[] columns, Object[] row) {
+        line.append('{');
+        for (int i = 0; i < row.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            line.append('"').append(columns[i]).append("\":");
+            Object value = row[i];
+            if (value == null) {
+                line.append("null");
+            } else if (value instanceof Number || value instanceof Boolean) {
+                appendScalar(line, value);
+            } else {
+                appendJsonString(line, value instanceof Enum<?> e ? e.name() : value.toString());
+            }
+        }
+        line.append('}');
+    }
+
+    private static void appendScalar(StringBuilder line, Object value) {
+        if (value instanceof BigDecimal decimal) {
+            line.append(decimal.toPlainString());
+        } else if (value instanceof Long number) {
+            line.append(number.longValue());
+        } else if (value instanceof Integer number) {
+            line.append(number.intValue());
+        } else {
+            line.append(value);
+        }
+    }
+
+    private static void appendJsonString(StringBuilder line, String text) {
+        line.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            switch (ch) {
+                case '"' -> line.append("\\\"");
+                case '\\' -> line.append("\\\\");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                case '\t' -> line.append("\\t");
+                default -> {
+                    if (ch < 0x20) {
+                        line.append("\\u00");
+                        line.append(Character.forDigit(ch >> 4, 16)).append(Character.forDigit(ch & 0xF, 16));
+                    } else {
+                        line.append(ch);
+                    }
+                }
+            }
+        }
+        line.append('"');
+    }
+}
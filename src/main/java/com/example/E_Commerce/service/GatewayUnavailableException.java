@@ -0,0 +1,13 @@
+package com.example.E_Commerce.service;
+
+/**
+ * Thrown when a payment gateway call is refused before it is sent, because too many calls
+ * are already in flight or the circuit breaker is open. Nothing reached the gateway, so the
+ * customer should be asked to try again; it must never lead to a simulated payment.
+ */
+public class GatewayUnavailableException extends RuntimeException {
+
+    public GatewayUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.E_Commerce.service;
+
+import com.itextpdf.html2pdf.ConverterProperties;
+import com.itextpdf.html2pdf.HtmlConverter;
+import com.itextpdf.html2pdf.resolver.font.DefaultFontProvider;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.layout.font.FontProvider;
+import com.itextpdf.layout.font.FontSet;
+import com.itextpdf.styledxmlparser.css.media.MediaDeviceDescription;
+import com.itextpdf.styledxmlparser.css.media.MediaType;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Converts HTML to PDF with settings prepared once at startup.
+ *
+ * Left to its defaults, every {@code HtmlConverter} call builds a new font provider, which
+ * loads and parses the fonts shipped with html2pdf again, and that dominated invoice
+ * rendering time. Here the font set is built once and shared. Each conversion gets its own
+ * lightweight {@link FontProvider} over it, because a provider caches the fonts it has
+ * created for one PDF document and must not be used by two conversions at once. The other
+ * converter settings live in one read-only {@link ConverterProperties} that is copied per
+ * conversion. Safe for concurrent use.
+ */
+@Component
+public class HtmlPdfRenderer {
+
+    private static final Logger logger = LoggerFactory.getLogger(HtmlPdfRenderer.class);
+
+    // html2pdf's own default family, used when the markup names a font that is not available
+    private static final String DEFAULT_FONT_FAMILY = "Times";
+
+    private FontSet fontSet;
+    private ConverterProperties baseProperties;
+
+    @PostConstruct
+    public void init() {
+        long started = System.currentTimeMillis();
+        // Standard PDF fonts plus the shipped fonts (which cover the rupee sign); scanning system fonts is slow and host dependent
+        fontSet = new DefaultFontProvider(true, true, false).getFontSet();
+
+        baseProperties = new ConverterProperties();
+        baseProperties.setCharset(StandardCharsets.UTF_8.name());
+        baseProperties.setMediaDeviceDescription(new MediaDeviceDescription(MediaType.PRINT));
+        logger.info("PDF renderer loaded {} fonts in {} ms", fontSet.getFonts().size(), System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Renders {@code html} as a PDF onto {@code out}, which is flushed but left open.
+     */
+    public void render(String html, OutputStream out) throws IOException {
+        ConverterProperties properties = new ConverterProperties(baseProperties);
+        properties.setFontProvider(new FontProvider(fontSet, DEFAULT_FONT_FAMILY));
+
+        PdfWriter writer = new PdfWriter(out);
+        // The caller owns the stream
+        writer.setCloseStream(false);
+        HtmlConverter.convertToPdf(html, writer, properties);
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.E_Commerce.service;
+
+import com.example.E_Commerce.model.IdempotencyRecord;
+import com.example.E_Commerce.model.IdempotencyStatus;
+import com.example.E_Commerce.repository.IdempotencyRecordRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs an action at most once per idempotency key.
+ *
+ * Completed results are answered from a bounded in-memory cache first and from the
+ * {@code idempotency_keys} table otherwise, so retries are recognised across restarts and
+ * nodes. A key is claimed in its own committed transaction before the action runs; a
+ * concurrent duplicate (a double-clicked submit) sees the claim and waits up to
+ * {@code idempotency.in-flight-wait-ms} for the first request's result instead of running
+ * twice.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    public static final String CHECKOUT_SCOPE = "checkout";
+    public static final String PAYMENT_VERIFICATION_SCOPE = "payment-verification";
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    // A claim older than this is assumed to belong to a crashed request and may be taken over
+    @Value("${idempotency.in-progress-timeout-seconds:120}")
+    private long inProgressTimeoutSeconds;
+
+    @Value("${idempotency.in-flight-wait-ms:10000}")
+    private long inFlightWaitMs;
+
+    @Value("${idempotency.in-flight-poll-ms:100}")
+    private long inFlightPollMs;
+
+    @Value("${idempotency.cache.max-size:10000}")
+    private long cacheMaxSize;
+
+    private Cache<String, Long> completedResults;
+    private TransactionTemplate newTransaction;
+
+    @PostConstruct
+    public void init() {
+        completedResults = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(Duration.ofHours(ttlHours))
+                .build();
+        newTransaction = new TransactionTemplate(transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Runs {@code action} unless a request with the same scope and key already completed,
+     * in which case the original result is returned. If that request is still running, waits
+     * for its result. A null result or an exception releases the key so the request can be
+     * retried.
+     *
+     * @throws RequestInProgressException if the other request is still running after the wait
+     */
+    public Long execute(String scope, String key, Supplier<Long> action) {
+        String cacheKey = scope + ":" + key;
+        Long cached = completedResults.getIfPresent(cacheKey);
+        if (cached != null) {
+            logger.info("Replaying {} request for idempotency key {}", scope, key);
+            return cached;
+        }
+
+        Optional<Long> previous = claim(scope, key);
+        if (previous.isPresent()) {
+            completedResults.put(cacheKey, previous.get());
+            logger.info("Replaying {} request for idempotency key {}", scope, key);
+            return previous.get();
+        }
+
+        Long result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            release(scope, key);
+            throw e;
+        }
+        if (result == null) {
+            release(scope, key);
+            return null;
+        }
+
+        complete(scope, key, result);
+        completedResults.put(cacheKey, result);
+        return result;
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.cleanup-interval-ms:600000}")
+    public void purgeExpiredKeys() {
+        try {
+            Integer purged = newTransaction.execute(status ->
+                    idempotencyRecordRepository.deleteExpired(LocalDateTime.now()));
+            if (purged != null && purged > 0) {
+                logger.info("Purged {} expired idempotency keys", purged);
+            }
+        } catch (Exception e) {
+            logger.error("Idempotency key cleanup failed: {}", e.getMessage(), e);
+        }
+    }
+
+    // Returns the earlier result if the key has already completed, otherwise records the claim.
+    // While another request holds the claim, polls until it completes or releases the key.
+    private Optional<Long> claim(String scope, String key) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(inFlightWaitMs);
+        while (true) {
+            try {
+                return newTransaction.execute(status -> claimInTransaction(scope, key));
+            } catch (DataIntegrityViolationException | RequestInProgressException e) {
+                // Lost the insert race to, or found the claim of, a concurrent duplicate
+                if (System.nanoTime() >= deadline) {
+                    throw new RequestInProgressException("This request is already being processed");
+                }
+            }
+            try {
+                Thread.sleep(inFlightPollMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RequestInProgressException("This request is already being processed");
+            }
+        }
+    }
+
+    private Optional<Long> claimInTransaction(String scope, String key) {
+        LocalDateTime now = LocalDateTime.now();
+        Optional<IdempotencyRecord> existing = idempotencyRecordRepository.findByScopeAndIdempotencyKey(scope, key);
+        if (existing.isPresent()) {
+            IdempotencyRecord record = existing.get();
+            if (record.getExpiresAt().isAfter(now)) {
+                if (record.getStatus() == IdempotencyStatus.COMPLETED) {
+                    return Optional.of(record.getResultId());
+                }
+                throw new RequestInProgressException("This request is already being processed");
+            }
+            idempotencyRecordRepository.delete(record);
+            idempotencyRecordRepository.flush();
+        }
+
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setScope(scope);
+        record.setIdempotencyKey(key);
+        record.setStatus(IdempotencyStatus.IN_PROGRESS);
+        record.setExpiresAt(now.plusSeconds(inProgressTimeoutSeconds));
+        idempotencyRecordRepository.saveAndFlush(record);
+        return Optional.empty();
+    }
+
+    private void complete(String scope, String key, Long result) {
+        newTransaction.executeWithoutResult(status -> idempotencyRecordRepository
+                .findByScopeAndIdempotencyKey(scope, key)
+                .ifPresent(record -> {
+                    record.setStatus(IdempotencyStatus.COMPLETED);
+                    record.setResultId(result);
+                    record.setExpiresAt(LocalDateTime.now().plusHours(ttlHours));
+                    idempotencyRecordRepository.save(record);
+                }));
+    }
+
+    private void release(String scope, String key) {
+        try {
+            newTransaction.executeWithoutResult(status ->
+                    idempotencyRecordRepository.deleteByScopeAndKey(scope, key));
+        } catch (Exception e) {
+            logger.warn("Could not release idempotency key {} for {}: {}", key, scope, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.example.E_Commerce.service;
+
+import com.example.E_Commerce.model.*;
+import com.example.E_Commerce.repository.InventoryReservationRepository;
+import com.example.E_Commerce.repository.OrderRepository;
+import com.example.E_Commerce.util.TransactionHooks;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checkout stock holds.
+ *
+ * Stock is taken from {@code products.stock_quantity} when an order is placed, so the
+ * product row always shows available-to-sell and browse pages never have to subtract
+ * reservations. Each hold expires after {@code inventory.reservation.ttl-minutes}; holds
+ * that are still {@link ReservationStatus#HELD} by then are returned to stock in bulk by
+ * {@link InventoryReservationSweeper} and their orders cancelled.
+ *
+ * Quantities currently on hold are also kept per product in memory, seeded from the
+ * database on startup and re-synced after every sweep.
+ */
+@Service
+@Transactional
+public class InventoryReservationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryReservationService.class);
+
+    @Autowired
+    private InventoryReservationRepository reservationRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderEventPublisher orderEventPublisher;
+
+    @Autowired
+    private OrderStatusLogService orderStatusLogService;
+
+    @Autowired
+    private OrderMetricsAggregator orderMetrics;
+
+    @Value("${inventory.reservation.ttl-minutes:30}")
+    private long ttlMinutes;
+
+    private final ConcurrentHashMap<Long, AtomicInteger> heldByProduct = new ConcurrentHashMap<>();
+
+    public void reserve(Order order) {
+        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(ttlMinutes);
+        List<InventoryReservation> reservations = new ArrayList<>();
+        for (OrderItem item : order.getOrderItems()) {
+            InventoryReservation reservation = new InventoryReservation();
+            reservation.setOrderId(order.getId());
+            reservation.setProductId(item.getProduct().getId());
+            reservation.setQuantity(item.getQuantity());
+            reservation.setStatus(ReservationStatus.HELD);
+            reservation.setExpiresAt(expiresAt);
+            reservations.add(reservation);
+        }
+        reservationRepository.saveAll(reservations);
+        TransactionHooks.afterCommit(() -> reservations.forEach(r -> adjustHeld(r.getProductId(), r.getQuantity())));
+    }
+
+    /**
+     * Makes the order's holds permanent once payment succeeds.
+     * If the holds had already expired and been returned to stock, the stock is taken
+     * again. That is all or nothing: if any line could not be re-acquired, the lines that
+     * were are given back and false is returned.
+     */
+    public boolean commit(Long orderId) {
+        LocalDateTime now = LocalDateTime.now();
+        List<InventoryReservation> held = reservationRepository.findByOrderIdAndStatus(orderId, ReservationStatus.HELD);
+        int committed = reservationRepository.transitionByOrderId(orderId, ReservationStatus.HELD,
+                ReservationStatus.COMMITTED, now);
+        if (committed > 0) {
+            TransactionHooks.afterCommit(() -> held.forEach(r -> adjustHeld(r.getProductId(), -r.getQuantity())));
+        }
+
+        List<InventoryReservation> released = reservationRepository.findByOrderIdAndStatus(orderId, ReservationStatus.RELEASED);
+        if (committed > 0 || released.isEmpty()) {
+            return true;
+        }
+
+        logger.warn("Payment completed for order {} after its stock reservation expired, re-acquiring stock", orderId);
+        List<Long> reacquired = new ArrayList<>();
+        for (InventoryReservation reservation : released) {
+            if (productService.tryDecrementStock(reservation.getProductId(), reservation.getQuantity())) {
+                reacquired.add(reservation.getId());
+            }
+        }
+        if (reacquired.size() < released.size()) {
+            Map<Long, Integer> giveBack = new TreeMap<>();
+            for (InventoryReservation reservation : released) {
+                if (reacquired.contains(reservation.getId())) {
+                    giveBack.merge(reservation.getProductId(), reservation.getQuantity(), Integer::sum);
+                }
+            }
+            productService.incrementStocks(giveBack);
+            logger.error("Paid order {} is short of stock for {} line(s) after its reservation expired",
+                    orderId, released.size() - reacquired.size());
+            return false;
+        }
+        reservationRepository.transitionByIds(reacquired, ReservationStatus.RELEASED, ReservationStatus.COMMITTED, now);
+        return true;
+    }
+
+    /**
+     * Releases the order's holds ahead of a cancellation.
+     * Returns true if the caller still has to put the order's stock back, false if the
+     * reservation sweeper has already done so.
+     */
+    public boolean releaseForCancellation(Long orderId) {
+        List<InventoryReservation> held = reservationRepository.findByOrderIdAndStatus(orderId, ReservationStatus.HELD);
+        int released = reservationRepository.transitionByOrderId(orderId, ReservationStatus.HELD,
+                ReservationStatus.RELEASED, LocalDateTime.now());
+        if (released > 0) {
+            TransactionHooks.afterCommit(() -> held.forEach(r -> adjustHeld(r.getProductId(), -r.getQuantity())));
+            return true;
+        }
+        return !reservationRepository.existsByOrderIdAndStatus(orderId, ReservationStatus.RELEASED);
+    }
+
+    /**
+     * Releases one batch of expired holds: returns their stock with one UPDATE per product
+     * and cancels the affected orders that are still awaiting payment.
+     * Rows locked by a concurrent sweep on another node are skipped.
+     *
+     * @return number of holds released
+     */
+    public int releaseExpired(int batchSize) {
+        LocalDateTime now = LocalDateTime.now();
+        List<InventoryReservation> expired = reservationRepository.findExpiredForUpdate(
+                ReservationStatus.HELD, now, PageRequest.of(0, batchSize));
+        if (expired.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> ids = new ArrayList<>(expired.size());
+        Set<Long> orderIds = new HashSet<>();
+        // Sorted by product id so concurrent sweeps lock product rows in the same order
+        Map<Long, Integer> quantityByProduct = new TreeMap<>();
+        for (InventoryReservation reservation : expired) {
+            ids.add(reservation.getId());
+            orderIds.add(reservation.getOrderId());
+            quantityByProduct.merge(reservation.getProductId(), reservation.getQuantity(), Integer::sum);
+        }
+
+        reservationRepository.transitionByIds(ids, ReservationStatus.HELD, ReservationStatus.RELEASED, now);
+        productService.incrementStocks(quantityByProduct);
+
+        // Locked so a payment completing concurrently either lands first or waits for the cancellation
+        List<Order> unpaid = orderRepository.findByIdInAndPaymentStatusForUpdate(orderIds, PaymentStatus.PENDING);
+        int cancelled = 0;
+        if (!unpaid.isEmpty()) {
+            List<Long> unpaidIds = unpaid.stream().map(Order::getId).toList();
+            cancelled = orderRepository.updateStatusesWherePaymentStatus(unpaidIds, PaymentStatus.PENDING,
+                    OrderStatus.CANCELLED, PaymentStatus.CANCELLED, now);
+            for (Order order : unpaid) {
+                JSONObject payload = orderEventPublisher.payloadOf(order)
+                        .put("status", OrderStatus.CANCELLED.name())
+                        .put("paymentStatus", PaymentStatus.CANCELLED.name())
+                        .put("reason", "reservation-expired");
+                orderEventPublisher.publish(order.getId(), OrderEventType.CANCELLED, payload);
+                orderStatusLogService.record(order.getId(), order.getStatus(), OrderStatus.CANCELLED,
+                        order.getPaymentStatus(), PaymentStatus.CANCELLED);
+                orderMetrics.recordTransition(order.getStatus(), OrderStatus.CANCELLED,
+                        order.getPaymentStatus(), PaymentStatus.CANCELLED, order.getTotalAmount());
+            }
+        }
+
+        logger.info("Released {} expired stock reservations across {} products, cancelled {} unpaid orders",
+                expired.size(), quantityByProduct.size(), cancelled);
+        return expired.size();
+    }
+
+    /**
+     * Releases the holds of orders that are being cancelled in bulk and returns them; the
+     * caller returns their stock. Holds locked by a concurrent sweep or payment are skipped
+     * and left to that transaction, together with every other hold of the same order, so
+     * an order is either released whole or not at all; {@link #findOrdersStillHeld} tells
+     * the caller which orders were left.
+     */
+    public List<InventoryReservation> releaseHeldForOrders(Collection<Long> orderIds) {
+        List<InventoryReservation> locked = reservationRepository.findByOrderIdInAndStatusForUpdate(orderIds, ReservationStatus.HELD);
+        if (locked.isEmpty()) {
+            return locked;
+        }
+        Map<Long, Long> lockedByOrder = new HashMap<>();
+        for (InventoryReservation reservation : locked) {
+            lockedByOrder.merge(reservation.getOrderId(), 1L, Long::sum);
+        }
+        Set<Long> complete = new HashSet<>();
+        for (Object[] row : reservationRepository.countByOrderIdInAndStatus(lockedByOrder.keySet(), ReservationStatus.HELD)) {
+            if (lockedByOrder.get((Long) row[0]) == ((Number) row[1]).longValue()) {
+                complete.add((Long) row[0]);
+            }
+        }
+        List<InventoryReservation> held = locked.stream().filter(r -> complete.contains(r.getOrderId())).toList();
+        if (held.isEmpty()) {
+            return held;
+        }
+        List<Long> ids = held.stream().map(InventoryReservation::getId).toList();
+        reservationRepository.transitionByIds(ids, ReservationStatus.HELD, ReservationStatus.RELEASED, LocalDateTime.now());
+        TransactionHooks.afterCommit(() -> held.forEach(r -> adjustHeld(r.getProductId(), -r.getQuantity())));
+        return held;
+    }
+
+    /**
+     * Orders among {@code orderIds} that still have holds. Called after
+     * {@link #releaseHeldForOrders} in the same transaction, these are the orders whose holds
+     * a concurrent payment or sweep has locked, and which must not be cancelled here.
+     */
+    @Transactional(readOnly = true)
+    public Set<Long> findOrdersStillHeld(Collection<Long> orderIds) {
+        Set<Long> stillHeld = new HashSet<>();
+        for (Object[] row : reservationRepository.countByOrderIdInAndStatus(orderIds, ReservationStatus.HELD)) {
+            stillHeld.add((Long) row[0]);
+        }
+        return stillHeld;
+    }
+
+    /**
+     * Orders among {@code orderIds} whose stock is tracked by reservations. Orders placed
+     * before reservations existed have none, and their stock must be restored from their items.
+     */
+    @Transactional(readOnly = true)
+    public Set<Long> findOrdersWithReservations(Collection<Long> orderIds) {
+        return new HashSet<>(reservationRepository.findOrderIdsWithReservations(orderIds));
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public int getHeldQuantity(Long productId) {
+        AtomicInteger held = heldByProduct.get(productId);
+        return held != null ? held.get() : 0;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void refreshHeldQuantities() {
+        Map<Long, Integer> latest = new HashMap<>();
+        for (Object[] row : reservationRepository.sumQuantityByProduct(ReservationStatus.HELD)) {
+            latest.put((Long) row[0], ((Number) row[1]).intValue());
+        }
+        heldByProduct.keySet().retainAll(latest.keySet());
+        latest.forEach((productId, quantity) ->
+                heldByProduct.computeIfAbsent(productId, k -> new AtomicInteger()).set(quantity));
+    }
+
+    private void adjustHeld(Long productId, int delta) {
+        heldByProduct.computeIfAbsent(productId, k -> new AtomicInteger()).addAndGet(delta);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.E_Commerce.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically returns expired checkout holds to stock.
+ * Each batch runs in its own transaction so product rows are only locked briefly.
+ */
+@Component
+public class InventoryReservationSweeper {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryReservationSweeper.class);
+
+    // Upper bound on batches per run so one sweep cannot monopolise the scheduler thread
+    private static final int MAX_BATCHES_PER_RUN = 50;
+
+    @Autowired
+    private InventoryReservationService reservationService;
+
+    @Value("${inventory.reservation.sweep-batch-size:200}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${inventory.reservation.sweep-interval-ms:60000}",
+               initialDelayString = "${inventory.reservation.sweep-interval-ms:60000}")
+    public void releaseExpiredReservations() {
+        try {
+            int total = 0;
+            for (int batch = 0; batch < MAX_BATCHES_PER_RUN; batch++) {
+                int released = reservationService.releaseExpired(batchSize);
+                total += released;
+                if (released < batchSize) {
+                    break;
+                }
+            }
+            if (total > 0) {
+                logger.info("Reservation sweep released {} expired holds", total);
+            }
+            reservationService.refreshHeldQuantities();
+        } catch (Exception e) {
+            logger.error("Reservation sweep failed: {}", e.getMessage(), e);
+        }
+    }
+}
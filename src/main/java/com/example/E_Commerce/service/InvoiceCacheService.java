@@ -0,0 +1,309 @@
+package com.example.E_Commerce.service;
+
+import com.example.E_Commerce.model.Order;
+import com.example.E_Commerce.repository.OrderRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Rendered invoice PDFs kept on local disk.
+ *
+ * An invoice only changes when its order does, so each file is named after the order id and
+ * the order's {@code updatedAt}: a newer order version simply misses and replaces the old
+ * file. Files live in a subdirectory per {@link PDFService#INVOICE_LAYOUT_VERSION}; at
+ * startup the directories of other layouts are deleted and the index is rebuilt from the
+ * current one. An in-memory index in least-recently-used order tracks the files and evicts
+ * the oldest once they add up to more than {@code invoice.cache.max-bytes}. Invoices of
+ * newly paid orders are rendered ahead of time on a background thread (see
+ * {@link InvoicePrewarmHandler}).
+ *
+ * A file may be deleted by eviction or replacement at any time, so readers should use
+ * {@link #openInvoice(Order)}: an open file stays readable after it is unlinked.
+ */
+@Service
+public class InvoiceCacheService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InvoiceCacheService.class);
+
+    private static final Pattern FILE_NAME = Pattern.compile("(\\d+)-(\\d+)\\.pdf");
+
+    private static final Pattern LAYOUT_DIR_NAME = Pattern.compile("layout-\\d+");
+
+    @Autowired
+    private PDFService pdfService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${invoice.cache.dir:${java.io.tmpdir}/emart-invoices}")
+    private String cacheDir;
+
+    @Value("${invoice.cache.max-bytes:268435456}")
+    private long maxBytes;
+
+    @Value("${invoice.cache.prewarm-queue-capacity:1000}")
+    private int prewarmQueueCapacity;
+
+    // Access-ordered; guarded by this
+    private final LinkedHashMap<Long, CachedInvoice> index = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+
+    private Path directory;
+    private ThreadPoolExecutor prewarmExecutor;
+    private TransactionTemplate readOnlyTransaction;
+
+    private record CachedInvoice(long version, Path file, long size) {
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        Path root = Paths.get(cacheDir);
+        directory = root.resolve("layout-" + PDFService.INVOICE_LAYOUT_VERSION);
+        Files.createDirectories(directory);
+        deleteOtherLayouts(root);
+        loadIndex();
+
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+
+        // Pre-generation is only an optimisation: when the queue is full the invoice is rendered on first download
+        AtomicInteger threadNumber = new AtomicInteger();
+        prewarmExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(prewarmQueueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "invoice-prewarm-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        prewarmExecutor.shutdownNow();
+    }
+
+    /**
+     * The invoice PDF of {@code order}, rendered now if there is none for this version of
+     * the order. On a miss the order's items and products must be loadable.
+     */
+    public Path getInvoice(Order order) throws IOException {
+        long version = versionOf(order);
+        synchronized (this) {
+            CachedInvoice cached = index.get(order.getId());
+            if (cached != null && cached.version() == version) {
+                return cached.file();
+            }
+        }
+        return render(order, version);
+    }
+
+    /**
+     * The invoice PDF of {@code order}, opened for reading. Unlike the path from
+     * {@link #getInvoice(Order)}, the channel keeps working if the cache deletes the file
+     * while it is being read.
+     */
+    public FileChannel openInvoice(Order order) throws IOException {
+        try {
+            return FileChannel.open(getInvoice(order), StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            // Evicted between lookup and open; the second lookup renders it again
+            return FileChannel.open(getInvoice(order), StandardOpenOption.READ);
+        }
+    }
+
+    /**
+     * The cached invoice of {@code order} opened for reading, or empty if this version of the
+     * order is not cached. Never renders and does not count as a use for eviction, so bulk
+     * reads do not displace the invoices customers are downloading.
+     */
+    public Optional<FileChannel> openIfCached(Order order) throws IOException {
+        synchronized (this) {
+            // containsKey, unlike get, leaves the access order alone
+            if (!index.containsKey(order.getId())) {
+                return Optional.empty();
+            }
+        }
+        try {
+            return Optional.of(FileChannel.open(fileOf(order.getId(), versionOf(order)), StandardOpenOption.READ));
+        } catch (NoSuchFileException e) {
+            // Another version is cached, or it was evicted meanwhile
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Renders the invoice of {@code orderId} in the background unless it is already cached.
+     */
+    public void prewarm(Long orderId) {
+        prewarmExecutor.execute(() -> {
+            try {
+                readOnlyTransaction.executeWithoutResult(status -> orderRepository.findDetailById(orderId)
+                        .ifPresent(order -> {
+                            try {
+                                getInvoice(order);
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        }));
+            } catch (Exception e) {
+                logger.warn("Could not pre-generate invoice for order {}: {}", orderId, e.getMessage());
+            }
+        });
+    }
+
+    synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    private Path render(Order order, long version) throws IOException {
+        Path file = fileOf(order.getId(), version);
+        // Rendered under a temporary name and renamed, so a partial file is never served
+        Path part = Files.createTempFile(directory, "invoice-", ".part");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(part))) {
+            pdfService.writeOrderInvoicePDF(order, out);
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(part);
+            throw e;
+        }
+        Files.move(part, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        long size = Files.size(file);
+        logger.debug("Rendered invoice for order {} ({} bytes)", order.getId(), size);
+
+        synchronized (this) {
+            CachedInvoice previous = index.put(order.getId(), new CachedInvoice(version, file, size));
+            totalBytes += size;
+            if (previous != null) {
+                totalBytes -= previous.size();
+                if (!previous.file().equals(file)) {
+                    deleteQuietly(previous.file());
+                }
+            }
+            evict();
+        }
+        return file;
+    }
+
+    // Least recently used first; the newest entry is kept even if it alone exceeds the limit
+    private void evict() {
+        Iterator<Map.Entry<Long, CachedInvoice>> eldest = index.entrySet().iterator();
+        while (totalBytes > maxBytes && index.size() > 1) {
+            CachedInvoice evicted = eldest.next().getValue();
+            eldest.remove();
+            totalBytes -= evicted.size();
+            deleteQuietly(evicted.file());
+        }
+    }
+
+    private void loadIndex() throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.toList();
+        }
+        // Oldest first, so the most recently written invoices end up most recently used
+        List<Path> sorted = files.stream()
+                .sorted(Comparator.comparingLong(InvoiceCacheService::lastModified))
+                .toList();
+
+        synchronized (this) {
+            for (Path file : sorted) {
+                Matcher name = FILE_NAME.matcher(file.getFileName().toString());
+                if (!name.matches()) {
+                    // Leftover of a render interrupted by a restart
+                    deleteQuietly(file);
+                    continue;
+                }
+                long size = Files.size(file);
+                CachedInvoice previous = index.put(Long.parseLong(name.group(1)),
+                        new CachedInvoice(Long.parseLong(name.group(2)), file, size));
+                totalBytes += size;
+                if (previous != null) {
+                    totalBytes -= previous.size();
+                    deleteQuietly(previous.file());
+                }
+            }
+            evict();
+        }
+        logger.info("Invoice cache holds {} invoices ({} bytes)", index.size(), totalBytes);
+    }
+
+    // Invoices rendered under an earlier layout, and the flat files of the pre-versioned cache.
+    // The cache directory may be shared (e.g. the temp directory), so nothing else is touched.
+    private void deleteOtherLayouts(Path root) throws IOException {
+        List<Path> stale;
+        try (Stream<Path> listing = Files.list(root)) {
+            stale = listing.filter(path -> !path.equals(directory))
+                    .filter(path -> Files.isDirectory(path)
+                            ? LAYOUT_DIR_NAME.matcher(path.getFileName().toString()).matches()
+                            : FILE_NAME.matcher(path.getFileName().toString()).matches())
+                    .toList();
+        }
+        for (Path path : stale) {
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> tree = Files.walk(path)) {
+                    tree.sorted(Comparator.reverseOrder()).forEach(InvoiceCacheService::deleteQuietly);
+                }
+            } else {
+                deleteQuietly(path);
+            }
+        }
+        if (!stale.isEmpty()) {
+            logger.info("Deleted {} invoice cache entries from earlier layouts", stale.size());
+        }
+    }
+
+    private Path fileOf(Long orderId, long version) {
+        return directory.resolve(orderId + "-" + version + ".pdf");
+    }
+
+    private static long versionOf(Order order) {
+        LocalDateTime version = order.getUpdatedAt() != null ? order.getUpdatedAt() : order.getCreatedAt();
+        return version.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete invoice file {}: {}", file, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.E_Commerce.service;
+
+import com.example.E_Commerce.model.OrderEventType;
+import com.example.E_Commerce.model.OutboxEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Renders the invoice of a newly paid order into the invoice cache, so the first download
+ * is served from disk. Rendering happens off the relay thread.
+ */
+@Component
+public class InvoicePrewarmHandler implements OrderEventHandler {
+
+    @Autowired
+    private InvoiceCacheService invoiceCacheService;
+
+    @Override
+    public boolean supports(OrderEventType eventType) {
+        return eventType == OrderEventType.PAID;
+    }
+
+    @Override
+    public void handle(OutboxEvent event) {
+        invoiceCacheService.prewarm(event.getOrderId());
+    }
+}
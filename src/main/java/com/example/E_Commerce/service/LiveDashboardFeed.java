@@ -0,0 +1,183 @@
+package com.example.E_Commerce.service;
+
+import com.example.E_Commerce.model.DashboardFrame;
+import com.example.E_Commerce.model.LowStockAlert;
+import com.example.E_Commerce.model.OrderStatus;
+import com.example.E_Commerce.repository.ProductRepository;
+import com.example.E_Commerce.util.TransactionHooks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pushes live metrics to open admin dashboards over Server-Sent Events.
+ *
+ * Changes are not sent as they happen: every {@code dashboard.live.frame-interval-ms} one
+ * frame is built from the in-memory {@link OrderMetricsAggregator} counters (new orders,
+ * revenue and status moves since the previous frame) plus any products whose stock fell to
+ * the low-stock threshold, and that single frame is multicast to every subscriber. The
+ * database is touched at most once per frame, and only when stock changed.
+ *
+ * Streams are async servlet responses, so an idle dashboard holds a connection but no
+ * request thread. Each subscriber is decoupled from the publisher and keeps only its latest
+ * pending frame; a slow browser skips frames instead of holding back the others, and
+ * catches up from the totals in the next frame it receives.
+ */
+@Component
+public class LiveDashboardFeed {
+
+    private static final Logger logger = LoggerFactory.getLogger(LiveDashboardFeed.class);
+
+    @Autowired
+    private OrderMetricsAggregator orderMetrics;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Value("${dashboard.live.low-stock-threshold:5}")
+    private int lowStockThreshold;
+
+    // A frame is sent at least this often even when nothing changed, to keep proxies from closing the stream
+    @Value("${dashboard.live.heartbeat-ms:15000}")
+    private long heartbeatMs;
+
+    @Value("${dashboard.live.stream-timeout-ms:1800000}")
+    private long streamTimeoutMs;
+
+    private final Sinks.Many<DashboardFrame> frames = Sinks.many().multicast().directBestEffort();
+
+    // Products whose stock went down since the last frame
+    private final Set<Long> stockTouched = ConcurrentHashMap.newKeySet();
+
+    // Totals as of the previous frame; only read and written by the scheduler thread
+    private long lastTotalOrders = -1;
+    private BigDecimal lastRevenue = BigDecimal.ZERO;
+    private Map<OrderStatus, Long> lastByStatus = new EnumMap<>(OrderStatus.class);
+    private long lastEmittedAt;
+
+    /**
+     * Opens a stream for one dashboard. The current totals are sent straight away; frames
+     * follow until the client disconnects or the stream times out, after which the browser's
+     * EventSource reconnects on its own.
+     */
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        Disposable subscription = Flux.concat(Mono.fromSupplier(this::currentTotals), frames.asFlux())
+                .onBackpressureLatest()
+                .publishOn(Schedulers.boundedElastic(), 1)
+                .subscribe(frame -> send(emitter, frame), emitter::completeWithError);
+        emitter.onCompletion(subscription::dispose);
+        emitter.onTimeout(subscription::dispose);
+        emitter.onError(e -> subscription.dispose());
+        return emitter;
+    }
+
+    /**
+     * Notes that a product's stock went down, so its level is checked in the next frame
+     * once the surrounding transaction commits.
+     */
+    public void stockChanged(Long productId) {
+        TransactionHooks.afterCommit(() -> stockTouched.add(productId));
+    }
+
+    public int getSubscriberCount() {
+        return frames.currentSubscriberCount();
+    }
+
+    @Scheduled(fixedRateString = "${dashboard.live.frame-interval-ms:1000}")
+    public void publishFrame() {
+        try {
+            DashboardFrame frame = nextFrame();
+            if (frame == null) {
+                return;
+            }
+            Sinks.EmitResult result = frames.tryEmitNext(frame);
+            if (result.isFailure() && result != Sinks.EmitResult.FAIL_ZERO_SUBSCRIBER) {
+                logger.warn("Could not publish live dashboard frame: {}", result);
+            }
+        } catch (Exception e) {
+            logger.error("Live dashboard frame failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Builds the frame for this tick and advances the baseline, or returns null when there
+     * is nothing to send: no subscribers, or no change and no heartbeat due.
+     */
+    DashboardFrame nextFrame() {
+        DashboardFrame frame = currentTotals();
+        boolean first = lastTotalOrders < 0;
+
+        frame.setNewOrders(first ? 0 : Math.max(0, frame.getTotalOrders() - lastTotalOrders));
+        frame.setRevenueDelta(first ? BigDecimal.ZERO : frame.getTotalRevenue().subtract(lastRevenue));
+        Map<OrderStatus, Long> statusChanges = new EnumMap<>(OrderStatus.class);
+        if (!first) {
+            frame.getOrdersByStatus().forEach((status, count) -> {
+                long delta = count - lastByStatus.getOrDefault(status, 0L);
+                if (delta != 0) {
+                    statusChanges.put(status, delta);
+                }
+            });
+        }
+        frame.setStatusChanges(statusChanges);
+
+        lastTotalOrders = frame.getTotalOrders();
+        lastRevenue = frame.getTotalRevenue();
+        lastByStatus = frame.getOrdersByStatus();
+
+        List<Long> touched = new ArrayList<>(stockTouched);
+        touched.forEach(stockTouched::remove);
+        if (frames.currentSubscriberCount() == 0) {
+            return null;
+        }
+        frame.setLowStock(touched.isEmpty() ? Collections.emptyList()
+                : productRepository.findLowStockIn(touched, lowStockThreshold));
+
+        boolean changed = frame.getNewOrders() > 0 || frame.getRevenueDelta().signum() != 0
+                || !statusChanges.isEmpty() || !frame.getLowStock().isEmpty();
+        long now = System.currentTimeMillis();
+        if (!changed && now - lastEmittedAt < heartbeatMs) {
+            return null;
+        }
+        lastEmittedAt = now;
+        return frame;
+    }
+
+    private DashboardFrame currentTotals() {
+        DashboardFrame frame = new DashboardFrame();
+        frame.setTotalOrders(orderMetrics.getTotalOrders());
+        frame.setTotalRevenue(orderMetrics.getCompletedRevenue());
+        frame.setOrdersByStatus(orderMetrics.getCountsByStatus());
+        frame.setRevenueDelta(BigDecimal.ZERO);
+        frame.setStatusChanges(Collections.emptyMap());
+        frame.setLowStock(Collections.emptyList());
+        frame.setEmittedAt(LocalDateTime.now());
+        return frame;
+    }
+
+    private static void send(SseEmitter emitter, DashboardFrame frame) {
+        try {
+            emitter.send(SseEmitter.event().name("frame").data(frame, MediaType.APPLICATION_JSON));
+        } catch (IOException e) {
+            // Client went away; ends this subscription only
+            throw new UncheckedIOException(e);
+        }
+    }
+}
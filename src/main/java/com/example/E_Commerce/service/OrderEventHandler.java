@@ -0,0 +1,19 @@
+package com.example.E_Commerce.service;
+
+import com.example.E_Commerce.model.OrderEventType;
+import com.example.E_Commerce.model.OutboxEvent;
+
+/**
+ * In-process consumer of order events, invoked by {@link OutboxRelay} after the order
+ * change has been committed. Any Spring bean implementing this interface is picked up.
+ *
+ * Delivery is at-least-once: if a handler throws, the event is retried later for every
+ * handler that supports it, so implementations must tolerate seeing an event twice.
+ * Events of the same order always arrive in the order they were recorded.
+ */
+public interface OrderEventHandler {
+
+    boolean supports(OrderEventType eventType);
+
+    void handle(OutboxEvent event);
+}
@@ -0,0 +1,47 @@
+package com.example.E_Commerce.service;
+
+import com.example.E_Commerce.model.Order;
+import com.example.E_Commerce.model.OrderEventType;
+import com.example.E_Commerce.model.OutboxEvent;
+import com.example.E_Commerce.repository.OutboxEventRepository;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Records order events in the outbox table.
+ * Must be called inside the transaction that changes the order, so the event is stored
+ * if and only if the change commits; delivery to handlers happens later in {@link OutboxRelay}.
+ */
+@Service
+@Transactional(propagation = Propagation.MANDATORY)
+public class OrderEventPublisher {
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    public void publish(Order order, OrderEventType eventType) {
+        publish(order.getId(), eventType, payloadOf(order));
+    }
+
+    public void publish(Long orderId, OrderEventType eventType, JSONObject payload) {
+        OutboxEvent event = new OutboxEvent();
+        event.setOrderId(orderId);
+        event.setEventType(eventType);
+        event.setPayload(payload.toString());
+        outboxEventRepository.save(event);
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public JSONObject payloadOf(Order order) {
+        JSONObject payload = new JSONObject();
+        payload.put("orderNumber", order.getOrderNumber());
+        payload.put("userId", order.getUser() != null ? order.getUser().getId() : JSONObject.NULL);
+        payload.put("status", String.valueOf(order.getStatus()));
+        payload.put("paymentStatus", String.valueOf(order.getPaymentStatus()));
+        payload.put("totalAmount", order.getTotalAmount() != null ? order.getTotalAmount() : JSONObject.NULL);
+        return payload;
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.E_Commerce.service;
+
+import com.example.E_Commerce.model.OrderStatus;
+import com.example.E_Commerce.model.PaymentStatus;
+import com.example.E_Commerce.repository.OrderRepository;
+import com.example.E_Commerce.util.MoneyFormat;
+import com.example.E_Commerce.util.TransactionHooks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live order counts per {@link OrderStatus} and {@link PaymentStatus} plus completed revenue.
+ *
+ * Counters are {@link LongAdder}s, which stripe updates across cells so concurrent checkouts
+ * do not contend on one value; reads sum a handful of cells without locking. They are
+ * seeded from grouped queries on startup, adjusted after every order transition commits,
+ * and periodically reconciled against the database to absorb changes made elsewhere
+ * (other nodes, manual fixes). Revenue is kept in minor units (paise).
+ */
+@Component
+public class OrderMetricsAggregator {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderMetricsAggregator.class);
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private final LongAdder[] byStatus = newAdders(OrderStatus.values().length);
+    private final LongAdder[] byPaymentStatus = newAdders(PaymentStatus.values().length);
+    private final LongAdder totalOrders = new LongAdder();
+    private final LongAdder completedRevenueMinor = new LongAdder();
+
+    /**
+     * Applies one order transition once the surrounding transaction commits. Pass null
+     * {@code from} values for a newly created order.
+     */
+    public void recordTransition(OrderStatus statusFrom, OrderStatus statusTo,
+                                 PaymentStatus paymentFrom, PaymentStatus paymentTo, BigDecimal amount) {
+        if (statusFrom == statusTo && paymentFrom == paymentTo) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> apply(statusFrom, statusTo, paymentFrom, paymentTo, amount));
+    }
+
+    public long getTotalOrders() {
+        return totalOrders.sum();
+    }
+
+    public long getCount(OrderStatus status) {
+        return byStatus[status.ordinal()].sum();
+    }
+
+    public long getCount(PaymentStatus paymentStatus) {
+        return byPaymentStatus[paymentStatus.ordinal()].sum();
+    }
+
+    public Map<OrderStatus, Long> getCountsByStatus() {
+        Map<OrderStatus, Long> counts = new EnumMap<>(OrderStatus.class);
+        for (OrderStatus status : OrderStatus.values()) {
+            counts.put(status, getCount(status));
+        }
+        return counts;
+    }
+
+    public BigDecimal getCompletedRevenue() {
+        return BigDecimal.valueOf(completedRevenueMinor.sum(), 2);
+    }
+
+    /**
+     * Brings every counter in line with the database. Each counter is read before its query
+     * and moved by the difference between the query result and that earlier value, so
+     * transitions applied while the query runs are kept rather than cancelled out. A
+     * transition that commits just before the query but is applied in memory just after
+     * the counter was read is counted twice until the next reconcile.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${order.metrics.reconcile-interval-ms:300000}",
+               fixedDelayString = "${order.metrics.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        try {
+            long drift = 0;
+            long total = 0;
+            long[] statusBefore = sums(byStatus);
+            long totalBefore = totalOrders.sum();
+            long[] statusCounts = new long[byStatus.length];
+            for (Object[] row : orderRepository.countGroupedByStatus()) {
+                statusCounts[((OrderStatus) row[0]).ordinal()] = (Long) row[1];
+                total += (Long) row[1];
+            }
+            for (int i = 0; i < statusCounts.length; i++) {
+                drift += adjust(byStatus[i], statusBefore[i], statusCounts[i]);
+            }
+            drift += adjust(totalOrders, totalBefore, total);
+
+            long[] paymentBefore = sums(byPaymentStatus);
+            long[] paymentCounts = new long[byPaymentStatus.length];
+            for (Object[] row : orderRepository.countGroupedByPaymentStatus()) {
+                // Orders created before payment tracking may have no payment status
+                if (row[0] != null) {
+                    paymentCounts[((PaymentStatus) row[0]).ordinal()] = (Long) row[1];
+                }
+            }
+            for (int i = 0; i < paymentCounts.length; i++) {
+                drift += adjust(byPaymentStatus[i], paymentBefore[i], paymentCounts[i]);
+            }
+
+            long revenueBefore = completedRevenueMinor.sum();
+            drift += adjust(completedRevenueMinor, revenueBefore,
+                    MoneyFormat.toMinorUnits(orderRepository.sumTotalAmountByPaymentStatus(PaymentStatus.COMPLETED)));
+
+            if (drift != 0) {
+                logger.info("Reconciled order metrics against the database ({} total orders, drift {})", total, drift);
+            }
+        } catch (Exception e) {
+            logger.error("Order metrics reconcile failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void apply(OrderStatus statusFrom, OrderStatus statusTo,
+                       PaymentStatus paymentFrom, PaymentStatus paymentTo, BigDecimal amount) {
+        if (statusFrom == null && paymentFrom == null) {
+            totalOrders.increment();
+        }
+        if (statusFrom != statusTo) {
+            if (statusFrom != null) {
+                byStatus[statusFrom.ordinal()].decrement();
+            }
+            if (statusTo != null) {
+                byStatus[statusTo.ordinal()].increment();
+            }
+        }
+        if (paymentFrom != paymentTo) {
+            if (paymentFrom != null) {
+                byPaymentStatus[paymentFrom.ordinal()].decrement();
+            }
+            if (paymentTo != null) {
+                byPaymentStatus[paymentTo.ordinal()].increment();
+            }
+            if (paymentTo == PaymentStatus.COMPLETED) {
+                completedRevenueMinor.add(MoneyFormat.toMinorUnits(amount));
+            } else if (paymentFrom == PaymentStatus.COMPLETED) {
+                completedRevenueMinor.add(-MoneyFormat.toMinorUnits(amount));
+            }
+        }
+    }
+
+    // Corrects by how far the value read before the query was from the database; returns the absolute correction
+    private static long adjust(LongAdder adder, long before, long target) {
+        long delta = target - before;
+        if (delta != 0) {
+            adder.add(delta);
+        }
+        return Math.abs(delta);
+    }
+
+    private static long[] sums(LongAdder[] adders) {
+        long[] sums = new long[adders.length];
+        for (int i = 0; i < adders.length; i++) {
+            sums[i] = adders[i].sum();
+        }
+        return sums;
+    }
+
+    private static LongAdder[] newAdders(int size) {
+        LongAdder[] adders = new LongAdder[size];
+        for (int i = 0; i < size; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+}
@@ -2,21 +2,30 @@ package com.example.E_Commerce.service;
 
 import com.example.E_Commerce.model.*;
 import com.example.E_Commerce.repository.*;
+import com.example.E_Commerce.util.AdminQueries;
+import com.example.E_Commerce.util.OrderNumberGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 
 @Service
 @Transactional
 public class OrderService {
 
+    private static final Logger logger = LoggerFactory.getLogger(OrderService.class);
+
+    // Columns the admin order list may be sorted by; each leads an index or is cheap on a filtered range
+    private static final Set<String> ADMIN_SORT_FIELDS = Set.of("createdAt", "orderNumber", "totalAmount", "status", "paymentStatus");
+
     @Autowired
     private OrderRepository orderRepository;
 
@@ -32,6 +41,21 @@ public class OrderService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private OrderNumberGenerator orderNumberGenerator;
+
+    @Autowired
+    private InventoryReservationService inventoryReservationService;
+
+    @Autowired
+    private OrderEventPublisher orderEventPublisher;
+
+    @Autowired
+    private OrderStatusLogService orderStatusLogService;
+
+    @Autowired
+    private OrderMetricsAggregator orderMetrics;
+
     public Order createOrder(Long userId, String shippingAddress, String billingAddress) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
@@ -72,13 +96,22 @@ public class OrderService {
         order.setPaymentStatus(PaymentStatus.PENDING);
 
         // ✅ Generate unique order number (for Razorpay "receipt")
-        order.setOrderNumber("ORD-" + System.currentTimeMillis());
+        order.setOrderNumber(orderNumberGenerator.nextOrderNumber());
 
         Order savedOrder = orderRepository.save(order);
 
+        // Hold the stock taken above until payment completes or the hold expires
+        inventoryReservationService.reserve(savedOrder);
+
         // ✅ Clear cart after placing order
         cartService.clearCart(userId);
 
+        // Follow-up work (confirmations etc.) runs after commit via the outbox relay
+        orderEventPublisher.publish(savedOrder, OrderEventType.CREATED);
+        orderStatusLogService.record(savedOrder.getId(), null, savedOrder.getStatus(), null, savedOrder.getPaymentStatus());
+        orderMetrics.recordTransition(null, savedOrder.getStatus(), null, savedOrder.getPaymentStatus(),
+                savedOrder.getTotalAmount());
+
         return savedOrder;
     }
 
@@ -89,19 +122,58 @@ public class OrderService {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
         
+        OrderStatus previousStatus = order.getStatus();
         order.setStatus(status);
-        return orderRepository.save(order);
+        Order savedOrder = orderRepository.save(order);
+        if (previousStatus != status) {
+            orderEventPublisher.publish(savedOrder,
+                    status == OrderStatus.CANCELLED ? OrderEventType.CANCELLED : OrderEventType.STATUS_CHANGED);
+            orderStatusLogService.record(orderId, previousStatus, status,
+                    savedOrder.getPaymentStatus(), savedOrder.getPaymentStatus());
+            orderMetrics.recordTransition(previousStatus, status,
+                    savedOrder.getPaymentStatus(), savedOrder.getPaymentStatus(), savedOrder.getTotalAmount());
+        }
+        return savedOrder;
     }
 
     public Order updatePaymentStatus(Long orderId, PaymentStatus paymentStatus) {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
         
+        OrderStatus previousStatus = order.getStatus();
+        PaymentStatus previousPaymentStatus = order.getPaymentStatus();
+        boolean newlyPaid = paymentStatus == PaymentStatus.COMPLETED && previousPaymentStatus != PaymentStatus.COMPLETED;
+        // A cancelled order's revenue was already taken out by its CANCELLED event
+        boolean reversed = previousPaymentStatus == PaymentStatus.COMPLETED && paymentStatus != PaymentStatus.COMPLETED
+                && previousStatus != OrderStatus.CANCELLED;
         order.setPaymentStatus(paymentStatus);
+        boolean outOfStock = false;
         if (paymentStatus == PaymentStatus.COMPLETED) {
-            order.setStatus(OrderStatus.CONFIRMED);
+            if (inventoryReservationService.commit(orderId)) {
+                order.setStatus(OrderStatus.CONFIRMED);
+            } else {
+                // Paid after its hold expired and the stock was sold: cancelled but paid means refund due
+                outOfStock = true;
+                order.setStatus(OrderStatus.CANCELLED);
+                logger.error("Order {} was paid but its stock is gone; cancelled and awaiting refund", orderId);
+            }
+        }
+        Order savedOrder = orderRepository.save(order);
+        if (newlyPaid) {
+            orderEventPublisher.publish(savedOrder, OrderEventType.PAID);
+        }
+        if (newlyPaid && outOfStock) {
+            // Takes the PAID revenue back out again
+            orderEventPublisher.publish(orderId, OrderEventType.CANCELLED,
+                    orderEventPublisher.payloadOf(savedOrder).put("reason", "out-of-stock-after-payment"));
+        }
+        if (reversed) {
+            orderEventPublisher.publish(savedOrder, OrderEventType.PAYMENT_REVERSED);
         }
-        return orderRepository.save(order);
+        orderStatusLogService.record(orderId, previousStatus, order.getStatus(), previousPaymentStatus, paymentStatus);
+        orderMetrics.recordTransition(previousStatus, order.getStatus(), previousPaymentStatus, paymentStatus,
+                order.getTotalAmount());
+        return savedOrder;
     }
 
     public Order getOrderById(Long id) {
@@ -128,6 +200,23 @@ public class OrderService {
         return orderRepository.findByUser(user, pageable);
     }
 
+    @Transactional(readOnly = true)
+    public Page<OrderSummary> getOrderSummariesByUser(Long userId, Pageable pageable) {
+        // Ordering is fixed by the query; any sort on the incoming pageable is ignored
+        return orderRepository.findSummariesByUserId(userId,
+                PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()));
+    }
+
+    /**
+     * Loads an order with its items and their products in one query.
+     * Orders belonging to another user are reported as not found.
+     */
+    @Transactional(readOnly = true)
+    public Order getOrderDetailForUser(Long orderId, Long userId) {
+        return orderRepository.findDetailByIdAndUserId(orderId, userId)
+                .orElseThrow(() -> new RuntimeException("Order not found"));
+    }
+
     public List<Order> getAllOrders() {
         try {
             System.out.println("OrderService: Getting all orders...");
@@ -145,6 +234,41 @@ public class OrderService {
         return orderRepository.findAll(pageable);
     }
 
+    /**
+     * Admin order search. Reads one page of matching orders with their customers, then the
+     * page's item counts in one grouped query.
+     */
+    @Transactional(readOnly = true)
+    public Page<AdminOrderRow> searchOrders(OrderSearchCriteria criteria, Pageable pageable) {
+        Page<Order> page = orderRepository.findAll(OrderSpecifications.matching(criteria), pageable);
+        Map<Long, Long> itemCounts = countItems(page.getContent());
+        return page.map(order -> toAdminRow(order, itemCounts));
+    }
+
+    @Transactional(readOnly = true)
+    public List<AdminOrderRow> getRecentOrderRows(int limit) {
+        List<Order> orders = orderRepository.findRecentWithUser(PageRequest.of(0, limit));
+        Map<Long, Long> itemCounts = countItems(orders);
+        return orders.stream().map(order -> toAdminRow(order, itemCounts)).toList();
+    }
+
+    /**
+     * Up to {@code limit} orders matching {@code filter} with an id above {@code afterId}, in
+     * id order, as admin rows; exports walk the matching orders this way one chunk, and one
+     * query, at a time.
+     */
+    @Transactional(readOnly = true)
+    public List<AdminOrderRow> getAdminOrderRowsAfter(ExportFilter filter, long afterId, int limit) {
+        return orderRepository.findAdminRowsAfter(filter, afterId, limit);
+    }
+
+    /**
+     * Page request for the admin order list; see {@link AdminQueries#page}.
+     */
+    public static Pageable adminOrderPage(int page, int size, String sortField, String direction) {
+        return AdminQueries.page(page, size, sortField, direction, ADMIN_SORT_FIELDS);
+    }
+
     public List<Order> getOrdersByStatus(OrderStatus status) {
         return orderRepository.findByStatus(status);
     }
@@ -159,14 +283,25 @@ public class OrderService {
         if (order.getStatus() == OrderStatus.DELIVERED) {
             throw new RuntimeException("Cannot cancel delivered order");
         }
+        if (order.getStatus() == OrderStatus.CANCELLED) {
+            throw new RuntimeException("Order is already cancelled");
+        }
         
-        // Restore stock
-        for (OrderItem orderItem : order.getOrderItems()) {
-            productService.restoreStock(orderItem.getProduct().getId(), orderItem.getQuantity());
+        // Restore stock, unless an expired reservation already returned it
+        if (inventoryReservationService.releaseForCancellation(orderId)) {
+            for (OrderItem orderItem : order.getOrderItems()) {
+                productService.restoreStock(orderItem.getProduct().getId(), orderItem.getQuantity());
+            }
         }
         
+        OrderStatus previousStatus = order.getStatus();
         order.setStatus(OrderStatus.CANCELLED);
         orderRepository.save(order);
+        orderEventPublisher.publish(order, OrderEventType.CANCELLED);
+        orderStatusLogService.record(orderId, previousStatus, OrderStatus.CANCELLED,
+                order.getPaymentStatus(), order.getPaymentStatus());
+        orderMetrics.recordTransition(previousStatus, OrderStatus.CANCELLED,
+                order.getPaymentStatus(), order.getPaymentStatus(), order.getTotalAmount());
     }
 
     public Order findByRazorpayOrderId(String razorpayOrderId) {
@@ -185,4 +320,22 @@ public class OrderService {
         order.setRazorpayPaymentId(razorpayPaymentId);
         orderRepository.save(order);
     }
+
+    private Map<Long, Long> countItems(List<Order> orders) {
+        Map<Long, Long> itemCounts = new HashMap<>();
+        if (!orders.isEmpty()) {
+            List<Long> ids = orders.stream().map(Order::getId).toList();
+            for (Object[] row : orderItemRepository.countByOrderIds(ids)) {
+                itemCounts.put((Long) row[0], (Long) row[1]);
+            }
+        }
+        return itemCounts;
+    }
+
+    private AdminOrderRow toAdminRow(Order order, Map<Long, Long> itemCounts) {
+        return new AdminOrderRow(order.getId(), order.getOrderNumber(),
+                order.getUser().getFullName(), order.getUser().getEmail(),
+                itemCounts.getOrDefault(order.getId(), 0L), order.getTotalAmount(),
+                order.getStatus(), order.getPaymentStatus(), order.getCreatedAt());
+    }
 }
@@ -0,0 +1,153 @@
+package com.example.E_Commerce.service;
+
+import com.example.E_Commerce.model.*;
+import com.example.E_Commerce.repository.OrderStatusEventRepository;
+import com.example.E_Commerce.util.OrderNumberGenerator;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Append-only timeline of order and payment status changes.
+ * A change is recorded as a {@link OrderEventType#STATUS_RECORDED} outbox event in the
+ * transaction that makes it, so it commits or rolls back with the order and survives a
+ * crash, while the timeline row itself is inserted later by {@link OutboxRelay}, off the
+ * request path. The timeline therefore trails the order by the relay's poll interval.
+ */
+@Service
+@Transactional(readOnly = true)
+public class OrderStatusLogService {
+
+    @Autowired
+    private OrderStatusEventRepository orderStatusEventRepository;
+
+    @Autowired
+    private OrderNumberGenerator orderNumberGenerator;
+
+    @Autowired
+    private OrderEventPublisher orderEventPublisher;
+
+    /**
+     * Records a change of status, payment status or both; pass equal values for the one
+     * that did not change and null "from" values for a new order. The actor is taken from
+     * the current security context, or is the system for background jobs and webhooks.
+     * Must be called inside the transaction that changes the order.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Long orderId, OrderStatus statusFrom, OrderStatus statusTo,
+                       PaymentStatus paymentFrom, PaymentStatus paymentTo) {
+        boolean statusChanged = statusFrom != statusTo;
+        boolean paymentChanged = paymentFrom != paymentTo;
+        if (!statusChanged && !paymentChanged) {
+            return;
+        }
+
+        OrderStatusEvent event = new OrderStatusEvent();
+        event.setId(orderNumberGenerator.nextId());
+        event.setOrderId(orderId);
+        event.setOccurredAt(LocalDateTime.now());
+        if (statusChanged) {
+            event.setStatusFrom(statusFrom);
+            event.setStatusTo(statusTo);
+        }
+        if (paymentChanged) {
+            event.setPaymentFrom(paymentFrom);
+            event.setPaymentTo(paymentTo);
+        }
+        setActor(event);
+        orderEventPublisher.publish(orderId, OrderEventType.STATUS_RECORDED, toPayload(event));
+    }
+
+    /**
+     * Inserts the timeline entry carried by a {@link OrderEventType#STATUS_RECORDED} event.
+     * The entry's id was assigned when the change was recorded, so a redelivered event is
+     * recognised and skipped.
+     */
+    @Transactional
+    public void append(OutboxEvent outboxEvent) {
+        OrderStatusEvent event = fromPayload(outboxEvent.getOrderId(), new JSONObject(outboxEvent.getPayload()));
+        if (orderStatusEventRepository.existsById(event.getId())) {
+            return;
+        }
+        orderStatusEventRepository.save(event);
+    }
+
+    public List<OrderStatusEvent> getTimeline(Long orderId) {
+        return orderStatusEventRepository.findByOrderIdOrderByIdAsc(orderId);
+    }
+
+    /**
+     * Rebuilds the order's current status and payment status from its timeline alone.
+     */
+    public OrderStatusSnapshot replay(Long orderId) {
+        return replay(orderId, getTimeline(orderId));
+    }
+
+    static OrderStatusSnapshot replay(Long orderId, List<OrderStatusEvent> events) {
+        OrderStatusSnapshot snapshot = new OrderStatusSnapshot();
+        snapshot.setOrderId(orderId);
+        for (OrderStatusEvent event : events) {
+            if (event.getStatusTo() != null) {
+                snapshot.setStatus(event.getStatusTo());
+            }
+            if (event.getPaymentTo() != null) {
+                snapshot.setPaymentStatus(event.getPaymentTo());
+            }
+            snapshot.setLastChangedAt(event.getOccurredAt());
+        }
+        snapshot.setEventCount(events.size());
+        return snapshot;
+    }
+
+    static JSONObject toPayload(OrderStatusEvent event) {
+        return new JSONObject()
+                .put("id", event.getId())
+                .put("occurredAt", event.getOccurredAt().toString())
+                .put("statusFrom", nameOf(event.getStatusFrom()))
+                .put("statusTo", nameOf(event.getStatusTo()))
+                .put("paymentFrom", nameOf(event.getPaymentFrom()))
+                .put("paymentTo", nameOf(event.getPaymentTo()))
+                .put("actorType", event.getActorType().name())
+                .put("actorId", event.getActorId());
+    }
+
+    static OrderStatusEvent fromPayload(Long orderId, JSONObject payload) {
+        OrderStatusEvent event = new OrderStatusEvent();
+        event.setId(payload.getLong("id"));
+        event.setOrderId(orderId);
+        event.setOccurredAt(LocalDateTime.parse(payload.getString("occurredAt")));
+        event.setStatusFrom(valueOf(OrderStatus.class, payload, "statusFrom"));
+        event.setStatusTo(valueOf(OrderStatus.class, payload, "statusTo"));
+        event.setPaymentFrom(valueOf(PaymentStatus.class, payload, "paymentFrom"));
+        event.setPaymentTo(valueOf(PaymentStatus.class, payload, "paymentTo"));
+        event.setActorType(OrderActorType.valueOf(payload.getString("actorType")));
+        event.setActorId(payload.has("actorId") ? payload.getLong("actorId") : null);
+        return event;
+    }
+
+    // Null values are left out of the payload
+    private static String nameOf(Enum<?> value) {
+        return value != null ? value.name() : null;
+    }
+
+    private static <E extends Enum<E>> E valueOf(Class<E> type, JSONObject payload, String key) {
+        return payload.has(key) ? Enum.valueOf(type, payload.getString(key)) : null;
+    }
+
+    private void setActor(OrderStatusEvent event) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof User user) {
+            event.setActorType(user.getRole() == Role.ADMIN ? OrderActorType.ADMIN : OrderActorType.CUSTOMER);
+            event.setActorId(user.getId());
+        } else {
+            event.setActorType(OrderActorType.SYSTEM);
+        }
+    }
+}
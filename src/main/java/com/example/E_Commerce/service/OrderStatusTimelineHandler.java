@@ -0,0 +1,26 @@
+package com.example.E_Commerce.service;
+
+import com.example.E_Commerce.model.OrderEventType;
+import com.example.E_Commerce.model.OutboxEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes recorded status changes to the order timeline, off the request path.
+ */
+@Component
+public class OrderStatusTimelineHandler implements OrderEventHandler {
+
+    @Autowired
+    private OrderStatusLogService orderStatusLogService;
+
+    @Override
+    public boolean supports(OrderEventType eventType) {
+        return eventType == OrderEventType.STATUS_RECORDED;
+    }
+
+    @Override
+    public void handle(OutboxEvent event) {
+        orderStatusLogService.append(event);
+    }
+}
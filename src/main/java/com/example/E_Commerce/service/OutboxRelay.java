@@ -0,0 +1,287 @@
+package com.example.E_Commerce.service;
+
+import com.example.E_Commerce.model.OutboxEvent;
+import com.example.E_Commerce.model.OutboxStatus;
+import com.example.E_Commerce.repository.OutboxEventRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Delivers outbox events to the registered {@link OrderEventHandler}s.
+ *
+ * Polls are triggered by the scheduler but drained on the relay's own thread, so a backlog
+ * never holds up the other scheduled jobs; a poll while a drain is still running is
+ * skipped. Each drain claims batches of due events (skipping rows another node is
+ * claiming), marks them {@link OutboxStatus#IN_FLIGHT} for a lease period and fans them
+ * out over a fixed worker pool, one task per order. Within a task the order's events are handled strictly
+ * in id order; an order is only picked up while its oldest outstanding event is part of
+ * the batch, so a retrying event holds back everything recorded after it. Failed events
+ * are retried with exponential backoff and parked as {@link OutboxStatus#FAILED} once
+ * {@code outbox.max-attempts} is reached. An event whose lease runs out (e.g. the node
+ * died mid-dispatch) becomes due again.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private static final List<OutboxStatus> OUTSTANDING = List.of(OutboxStatus.PENDING, OutboxStatus.IN_FLIGHT);
+
+    // Upper bound on batches per drain, so a backlog is worked off across several polls
+    private static final int MAX_BATCHES_PER_RUN = 20;
+
+    private static final long MAX_BACKOFF_MS = TimeUnit.HOURS.toMillis(1);
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired(required = false)
+    private List<OrderEventHandler> handlers = new ArrayList<>();
+
+    @Value("${outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${outbox.workers:4}")
+    private int workers;
+
+    @Value("${outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${outbox.retry-backoff-ms:2000}")
+    private long retryBackoffMs;
+
+    @Value("${outbox.lease-seconds:60}")
+    private long leaseSeconds;
+
+    @Value("${outbox.retention-days:7}")
+    private long retentionDays;
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private ExecutorService poller;
+    private ExecutorService workerPool;
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        poller = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "outbox-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger threadNumber = new AtomicInteger();
+        workerPool = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "outbox-relay-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        logger.info("Outbox relay started with {} workers and {} order event handler(s)", workers, handlers.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        poller.shutdownNow();
+        workerPool.shutdown();
+        try {
+            if (!workerPool.awaitTermination(10, TimeUnit.SECONDS)) {
+                workerPool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workerPool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.poll-interval-ms:1000}")
+    public void relay() {
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            poller.execute(() -> {
+                try {
+                    drain();
+                } finally {
+                    draining.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+            draining.set(false);
+        }
+    }
+
+    void drain() {
+        try {
+            for (int batch = 0; batch < MAX_BATCHES_PER_RUN; batch++) {
+                if (relayBatch() < batchSize) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.error("Outbox relay failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Claims and dispatches one batch, returning once every claimed event has been handled.
+     *
+     * @return number of events claimed
+     */
+    int relayBatch() throws InterruptedException {
+        Map<Long, List<OutboxEvent>> byOrder = claimBatch();
+        if (byOrder.isEmpty()) {
+            return 0;
+        }
+
+        List<Callable<Void>> tasks = new ArrayList<>(byOrder.size());
+        int claimed = 0;
+        for (List<OutboxEvent> events : byOrder.values()) {
+            claimed += events.size();
+            tasks.add(() -> {
+                dispatchInOrder(events);
+                return null;
+            });
+        }
+        workerPool.invokeAll(tasks);
+        return claimed;
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.cleanup-interval-ms:3600000}")
+    public void purgeDispatched() {
+        try {
+            Integer purged = transactionTemplate.execute(status -> outboxEventRepository.deleteDispatchedBefore(
+                    OutboxStatus.DISPATCHED, LocalDateTime.now().minusDays(retentionDays)));
+            if (purged != null && purged > 0) {
+                logger.info("Purged {} dispatched outbox events", purged);
+            }
+        } catch (Exception e) {
+            logger.error("Outbox cleanup failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private Map<Long, List<OutboxEvent>> claimBatch() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxEvent> due = outboxEventRepository.findDueForUpdate(OUTSTANDING, now, PageRequest.of(0, batchSize));
+            if (due.isEmpty()) {
+                return Collections.<Long, List<OutboxEvent>>emptyMap();
+            }
+
+            Map<Long, List<OutboxEvent>> byOrder = new LinkedHashMap<>();
+            for (OutboxEvent event : due) {
+                byOrder.computeIfAbsent(event.getOrderId(), k -> new ArrayList<>()).add(event);
+            }
+            Map<Long, List<Long>> outstanding = new HashMap<>();
+            for (Object[] row : outboxEventRepository.findOutstandingIdsByOrderIds(byOrder.keySet(), OUTSTANDING)) {
+                outstanding.computeIfAbsent((Long) row[0], k -> new ArrayList<>()).add((Long) row[1]);
+            }
+
+            List<Long> claimedIds = new ArrayList<>();
+            Iterator<Map.Entry<Long, List<OutboxEvent>>> entries = byOrder.entrySet().iterator();
+            while (entries.hasNext()) {
+                Map.Entry<Long, List<OutboxEvent>> entry = entries.next();
+                List<OutboxEvent> runnable = leadingRun(entry.getValue(),
+                        outstanding.getOrDefault(entry.getKey(), Collections.emptyList()));
+                if (runnable.isEmpty()) {
+                    entries.remove();
+                } else {
+                    entry.setValue(runnable);
+                    runnable.forEach(event -> claimedIds.add(event.getId()));
+                }
+            }
+            if (!claimedIds.isEmpty()) {
+                outboxEventRepository.updateStatus(claimedIds, OutboxStatus.IN_FLIGHT, now.plusSeconds(leaseSeconds));
+            }
+            return byOrder;
+        });
+    }
+
+    /**
+     * The due events of one order that may go out now: the longest prefix matching the
+     * order's outstanding events. An earlier event that is backing off, in flight or being
+     * claimed by another node is missing from {@code due}, which cuts the run short.
+     */
+    static List<OutboxEvent> leadingRun(List<OutboxEvent> due, List<Long> outstandingIds) {
+        List<OutboxEvent> run = new ArrayList<>();
+        for (int i = 0; i < due.size() && i < outstandingIds.size(); i++) {
+            if (!due.get(i).getId().equals(outstandingIds.get(i))) {
+                break;
+            }
+            run.add(due.get(i));
+        }
+        return run;
+    }
+
+    private void dispatchInOrder(List<OutboxEvent> events) {
+        for (int i = 0; i < events.size(); i++) {
+            OutboxEvent event = events.get(i);
+            try {
+                for (OrderEventHandler handler : handlers) {
+                    if (handler.supports(event.getEventType())) {
+                        handler.handle(event);
+                    }
+                }
+            } catch (Exception e) {
+                recordFailure(event, e);
+                // Events recorded after the failed one wait for it
+                List<Long> remaining = events.subList(i + 1, events.size()).stream().map(OutboxEvent::getId).toList();
+                if (!remaining.isEmpty()) {
+                    transactionTemplate.executeWithoutResult(status -> outboxEventRepository.updateStatus(
+                            remaining, OutboxStatus.PENDING, LocalDateTime.now()));
+                }
+                return;
+            }
+            transactionTemplate.executeWithoutResult(status -> outboxEventRepository.markDispatched(
+                    event.getId(), OutboxStatus.DISPATCHED, LocalDateTime.now()));
+        }
+    }
+
+    private void recordFailure(OutboxEvent event, Exception e) {
+        int attempts = event.getAttempts() + 1;
+        boolean exhausted = attempts >= maxAttempts;
+        LocalDateTime nextAttemptAt = LocalDateTime.now().plusNanos(
+                TimeUnit.MILLISECONDS.toNanos(backoffMillis(attempts, retryBackoffMs)));
+        String error = e.getMessage() != null && e.getMessage().length() > 1000
+                ? e.getMessage().substring(0, 1000) : e.getMessage();
+
+        transactionTemplate.executeWithoutResult(status -> outboxEventRepository.markFailedAttempt(
+                event.getId(), exhausted ? OutboxStatus.FAILED : OutboxStatus.PENDING, nextAttemptAt, error));
+
+        if (exhausted) {
+            logger.error("Giving up on {} event {} for order {} after {} attempts: {}",
+                    event.getEventType(), event.getId(), event.getOrderId(), attempts, e.getMessage(), e);
+        } else {
+            logger.warn("{} event {} for order {} failed (attempt {}), retrying at {}: {}",
+                    event.getEventType(), event.getId(), event.getOrderId(), attempts, nextAttemptAt, e.getMessage());
+        }
+    }
+
+    static long backoffMillis(int attempts, long baseMillis) {
+        return Math.min(baseMillis << Math.min(attempts - 1, 20), MAX_BACKOFF_MS);
+    }
+}
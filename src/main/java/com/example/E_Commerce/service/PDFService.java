@@ -1,31 +1,209 @@
 package com.example.E_Commerce.service;
 
-import com.example.E_Commerce.model.Order;
-import com.itextpdf.html2pdf.HtmlConverter;
+import com.example.E_Commerce.model.*;
+import com.example.E_Commerce.util.MoneyFormat;
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.kernel.colors.ColorConstants;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.Cell;
+import com.itextpdf.layout.element.Paragraph;
+import com.itextpdf.layout.element.Table;
+import com.itextpdf.layout.properties.TextAlignment;
+import com.itextpdf.layout.properties.UnitValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
 
 @Service
 public class PDFService {
 
+    private static final Logger logger = LoggerFactory.getLogger(PDFService.class);
+
+    /**
+     * Version of the rendered invoice layout. Bump it whenever the invoice markup or the
+     * converter settings change, so invoices cached under the old layout are rendered again.
+     */
+    public static final int INVOICE_LAYOUT_VERSION = 2;
+
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private static final String[] ORDER_REPORT_HEADERS = {
+        "Order Number", "Customer", "Amount (INR)", "Status", "Payment", "Date"
+    };
+
+    // Roughly one A4 page of order rows
+    private static final int ROWS_PER_FLUSH = 40;
+
     @Autowired
     private ExportService exportService;
 
-    public byte[] generateOrderInvoicePDF(Order order) throws IOException {
-        String html = exportService.generateOrderInvoiceHTML(order);
-        return convertHtmlToPdf(html);
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private HtmlPdfRenderer htmlPdfRenderer;
+
+    @Value("${pdf.warm-up:true}")
+    private boolean warmUp;
+
+    @Value("${export.chunk-size:1000}")
+    private int chunkSize;
+
+    /**
+     * Renders the invoice of {@code order}, whose items and products must be loadable.
+     */
+    public void writeOrderInvoicePDF(Order order, OutputStream out) throws IOException {
+        htmlPdfRenderer.render(exportService.generateOrderInvoiceHTML(order), out);
     }
 
-    public byte[] generateOrdersReportPDF(String htmlContent) throws IOException {
-        return convertHtmlToPdf(htmlContent);
+    /**
+     * Renders a sample invoice once the application is up, so class loading, font parsing and
+     * JIT warm-up are not paid by the first customer to download an invoice.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!warmUp) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+        try {
+            writeOrderInvoicePDF(sampleOrder(), OutputStream.nullOutputStream());
+            logger.info("PDF rendering warmed up in {} ms", System.currentTimeMillis() - started);
+        } catch (Exception e) {
+            logger.warn("PDF warm-up failed: {}", e.getMessage());
+        }
     }
 
-    private byte[] convertHtmlToPdf(String html) throws IOException {
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        HtmlConverter.convertToPdf(html, outputStream);
-        return outputStream.toByteArray();
+    /**
+     * Writes the report of orders matching {@code filter} straight to {@code out} with
+     * iText's layout API instead of rendering an HTML page. Orders are read in id-ordered chunks into a large table whose
+     * header repeats on every page; the table is flushed every page or so, and completed
+     * pages are written out and released, so memory use does not depend on the number of orders.
+     */
+    public void writeOrdersReportPDF(ExportFilter filter, OutputStream out) throws IOException {
+        PdfWriter writer = new PdfWriter(out);
+        // The caller owns the stream
+        writer.setCloseStream(false);
+        PdfDocument pdf = new PdfDocument(writer);
+        Document document = new Document(pdf, PageSize.A4);
+        try {
+            PdfFont regular = PdfFontFactory.createFont(StandardFonts.HELVETICA);
+            PdfFont bold = PdfFontFactory.createFont(StandardFonts.HELVETICA_BOLD);
+            document.setFont(regular).setFontSize(9);
+
+            document.add(new Paragraph("E-Commerce Store").setFont(bold).setFontSize(18)
+                    .setTextAlignment(TextAlignment.CENTER));
+            document.add(new Paragraph("Orders Report").setFont(bold).setFontSize(14)
+                    .setTextAlignment(TextAlignment.CENTER).setMarginTop(0));
+            document.add(new Paragraph("Generated on: " + LocalDateTime.now().format(DATE_TIME))
+                    .setTextAlignment(TextAlignment.CENTER).setMarginBottom(filter.isEmpty() ? 12 : 0));
+            if (!filter.isEmpty()) {
+                document.add(new Paragraph("Filters: " + describe(filter))
+                        .setTextAlignment(TextAlignment.CENTER).setMarginBottom(12));
+            }
+
+            // A large table is laid out incrementally: added to the document first, then filled and flushed
+            Table table = new Table(UnitValue.createPercentArray(new float[]{18, 22, 14, 15, 13, 18}), true)
+                    .useAllAvailableWidth();
+            for (String header : ORDER_REPORT_HEADERS) {
+                table.addHeaderCell(new Cell().add(new Paragraph(header).setFont(bold))
+                        .setBackgroundColor(ColorConstants.LIGHT_GRAY));
+            }
+            document.add(table);
+
+            long totalOrders = 0;
+            BigDecimal totalRevenue = BigDecimal.ZERO;
+            long afterId = 0;
+            List<AdminOrderRow> chunk;
+            do {
+                chunk = orderService.getAdminOrderRowsAfter(filter, afterId, chunkSize);
+                for (AdminOrderRow order : chunk) {
+                    table.addCell(order.getOrderNumber());
+                    table.addCell(order.getCustomerName());
+                    table.addCell(new Cell().add(new Paragraph(MoneyFormat.format(order.getTotalAmount())))
+                            .setTextAlignment(TextAlignment.RIGHT));
+                    table.addCell(order.getStatus().toString());
+                    table.addCell(order.getPaymentStatus().toString());
+                    table.addCell(order.getCreatedAt().format(DATE_TIME));
+
+                    if (order.getPaymentStatus() == PaymentStatus.COMPLETED) {
+                        totalRevenue = totalRevenue.add(order.getTotalAmount());
+                    }
+                    if (++totalOrders % ROWS_PER_FLUSH == 0) {
+                        table.flush();
+                    }
+                    afterId = order.getId();
+                }
+            } while (chunk.size() == chunkSize);
+            table.complete();
+
+            document.add(new Paragraph("Summary").setFont(bold).setFontSize(12).setMarginTop(18));
+            document.add(new Paragraph("Total Orders: " + totalOrders));
+            document.add(new Paragraph("Total Revenue (INR): " + MoneyFormat.format(totalRevenue)));
+        } finally {
+            document.close();
+        }
+    }
+
+    private static String describe(ExportFilter filter) {
+        List<String> parts = new ArrayList<>();
+        if (filter.getFromDate() != null) {
+            parts.add("from " + filter.getFromDate());
+        }
+        if (filter.getToDate() != null) {
+            parts.add("to " + filter.getToDate());
+        }
+        if (filter.getStatus() != null) {
+            parts.add("status " + filter.getStatus());
+        }
+        if (filter.getCategory() != null) {
+            parts.add("category " + filter.getCategory());
+        }
+        return String.join(", ", parts);
+    }
+
+    private static Order sampleOrder() {
+        User customer = new User();
+        customer.setFirstName("Sample");
+        customer.setLastName("Customer");
+        customer.setEmail("sample@example.com");
+
+        Product product = new Product();
+        product.setName("Sample product");
+        product.setDescription("Warm-up item");
+
+        Order order = new Order();
+        order.setOrderNumber("WARMUP");
+        order.setUser(customer);
+        order.setBillingAddress("1 Sample Street");
+        order.setCreatedAt(LocalDateTime.now());
+        order.setStatus(OrderStatus.CONFIRMED);
+        order.setPaymentStatus(PaymentStatus.COMPLETED);
+        order.setTotalAmount(new BigDecimal("1234.50"));
+
+        OrderItem item = new OrderItem();
+        item.setProduct(product);
+        item.setQuantity(2);
+        item.setUnitPrice(new BigDecimal("617.25"));
+        item.setSubtotal(new BigDecimal("1234.50"));
+        order.addOrderItem(item);
+        return order;
     }
 }
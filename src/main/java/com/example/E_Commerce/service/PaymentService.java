@@ -4,10 +4,9 @@ import com.example.E_Commerce.model.Order;
 import com.example.E_Commerce.model.PaymentStatus;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -20,42 +19,23 @@ public class PaymentService {
 
     private static final Logger logger = LoggerFactory.getLogger(PaymentService.class);
 
+    @Autowired
+    private CashfreeClient cashfreeClient;
+
     @Value("${cashfree.app.id}")
     private String cashfreeAppId;
 
-    @Value("${cashfree.secret.key}")
-    private String cashfreeSecretKey;
-
     @Value("${cashfree.environment}")
     private String cashfreeEnvironment;
 
-    @Value("${cashfree.api.version}")
-    private String cashfreeApiVersion;
-
     @Value("${cashfree.return.url}")
     private String cashfreeReturnUrl;
 
     @Value("${cashfree.notify.url}")
     private String cashfreeNotifyUrl;
 
-    private final RestTemplate restTemplate = new RestTemplate();
     private final ObjectMapper objectMapper = new ObjectMapper();
 
-    private String getBaseUrl() {
-        return "SANDBOX".equalsIgnoreCase(cashfreeEnvironment) 
-            ? "https://sandbox.cashfree.com/pg" 
-            : "https://api.cashfree.com/pg";
-    }
-
-    private HttpHeaders createHeaders() {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.set("x-api-version", cashfreeApiVersion != null ? cashfreeApiVersion : "2023-08-01");
-        headers.set("x-client-id", cashfreeAppId);
-        headers.set("x-client-secret", cashfreeSecretKey);
-        return headers;
-    }
-
     public String createPaymentSession(Order order) {
         logger.info("Creating payment session for order ID: {}", order.getId());
         logger.info("Order amount: {} INR", order.getTotalAmount());
@@ -98,34 +78,28 @@ public class PaymentService {
             orderMeta.put("payment_methods", "cc,dc,nb,upi,paylater");
             orderRequest.put("order_meta", orderMeta);
             
-            // Make API call to Cashfree sandbox
-            String url = getBaseUrl() + "/orders";
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(orderRequest, createHeaders());
-            
-            logger.info("Making API call to Cashfree sandbox: {}", url);
+            // Make API call to Cashfree; error statuses and timeouts throw
+            logger.info("Making API call to Cashfree: /orders");
             logger.info("Request payload: {}", objectMapper.writeValueAsString(orderRequest));
             logger.info("Amount being sent to Cashfree: {} (₹{})", amountInRupees, orderAmount);
             
-            ResponseEntity<String> response = restTemplate.postForEntity(url, request, String.class);
+            JsonNode responseJson = cashfreeClient.post("/orders", orderRequest);
             
-            logger.info("Cashfree API response status: {}", response.getStatusCode());
-            logger.info("Cashfree API response body: {}", response.getBody());
+            logger.info("Cashfree API response body: {}", responseJson);
             
-            if (response.getStatusCode() == HttpStatus.OK || response.getStatusCode() == HttpStatus.CREATED) {
-                JsonNode responseJson = objectMapper.readTree(response.getBody());
-                if (responseJson.has("payment_session_id")) {
-                    String paymentSessionId = responseJson.get("payment_session_id").asText();
-                    logger.info("Cashfree payment session created successfully: {}", paymentSessionId);
-                    return paymentSessionId;
-                } else {
-                    logger.error("Payment session ID not found in response: {}", response.getBody());
-                    throw new RuntimeException("Payment session ID not found in response");
-                }
+            if (responseJson != null && responseJson.has("payment_session_id")) {
+                String paymentSessionId = responseJson.get("payment_session_id").asText();
+                logger.info("Cashfree payment session created successfully: {}", paymentSessionId);
+                return paymentSessionId;
             } else {
-                logger.error("Failed to create payment session. Status: {}, Body: {}", response.getStatusCode(), response.getBody());
-                throw new RuntimeException("Failed to create payment session: " + response.getStatusCode() + " - " + response.getBody());
+                logger.error("Payment session ID not found in response: {}", responseJson);
+                throw new RuntimeException("Payment session ID not found in response");
             }
             
+        } catch (GatewayUnavailableException e) {
+            // Refused before reaching Cashfree; the customer must retry, not get a test session
+            logger.warn("Cashfree call refused for order {}: {}", order.getId(), e.getMessage());
+            throw e;
         } catch (Exception e) {
             logger.error("Error creating payment session with Cashfree API: {}", e.getMessage());
             logger.error("Stack trace: ", e);
@@ -146,24 +120,16 @@ public class PaymentService {
         }
         
         try {
-            String url = getBaseUrl() + "/payments/" + paymentId;
-            HttpEntity<String> request = new HttpEntity<>(createHeaders());
-            
-            logger.info("Making payment verification API call to: {}", url);
-            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, request, String.class);
+            logger.info("Making payment verification API call for payment: {}", paymentId);
+            JsonNode responseJson = cashfreeClient.get("/payments/{paymentId}", paymentId);
             
-            logger.info("Payment verification response status: {}", response.getStatusCode());
-            logger.info("Payment verification response body: {}", response.getBody());
+            logger.info("Payment verification response body: {}", responseJson);
             
-            if (response.getStatusCode() == HttpStatus.OK) {
-                JsonNode responseJson = objectMapper.readTree(response.getBody());
-                JsonNode paymentData = responseJson.get("data");
-                
-                if (paymentData != null) {
-                    String status = paymentData.get("payment_status").asText();
-                    logger.info("Payment verification result: {}", status);
-                    return "SUCCESS".equals(status) || "COMPLETED".equals(status);
-                }
+            JsonNode paymentData = responseJson != null ? responseJson.get("data") : null;
+            if (paymentData != null && paymentData.has("payment_status")) {
+                String status = paymentData.get("payment_status").asText();
+                logger.info("Payment verification result: {}", status);
+                return "SUCCESS".equals(status) || "COMPLETED".equals(status);
             }
             
             logger.warn("Payment verification failed - invalid response");
@@ -176,17 +142,11 @@ public class PaymentService {
 
     public Map<String, Object> getPaymentDetails(String paymentId) {
         try {
-            String url = getBaseUrl() + "/payments/" + paymentId;
-            HttpEntity<String> request = new HttpEntity<>(createHeaders());
-            
-            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, request, String.class);
-            
-            if (response.getStatusCode() == HttpStatus.OK) {
-                JsonNode responseJson = objectMapper.readTree(response.getBody());
-                return objectMapper.convertValue(responseJson.get("data"), Map.class);
-            } else {
-                throw new RuntimeException("Failed to fetch payment details: " + response.getStatusCode());
+            JsonNode responseJson = cashfreeClient.get("/payments/{paymentId}", paymentId);
+            if (responseJson == null || responseJson.get("data") == null) {
+                throw new RuntimeException("Payment details not found in response");
             }
+            return objectMapper.convertValue(responseJson.get("data"), Map.class);
         } catch (Exception e) {
             logger.error("Error fetching payment details: {}", e.getMessage());
             throw new RuntimeException("Failed to fetch payment details", e);
@@ -231,20 +191,13 @@ public class PaymentService {
 
     public String getPaymentStatus(String orderId, String paymentId) {
         try {
-            String url = getBaseUrl() + "/orders/" + orderId + "/payments";
-            HttpEntity<String> request = new HttpEntity<>(createHeaders());
-            
-            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, request, String.class);
+            JsonNode responseJson = cashfreeClient.get("/orders/{orderId}/payments", orderId);
+            JsonNode payments = responseJson != null ? responseJson.get("data") : null;
             
-            if (response.getStatusCode() == HttpStatus.OK) {
-                JsonNode responseJson = objectMapper.readTree(response.getBody());
-                JsonNode payments = responseJson.get("data");
-                
-                if (payments.isArray()) {
-                    for (JsonNode payment : payments) {
-                        if (paymentId.equals(payment.get("cf_payment_id").asText())) {
-                            return payment.get("payment_status").asText();
-                        }
+            if (payments != null && payments.isArray()) {
+                for (JsonNode payment : payments) {
+                    if (paymentId.equals(payment.path("cf_payment_id").asText())) {
+                        return payment.path("payment_status").asText();
                     }
                 }
             }
@@ -0,0 +1,120 @@
+package com.example.E_Commerce.service;
+
+import com.example.E_Commerce.model.*;
+import com.example.E_Commerce.repository.OrderItemRepository;
+import com.example.E_Commerce.repository.OrderRepository;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Cancels orders that have been waiting for payment longer than
+ * {@code order.pending-expiry.ttl-minutes} and returns their stock.
+ *
+ * This is the backstop behind the reservation sweeper: it also covers orders placed
+ * before stock reservations existed. Stock owed by orders with reservations comes from
+ * their still-held reservations, for older orders from their items.
+ */
+@Service
+@Transactional
+public class PendingOrderExpiryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PendingOrderExpiryService.class);
+
+    // Only orders that have not progressed past checkout are expired
+    private static final List<OrderStatus> EXPIRABLE_STATUSES = List.of(OrderStatus.CREATED, OrderStatus.PROCESSING);
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private InventoryReservationService inventoryReservationService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private OrderEventPublisher orderEventPublisher;
+
+    @Autowired
+    private OrderStatusLogService orderStatusLogService;
+
+    @Autowired
+    private OrderMetricsAggregator orderMetrics;
+
+    @Value("${order.pending-expiry.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    /**
+     * Expires one chunk of stale pending orders. Orders locked by a concurrent sweep on
+     * another node are skipped, and so are orders whose holds a concurrent payment or
+     * reservation sweep has locked; the next run sees how that transaction ended. Product
+     * rows are updated last, with a single statement, so they stay locked only for the commit.
+     *
+     * @return number of orders actually expired; skipped orders are not counted, so a chunk
+     *         cut short by contention ends the run instead of re-selecting the same locked orders
+     */
+    public int expireBatch(int batchSize) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Order> stale = orderRepository.findStaleForUpdate(PaymentStatus.PENDING, now.minusMinutes(ttlMinutes),
+                EXPIRABLE_STATUSES, PageRequest.of(0, batchSize));
+        if (stale.isEmpty()) {
+            return 0;
+        }
+        List<Long> staleIds = stale.stream().map(Order::getId).toList();
+
+        // Sorted by product id so concurrent sweeps lock product rows in the same order
+        Map<Long, Integer> quantityByProduct = new TreeMap<>();
+        for (InventoryReservation reservation : inventoryReservationService.releaseHeldForOrders(staleIds)) {
+            quantityByProduct.merge(reservation.getProductId(), reservation.getQuantity(), Integer::sum);
+        }
+        Set<Long> contended = inventoryReservationService.findOrdersStillHeld(staleIds);
+        if (!contended.isEmpty()) {
+            logger.info("Skipping {} pending orders whose stock holds are locked by a concurrent payment or sweep",
+                    contended.size());
+            stale = stale.stream().filter(order -> !contended.contains(order.getId())).toList();
+            if (stale.isEmpty()) {
+                return 0;
+            }
+        }
+        List<Long> orderIds = stale.stream().map(Order::getId).toList();
+
+        Set<Long> withReservations = inventoryReservationService.findOrdersWithReservations(orderIds);
+        List<Long> legacyOrderIds = orderIds.stream().filter(id -> !withReservations.contains(id)).toList();
+        if (!legacyOrderIds.isEmpty()) {
+            for (Object[] row : orderItemRepository.sumQuantityByProductForOrders(legacyOrderIds)) {
+                quantityByProduct.merge((Long) row[0], ((Number) row[1]).intValue(), Integer::sum);
+            }
+        }
+
+        int cancelled = orderRepository.updateStatusesWherePaymentStatus(orderIds, PaymentStatus.PENDING,
+                OrderStatus.CANCELLED, PaymentStatus.CANCELLED, now);
+        for (Order order : stale) {
+            JSONObject payload = orderEventPublisher.payloadOf(order)
+                    .put("status", OrderStatus.CANCELLED.name())
+                    .put("paymentStatus", PaymentStatus.CANCELLED.name())
+                    .put("reason", "payment-timeout");
+            orderEventPublisher.publish(order.getId(), OrderEventType.CANCELLED, payload);
+            orderStatusLogService.record(order.getId(), order.getStatus(), OrderStatus.CANCELLED,
+                    order.getPaymentStatus(), PaymentStatus.CANCELLED);
+            orderMetrics.recordTransition(order.getStatus(), OrderStatus.CANCELLED,
+                    order.getPaymentStatus(), PaymentStatus.CANCELLED, order.getTotalAmount());
+        }
+
+        productService.incrementStocks(quantityByProduct);
+
+        logger.info("Expired {} pending orders, returned stock for {} products", cancelled, quantityByProduct.size());
+        return stale.size();
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.E_Commerce.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically cancels orders whose payment never arrived.
+ * Each chunk runs in its own transaction; nodes running the sweep at the same time
+ * pick disjoint chunks.
+ */
+@Component
+public class PendingOrderSweeper {
+
+    private static final Logger logger = LoggerFactory.getLogger(PendingOrderSweeper.class);
+
+    // Upper bound on chunks per run so one sweep cannot monopolise the scheduler thread
+    private static final int MAX_BATCHES_PER_RUN = 50;
+
+    @Autowired
+    private PendingOrderExpiryService pendingOrderExpiryService;
+
+    @Value("${order.pending-expiry.batch-size:200}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${order.pending-expiry.sweep-interval-ms:300000}",
+               initialDelayString = "${order.pending-expiry.sweep-interval-ms:300000}")
+    public void expireStaleOrders() {
+        try {
+            int total = 0;
+            for (int batch = 0; batch < MAX_BATCHES_PER_RUN; batch++) {
+                int expired = pendingOrderExpiryService.expireBatch(batchSize);
+                total += expired;
+                if (expired < batchSize) {
+                    break;
+                }
+            }
+            if (total > 0) {
+                logger.info("Pending order sweep cancelled {} unpaid orders", total);
+            }
+        } catch (Exception e) {
+            logger.error("Pending order sweep failed: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.E_Commerce.service;
 
+import com.example.E_Commerce.model.ExportFilter;
 import com.example.E_Commerce.model.Product;
 import com.example.E_Commerce.model.ProductCategory;
 import com.example.E_Commerce.repository.ProductRepository;
@@ -11,7 +12,9 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 
 @Service
 @Transactional
@@ -20,6 +23,12 @@ public class ProductService {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private ShardedStockService shardedStockService;
+
+    @Autowired
+    private LiveDashboardFeed liveDashboardFeed;
+
     public Product createProduct(Product product) {
         // Check if product with same name already exists
         if (productRepository.findByName(product.getName()).isPresent()) {
@@ -36,6 +45,13 @@ public class ProductService {
         existingProduct.setDescription(product.getDescription());
         existingProduct.setPrice(product.getPrice());
         existingProduct.setImageUrl(product.getImageUrl());
+        if (existingProduct.isStockSharded() && product.getStockQuantity() != null
+                && !product.getStockQuantity().equals(existingProduct.getStockQuantity())) {
+            shardedStockService.setTotal(existingProduct.getId(), product.getStockQuantity());
+        }
+        if (product.getStockQuantity() != null && !product.getStockQuantity().equals(existingProduct.getStockQuantity())) {
+            liveDashboardFeed.stockChanged(existingProduct.getId());
+        }
         existingProduct.setStockQuantity(product.getStockQuantity());
         existingProduct.setCategory(product.getCategory());
         existingProduct.setActive(product.isActive());
@@ -56,6 +72,12 @@ public class ProductService {
         return productRepository.findByActiveTrue(pageable);
     }
 
+    // Active products matching the filter after an id, in id order, for exports that walk the catalogue in chunks
+    @Transactional(readOnly = true)
+    public List<Product> getActiveProductsAfter(ExportFilter filter, long afterId, int limit) {
+        return productRepository.findActiveAfter(filter, afterId, limit);
+    }
+
     public List<Product> getProductsByCategory(ProductCategory category) {
         return productRepository.findByCategoryAndActiveTrue(category);
     }
@@ -97,6 +119,11 @@ public class ProductService {
 
     public void updateStock(Long productId, Integer quantity) {
         Product product = getProductById(productId);
+        liveDashboardFeed.stockChanged(productId);
+        if (product.isStockSharded()) {
+            shardedStockService.decrement(product, quantity);
+            return;
+        }
         int newStock = product.getStockQuantity() - quantity;
         if (newStock < 0) {
             throw new RuntimeException("Insufficient stock. Available: " + product.getStockQuantity() + ", Requested: " + quantity);
@@ -107,10 +134,53 @@ public class ProductService {
 
     public void restoreStock(Long productId, Integer quantity) {
         Product product = getProductById(productId);
+        if (product.isStockSharded()) {
+            shardedStockService.increment(product, quantity);
+            return;
+        }
         product.setStockQuantity(product.getStockQuantity() + quantity);
         productRepository.save(product);
     }
 
+    // Set-based stock changes that do not load the product into the persistence context
+
+    public void incrementStock(Long productId, int quantity) {
+        if (shardedStockService.isSharded(productId)) {
+            shardedStockService.increment(getProductById(productId), quantity);
+        } else {
+            productRepository.incrementStock(productId, quantity);
+        }
+    }
+
+    /**
+     * Returns stock for many products at once: sharded products go through their shards,
+     * all others are updated together in one statement, locked in product id order.
+     */
+    public void incrementStocks(Map<Long, Integer> quantityByProduct) {
+        if (quantityByProduct.isEmpty()) {
+            return;
+        }
+        Map<Long, Integer> unsharded = new TreeMap<>(quantityByProduct);
+        for (Long productId : productRepository.findShardedProductIdsIn(unsharded.keySet())) {
+            shardedStockService.increment(getProductById(productId), unsharded.remove(productId));
+        }
+        productRepository.incrementStocks(unsharded);
+    }
+
+    public boolean tryDecrementStock(Long productId, int quantity) {
+        boolean decremented = shardedStockService.isSharded(productId)
+                ? shardedStockService.tryDecrement(getProductById(productId), quantity)
+                : productRepository.decrementStockIfAvailable(productId, quantity) > 0;
+        if (decremented) {
+            liveDashboardFeed.stockChanged(productId);
+        }
+        return decremented;
+    }
+
+    public void configureStockShards(Long productId, int shards) {
+        shardedStockService.configureShards(productId, shards);
+    }
+
     public List<Product> getActiveProducts() {
         return productRepository.findByActiveTrue();
     }
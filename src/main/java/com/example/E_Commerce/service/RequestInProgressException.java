@@ -0,0 +1,13 @@
+package com.example.E_Commerce.service;
+
+/**
+ * Thrown by {@link IdempotencyService} when a duplicate request is still being processed
+ * after waiting for it. The original request has most likely succeeded, so callers should
+ * send the user to where its result will appear rather than report a failure.
+ */
+public class RequestInProgressException extends RuntimeException {
+
+    public RequestInProgressException(String message) {
+        super(message);
+    }
+}
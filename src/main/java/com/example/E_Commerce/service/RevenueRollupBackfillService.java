@@ -0,0 +1,125 @@
+package com.example.E_Commerce.service;
+
+import com.example.E_Commerce.repository.OrderRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Rebuilds the revenue rollups from the orders table, one day per task across a fixed
+ * worker pool. Each day is recomputed in its own transaction, so a failed day can simply
+ * be rebuilt again and other days are unaffected.
+ *
+ * Meant for the initial load and for repairs. Orders paid or cancelled in a day while it
+ * is being rebuilt may be counted by both the rebuild and the incremental handler, so
+ * rebuilds of the current day are best followed by another rebuild of that day.
+ */
+@Service
+public class RevenueRollupBackfillService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RevenueRollupBackfillService.class);
+
+    @Autowired
+    private RevenueRollupService revenueRollupService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Value("${revenue.rollup.backfill-workers:4}")
+    private int workers;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private ExecutorService coordinator;
+    private ExecutorService workerPool;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        workerPool = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "revenue-backfill-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        coordinator = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "revenue-backfill-coordinator");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        coordinator.shutdownNow();
+        workerPool.shutdownNow();
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * Starts rebuilding every day from the first order up to today in the background.
+     *
+     * @return false if a rebuild is already running
+     */
+    public boolean startFullRebuild() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        coordinator.submit(() -> {
+            try {
+                LocalDateTime earliest = orderRepository.findEarliestCreatedAt();
+                if (earliest != null) {
+                    rebuild(earliest.toLocalDate(), LocalDate.now());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                logger.error("Revenue rollup rebuild failed: {}", e.getMessage(), e);
+            } finally {
+                running.set(false);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Rebuilds every day in {@code [from, to]} in parallel and waits for completion.
+     *
+     * @return number of days that failed to rebuild
+     */
+    int rebuild(LocalDate from, LocalDate to) throws InterruptedException {
+        long started = System.currentTimeMillis();
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            LocalDate partition = day;
+            tasks.add(() -> revenueRollupService.rebuildDay(partition));
+        }
+
+        int failed = 0;
+        int buckets = 0;
+        for (Future<Integer> result : workerPool.invokeAll(tasks)) {
+            try {
+                buckets += result.get();
+            } catch (ExecutionException e) {
+                failed++;
+                logger.error("Revenue rollup rebuild of a day failed: {}", e.getCause().getMessage(), e.getCause());
+            }
+        }
+        logger.info("Rebuilt revenue rollups for {} days ({} hourly buckets, {} failed) in {} ms",
+                tasks.size(), buckets, failed, System.currentTimeMillis() - started);
+        return failed;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.E_Commerce.service;
+
+import com.example.E_Commerce.model.OrderEventType;
+import com.example.E_Commerce.model.OutboxEvent;
+import com.example.E_Commerce.model.PaymentStatus;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the revenue rollups current: a paid order is added to its buckets and a paid
+ * order that is later cancelled, refunded or marked failed is taken out again, matching
+ * what {@link RevenueRollupService#rebuildDay} counts. Cancellations of unpaid orders never
+ * counted and are ignored.
+ */
+@Component
+public class RevenueRollupHandler implements OrderEventHandler {
+
+    @Autowired
+    private RevenueRollupService revenueRollupService;
+
+    @Override
+    public boolean supports(OrderEventType eventType) {
+        return eventType == OrderEventType.PAID || eventType == OrderEventType.CANCELLED
+                || eventType == OrderEventType.PAYMENT_REVERSED;
+    }
+
+    @Override
+    public void handle(OutboxEvent event) {
+        if (event.getEventType() == OrderEventType.PAID) {
+            revenueRollupService.applyOrder(event.getId(), event.getOrderId(), 1);
+        } else if (event.getEventType() == OrderEventType.PAYMENT_REVERSED || wasPaid(event)) {
+            revenueRollupService.applyOrder(event.getId(), event.getOrderId(), -1);
+        }
+    }
+
+    private boolean wasPaid(OutboxEvent event) {
+        JSONObject payload = new JSONObject(event.getPayload());
+        return PaymentStatus.COMPLETED.name().equals(payload.optString("paymentStatus"));
+    }
+}
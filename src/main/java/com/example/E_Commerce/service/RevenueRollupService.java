@@ -0,0 +1,160 @@
+package com.example.E_Commerce.service;
+
+import com.example.E_Commerce.model.*;
+import com.example.E_Commerce.repository.OrderItemRepository;
+import com.example.E_Commerce.repository.OrderRepository;
+import com.example.E_Commerce.repository.RevenueRollupAppliedEventRepository;
+import com.example.E_Commerce.repository.RevenueRollupDailyRepository;
+import com.example.E_Commerce.repository.RevenueRollupDailyTotalRepository;
+import com.example.E_Commerce.repository.RevenueRollupHourlyRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hourly and daily paid-revenue rollups per {@link ProductCategory}.
+ *
+ * A bucket holds the orders created in it that are paid and not cancelled. Rollups are
+ * kept current by {@link RevenueRollupHandler} applying each paid or cancelled order as a
+ * delta, and can be rebuilt one day at a time from the orders table; see
+ * {@link RevenueRollupBackfillService}. A separate uncategorised daily total counts each
+ * order once. Reports read the daily tables, so a year is at most a few thousand rows
+ * whatever the order volume.
+ */
+@Service
+@Transactional
+public class RevenueRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RevenueRollupService.class);
+
+    @Autowired
+    private RevenueRollupHourlyRepository hourlyRepository;
+
+    @Autowired
+    private RevenueRollupDailyRepository dailyRepository;
+
+    @Autowired
+    private RevenueRollupDailyTotalRepository dailyTotalRepository;
+
+    @Autowired
+    private RevenueRollupAppliedEventRepository appliedEventRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Value("${revenue.rollup.applied-event-retention-days:7}")
+    private long retentionDays;
+
+    /**
+     * Adds ({@code sign} 1) or removes ({@code sign} -1) one order's revenue in its hour and
+     * day buckets. Each event is applied at most once.
+     *
+     * @return false if the event had already been applied
+     */
+    public boolean applyOrder(Long eventId, Long orderId, int sign) {
+        if (appliedEventRepository.existsById(eventId)) {
+            return false;
+        }
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found"));
+        LocalDateTime hour = order.getCreatedAt().truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime now = LocalDateTime.now();
+
+        BigDecimal total = BigDecimal.ZERO;
+        for (Object[] row : orderItemRepository.sumSubtotalByCategoryForOrder(orderId)) {
+            ProductCategory category = (ProductCategory) row[0];
+            BigDecimal revenue = ((BigDecimal) row[1]).multiply(BigDecimal.valueOf(sign));
+            total = total.add(revenue);
+            if (hourlyRepository.addToBucket(hour, category, revenue, sign, now) == 0) {
+                hourlyRepository.saveAndFlush(new RevenueRollupHourly(null, hour, category, revenue, (long) sign, now));
+            }
+            if (dailyRepository.addToBucket(hour.toLocalDate(), category, revenue, sign, now) == 0) {
+                dailyRepository.saveAndFlush(new RevenueRollupDaily(null, hour.toLocalDate(), category, revenue, (long) sign, now));
+            }
+        }
+        if (dailyTotalRepository.addToBucket(hour.toLocalDate(), total, sign, now) == 0) {
+            dailyTotalRepository.saveAndFlush(new RevenueRollupDailyTotal(null, hour.toLocalDate(), total, (long) sign, now));
+        }
+        appliedEventRepository.save(new RevenueRollupAppliedEvent(eventId, now));
+        return true;
+    }
+
+    /**
+     * Recomputes one day's hourly and daily buckets from the orders table.
+     *
+     * @return number of hourly buckets written
+     */
+    public int rebuildDay(LocalDate day) {
+        LocalDateTime from = day.atStartOfDay();
+        LocalDateTime to = from.plusDays(1);
+        hourlyRepository.deleteBuckets(from, to);
+        dailyRepository.deleteBucket(day);
+        dailyTotalRepository.deleteBucket(day);
+
+        List<RevenueRollupHourly> hourly = new ArrayList<>();
+        Map<ProductCategory, RevenueRollupDaily> daily = new EnumMap<>(ProductCategory.class);
+        for (Object[] row : orderItemRepository.sumRevenueByHourAndCategory(from, to,
+                PaymentStatus.COMPLETED, OrderStatus.CANCELLED)) {
+            int hourOfDay = ((Number) row[0]).intValue();
+            ProductCategory category = (ProductCategory) row[1];
+            BigDecimal revenue = (BigDecimal) row[2];
+            long orders = ((Number) row[3]).longValue();
+
+            hourly.add(new RevenueRollupHourly(null, from.plusHours(hourOfDay), category, revenue, orders, null));
+            // An order falls in exactly one hour, so the day's counts are the sum of its hours'
+            RevenueRollupDaily bucket = daily.computeIfAbsent(category, c ->
+                    new RevenueRollupDaily(null, from.toLocalDate(), c, BigDecimal.ZERO, 0L, null));
+            bucket.setRevenue(bucket.getRevenue().add(revenue));
+            bucket.setOrderCount(bucket.getOrderCount() + orders);
+        }
+        hourlyRepository.saveAll(hourly);
+        dailyRepository.saveAll(daily.values());
+
+        // Counted separately: an order spanning categories is in several of the rows above
+        Object[] totals = orderItemRepository.sumRevenueForDay(from, to,
+                PaymentStatus.COMPLETED, OrderStatus.CANCELLED).get(0);
+        long orders = ((Number) totals[1]).longValue();
+        if (orders > 0) {
+            dailyTotalRepository.save(new RevenueRollupDailyTotal(null, day, (BigDecimal) totals[0], orders, null));
+        }
+        return hourly.size();
+    }
+
+    @Transactional(readOnly = true)
+    public List<CategoryRevenue> getRevenueByCategory(LocalDate from, LocalDate to) {
+        return dailyRepository.sumByCategory(from, to);
+    }
+
+    @Transactional(readOnly = true)
+    public List<DailyRevenue> getDailyRevenue(LocalDate from, LocalDate to) {
+        return dailyTotalRepository.findByDay(from, to);
+    }
+
+    @Scheduled(fixedDelayString = "${revenue.rollup.applied-event-cleanup-interval-ms:3600000}")
+    public void purgeAppliedEvents() {
+        try {
+            int purged = appliedEventRepository.deleteAppliedBefore(LocalDateTime.now().minusDays(retentionDays));
+            if (purged > 0) {
+                logger.info("Purged {} applied revenue rollup events", purged);
+            }
+        } catch (Exception e) {
+            logger.error("Revenue rollup event cleanup failed: {}", e.getMessage(), e);
+        }
+    }
+}
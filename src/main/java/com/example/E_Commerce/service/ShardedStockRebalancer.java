@@ -0,0 +1,35 @@
+package com.example.E_Commerce.service;
+
+import com.example.E_Commerce.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically evens out the stock shards of sharded products and refreshes their
+ * displayed stock. Each product is rebalanced in its own short transaction.
+ */
+@Component
+public class ShardedStockRebalancer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardedStockRebalancer.class);
+
+    @Autowired
+    private ShardedStockService shardedStockService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Scheduled(fixedDelayString = "${inventory.sharding.rebalance-interval-ms:5000}")
+    public void rebalanceShardedProducts() {
+        for (Long productId : productRepository.findShardedProductIds()) {
+            try {
+                shardedStockService.rebalance(productId);
+            } catch (Exception e) {
+                logger.warn("Stock shard rebalance failed for product {}: {}", productId, e.getMessage());
+            }
+        }
+    }
+}
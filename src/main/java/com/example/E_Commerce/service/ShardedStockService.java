@@ -0,0 +1,185 @@
+package com.example.E_Commerce.service;
+
+import com.example.E_Commerce.model.Product;
+import com.example.E_Commerce.model.ProductStockShard;
+import com.example.E_Commerce.repository.ProductRepository;
+import com.example.E_Commerce.repository.ProductStockShardRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Opt-in sharded stock for flash-sale products.
+ *
+ * A sharded product's stock lives in {@code stockShards} rows of {@link ProductStockShard}
+ * instead of the single {@code products.stock_quantity} cell. Decrements go to a random shard
+ * that can cover the quantity, so concurrent checkouts for the same product mostly lock
+ * different rows. The shard total is always exact; {@code stock_quantity} is refreshed from it
+ * by {@link #rebalance(Long)} for display.
+ */
+@Service
+@Transactional
+public class ShardedStockService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardedStockService.class);
+
+    public static final int MAX_SHARDS = 64;
+
+    @Autowired
+    private ProductStockShardRepository shardRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    // A shard is considered starved when it holds less than this fraction of an even split
+    @Value("${inventory.sharding.rebalance-threshold:0.5}")
+    private double rebalanceThreshold;
+
+    public boolean isSharded(Long productId) {
+        Integer shards = productRepository.findStockShardsById(productId);
+        return shards != null && shards > 0;
+    }
+
+    /**
+     * Splits the product's current stock across {@code shards} buckets,
+     * or folds it back into {@code stock_quantity} when {@code shards} is 0.
+     */
+    public void configureShards(Long productId, int shards) {
+        if (shards < 0 || shards > MAX_SHARDS) {
+            throw new IllegalArgumentException("Stock shards must be between 0 and " + MAX_SHARDS);
+        }
+        Product product = productRepository.findByIdForUpdate(productId)
+                .orElseThrow(() -> new RuntimeException("Product not found"));
+
+        int total = product.getStockQuantity() != null ? product.getStockQuantity() : 0;
+        if (product.isStockSharded()) {
+            total = totalOf(shardRepository.findByProductIdForUpdate(productId));
+            shardRepository.deleteByProductId(productId);
+        }
+
+        if (shards == 0) {
+            product.setStockShards(null);
+        } else {
+            List<ProductStockShard> buckets = new ArrayList<>(shards);
+            int[] split = evenSplit(total, shards);
+            for (int i = 0; i < shards; i++) {
+                ProductStockShard shard = new ProductStockShard();
+                shard.setProductId(productId);
+                shard.setShardIndex(i);
+                shard.setQuantity(split[i]);
+                buckets.add(shard);
+            }
+            shardRepository.saveAll(buckets);
+            product.setStockShards(shards);
+        }
+        product.setStockQuantity(total);
+        productRepository.save(product);
+        logger.info("Product {} stock sharding set to {} shard(s) with {} units", productId, shards, total);
+    }
+
+    public void decrement(Product product, int quantity) {
+        Long productId = product.getId();
+        int shards = product.getStockShards();
+        int start = ThreadLocalRandom.current().nextInt(shards);
+        for (int i = 0; i < shards; i++) {
+            if (shardRepository.decrementIfAvailable(productId, (start + i) % shards, quantity) > 0) {
+                return;
+            }
+        }
+
+        // No single shard can cover the quantity: take it across shards under lock
+        List<ProductStockShard> locked = shardRepository.findByProductIdForUpdate(productId);
+        int available = totalOf(locked);
+        if (available < quantity) {
+            throw new RuntimeException("Insufficient stock. Available: " + available + ", Requested: " + quantity);
+        }
+        int remaining = quantity;
+        for (ProductStockShard shard : locked) {
+            int taken = Math.min(shard.getQuantity(), remaining);
+            shard.setQuantity(shard.getQuantity() - taken);
+            remaining -= taken;
+            if (remaining == 0) {
+                break;
+            }
+        }
+        shardRepository.saveAll(locked);
+    }
+
+    public boolean tryDecrement(Product product, int quantity) {
+        try {
+            decrement(product, quantity);
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    public void increment(Product product, int quantity) {
+        int shard = ThreadLocalRandom.current().nextInt(product.getStockShards());
+        shardRepository.increment(product.getId(), shard, quantity);
+    }
+
+    /**
+     * Replaces the shard total, e.g. after an admin edits the stock of a sharded product.
+     */
+    public void setTotal(Long productId, int total) {
+        List<ProductStockShard> locked = shardRepository.findByProductIdForUpdate(productId);
+        if (locked.isEmpty()) {
+            return;
+        }
+        redistribute(locked, total);
+        productRepository.updateStockSnapshot(productId, total);
+    }
+
+    public int getTotal(Long productId) {
+        return (int) shardRepository.sumQuantityByProductId(productId);
+    }
+
+    /**
+     * Evens out the product's shards if any of them has run low, and refreshes the
+     * {@code stock_quantity} snapshot. Only shards not locked by in-flight checkouts take
+     * part, and their combined quantity is preserved, so the rebalancer never waits on
+     * or changes the stock seen by a running checkout.
+     */
+    public void rebalance(Long productId) {
+        List<ProductStockShard> unlocked = shardRepository.findUnlockedByProductIdForUpdate(productId);
+        if (unlocked.size() > 1) {
+            int unlockedTotal = totalOf(unlocked);
+            int floor = (int) (unlockedTotal / (double) unlocked.size() * rebalanceThreshold);
+            boolean starved = unlocked.stream().anyMatch(shard -> shard.getQuantity() < floor);
+            if (starved) {
+                redistribute(unlocked, unlockedTotal);
+            }
+        }
+        productRepository.updateStockSnapshot(productId, getTotal(productId));
+    }
+
+    private void redistribute(List<ProductStockShard> shards, int total) {
+        int[] split = evenSplit(total, shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            shards.get(i).setQuantity(split[i]);
+        }
+        shardRepository.saveAll(shards);
+    }
+
+    private static int totalOf(List<ProductStockShard> shards) {
+        return shards.stream().mapToInt(ProductStockShard::getQuantity).sum();
+    }
+
+    static int[] evenSplit(int total, int shards) {
+        int[] split = new int[shards];
+        int base = total / shards;
+        int remainder = total % shards;
+        for (int i = 0; i < shards; i++) {
+            split[i] = base + (i < remainder ? 1 : 0);
+        }
+        return split;
+    }
+}
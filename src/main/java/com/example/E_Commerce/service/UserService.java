@@ -1,20 +1,30 @@
 package com.example.E_Commerce.service;
 
+import com.example.E_Commerce.model.ExportFilter;
 import com.example.E_Commerce.model.Role;
 import com.example.E_Commerce.model.User;
+import com.example.E_Commerce.model.UserSearchCriteria;
+import com.example.E_Commerce.model.UserSummary;
 import com.example.E_Commerce.repository.UserRepository;
+import com.example.E_Commerce.util.AdminQueries;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @Transactional
 public class UserService {
 
+    // Columns the admin user list may be sorted by
+    private static final Set<String> ADMIN_SORT_FIELDS = Set.of("createdAt", "username", "email", "role");
+
     @Autowired
     private UserRepository userRepository;
 
@@ -90,6 +100,27 @@ public class UserService {
         return userRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
+    public Page<UserSummary> searchUsers(UserSearchCriteria criteria, Pageable pageable) {
+        return userRepository.searchSummaries(criteria, pageable);
+    }
+
+    /**
+     * Up to {@code limit} accounts matching {@code filter} with an id above {@code afterId},
+     * in id order; the user export walks the matching accounts this way one chunk at a time.
+     */
+    @Transactional(readOnly = true)
+    public List<UserSummary> getUserSummariesAfter(ExportFilter filter, long afterId, int limit) {
+        return userRepository.findSummariesAfter(filter, afterId, limit);
+    }
+
+    /**
+     * Page request for the admin user list; see {@link AdminQueries#page}.
+     */
+    public static Pageable adminUserPage(int page, int size, String sortField, String direction) {
+        return AdminQueries.page(page, size, sortField, direction, ADMIN_SORT_FIELDS);
+    }
+
     public void deleteUser(Long id) {
         userRepository.deleteById(id);
     }
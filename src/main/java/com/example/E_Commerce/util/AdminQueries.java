@@ -0,0 +1,39 @@
+package com.example.E_Commerce.util;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.Set;
+
+/**
+ * Paging and search helpers shared by the admin list pages.
+ */
+public final class AdminQueries {
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private static final String DEFAULT_SORT_FIELD = "createdAt";
+
+    private AdminQueries() {
+    }
+
+    /**
+     * Page request for an admin list sortable by {@code sortFields}. Unknown sort fields fall
+     * back to newest first, the page size is capped, and id breaks ties so paging is stable.
+     */
+    public static Pageable page(int page, int size, String sortField, String direction, Set<String> sortFields) {
+        String field = sortFields.contains(sortField) ? sortField : DEFAULT_SORT_FIELD;
+        Sort.Direction dir = "asc".equalsIgnoreCase(direction) ? Sort.Direction.ASC : Sort.Direction.DESC;
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        return PageRequest.of(Math.max(page, 0), pageSize, Sort.by(dir, field).and(Sort.by(dir, "id")));
+    }
+
+    /**
+     * LIKE pattern matching values that start with {@code prefix} taken literally; use it
+     * with '\' as the escape character.
+     */
+    public static String likePrefix(String prefix) {
+        return prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.E_Commerce.util;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+/**
+ * Money amounts with two decimals, the way {@code String.format("%.2f", amount)} prints them.
+ *
+ * {@code String.format} parses its pattern and goes through a {@code Formatter} on every
+ * call, which showed up when rendering invoices and reports with many lines. Here the amount
+ * is rounded half-up to two decimals and, as long as it fits in a long (every real amount
+ * does), its digits are appended straight to the caller's builder.
+ */
+public final class MoneyFormat {
+
+    private MoneyFormat() {
+    }
+
+    public static StringBuilder append(StringBuilder out, BigDecimal amount) {
+        BigDecimal scaled = amount.setScale(2, RoundingMode.HALF_UP);
+        BigInteger unscaled = scaled.unscaledValue();
+        if (unscaled.bitLength() >= Long.SIZE - 1) {
+            return out.append(scaled.toPlainString());
+        }
+
+        // Sign of the unrounded amount, so -0.001 prints as -0.00 like String.format does
+        if (amount.signum() < 0) {
+            out.append('-');
+        }
+        long cents = Math.abs(unscaled.longValue());
+        int fraction = (int) (cents % 100);
+        return out.append(cents / 100)
+                .append('.')
+                .append((char) ('0' + fraction / 10))
+                .append((char) ('0' + fraction % 10));
+    }
+
+    public static String format(BigDecimal amount) {
+        return append(new StringBuilder(16), amount).toString();
+    }
+
+    /**
+     * The amount in paise, rounded half-up like {@link #format}; null counts as zero. Used
+     * where sums are kept in long counters instead of BigDecimal.
+     */
+    public static long toMinorUnits(BigDecimal amount) {
+        return amount == null ? 0 : amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+}
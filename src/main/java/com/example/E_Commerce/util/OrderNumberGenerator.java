@@ -0,0 +1,113 @@
+package com.example.E_Commerce.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake-style order number generator.
+ *
+ * Each id packs 41 bits of milliseconds since {@link #EPOCH}, a 10 bit node id and a
+ * 12 bit per-millisecond sequence, so ids are unique across nodes without coordination
+ * and sort by creation time. The timestamp and sequence share a single {@link AtomicLong}
+ * and are advanced with compare-and-set, so callers never block each other.
+ */
+@Component
+public class OrderNumberGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderNumberGenerator.class);
+
+    public static final String PREFIX = "ORD-";
+
+    // 2024-01-01T00:00:00Z
+    static final long EPOCH = 1704067200000L;
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    // Base36 of the largest 63 bit id; padding to this width keeps string order equal to id order
+    private static final int ENCODED_LENGTH = Long.toString(Long.MAX_VALUE, 36).length();
+
+    private final long nodeId;
+
+    // (millis since EPOCH) << SEQUENCE_BITS | sequence of the last issued id
+    private final AtomicLong lastState = new AtomicLong();
+
+    @Autowired
+    public OrderNumberGenerator(@Value("${order.number.node-id:-1}") long configuredNodeId) {
+        if (configuredNodeId >= 0) {
+            this.nodeId = validateNodeId(configuredNodeId);
+            logger.info("Order number generator initialised with node id {}", nodeId);
+        } else {
+            this.nodeId = deriveNodeId();
+            // Host name hashes can collide, and two nodes with one id can issue the same number
+            logger.warn("Order number node id {} derived from the host name; set order.number.node-id "
+                    + "to a value unique per instance when running more than one", nodeId);
+        }
+    }
+
+    public long nextId() {
+        while (true) {
+            long current = lastState.get();
+            long lastMillis = current >>> SEQUENCE_BITS;
+            long now = System.currentTimeMillis() - EPOCH;
+
+            long next;
+            if (now > lastMillis) {
+                next = now << SEQUENCE_BITS;
+            } else if ((current & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                // Same millisecond, or the clock moved backwards: keep counting from the last state
+                next = current + 1;
+            } else {
+                // Sequence exhausted for this millisecond: borrow the next one instead of spinning
+                next = (lastMillis + 1) << SEQUENCE_BITS;
+            }
+
+            if (lastState.compareAndSet(current, next)) {
+                long millis = next >>> SEQUENCE_BITS;
+                return (millis << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    public String nextOrderNumber() {
+        return format(nextId());
+    }
+
+    public long getNodeId() {
+        return nodeId;
+    }
+
+    static String format(long id) {
+        String encoded = Long.toString(id, 36).toUpperCase();
+        StringBuilder orderNumber = new StringBuilder(PREFIX.length() + ENCODED_LENGTH).append(PREFIX);
+        for (int i = encoded.length(); i < ENCODED_LENGTH; i++) {
+            orderNumber.append('0');
+        }
+        return orderNumber.append(encoded).toString();
+    }
+
+    private static long validateNodeId(long nodeId) {
+        if (nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Order number node id must be between 0 and " + MAX_NODE_ID + ", got " + nodeId);
+        }
+        return nodeId;
+    }
+
+    private static long deriveNodeId() {
+        try {
+            String hostName = InetAddress.getLocalHost().getHostName();
+            return (hostName.hashCode() & Integer.MAX_VALUE) % (MAX_NODE_ID + 1);
+        } catch (Exception e) {
+            logger.warn("Could not resolve host name for order number node id, using a random one: {}", e.getMessage());
+            return (long) (Math.random() * (MAX_NODE_ID + 1));
+        }
+    }
+}
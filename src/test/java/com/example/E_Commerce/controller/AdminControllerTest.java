@@ -9,6 +9,9 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -17,7 +20,9 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -40,6 +45,30 @@ class AdminControllerTest {
     @Mock
     private DataInitializationService dataInitializationService;
 
+    @Mock
+    private OrderStatusLogService orderStatusLogService;
+
+    @Mock
+    private DashboardStatsService dashboardStatsService;
+
+    @Mock
+    private OrderMetricsAggregator orderMetrics;
+
+    @Mock
+    private RevenueRollupService revenueRollupService;
+
+    @Mock
+    private RevenueRollupBackfillService revenueRollupBackfillService;
+
+    @Mock
+    private LiveDashboardFeed liveDashboardFeed;
+
+    @Mock
+    private CustomerAnalyticsService customerAnalyticsService;
+
+    @Mock
+    private CustomerAnalyticsJob customerAnalyticsJob;
+
     @InjectMocks
     private AdminController adminController;
 
@@ -56,26 +85,20 @@ class AdminControllerTest {
     @WithMockUser(roles = "ADMIN")
     void testDashboard() throws Exception {
         // Given
-        List<Product> products = Arrays.asList(createTestProduct());
-        List<Order> orders = Arrays.asList(createTestOrder());
-        List<User> users = Arrays.asList(createTestUser());
-
-        when(productService.getAllProducts()).thenReturn(products);
-        when(orderService.getAllOrders()).thenReturn(orders);
-        when(userService.getAllUsers()).thenReturn(users);
+        when(dashboardStatsService.getStats()).thenReturn(createTestStats());
 
         // When & Then
         mockMvc.perform(get("/admin/dashboard"))
                 .andExpect(status().isOk())
                 .andExpect(view().name("admin/dashboard"))
-                .andExpect(model().attribute("totalProducts", 1))
-                .andExpect(model().attribute("totalOrders", 1))
-                .andExpect(model().attribute("totalUsers", 1))
+                .andExpect(model().attribute("totalProducts", 1L))
+                .andExpect(model().attribute("totalOrders", 1L))
+                .andExpect(model().attribute("totalUsers", 1L))
                 .andExpect(model().attributeExists("recentOrders"));
 
-        verify(productService).getAllProducts();
-        verify(orderService).getAllOrders();
-        verify(userService).getAllUsers();
+        verify(dashboardStatsService).getStats();
+        verify(orderService, never()).getAllOrders();
+        verify(userService, never()).getAllUsers();
     }
 
     @Test
@@ -189,18 +212,27 @@ class AdminControllerTest {
     @WithMockUser(roles = "ADMIN")
     void testOrders() throws Exception {
         // Given
-        List<Order> orders = Arrays.asList(createTestOrder());
-        when(orderService.getAllOrders()).thenReturn(orders);
+        Page<AdminOrderRow> orders = new PageImpl<>(Arrays.asList(new AdminOrderRow(1L, "ORD-123456", "Test User",
+                "test@example.com", 2L, new BigDecimal("99.99"), OrderStatus.CREATED, PaymentStatus.PENDING,
+                LocalDateTime.now())));
+        Map<OrderStatus, Long> counts = new EnumMap<>(OrderStatus.class);
+        counts.put(OrderStatus.CREATED, 1L);
+        when(orderService.searchOrders(any(OrderSearchCriteria.class), any(Pageable.class))).thenReturn(orders);
+        when(orderMetrics.getCountsByStatus()).thenReturn(counts);
 
         // When & Then
-        mockMvc.perform(get("/admin/orders"))
+        mockMvc.perform(get("/admin/orders").param("status", "CREATED").param("email", "test@example.com"))
                 .andExpect(status().isOk())
                 .andExpect(view().name("admin/orders"))
                 .andExpect(model().attribute("orders", orders))
+                .andExpect(model().attribute("newOrders", 1L))
+                .andExpect(model().attributeExists("criteria"))
                 .andExpect(model().attributeExists("orderStatuses"))
                 .andExpect(model().attributeExists("paymentStatuses"));
 
-        verify(orderService).getAllOrders();
+        verify(orderService).searchOrders(argThat(c -> c.getStatus() == OrderStatus.CREATED
+                && "test@example.com".equals(c.getEmail())), any(Pageable.class));
+        verify(orderService, never()).getAllOrders();
     }
 
     @Test
@@ -260,33 +292,69 @@ class AdminControllerTest {
     @WithMockUser(roles = "ADMIN")
     void testUsers() throws Exception {
         // Given
-        List<User> users = Arrays.asList(createTestUser());
-        when(userService.getAllUsers()).thenReturn(users);
+        Page<UserSummary> users = new PageImpl<>(Arrays.asList(new UserSummary(1L, "testuser", "test@example.com",
+                "Test", "User", null, Role.CUSTOMER, true, LocalDateTime.now())));
+        when(userService.searchUsers(any(UserSearchCriteria.class), any(Pageable.class))).thenReturn(users);
 
         // When & Then
-        mockMvc.perform(get("/admin/users"))
+        mockMvc.perform(get("/admin/users").param("email", "test@").param("role", "CUSTOMER"))
                 .andExpect(status().isOk())
                 .andExpect(view().name("admin/users"))
-                .andExpect(model().attribute("users", users));
+                .andExpect(model().attribute("users", users))
+                .andExpect(model().attributeExists("criteria"));
 
-        verify(userService).getAllUsers();
+        verify(userService).searchUsers(argThat(c -> "test@".equals(c.getEmail()) && c.getRole() == Role.CUSTOMER),
+                any(Pageable.class));
+        verify(userService, never()).getAllUsers();
     }
 
     @Test
     @WithMockUser(roles = "ADMIN")
     void testReports() throws Exception {
         // Given
-        List<Order> orders = Arrays.asList(createTestOrder());
-        when(orderService.getAllOrders()).thenReturn(orders);
+        DashboardStats stats = createTestStats();
+        when(dashboardStatsService.getStats()).thenReturn(stats);
 
         // When & Then
         mockMvc.perform(get("/admin/reports"))
                 .andExpect(status().isOk())
                 .andExpect(view().name("admin/reports"))
-                .andExpect(model().attribute("orders", orders))
-                .andExpect(model().attributeExists("totalRevenue"));
+                .andExpect(model().attribute("recentOrders", stats.getRecentOrders()))
+                .andExpect(model().attribute("newOrders", 1L))
+                .andExpect(model().attribute("cancelledOrders", 0L))
+                .andExpect(model().attributeExists("totalRevenue"))
+                .andExpect(model().attributeExists("categoryRevenue"))
+                .andExpect(model().attributeExists("dailyRevenue"))
+                .andExpect(model().attributeExists("topCustomers"))
+                .andExpect(model().attributeExists("cohorts"));
+
+        verify(orderService, never()).getAllOrders();
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void testRebuildRevenueRollups_AlreadyRunning() throws Exception {
+        // Given
+        when(revenueRollupBackfillService.startFullRebuild()).thenReturn(false);
 
-        verify(orderService).getAllOrders();
+        // When & Then
+        mockMvc.perform(post("/admin/reports/revenue/rebuild").with(csrf()))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(redirectedUrl("/admin/reports"))
+                .andExpect(flash().attribute("error", "A revenue rollup rebuild is already running."));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void testRunCustomerAnalytics_Rebuild() throws Exception {
+        // Given
+        when(customerAnalyticsJob.start(true)).thenReturn(true);
+
+        // When & Then
+        mockMvc.perform(post("/admin/reports/analytics/run").param("rebuild", "true").with(csrf()))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(redirectedUrl("/admin/reports"))
+                .andExpect(flash().attribute("success", "Customer analytics rebuild started."));
     }
 
     @Test
@@ -323,6 +391,14 @@ class AdminControllerTest {
         return product;
     }
 
+    private DashboardStats createTestStats() {
+        Map<OrderStatus, Long> byStatus = new EnumMap<>(OrderStatus.class);
+        byStatus.put(OrderStatus.CREATED, 1L);
+        AdminOrderRow row = new AdminOrderRow(1L, "ORD-123456", "Test User", "test@example.com", 1L,
+                new BigDecimal("99.99"), OrderStatus.CREATED, PaymentStatus.PENDING, LocalDateTime.now());
+        return new DashboardStats(1L, 1L, 1L, BigDecimal.ZERO, byStatus, Arrays.asList(row), LocalDateTime.now());
+    }
+
     private Order createTestOrder() {
         Order order = new Order();
         order.setId(1L);
@@ -16,6 +16,7 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Supplier;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -35,6 +36,9 @@ class CheckoutControllerTest {
     @Mock
     private PaymentService paymentService;
 
+    @Mock
+    private IdempotencyService idempotencyService;
+
     @Mock
     private Authentication authentication;
 
@@ -49,6 +53,9 @@ class CheckoutControllerTest {
 
     @BeforeEach
     void setUp() {
+        // Run the guarded action directly; replay behaviour is covered by IdempotencyServiceTest
+        lenient().when(idempotencyService.execute(anyString(), anyString(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<Long>>getArgument(2).get());
         mockMvc = MockMvcBuilders.standaloneSetup(checkoutController).build();
         setupTestData();
     }
@@ -206,6 +213,26 @@ class CheckoutControllerTest {
         verify(paymentService).createPaymentSession(testOrder);
     }
 
+    @Test
+    void testVerifyPayment_InProgressRedirectsToResolvedOrder() throws Exception {
+        // Given
+        when(authentication.getPrincipal()).thenReturn(testUser);
+        when(orderService.getOrderById(1L)).thenReturn(testOrder);
+        doThrow(new RequestInProgressException("Request is already being processed"))
+                .when(idempotencyService).execute(anyString(), anyString(), any());
+
+        // When & Then
+        mockMvc.perform(post("/checkout/payment/verify")
+                        .principal(authentication)
+                        .param("razorpayOrderId", "0001")
+                        .param("razorpayPaymentId", "pay_1")
+                        .param("razorpaySignature", "sig")
+                        .with(csrf()))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(redirectedUrl("/orders/1"))
+                .andExpect(flash().attribute("success", "Your payment is being confirmed."));
+    }
+
     private void setupTestData() {
         // Setup test user
         testUser = new User();
@@ -1,24 +1,36 @@
 package com.example.E_Commerce.controller;
 
 import com.example.E_Commerce.model.*;
+import com.example.E_Commerce.service.BulkInvoiceService;
+import com.example.E_Commerce.service.ExportJobService;
 import com.example.E_Commerce.service.ExportService;
+import com.example.E_Commerce.service.FlatExportService;
+import com.example.E_Commerce.service.InvoiceCacheService;
 import com.example.E_Commerce.service.OrderService;
 import com.example.E_Commerce.service.PDFService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.Arrays;
-import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -36,6 +48,18 @@ class ExportControllerTest {
     @Mock
     private OrderService orderService;
 
+    @Mock
+    private FlatExportService flatExportService;
+
+    @Mock
+    private ExportJobService exportJobService;
+
+    @Mock
+    private InvoiceCacheService invoiceCacheService;
+
+    @Mock
+    private BulkInvoiceService bulkInvoiceService;
+
     @InjectMocks
     private ExportController exportController;
 
@@ -47,120 +71,185 @@ class ExportControllerTest {
     }
 
     @Test
-    void testExportOrdersToExcel() throws IOException {
+    void testExportOrdersToExcel_StreamsWorkbookToResponse() throws IOException {
         // Given
-        List<Order> orders = Arrays.asList(testOrder);
-        byte[] mockExcelData = "mock excel data".getBytes();
-        when(orderService.getAllOrders()).thenReturn(orders);
-        when(exportService.exportOrdersToExcel(orders)).thenReturn(mockExcelData);
+        ExportFilter filter = new ExportFilter();
+        filter.setStatus(OrderStatus.DELIVERED);
 
         // When
-        ResponseEntity<byte[]> response = exportController.exportOrdersToExcel();
+        ResponseEntity<StreamingResponseBody> response = exportController.exportOrdersToExcel(filter);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
 
         // Then
-        assertNotNull(response);
         assertEquals(200, response.getStatusCode().value());
         assertEquals(MediaType.APPLICATION_OCTET_STREAM, response.getHeaders().getContentType());
-        assertTrue(response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION).contains("attachment"));
-        assertArrayEquals(mockExcelData, response.getBody());
-
-        verify(orderService).getAllOrders();
-        verify(exportService).exportOrdersToExcel(orders);
+        assertTrue(response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION).contains("orders_report_"));
+        verify(exportService).writeOrdersExcel(filter, out);
+        verify(orderService, never()).getAllOrders();
     }
 
     @Test
-    void testExportOrdersToPDF() throws IOException {
+    void testExportUsersToExcel_PropagatesWriteFailure() throws IOException {
         // Given
-        List<Order> orders = Arrays.asList(testOrder);
-        byte[] mockPdfData = "mock pdf data".getBytes();
-        when(orderService.getAllOrders()).thenReturn(orders);
-        when(pdfService.generateOrdersReportPDF(anyString())).thenReturn(mockPdfData);
+        doThrow(new IOException("Broken pipe")).when(exportService).writeUsersExcel(any(), any());
 
         // When
-        ResponseEntity<byte[]> response = exportController.exportOrdersToPDF();
+        ResponseEntity<StreamingResponseBody> response = exportController.exportUsersToExcel(new ExportFilter());
 
         // Then
-        assertNotNull(response);
-        assertEquals(200, response.getStatusCode().value());
-        assertEquals(MediaType.APPLICATION_PDF, response.getHeaders().getContentType());
-        assertTrue(response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION).contains("attachment"));
-        assertArrayEquals(mockPdfData, response.getBody());
+        assertThrows(IOException.class, () -> response.getBody().writeTo(new ByteArrayOutputStream()));
+    }
 
-        verify(orderService).getAllOrders();
-        verify(pdfService).generateOrdersReportPDF(anyString());
+    @Test
+    void testExportUsersToExcel_RejectsUnsupportedFilter() {
+        // Given
+        ExportFilter filter = new ExportFilter();
+        filter.setCategory(ProductCategory.BOOKS);
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> exportController.exportUsersToExcel(filter));
+        verifyNoInteractions(exportService);
     }
 
     @Test
-    void testExportOrdersToExcel_NoOrders() throws IOException {
+    void testExportFlatFile_GzipDownloadsCompressedFile() throws IOException {
         // Given
-        List<Order> emptyOrders = Arrays.asList();
-        when(orderService.getAllOrders()).thenReturn(emptyOrders);
+        ExportFilter filter = new ExportFilter();
+        filter.setFromDate(LocalDate.of(2024, 1, 1));
+        filter.setCategory(ProductCategory.BOOKS);
 
         // When
-        ResponseEntity<byte[]> response = exportController.exportOrdersToExcel();
+        ResponseEntity<StreamingResponseBody> response = exportController.exportFlatFile("order-lines", "csv", true, filter);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
 
         // Then
-        assertNotNull(response);
-        assertEquals(200, response.getStatusCode().value());
-        verify(orderService).getAllOrders();
-        verify(exportService).exportOrdersToExcel(emptyOrders);
+        assertEquals(MediaType.parseMediaType("application/gzip"), response.getHeaders().getContentType());
+        assertTrue(response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION).contains(".csv.gz"));
+        verify(flatExportService).write(ExportDataset.ORDER_LINES, filter, ExportFormat.CSV, true, out);
     }
 
     @Test
-    void testExportOrdersToExcel_ExportServiceError() throws IOException {
+    void testDownloadExportJob_UsesSendfileWhenConnectorSupportsIt(@TempDir Path dir) throws IOException {
         // Given
-        List<Order> orders = Arrays.asList(testOrder);
-        when(orderService.getAllOrders()).thenReturn(orders);
-        when(exportService.exportOrdersToExcel(orders)).thenThrow(new RuntimeException("Export failed"));
+        Path file = Files.writeString(dir.resolve("job-1"), "id,name\n");
+        ExportJob job = new ExportJob();
+        job.setFilename("products_20240101_120000.csv");
+        job.setContentType("text/csv");
+        when(exportJobService.getJob("job-1")).thenReturn(job);
+        when(exportJobService.getFile("job-1")).thenReturn(file);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        MockHttpServletResponse response = new MockHttpServletResponse();
 
         // When
-        ResponseEntity<byte[]> response = exportController.exportOrdersToExcel();
+        exportController.downloadExportJob("job-1", request, response);
 
         // Then
-        assertNotNull(response);
-        assertEquals(500, response.getStatusCode().value());
-        assertTrue(new String(response.getBody()).contains("Error exporting orders"));
+        assertEquals(file.toAbsolutePath().toString(), request.getAttribute("org.apache.tomcat.sendfile.filename"));
+        assertEquals(8L, request.getAttribute("org.apache.tomcat.sendfile.end"));
+        assertEquals(8, response.getContentLengthLong());
+        assertTrue(response.getHeader(HttpHeaders.CONTENT_DISPOSITION).contains("products_20240101_120000.csv"));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void testDownloadExportJob_NotReadyIsNotFound() throws IOException {
+        // Given
+        when(exportJobService.getJob("job-2")).thenReturn(new ExportJob());
+        when(exportJobService.getFile("job-2")).thenThrow(new RuntimeException("Export job job-2 is not ready for download"));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        exportController.downloadExportJob("job-2", new MockHttpServletRequest(), response);
 
-        verify(orderService).getAllOrders();
-        verify(exportService).exportOrdersToExcel(orders);
+        // Then
+        assertEquals(404, response.getStatus());
     }
 
     @Test
-    void testExportOrderInvoiceToPDF() throws IOException {
+    void testExportOrdersToPDF_StreamsReportToResponse() throws IOException {
         // Given
-        byte[] mockPdfData = "mock pdf data".getBytes();
-        when(orderService.getOrderById(1L)).thenReturn(testOrder);
-        when(pdfService.generateOrderInvoicePDF(testOrder)).thenReturn(mockPdfData);
+        ExportFilter filter = new ExportFilter();
 
         // When
-        ResponseEntity<byte[]> response = exportController.exportOrderInvoiceToPDF(1L);
+        ResponseEntity<StreamingResponseBody> response = exportController.exportOrdersToPDF(filter);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
 
         // Then
-        assertNotNull(response);
         assertEquals(200, response.getStatusCode().value());
         assertEquals(MediaType.APPLICATION_PDF, response.getHeaders().getContentType());
-        assertTrue(response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION).contains("attachment"));
-        assertArrayEquals(mockPdfData, response.getBody());
+        assertTrue(response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION).contains("orders_report_"));
+        verify(pdfService).writeOrdersReportPDF(filter, out);
+        verify(orderService, never()).getAllOrders();
+    }
+
+    @Test
+    void testExportOrderInvoiceToPDF(@TempDir Path dir) throws IOException {
+        // Given
+        Path invoice = Files.write(dir.resolve("1-1700000000000.pdf"), "mock pdf data".getBytes());
+        when(orderService.getOrderById(1L)).thenReturn(testOrder);
+        when(invoiceCacheService.openInvoice(testOrder)).thenReturn(FileChannel.open(invoice, StandardOpenOption.READ));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        exportController.exportOrderInvoiceToPDF(1L, new MockHttpServletRequest(), response);
+
+        // Then
+        assertEquals(200, response.getStatus());
+        assertEquals(MediaType.APPLICATION_PDF_VALUE, response.getContentType());
+        assertTrue(response.getHeader(HttpHeaders.CONTENT_DISPOSITION).contains("invoice_ORD-123456_"));
+        assertArrayEquals("mock pdf data".getBytes(), response.getContentAsByteArray());
 
         verify(orderService).getOrderById(1L);
-        verify(pdfService).generateOrderInvoicePDF(testOrder);
+        verify(invoiceCacheService).openInvoice(testOrder);
     }
 
     @Test
     void testExportOrderInvoiceToPDF_OrderNotFound() throws IOException {
         // Given
         when(orderService.getOrderById(1L)).thenReturn(null);
+        MockHttpServletResponse response = new MockHttpServletResponse();
 
         // When
-        ResponseEntity<byte[]> response = exportController.exportOrderInvoiceToPDF(1L);
+        exportController.exportOrderInvoiceToPDF(1L, new MockHttpServletRequest(), response);
 
         // Then
-        assertNotNull(response);
-        assertEquals(404, response.getStatusCode().value());
-        assertEquals("Order not found", new String(response.getBody()));
+        assertEquals(404, response.getStatus());
+        assertEquals("Order not found", response.getErrorMessage());
 
         verify(orderService).getOrderById(1L);
-        verify(pdfService, never()).generateOrderInvoicePDF(any(Order.class));
+        verify(invoiceCacheService, never()).openInvoice(any(Order.class));
+    }
+
+    @Test
+    void testExportInvoicesZip_StreamsArchiveForFilter() throws IOException {
+        // Given
+        OrderSearchCriteria criteria = new OrderSearchCriteria();
+        criteria.setFromDate(LocalDate.of(2024, 4, 1));
+        criteria.setToDate(LocalDate.of(2024, 4, 30));
+
+        // When
+        ResponseEntity<StreamingResponseBody> response = exportController.exportInvoicesZip(criteria);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        // Then
+        assertEquals(MediaType.parseMediaType("application/zip"), response.getHeaders().getContentType());
+        assertTrue(response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION).contains(".zip"));
+        verify(bulkInvoiceService).writeInvoicesZip(criteria, out);
+    }
+
+    @Test
+    void testExportInvoicesZip_RequiresDateRangeOrStatus() throws IOException {
+        // When
+        ResponseEntity<StreamingResponseBody> response = exportController.exportInvoicesZip(new OrderSearchCriteria());
+
+        // Then
+        assertEquals(400, response.getStatusCode().value());
+        verify(bulkInvoiceService, never()).writeInvoicesZip(any(), any());
     }
 
     private void setupTestData() {
@@ -42,6 +42,7 @@ class OrderControllerTest {
     private MockMvc mockMvc;
     private User testUser;
     private Order testOrder;
+    private OrderSummary testSummary;
 
     @BeforeEach
     void setUp() {
@@ -52,30 +53,28 @@ class OrderControllerTest {
     @Test
     void testViewOrders_WithAuthentication() throws Exception {
         // Given
-        List<Order> orders = Arrays.asList(testOrder);
-        Page<Order> orderPage = new PageImpl<>(orders, PageRequest.of(0, 10), 1);
+        List<OrderSummary> orders = Arrays.asList(testSummary);
+        Page<OrderSummary> orderPage = new PageImpl<>(orders, PageRequest.of(0, 10), 1);
         when(authentication.getPrincipal()).thenReturn(testUser);
-        when(orderService.getOrdersByUser(1L, PageRequest.of(0, 10))).thenReturn(orderPage);
+        when(orderService.getOrderSummariesByUser(1L, PageRequest.of(0, 10))).thenReturn(orderPage);
 
         // When & Then
         mockMvc.perform(get("/orders")
                         .principal(authentication))
                 .andExpect(status().isOk())
                 .andExpect(view().name("orders"))
-                .andExpect(model().attributeExists("orders"))
-                .andExpect(model().attributeExists("currentPage"))
-                .andExpect(model().attributeExists("totalPages"));
+                .andExpect(model().attributeExists("orders"));
 
-        verify(orderService).getOrdersByUser(1L, any(Pageable.class));
+        verify(orderService).getOrderSummariesByUser(eq(1L), any(Pageable.class));
     }
 
     @Test
     void testViewOrders_WithPagination() throws Exception {
         // Given
-        List<Order> orders = Arrays.asList(testOrder);
-        Page<Order> orderPage = new PageImpl<>(orders, PageRequest.of(1, 5), 1);
+        List<OrderSummary> orders = Arrays.asList(testSummary);
+        Page<OrderSummary> orderPage = new PageImpl<>(orders, PageRequest.of(1, 5), 6);
         when(authentication.getPrincipal()).thenReturn(testUser);
-        when(orderService.getOrdersByUser(1L, PageRequest.of(1, 5))).thenReturn(orderPage);
+        when(orderService.getOrderSummariesByUser(1L, PageRequest.of(1, 5))).thenReturn(orderPage);
 
         // When & Then
         mockMvc.perform(get("/orders")
@@ -85,14 +84,14 @@ class OrderControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(view().name("orders"));
 
-        verify(orderService).getOrdersByUser(1L, PageRequest.of(1, 5));
+        verify(orderService).getOrderSummariesByUser(1L, PageRequest.of(1, 5));
     }
 
     @Test
     void testViewOrderDetail_Success() throws Exception {
         // Given
         when(authentication.getPrincipal()).thenReturn(testUser);
-        when(orderService.getOrderById(1L)).thenReturn(testOrder);
+        when(orderService.getOrderDetailForUser(1L, 1L)).thenReturn(testOrder);
 
         // When & Then
         mockMvc.perform(get("/orders/1")
@@ -101,14 +100,14 @@ class OrderControllerTest {
                 .andExpect(view().name("order-detail"))
                 .andExpect(model().attribute("order", testOrder));
 
-        verify(orderService).getOrderById(1L);
+        verify(orderService).getOrderDetailForUser(1L, 1L);
     }
 
     @Test
     void testViewOrderDetail_OrderNotFound() throws Exception {
         // Given
         when(authentication.getPrincipal()).thenReturn(testUser);
-        when(orderService.getOrderById(1L)).thenReturn(null);
+        when(orderService.getOrderDetailForUser(1L, 1L)).thenThrow(new RuntimeException("Order not found"));
 
         // When & Then
         mockMvc.perform(get("/orders/1")
@@ -117,7 +116,7 @@ class OrderControllerTest {
                 .andExpect(redirectedUrl("/orders"))
                 .andExpect(flash().attributeExists("error"));
 
-        verify(orderService).getOrderById(1L);
+        verify(orderService).getOrderDetailForUser(1L, 1L);
     }
 
     @Test
@@ -126,7 +125,7 @@ class OrderControllerTest {
         User otherUser = new User();
         otherUser.setId(2L);
         when(authentication.getPrincipal()).thenReturn(otherUser);
-        when(orderService.getOrderById(1L)).thenReturn(testOrder);
+        when(orderService.getOrderDetailForUser(1L, 2L)).thenThrow(new RuntimeException("Order not found"));
 
         // When & Then
         mockMvc.perform(get("/orders/1")
@@ -135,7 +134,7 @@ class OrderControllerTest {
                 .andExpect(redirectedUrl("/orders"))
                 .andExpect(flash().attributeExists("error"));
 
-        verify(orderService).getOrderById(1L);
+        verify(orderService).getOrderDetailForUser(1L, 2L);
     }
 
     @Test
@@ -270,5 +269,9 @@ class OrderControllerTest {
         testOrder.setShippingAddress("Test Address");
         testOrder.setBillingAddress("Test Address");
         testOrder.setCreatedAt(LocalDateTime.now());
+
+        // Setup order history row
+        testSummary = new OrderSummary(1L, "ORD-123456", testOrder.getCreatedAt(), new BigDecimal("99.99"),
+                OrderStatus.CREATED, PaymentStatus.PENDING, 2L);
     }
 }
@@ -1,6 +1,7 @@
 package com.example.E_Commerce.controller;
 
 import com.example.E_Commerce.model.*;
+import com.example.E_Commerce.service.IdempotencyService;
 import com.example.E_Commerce.service.OrderService;
 import com.example.E_Commerce.service.PaymentService;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,6 +16,7 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.function.Supplier;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -31,6 +33,9 @@ class PaymentControllerTest {
     @Mock
     private OrderService orderService;
 
+    @Mock
+    private IdempotencyService idempotencyService;
+
     @Mock
     private Authentication authentication;
 
@@ -43,6 +48,9 @@ class PaymentControllerTest {
 
     @BeforeEach
     void setUp() {
+        // Run the guarded action directly; replay behaviour is covered by IdempotencyServiceTest
+        lenient().when(idempotencyService.execute(anyString(), anyString(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<Long>>getArgument(2).get());
         mockMvc = MockMvcBuilders.standaloneSetup(paymentController).build();
         setupTestData();
     }
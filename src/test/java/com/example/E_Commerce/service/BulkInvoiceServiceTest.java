@@ -0,0 +1,200 @@
+package com.example.E_Commerce.service;
+
+import com.example.E_Commerce.model.Order;
+import com.example.E_Commerce.model.OrderSearchCriteria;
+import com.example.E_Commerce.model.OrderStatus;
+import com.example.E_Commerce.repository.OrderRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BulkInvoiceServiceTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private InvoiceCacheService invoiceCacheService;
+
+    @Mock
+    private PDFService pdfService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private BulkInvoiceService bulkInvoiceService;
+
+    @TempDir
+    Path dir;
+
+    private final OrderSearchCriteria criteria = new OrderSearchCriteria();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(bulkInvoiceService, "workers", 2);
+        ReflectionTestUtils.setField(bulkInvoiceService, "chunkSize", 3);
+        bulkInvoiceService.init();
+        criteria.setStatus(OrderStatus.DELIVERED);
+    }
+
+    @AfterEach
+    void tearDown() {
+        bulkInvoiceService.shutdown();
+    }
+
+    @Test
+    void testWriteInvoicesZip_AddsEveryMatchingInvoice() throws Exception {
+        // Given
+        when(orderRepository.findIdsMatching(criteria, 0L, 3)).thenReturn(List.of(1L, 2L, 3L));
+        when(orderRepository.findIdsMatching(criteria, 3L, 3)).thenReturn(List.of(4L, 5L, 6L));
+        when(orderRepository.findIdsMatching(criteria, 6L, 3)).thenReturn(List.of(7L));
+        for (long id = 1; id <= 7; id++) {
+            stubInvoice(id);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        int written = bulkInvoiceService.writeInvoicesZip(criteria, out);
+
+        // Then
+        assertEquals(7, written);
+        Map<String, String> entries = unzip(out.toByteArray());
+        assertEquals(7, entries.size());
+        for (long id = 1; id <= 7; id++) {
+            assertEquals("pdf " + id, entries.get("invoice_ORD-" + id + ".pdf"));
+        }
+    }
+
+    @Test
+    void testWriteInvoicesZip_ListsFailuresInsteadOfAborting() throws Exception {
+        // Given
+        when(orderRepository.findIdsMatching(criteria, 0L, 3)).thenReturn(List.of(1L, 2L));
+        stubInvoice(1L);
+        Order broken = order(2L);
+        when(orderRepository.findDetailById(2L)).thenReturn(Optional.of(broken));
+        when(invoiceCacheService.openIfCached(broken)).thenReturn(Optional.empty());
+        doThrow(new IOException("Renderer crashed")).when(pdfService).writeOrderInvoicePDF(eq(broken), any());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        int written = bulkInvoiceService.writeInvoicesZip(criteria, out);
+
+        // Then
+        assertEquals(1, written);
+        Map<String, String> entries = unzip(out.toByteArray());
+        assertEquals("pdf 1", entries.get("invoice_ORD-1.pdf"));
+        assertEquals("order 2: Renderer crashed\n", entries.get("failed.txt"));
+    }
+
+    @Test
+    void testWriteInvoicesZip_RendersMissesWithoutCachingThem() throws Exception {
+        // Given
+        when(orderRepository.findIdsMatching(criteria, 0L, 3)).thenReturn(List.of(1L, 2L));
+        stubInvoice(1L);
+        Order uncached = order(2L);
+        when(orderRepository.findDetailById(2L)).thenReturn(Optional.of(uncached));
+        when(invoiceCacheService.openIfCached(uncached)).thenReturn(Optional.empty());
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(1).write("rendered 2".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(pdfService).writeOrderInvoicePDF(eq(uncached), any());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        int written = bulkInvoiceService.writeInvoicesZip(criteria, out);
+
+        // Then
+        assertEquals(2, written);
+        Map<String, String> entries = unzip(out.toByteArray());
+        assertEquals("pdf 1", entries.get("invoice_ORD-1.pdf"));
+        assertEquals("rendered 2", entries.get("invoice_ORD-2.pdf"));
+        verify(invoiceCacheService, never()).getInvoice(any(Order.class));
+        verify(pdfService, never()).writeOrderInvoicePDF(eq(order(1L)), any());
+    }
+
+    @Test
+    void testWriteInvoicesZip_RendersAfterTheOrderTransactionEnds() throws Exception {
+        // Given
+        when(orderRepository.findIdsMatching(criteria, 0L, 3)).thenReturn(List.of(2L));
+        Order uncached = order(2L);
+        when(orderRepository.findDetailById(2L)).thenReturn(Optional.of(uncached));
+        when(invoiceCacheService.openIfCached(uncached)).thenReturn(Optional.empty());
+
+        // When
+        bulkInvoiceService.writeInvoicesZip(criteria, new ByteArrayOutputStream());
+
+        // Then
+        InOrder inOrder = inOrder(orderRepository, transactionManager, pdfService);
+        inOrder.verify(orderRepository).findDetailById(2L);
+        inOrder.verify(transactionManager).commit(any());
+        inOrder.verify(pdfService).writeOrderInvoicePDF(eq(uncached), any());
+    }
+
+    @Test
+    void testInit_CapsWorkersBelowTheConnectionPool() {
+        // Given
+        bulkInvoiceService.shutdown();
+        ReflectionTestUtils.setField(bulkInvoiceService, "workers", 64);
+
+        // When
+        bulkInvoiceService.init();
+
+        // Then
+        assertEquals(BulkInvoiceService.MAX_WORKERS, ReflectionTestUtils.getField(bulkInvoiceService, "poolSize"));
+    }
+
+    private void stubInvoice(long id) throws IOException {
+        Order order = order(id);
+        Path file = Files.writeString(dir.resolve(id + ".pdf"), "pdf " + id);
+        when(orderRepository.findDetailById(id)).thenReturn(Optional.of(order));
+        when(invoiceCacheService.openIfCached(order)).thenReturn(Optional.of(FileChannel.open(file, StandardOpenOption.READ)));
+    }
+
+    private Order order(long id) {
+        Order order = new Order();
+        order.setId(id);
+        order.setOrderNumber("ORD-" + id);
+        return order;
+    }
+
+    private Map<String, String> unzip(byte[] archive) throws IOException {
+        Map<String, String> entries = new HashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                entries.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.E_Commerce.service;
+
+import com.example.E_Commerce.util.CircuitBreaker;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the client against a stub gateway on a local port.
+ */
+class CashfreeClientTest {
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicReference<StubResponse> stub = new AtomicReference<>();
+    private final AtomicReference<HttpExchange> lastExchange = new AtomicReference<>();
+    private final AtomicReference<String> lastBody = new AtomicReference<>();
+
+    private CashfreeClient cashfreeClient;
+
+    @FunctionalInterface
+    private interface StubResponse {
+        void respond(HttpExchange exchange) throws Exception;
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        serverThreads = Executors.newCachedThreadPool();
+        server.setExecutor(serverThreads);
+        server.createContext("/pg", exchange -> {
+            requests.incrementAndGet();
+            lastExchange.set(exchange);
+            lastBody.set(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            try {
+                stub.get().respond(exchange);
+            } catch (Exception e) {
+                exchange.sendResponseHeaders(500, -1);
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+
+        cashfreeClient = new CashfreeClient();
+        ReflectionTestUtils.setField(cashfreeClient, "appId", "app-1");
+        ReflectionTestUtils.setField(cashfreeClient, "secretKey", "secret-1");
+        ReflectionTestUtils.setField(cashfreeClient, "environment", "SANDBOX");
+        ReflectionTestUtils.setField(cashfreeClient, "apiVersion", "2023-08-01");
+        ReflectionTestUtils.setField(cashfreeClient, "baseUrl", "http://127.0.0.1:" + server.getAddress().getPort() + "/pg");
+        ReflectionTestUtils.setField(cashfreeClient, "maxConnections", 4);
+        ReflectionTestUtils.setField(cashfreeClient, "connectTimeoutMs", 1000);
+        ReflectionTestUtils.setField(cashfreeClient, "pendingAcquireTimeoutMs", 1000L);
+        ReflectionTestUtils.setField(cashfreeClient, "responseTimeoutMs", 5000L);
+        ReflectionTestUtils.setField(cashfreeClient, "maxIdleMs", 30000L);
+        ReflectionTestUtils.setField(cashfreeClient, "maxConcurrentCalls", 1);
+        ReflectionTestUtils.setField(cashfreeClient, "failureThreshold", 2);
+        ReflectionTestUtils.setField(cashfreeClient, "openMs", 60000L);
+        cashfreeClient.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cashfreeClient.shutdown();
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Test
+    void testPost_SendsCredentialsAndParsesResponse() {
+        // Given
+        stub.set(exchange -> json(exchange, 200, "{\"payment_session_id\":\"session_1\"}"));
+
+        // When
+        JsonNode response = cashfreeClient.post("/orders", Map.of("order_id", "ORD-1"));
+
+        // Then
+        assertEquals("session_1", response.get("payment_session_id").asText());
+        HttpExchange exchange = lastExchange.get();
+        assertEquals("POST", exchange.getRequestMethod());
+        assertEquals("/pg/orders", exchange.getRequestURI().getPath());
+        assertEquals("app-1", exchange.getRequestHeaders().getFirst("x-client-id"));
+        assertEquals("secret-1", exchange.getRequestHeaders().getFirst("x-client-secret"));
+        assertEquals("2023-08-01", exchange.getRequestHeaders().getFirst("x-api-version"));
+        assertEquals("{\"order_id\":\"ORD-1\"}", lastBody.get());
+    }
+
+    @Test
+    void testGet_EncodesPathVariables() {
+        // Given
+        stub.set(exchange -> json(exchange, 200, "{\"data\":{}}"));
+
+        // When
+        cashfreeClient.get("/payments/{paymentId}", "pay 1/2");
+
+        // Then
+        assertEquals("/pg/payments/pay%201%2F2", lastExchange.get().getRequestURI().getRawPath());
+    }
+
+    @Test
+    void testServerErrorsOpenCircuitAndFailFast() {
+        // Given
+        stub.set(exchange -> json(exchange, 503, "{\"message\":\"down\"}"));
+
+        // When
+        RuntimeException first = assertThrows(RuntimeException.class, () -> cashfreeClient.get("/payments/{id}", "1"));
+        assertThrows(RuntimeException.class, () -> cashfreeClient.get("/payments/{id}", "1"));
+        GatewayUnavailableException rejected = assertThrows(GatewayUnavailableException.class, () -> cashfreeClient.get("/payments/{id}", "1"));
+
+        // Then
+        assertTrue(first.getMessage().contains("503"));
+        assertEquals(CircuitBreaker.State.OPEN, cashfreeClient.getCircuitState());
+        assertTrue(rejected.getMessage().contains("unavailable"));
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void testClientErrorsDoNotOpenCircuit() {
+        // Given
+        stub.set(exchange -> json(exchange, 400, "{\"message\":\"bad order\"}"));
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            RuntimeException error = assertThrows(RuntimeException.class, () -> cashfreeClient.post("/orders", Map.of()));
+            assertTrue(error.getMessage().contains("bad order"));
+        }
+
+        // Then
+        assertEquals(CircuitBreaker.State.CLOSED, cashfreeClient.getCircuitState());
+        assertEquals(3, requests.get());
+    }
+
+    @Test
+    void testSlowResponseTimesOut() {
+        // Given
+        stub.set(exchange -> {
+            Thread.sleep(2000);
+            json(exchange, 200, "{}");
+        });
+        cashfreeClient.shutdown();
+        ReflectionTestUtils.setField(cashfreeClient, "responseTimeoutMs", 500L);
+        cashfreeClient.init();
+
+        // When
+        long started = System.nanoTime();
+        assertThrows(RuntimeException.class, () -> cashfreeClient.get("/payments/{id}", "1"));
+
+        // Then
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) < 1500);
+    }
+
+    @Test
+    void testBulkheadRejectsCallsBeyondLimit() throws Exception {
+        // Given
+        CountDownLatch inFlight = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        stub.set(exchange -> {
+            inFlight.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            json(exchange, 200, "{}");
+        });
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<JsonNode> first = caller.submit(() -> cashfreeClient.get("/payments/{id}", "1"));
+            assertTrue(inFlight.await(5, TimeUnit.SECONDS));
+
+            // When
+            GatewayUnavailableException rejected = assertThrows(GatewayUnavailableException.class, () -> cashfreeClient.get("/payments/{id}", "2"));
+
+            // Then
+            assertTrue(rejected.getMessage().contains("busy"));
+            release.countDown();
+            assertNotNull(first.get(5, TimeUnit.SECONDS));
+            assertEquals(1, requests.get());
+        } finally {
+            release.countDown();
+            caller.shutdownNow();
+        }
+    }
+
+    private static void json(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.E_Commerce.service;
+
+import com.example.E_Commerce.model.OrderStatus;
+import com.example.E_Commerce.model.PaymentStatus;
+import com.example.E_Commerce.repository.OrderRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerAnalyticsJobTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private CustomerAnalyticsService customerAnalyticsService;
+
+    @InjectMocks
+    private CustomerAnalyticsJob customerAnalyticsJob;
+
+    private final List<Object[]> paidOrders = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(customerAnalyticsJob, "workers", 2);
+        ReflectionTestUtils.setField(customerAnalyticsJob, "partitionSize", 10);
+        ReflectionTestUtils.setField(customerAnalyticsJob, "windowSize", 100);
+        ReflectionTestUtils.setField(customerAnalyticsJob, "settleHours", 24L);
+        customerAnalyticsJob.init();
+
+        paidOrders.add(order(3L, 1L, "100.00", LocalDateTime.of(2024, 1, 5, 10, 0)));
+        paidOrders.add(order(11L, 2L, "40.50", LocalDateTime.of(2024, 1, 20, 9, 0)));
+        paidOrders.add(order(17L, 1L, "60.00", LocalDateTime.of(2024, 1, 28, 18, 0)));
+        paidOrders.add(order(24L, 1L, "25.25", LocalDateTime.of(2024, 3, 2, 12, 0)));
+        when(orderRepository.findPaidOrderFactsInIdRange(anyLong(), anyLong(),
+                eq(PaymentStatus.COMPLETED), eq(OrderStatus.CANCELLED)))
+                .thenAnswer(invocation -> {
+                    long afterId = invocation.getArgument(0);
+                    long toId = invocation.getArgument(1);
+                    return paidOrders.stream()
+                            .filter(row -> (Long) row[0] > afterId && (Long) row[0] <= toId)
+                            .toList();
+                });
+    }
+
+    @AfterEach
+    void tearDown() {
+        customerAnalyticsJob.shutdown();
+    }
+
+    @Test
+    void testCatchUp_MergesPartitionsAndAdvancesWatermark() {
+        // Given
+        when(customerAnalyticsService.getWatermark()).thenReturn(0L);
+        when(orderRepository.findMaxIdCreatedBefore(any(LocalDateTime.class))).thenReturn(25L);
+
+        // When
+        long processed = customerAnalyticsJob.catchUp();
+
+        // Then
+        assertEquals(4, processed);
+        ArgumentCaptor<CustomerAccumulator> window = ArgumentCaptor.forClass(CustomerAccumulator.class);
+        verify(customerAnalyticsService).applyWindow(window.capture(), eq(25L));
+        // (0, 25] is read as four partitions of at most 10 ids
+        verify(orderRepository, times(4)).findPaidOrderFactsInIdRange(anyLong(), anyLong(), any(), any());
+
+        CustomerAccumulator result = window.getValue();
+        assertEquals(2, result.size());
+        assertEquals(3, result.orderCount(1L));
+        assertEquals(18525, result.amountMinor(1L));
+        assertArrayEquals(new int[]{2024 * 12, 2024 * 12 + 2}, result.activeMonths(1L));
+        assertEquals(4050, result.amountMinor(2L));
+    }
+
+    @Test
+    void testCatchUp_SplitsLargeRangesIntoWindows() {
+        // Given
+        ReflectionTestUtils.setField(customerAnalyticsJob, "windowSize", 15);
+        when(customerAnalyticsService.getWatermark()).thenReturn(0L);
+        when(orderRepository.findMaxIdCreatedBefore(any(LocalDateTime.class))).thenReturn(25L);
+
+        // When
+        customerAnalyticsJob.catchUp();
+
+        // Then
+        verify(customerAnalyticsService).applyWindow(any(CustomerAccumulator.class), eq(15L));
+        verify(customerAnalyticsService).applyWindow(any(CustomerAccumulator.class), eq(25L));
+    }
+
+    @Test
+    void testScheduledRun_RunsOffTheSchedulerThread() {
+        // Given
+        List<String> threads = new ArrayList<>();
+        when(customerAnalyticsService.getWatermark()).thenReturn(0L);
+        when(orderRepository.findMaxIdCreatedBefore(any(LocalDateTime.class))).thenAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            return 25L;
+        });
+
+        // When
+        customerAnalyticsJob.scheduledRun();
+
+        // Then
+        verify(customerAnalyticsService, timeout(5000)).applyWindow(any(CustomerAccumulator.class), eq(25L));
+        assertEquals(List.of("customer-analytics-coordinator"), threads);
+    }
+
+    private Object[] order(Long id, Long userId, String amount, LocalDateTime createdAt) {
+        return new Object[]{id, userId, new BigDecimal(amount), createdAt};
+    }
+}
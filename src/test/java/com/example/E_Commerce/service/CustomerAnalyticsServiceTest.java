@@ -0,0 +1,102 @@
+package com.example.E_Commerce.service;
+
+import com.example.E_Commerce.model.AnalyticsWatermark;
+import com.example.E_Commerce.model.CohortRetention;
+import com.example.E_Commerce.model.CohortRetentionRow;
+import com.example.E_Commerce.model.CustomerLifetimeValue;
+import com.example.E_Commerce.repository.AnalyticsWatermarkRepository;
+import com.example.E_Commerce.repository.CohortRetentionRepository;
+import com.example.E_Commerce.repository.CustomerLifetimeValueRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerAnalyticsServiceTest {
+
+    @Mock
+    private CustomerLifetimeValueRepository lifetimeValueRepository;
+
+    @Mock
+    private CohortRetentionRepository cohortRetentionRepository;
+
+    @Mock
+    private AnalyticsWatermarkRepository watermarkRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @InjectMocks
+    private CustomerAnalyticsService customerAnalyticsService;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testApplyWindow_CountsOnlyNewActiveMonthsForExistingCustomer() {
+        // Given: customer 1 joined in January and was last active in February
+        CustomerLifetimeValue existing = new CustomerLifetimeValue(1L, 2L, new BigDecimal("150.00"),
+                LocalDateTime.of(2024, 1, 5, 10, 0), LocalDateTime.of(2024, 2, 3, 10, 0),
+                LocalDate.of(2024, 1, 1), LocalDate.of(2024, 2, 1), null);
+        when(lifetimeValueRepository.findAllById(anyIterable())).thenReturn(List.of(existing));
+        when(cohortRetentionRepository.addToCell(any(LocalDate.class), anyInt(), anyLong(), any(LocalDateTime.class)))
+                .thenReturn(0);
+
+        CustomerAccumulator window = new CustomerAccumulator();
+        window.add(1L, 1000, epoch(LocalDateTime.of(2024, 2, 20, 10, 0)), 2024 * 12 + 1);
+        window.add(1L, 2550, epoch(LocalDateTime.of(2024, 4, 1, 10, 0)), 2024 * 12 + 3);
+
+        // When
+        customerAnalyticsService.applyWindow(window, 500L);
+
+        // Then
+        assertEquals(4L, existing.getOrderCount());
+        assertEquals(new BigDecimal("185.50"), existing.getLifetimeValue());
+        assertEquals(LocalDateTime.of(2024, 4, 1, 10, 0), existing.getLastOrderAt());
+        assertEquals(LocalDate.of(2024, 4, 1), existing.getLastActiveMonth());
+
+        // February was already counted; April is month 3 of the January cohort
+        ArgumentCaptor<CohortRetention> cell = ArgumentCaptor.forClass(CohortRetention.class);
+        verify(cohortRetentionRepository).save(cell.capture());
+        assertEquals(LocalDate.of(2024, 1, 1), cell.getValue().getCohortMonth());
+        assertEquals(3, cell.getValue().getMonthOffset());
+        assertEquals(1L, cell.getValue().getActiveCustomers());
+
+        ArgumentCaptor<AnalyticsWatermark> watermark = ArgumentCaptor.forClass(AnalyticsWatermark.class);
+        verify(watermarkRepository).save(watermark.capture());
+        assertEquals(500L, watermark.getValue().getLastOrderId());
+    }
+
+    @Test
+    void testGetCohortRetention_FillsOffsetsWithoutReturningCustomers() {
+        // Given
+        LocalDate cohort = LocalDate.now().withDayOfMonth(1).minusMonths(3);
+        when(cohortRetentionRepository.findByCohortMonthGreaterThanEqualOrderByCohortMonthAscMonthOffsetAsc(any(LocalDate.class)))
+                .thenReturn(List.of(new CohortRetention(1L, cohort, 0, 10L, null),
+                        new CohortRetention(2L, cohort, 2, 4L, null)));
+
+        // When
+        List<CohortRetentionRow> rows = customerAnalyticsService.getCohortRetention(12);
+
+        // Then
+        assertEquals(1, rows.size());
+        assertEquals(List.of(10L, 0L, 4L), rows.get(0).getActiveByOffset());
+        assertEquals(40.0, rows.get(0).getRetention(2));
+    }
+
+    private long epoch(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+}
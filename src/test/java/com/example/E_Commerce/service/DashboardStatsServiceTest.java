@@ -0,0 +1,92 @@
+package com.example.E_Commerce.service;
+
+import com.example.E_Commerce.model.DashboardStats;
+import com.example.E_Commerce.model.OrderStatus;
+import com.example.E_Commerce.repository.ProductRepository;
+import com.example.E_Commerce.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DashboardStatsServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private OrderService orderService;
+
+    @Mock
+    private OrderMetricsAggregator orderMetrics;
+
+    @InjectMocks
+    private DashboardStatsService dashboardStatsService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(dashboardStatsService, "refreshSeconds", 30L);
+        ReflectionTestUtils.setField(dashboardStatsService, "recentOrderCount", 10);
+        dashboardStatsService.init();
+    }
+
+    @Test
+    void testGetStats_ComputesOnceAndCaches() {
+        // Given
+        Map<OrderStatus, Long> byStatus = new EnumMap<>(OrderStatus.class);
+        byStatus.put(OrderStatus.CREATED, 3L);
+        byStatus.put(OrderStatus.DELIVERED, 2L);
+        when(orderMetrics.getCountsByStatus()).thenReturn(byStatus);
+        when(orderMetrics.getTotalOrders()).thenReturn(5L);
+        when(orderMetrics.getCompletedRevenue()).thenReturn(new BigDecimal("250.00"));
+        when(orderService.getRecentOrderRows(10)).thenReturn(Collections.emptyList());
+        when(productRepository.count()).thenReturn(7L);
+        when(userRepository.count()).thenReturn(4L);
+
+        // When
+        DashboardStats first = dashboardStatsService.getStats();
+        DashboardStats second = dashboardStatsService.getStats();
+
+        // Then
+        assertSame(first, second);
+        assertEquals(5L, first.getTotalOrders());
+        assertEquals(7L, first.getTotalProducts());
+        assertEquals(4L, first.getTotalUsers());
+        assertEquals(new BigDecimal("250.00"), first.getTotalRevenue());
+        assertEquals(2L, first.getOrderCount(OrderStatus.DELIVERED));
+        assertEquals(0L, first.getOrderCount(OrderStatus.CANCELLED));
+        verify(productRepository, times(1)).count();
+        verify(orderService, times(1)).getRecentOrderRows(10);
+    }
+
+    @Test
+    void testInvalidate_RecomputesOnNextRead() {
+        // Given
+        when(orderMetrics.getCountsByStatus()).thenReturn(new EnumMap<>(OrderStatus.class));
+        when(orderMetrics.getCompletedRevenue()).thenReturn(BigDecimal.ZERO);
+        when(orderService.getRecentOrderRows(10)).thenReturn(Collections.emptyList());
+        dashboardStatsService.getStats();
+
+        // When
+        dashboardStatsService.invalidate();
+        dashboardStatsService.getStats();
+
+        // Then
+        verify(productRepository, times(2)).count();
+    }
+}
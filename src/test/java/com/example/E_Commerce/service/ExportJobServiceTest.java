@@ -0,0 +1,185 @@
+package com.example.E_Commerce.service;
+
+import com.example.E_Commerce.model.ExportDataset;
+import com.example.E_Commerce.model.ExportFilter;
+import com.example.E_Commerce.model.ExportFormat;
+import com.example.E_Commerce.model.ExportJob;
+import com.example.E_Commerce.model.ExportJobStatus;
+import com.example.E_Commerce.model.OrderStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExportJobServiceTest {
+
+    @Mock
+    private ExportService exportService;
+
+    @Mock
+    private FlatExportService flatExportService;
+
+    @Mock
+    private PDFService pdfService;
+
+    @InjectMocks
+    private ExportJobService exportJobService;
+
+    @TempDir
+    Path spoolDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ReflectionTestUtils.setField(exportJobService, "workers", 1);
+        ReflectionTestUtils.setField(exportJobService, "queueCapacity", 1);
+        ReflectionTestUtils.setField(exportJobService, "spoolDir", spoolDir.toString());
+        ReflectionTestUtils.setField(exportJobService, "retentionMinutes", 60L);
+        exportJobService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        exportJobService.shutdown();
+    }
+
+    @Test
+    void testSubmit_WritesFileToSpoolAndServesIt() throws Exception {
+        // Given
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(4);
+            out.write("id,order_number\n1,ORD-1\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        }).when(flatExportService).write(eq(ExportDataset.ORDERS), any(), eq(ExportFormat.CSV), eq(false), any());
+
+        // When
+        ExportJob job = exportJobService.submit("orders", "csv", false, new ExportFilter(), "admin");
+        awaitFinished(job);
+        Path file = exportJobService.getFile(job.getId());
+
+        // Then
+        assertEquals(ExportJobStatus.COMPLETED, job.getStatus());
+        assertEquals(24, job.getBytesWritten());
+        assertEquals("id,order_number\n1,ORD-1\n", Files.readString(file));
+        assertEquals("text/csv", job.getContentType());
+        assertTrue(job.getFilename().startsWith("orders_") && job.getFilename().endsWith(".csv"));
+    }
+
+    @Test
+    void testSubmit_FailedJobLeavesNoFileBehind() throws Exception {
+        // Given
+        doThrow(new IOException("Disk full")).when(exportService).writeProductsExcel(any(), any());
+
+        // When
+        ExportJob job = exportJobService.submit("products", "xlsx", false, new ExportFilter(), "admin");
+        awaitFinished(job);
+
+        // Then
+        assertEquals(ExportJobStatus.FAILED, job.getStatus());
+        assertEquals("Disk full", job.getError());
+        assertThrows(RuntimeException.class, () -> exportJobService.getFile(job.getId()));
+        try (var files = Files.list(spoolDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void testSubmit_RejectsWhenQueueIsFull() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return 0L;
+        }).when(flatExportService).write(any(), any(), any(), anyBoolean(), any());
+        ExportJob running = exportJobService.submit("users", "ndjson", true, new ExportFilter(), "admin");
+        exportJobService.submit("users", "ndjson", true, new ExportFilter(), "admin");
+
+        // When / Then
+        try {
+            assertThrows(RuntimeException.class, () -> exportJobService.submit("users", "ndjson", true, new ExportFilter(), "admin"));
+            assertEquals(2, exportJobService.getJobs().size());
+        } finally {
+            release.countDown();
+        }
+        awaitFinished(running);
+    }
+
+    @Test
+    void testSubmit_RejectsExcelForOrderLines() {
+        // When / Then
+        assertThrows(IllegalArgumentException.class, () -> exportJobService.submit("order-lines", "xlsx", false, new ExportFilter(), "admin"));
+        assertTrue(exportJobService.getJobs().isEmpty());
+    }
+
+    @Test
+    void testSubmit_RejectsFilterTheDatasetDoesNotSupport() {
+        // Given
+        ExportFilter filter = new ExportFilter();
+        filter.setStatus(OrderStatus.SHIPPED);
+
+        // When / Then
+        assertThrows(IllegalArgumentException.class, () -> exportJobService.submit("products", "csv", false, filter, "admin"));
+        assertTrue(exportJobService.getJobs().isEmpty());
+    }
+
+    @Test
+    void testSubmit_PassesFilterToReport() throws Exception {
+        // Given
+        ExportFilter filter = new ExportFilter();
+        filter.setFromDate(LocalDate.of(2024, 3, 1));
+        filter.setToDate(LocalDate.of(2024, 3, 31));
+
+        // When
+        ExportJob job = exportJobService.submit("orders", "pdf", false, filter, "admin");
+        awaitFinished(job);
+
+        // Then
+        assertEquals(ExportJobStatus.COMPLETED, job.getStatus());
+        assertEquals("orders (pdf, filtered)", job.getDescription());
+        verify(pdfService).writeOrdersReportPDF(eq(filter), any());
+    }
+
+    @Test
+    void testCleanUp_RemovesExpiredJobsAndFiles() throws Exception {
+        // Given
+        ExportJob job = exportJobService.submit("orders", "csv", false, new ExportFilter(), "admin");
+        awaitFinished(job);
+        Path file = exportJobService.getFile(job.getId());
+        assertTrue(Files.exists(file));
+        job.setFinishedAt(LocalDateTime.now().minusHours(2));
+
+        // When
+        exportJobService.cleanUp();
+
+        // Then
+        assertFalse(Files.exists(file));
+        assertThrows(RuntimeException.class, () -> exportJobService.getJob(job.getId()));
+    }
+
+    private void awaitFinished(ExportJob job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!job.isFinished()) {
+            assertTrue(System.currentTimeMillis() < deadline, "export job did not finish");
+            Thread.sleep(10);
+        }
+    }
+}
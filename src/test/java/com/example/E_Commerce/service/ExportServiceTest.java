@@ -0,0 +1,126 @@
+package com.example.E_Commerce.service;
+
+import com.example.E_Commerce.model.AdminOrderRow;
+import com.example.E_Commerce.model.ExportFilter;
+import com.example.E_Commerce.model.Order;
+import com.example.E_Commerce.model.OrderItem;
+import com.example.E_Commerce.model.OrderStatus;
+import com.example.E_Commerce.model.PaymentStatus;
+import com.example.E_Commerce.model.Product;
+import com.example.E_Commerce.model.User;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExportServiceTest {
+
+    @Mock
+    private OrderService orderService;
+
+    @Mock
+    private ProductService productService;
+
+    @Mock
+    private UserService userService;
+
+    @InjectMocks
+    private ExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(exportService, "rowWindow", 2);
+        ReflectionTestUtils.setField(exportService, "widthSampleRows", 1);
+        ReflectionTestUtils.setField(exportService, "chunkSize", 2);
+    }
+
+    @Test
+    void testGenerateOrderInvoiceHTML_FormatsAmountsAndEscapesText() {
+        // Given
+        Order order = invoiceOrder();
+
+        // When
+        String html = exportService.generateOrderInvoiceHTML(order);
+
+        // Then
+        assertTrue(html.startsWith("<!DOCTYPE html>"));
+        assertTrue(html.contains("<title>Invoice - ORD-1</title>"));
+        assertTrue(html.contains("<td>Mugs &amp; cups &lt;set&gt;</td>"));
+        assertTrue(html.contains("<td>₹617.25</td><td>₹1234.50</td>"));
+        assertTrue(html.contains("Total Amount: ₹1234.50"));
+        assertTrue(html.contains("<td></td>"), "missing description renders empty");
+        assertTrue(html.endsWith("</body></html>"));
+    }
+
+    @Test
+    void testWriteOrdersExcel_ReadsChunksUntilShortChunk() throws Exception {
+        // Given
+        ExportFilter filter = new ExportFilter();
+        when(orderService.getAdminOrderRowsAfter(filter, 0L, 2)).thenReturn(List.of(row(1L), row(2L)));
+        when(orderService.getAdminOrderRowsAfter(filter, 2L, 2)).thenReturn(List.of(row(5L)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        exportService.writeOrdersExcel(filter, out);
+
+        // Then
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Sheet sheet = workbook.getSheet("Orders Report");
+            assertEquals(3, sheet.getLastRowNum());
+            assertEquals("Order Number", sheet.getRow(0).getCell(0).getStringCellValue());
+            assertEquals("ORD-5", sheet.getRow(3).getCell(0).getStringCellValue());
+            assertEquals(3, sheet.getRow(3).getCell(7).getNumericCellValue());
+            // Sized from the header and the first row only
+            assertEquals(("customer1@example.com".length() + 2) * 256, sheet.getColumnWidth(2));
+        }
+        verify(orderService, times(2)).getAdminOrderRowsAfter(eq(filter), anyLong(), anyInt());
+    }
+
+    private AdminOrderRow row(Long id) {
+        return new AdminOrderRow(id, "ORD-" + id, "Customer " + id, "customer" + id + "@example.com", 3L,
+                new BigDecimal("49.99"), OrderStatus.CREATED, PaymentStatus.PENDING, LocalDateTime.of(2024, 1, 5, 10, 0));
+    }
+
+    private Order invoiceOrder() {
+        User customer = new User();
+        customer.setFirstName("Asha");
+        customer.setLastName("Rao");
+        customer.setEmail("asha@example.com");
+
+        Product product = new Product();
+        product.setName("Mugs & cups <set>");
+
+        Order order = new Order();
+        order.setOrderNumber("ORD-1");
+        order.setUser(customer);
+        order.setBillingAddress("1 MG Road");
+        order.setCreatedAt(LocalDateTime.of(2024, 5, 1, 10, 30));
+        order.setStatus(OrderStatus.CONFIRMED);
+        order.setPaymentStatus(PaymentStatus.COMPLETED);
+        order.setTotalAmount(new BigDecimal("1234.5"));
+
+        OrderItem item = new OrderItem();
+        item.setProduct(product);
+        item.setQuantity(2);
+        item.setUnitPrice(new BigDecimal("617.25"));
+        item.setSubtotal(new BigDecimal("1234.5"));
+        order.addOrderItem(item);
+        return order;
+    }
+}
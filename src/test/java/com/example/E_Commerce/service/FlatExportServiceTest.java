@@ -0,0 +1,88 @@
+package com.example.E_Commerce.service;
+
+import com.example.E_Commerce.model.ExportDataset;
+import com.example.E_Commerce.model.ExportFilter;
+import com.example.E_Commerce.model.ExportFormat;
+import com.example.E_Commerce.model.ProductCategory;
+import com.example.E_Commerce.model.Role;
+import com.example.E_Commerce.repository.ExportRowRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FlatExportServiceTest {
+
+    @Mock
+    private ExportRowRepository exportRowRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private FlatExportService flatExportService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(flatExportService, "fetchSize", 500);
+        ReflectionTestUtils.setField(flatExportService, "chunkSize", 2);
+        flatExportService.init();
+    }
+
+    @Test
+    void testWrite_CsvQuotesOnlyWhereNeeded() throws Exception {
+        // Given
+        LocalDateTime created = LocalDateTime.of(2024, 1, 5, 10, 30);
+        ExportFilter filter = new ExportFilter();
+        filter.setCategory(ProductCategory.ELECTRONICS);
+        when(exportRowRepository.streamRows(ExportDataset.PRODUCTS, filter, 500)).thenReturn(Stream.of(
+                new Object[]{1L, "Desk, oak", ProductCategory.HOME_AND_GARDEN, new BigDecimal("149.90"), 3, true, created},
+                new Object[]{2L, "12\" monitor", ProductCategory.ELECTRONICS, new BigDecimal("89.00"), 0, false, null}));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        long rows = flatExportService.write(ExportDataset.PRODUCTS, filter, ExportFormat.CSV, false, out);
+
+        // Then
+        assertEquals(2, rows);
+        assertEquals("id,name,category,price,stock_quantity,active,created_at\n" +
+                "1,\"Desk, oak\",HOME_AND_GARDEN,149.90,3,true,2024-01-05T10:30\n" +
+                "2,\"12\"\" monitor\",ELECTRONICS,89.00,0,false,\n", out.toString(StandardCharsets.UTF_8));
+        verify(exportRowRepository).clear();
+    }
+
+    @Test
+    void testWrite_GzippedNdjsonEscapesStrings() throws Exception {
+        // Given
+        when(exportRowRepository.streamRows(eq(ExportDataset.USERS), any(ExportFilter.class), eq(500))).thenReturn(Stream.<Object[]>of(
+                new Object[]{7L, "jo", "jo@example.com", "Jo \"JJ\"", null, Role.CUSTOMER, true,
+                        LocalDateTime.of(2024, 2, 1, 9, 0)}));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        flatExportService.write(ExportDataset.USERS, new ExportFilter(), ExportFormat.NDJSON, true, out);
+
+        // Then
+        String json = new String(new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())).readAllBytes(),
+                StandardCharsets.UTF_8);
+        assertEquals("{\"id\":7,\"username\":\"jo\",\"email\":\"jo@example.com\",\"first_name\":\"Jo \\\"JJ\\\"\"," +
+                "\"last_name\":null,\"role\":\"CUSTOMER\",\"enabled\":true,\"created_at\":\"2024-02-01T09:00\"}\n", json);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.E_Commerce.service;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HtmlPdfRendererTest {
+
+    private HtmlPdfRenderer htmlPdfRenderer;
+
+    @BeforeEach
+    void setUp() {
+        htmlPdfRenderer = new HtmlPdfRenderer();
+        htmlPdfRenderer.init();
+    }
+
+    @Test
+    void testRender_LeavesCallerStreamOpen() throws Exception {
+        // Given
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                fail("renderer closed the caller's stream");
+            }
+        };
+
+        // When
+        htmlPdfRenderer.render("<html><body><h1>Invoice</h1><p>Total Amount: 10.00</p></body></html>", out);
+
+        // Then
+        assertTrue(extractText(out.toByteArray()).contains("Total Amount: 10.00"));
+    }
+
+    @Test
+    void testRender_ConcurrentConversionsShareFonts() throws Exception {
+        // Given
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<Future<byte[]>> results = new ArrayList<>();
+
+        // When
+        try {
+            for (int i = 0; i < 16; i++) {
+                String html = "<html><body style='font-family: Arial'><p>Invoice #ORD-" + i + "</p></body></html>";
+                results.add(pool.submit(() -> {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    htmlPdfRenderer.render(html, out);
+                    return out.toByteArray();
+                }));
+            }
+
+            // Then
+            for (int i = 0; i < results.size(); i++) {
+                assertTrue(extractText(results.get(i).get()).contains("Invoice #ORD-" + i));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private String extractText(byte[] pdf) throws Exception {
+        try (PdfDocument document = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdf)))) {
+            return PdfTextExtractor.getTextFromPage(document.getPage(1));
+        }
+    }
+}
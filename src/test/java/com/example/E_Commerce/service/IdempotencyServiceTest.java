@@ -0,0 +1,145 @@
+package com.example.E_Commerce.service;
+
+import com.example.E_Commerce.model.IdempotencyRecord;
+import com.example.E_Commerce.model.IdempotencyStatus;
+import com.example.E_Commerce.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(idempotencyService, "ttlHours", 24L);
+        ReflectionTestUtils.setField(idempotencyService, "inProgressTimeoutSeconds", 120L);
+        ReflectionTestUtils.setField(idempotencyService, "inFlightWaitMs", 200L);
+        ReflectionTestUtils.setField(idempotencyService, "inFlightPollMs", 10L);
+        ReflectionTestUtils.setField(idempotencyService, "cacheMaxSize", 100L);
+        idempotencyService.init();
+    }
+
+    @Test
+    void testExecute_RunsActionOnceAndReplaysResult() {
+        // Given
+        when(idempotencyRecordRepository.findByScopeAndIdempotencyKey("checkout", "1:abc")).thenReturn(Optional.empty());
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        Long first = idempotencyService.execute("checkout", "1:abc", () -> {
+            calls.incrementAndGet();
+            return 42L;
+        });
+        Long second = idempotencyService.execute("checkout", "1:abc", () -> {
+            calls.incrementAndGet();
+            return 43L;
+        });
+
+        // Then
+        assertEquals(42L, first);
+        assertEquals(42L, second);
+        assertEquals(1, calls.get());
+        verify(idempotencyRecordRepository).saveAndFlush(any(IdempotencyRecord.class));
+    }
+
+    @Test
+    void testExecute_ReplaysCompletedRecordFromDatabase() {
+        // Given
+        IdempotencyRecord record = record(IdempotencyStatus.COMPLETED, 7L, LocalDateTime.now().plusHours(1));
+        when(idempotencyRecordRepository.findByScopeAndIdempotencyKey("checkout", "1:abc")).thenReturn(Optional.of(record));
+
+        // When
+        Long result = idempotencyService.execute("checkout", "1:abc", () -> fail("action must not run"));
+
+        // Then
+        assertEquals(7L, result);
+        verify(idempotencyRecordRepository, never()).saveAndFlush(any(IdempotencyRecord.class));
+    }
+
+    @Test
+    void testExecute_DuplicateWaitsForInFlightResult() {
+        // Given
+        IdempotencyRecord inProgress = record(IdempotencyStatus.IN_PROGRESS, null, LocalDateTime.now().plusSeconds(60));
+        IdempotencyRecord completed = record(IdempotencyStatus.COMPLETED, 9L, LocalDateTime.now().plusHours(1));
+        when(idempotencyRecordRepository.findByScopeAndIdempotencyKey("checkout", "1:abc"))
+                .thenReturn(Optional.of(inProgress), Optional.of(inProgress), Optional.of(completed));
+
+        // When
+        Long result = idempotencyService.execute("checkout", "1:abc", () -> fail("action must not run"));
+
+        // Then
+        assertEquals(9L, result);
+        verify(idempotencyRecordRepository, never()).saveAndFlush(any(IdempotencyRecord.class));
+    }
+
+    @Test
+    void testExecute_RejectsRequestStillInProgressAfterWaiting() {
+        // Given
+        IdempotencyRecord record = record(IdempotencyStatus.IN_PROGRESS, null, LocalDateTime.now().plusSeconds(60));
+        when(idempotencyRecordRepository.findByScopeAndIdempotencyKey("checkout", "1:abc")).thenReturn(Optional.of(record));
+
+        // When & Then
+        RequestInProgressException exception = assertThrows(RequestInProgressException.class,
+                () -> idempotencyService.execute("checkout", "1:abc", () -> 1L));
+        assertEquals("This request is already being processed", exception.getMessage());
+    }
+
+    @Test
+    void testExecute_ReleasesKeyWhenActionFails() {
+        // Given
+        when(idempotencyRecordRepository.findByScopeAndIdempotencyKey("checkout", "1:abc")).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThrows(RuntimeException.class, () -> idempotencyService.execute("checkout", "1:abc", () -> {
+            throw new RuntimeException("Cart is empty");
+        }));
+        verify(idempotencyRecordRepository).deleteByScopeAndKey("checkout", "1:abc");
+    }
+
+    @Test
+    void testExecute_ReleasesKeyWhenActionReturnsNull() {
+        // Given
+        when(idempotencyRecordRepository.findByScopeAndIdempotencyKey("payment-verification", "1:pay"))
+                .thenReturn(Optional.empty());
+
+        // When
+        Long result = idempotencyService.execute("payment-verification", "1:pay", () -> null);
+
+        // Then
+        assertNull(result);
+        verify(idempotencyRecordRepository).deleteByScopeAndKey("payment-verification", "1:pay");
+    }
+
+    private IdempotencyRecord record(IdempotencyStatus status, Long resultId, LocalDateTime expiresAt) {
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setScope("checkout");
+        record.setIdempotencyKey("1:abc");
+        record.setStatus(status);
+        record.setResultId(resultId);
+        record.setExpiresAt(expiresAt);
+        return record;
+    }
+}
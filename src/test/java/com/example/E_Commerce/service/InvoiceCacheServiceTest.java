@@ -0,0 +1,221 @@
+package com.example.E_Commerce.service;
+
+import com.example.E_Commerce.model.Order;
+import com.example.E_Commerce.repository.OrderRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InvoiceCacheServiceTest {
+
+    @Mock
+    private PDFService pdfService;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private InvoiceCacheService invoiceCacheService;
+
+    @TempDir
+    Path cacheDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ReflectionTestUtils.setField(invoiceCacheService, "cacheDir", cacheDir.toString());
+        ReflectionTestUtils.setField(invoiceCacheService, "maxBytes", 250L);
+        ReflectionTestUtils.setField(invoiceCacheService, "prewarmQueueCapacity", 10);
+        invoiceCacheService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        invoiceCacheService.shutdown();
+    }
+
+    @Test
+    void testGetInvoice_RendersOncePerOrderVersion() throws IOException {
+        // Given
+        renderBytes(100);
+        Order order = order(1L, LocalDateTime.of(2024, 5, 1, 10, 0));
+
+        // When
+        Path first = invoiceCacheService.getInvoice(order);
+        Path second = invoiceCacheService.getInvoice(order);
+        order.setUpdatedAt(LocalDateTime.of(2024, 5, 2, 9, 0));
+        Path updated = invoiceCacheService.getInvoice(order);
+
+        // Then
+        assertEquals(first, second);
+        assertNotEquals(first, updated);
+        assertFalse(Files.exists(first));
+        assertEquals(100, Files.size(updated));
+        assertEquals(100, invoiceCacheService.getTotalBytes());
+        verify(pdfService, times(2)).writeOrderInvoicePDF(eq(order), any());
+    }
+
+    @Test
+    void testGetInvoice_EvictsLeastRecentlyUsedBeyondSizeLimit() throws IOException {
+        // Given
+        renderBytes(100);
+        Order first = order(1L, LocalDateTime.of(2024, 5, 1, 10, 0));
+        Order second = order(2L, LocalDateTime.of(2024, 5, 1, 11, 0));
+        Order third = order(3L, LocalDateTime.of(2024, 5, 1, 12, 0));
+        Path firstInvoice = invoiceCacheService.getInvoice(first);
+        Path secondInvoice = invoiceCacheService.getInvoice(second);
+
+        // When
+        invoiceCacheService.getInvoice(first);
+        invoiceCacheService.getInvoice(third);
+
+        // Then
+        assertTrue(Files.exists(firstInvoice));
+        assertFalse(Files.exists(secondInvoice));
+        assertEquals(200, invoiceCacheService.getTotalBytes());
+    }
+
+    @Test
+    void testInit_RebuildsIndexFromDiskAndDropsPartialFiles() throws IOException {
+        // Given
+        Order order = order(7L, LocalDateTime.of(2024, 5, 1, 10, 0));
+        Path layoutDir = cacheDir.resolve("layout-" + PDFService.INVOICE_LAYOUT_VERSION);
+        Path cached = Files.write(layoutDir.resolve("7-" + 1714557600000L + ".pdf"), new byte[40]);
+        Path partial = Files.write(layoutDir.resolve("invoice-123.part"), new byte[10]);
+
+        // When
+        invoiceCacheService.init();
+        Path invoice = invoiceCacheService.getInvoice(order);
+
+        // Then
+        assertEquals(cached, invoice);
+        assertFalse(Files.exists(partial));
+        assertEquals(40, invoiceCacheService.getTotalBytes());
+        verifyNoInteractions(pdfService);
+    }
+
+    @Test
+    void testInit_DropsInvoicesOfEarlierLayouts() throws IOException {
+        // Given
+        renderBytes(30);
+        Order order = order(7L, LocalDateTime.of(2024, 5, 1, 10, 0));
+        Path oldLayout = Files.createDirectories(cacheDir.resolve("layout-0"));
+        Path stale = Files.write(oldLayout.resolve("7-" + 1714557600000L + ".pdf"), new byte[40]);
+        Path unversioned = Files.write(cacheDir.resolve("7-" + 1714557600000L + ".pdf"), new byte[40]);
+        Path unrelatedFile = Files.write(cacheDir.resolve("report.pdf"), new byte[5]);
+        Path unrelatedDir = Files.createDirectories(cacheDir.resolve("layouts-backup"));
+
+        // When
+        invoiceCacheService.init();
+        Path invoice = invoiceCacheService.getInvoice(order);
+
+        // Then
+        assertFalse(Files.exists(stale));
+        assertFalse(Files.exists(oldLayout));
+        assertFalse(Files.exists(unversioned));
+        assertTrue(Files.exists(unrelatedFile));
+        assertTrue(Files.exists(unrelatedDir));
+        assertEquals(30, Files.size(invoice));
+        verify(pdfService).writeOrderInvoicePDF(eq(order), any());
+    }
+
+    @Test
+    void testOpenInvoice_StaysReadableAfterEviction() throws IOException {
+        // Given
+        renderBytes(100);
+        Order first = order(1L, LocalDateTime.of(2024, 5, 1, 10, 0));
+        Path firstInvoice = invoiceCacheService.getInvoice(first);
+
+        try (FileChannel channel = invoiceCacheService.openInvoice(first)) {
+            // When
+            invoiceCacheService.getInvoice(order(2L, LocalDateTime.of(2024, 5, 1, 11, 0)));
+            invoiceCacheService.getInvoice(order(3L, LocalDateTime.of(2024, 5, 1, 12, 0)));
+
+            // Then
+            assertFalse(Files.exists(firstInvoice));
+            assertEquals(100, channel.size());
+            assertEquals(100, channel.read(ByteBuffer.allocate(200)));
+        }
+    }
+
+    @Test
+    void testOpenIfCached_NeverRenders() throws IOException {
+        // Given
+        renderBytes(60);
+        Order cached = order(1L, LocalDateTime.of(2024, 5, 1, 10, 0));
+        invoiceCacheService.getInvoice(cached);
+        Order changed = order(1L, LocalDateTime.of(2024, 5, 2, 10, 0));
+
+        // When
+        Optional<FileChannel> hit = invoiceCacheService.openIfCached(cached);
+        Optional<FileChannel> stale = invoiceCacheService.openIfCached(changed);
+        Optional<FileChannel> miss = invoiceCacheService.openIfCached(order(2L, LocalDateTime.of(2024, 5, 1, 10, 0)));
+
+        // Then
+        assertTrue(hit.isPresent());
+        assertEquals(60, hit.get().size());
+        hit.get().close();
+        assertTrue(stale.isEmpty());
+        assertTrue(miss.isEmpty());
+        verify(pdfService, times(1)).writeOrderInvoicePDF(any(Order.class), any());
+    }
+
+    @Test
+    void testPrewarm_RendersInvoiceInBackground() throws Exception {
+        // Given
+        renderBytes(50);
+        Order order = order(9L, LocalDateTime.of(2024, 5, 1, 10, 0));
+        when(orderRepository.findDetailById(9L)).thenReturn(Optional.of(order));
+
+        // When
+        invoiceCacheService.prewarm(9L);
+
+        // Then
+        long deadline = System.currentTimeMillis() + 5000;
+        while (invoiceCacheService.getTotalBytes() == 0) {
+            assertTrue(System.currentTimeMillis() < deadline, "invoice was not pre-generated");
+            Thread.sleep(10);
+        }
+        assertNotNull(invoiceCacheService.getInvoice(order));
+        verify(pdfService, times(1)).writeOrderInvoicePDF(eq(order), any());
+    }
+
+    private void renderBytes(int size) throws IOException {
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            out.write(new byte[size]);
+            return null;
+        }).when(pdfService).writeOrderInvoicePDF(any(Order.class), any(OutputStream.class));
+    }
+
+    private Order order(Long id, LocalDateTime updatedAt) {
+        Order order = new Order();
+        order.setId(id);
+        order.setCreatedAt(updatedAt);
+        order.setUpdatedAt(updatedAt);
+        return order;
+    }
+}
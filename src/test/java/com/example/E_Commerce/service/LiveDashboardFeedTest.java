@@ -0,0 +1,135 @@
+package com.example.E_Commerce.service;
+
+import com.example.E_Commerce.model.DashboardFrame;
+import com.example.E_Commerce.model.LowStockAlert;
+import com.example.E_Commerce.model.OrderStatus;
+import com.example.E_Commerce.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.Disposable;
+import reactor.core.publisher.Sinks;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LiveDashboardFeedTest {
+
+    @Mock
+    private OrderMetricsAggregator orderMetrics;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @InjectMocks
+    private LiveDashboardFeed liveDashboardFeed;
+
+    private Disposable subscriber;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(liveDashboardFeed, "lowStockThreshold", 5);
+        ReflectionTestUtils.setField(liveDashboardFeed, "heartbeatMs", 15000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (subscriber != null) {
+            subscriber.dispose();
+        }
+    }
+
+    @Test
+    void testNextFrame_CoalescesChangesSincePreviousFrame() {
+        // Given
+        subscribe();
+        when(orderMetrics.getTotalOrders()).thenReturn(10L, 13L, 13L);
+        when(orderMetrics.getCompletedRevenue()).thenReturn(new BigDecimal("100.00"),
+                new BigDecimal("250.50"), new BigDecimal("250.50"));
+        when(orderMetrics.getCountsByStatus()).thenReturn(counts(4, 6), counts(5, 8), counts(5, 8));
+
+        // When
+        DashboardFrame first = liveDashboardFeed.nextFrame();
+        DashboardFrame second = liveDashboardFeed.nextFrame();
+        DashboardFrame unchanged = liveDashboardFeed.nextFrame();
+
+        // Then
+        assertNotNull(first);
+        assertEquals(0, first.getNewOrders());
+        assertTrue(first.getStatusChanges().isEmpty());
+
+        assertNotNull(second);
+        assertEquals(13, second.getTotalOrders());
+        assertEquals(3, second.getNewOrders());
+        assertEquals(new BigDecimal("150.50"), second.getRevenueDelta());
+        assertEquals(Map.of(OrderStatus.PROCESSING, 1L, OrderStatus.DELIVERED, 2L), second.getStatusChanges());
+
+        // Nothing moved and the heartbeat is not due yet
+        assertNull(unchanged);
+    }
+
+    @Test
+    void testNextFrame_ChecksStockOnlyForProductsTouchedSinceLastFrame() {
+        // Given
+        subscribe();
+        stubTotals();
+        LowStockAlert alert = new LowStockAlert(7L, "Widget", 2);
+        when(productRepository.findLowStockIn(List.of(7L), 5)).thenReturn(List.of(alert));
+        liveDashboardFeed.stockChanged(7L);
+
+        // When
+        DashboardFrame withAlert = liveDashboardFeed.nextFrame();
+        DashboardFrame next = liveDashboardFeed.nextFrame();
+
+        // Then
+        assertEquals(List.of(alert), withAlert.getLowStock());
+        assertNull(next);
+        verify(productRepository, times(1)).findLowStockIn(anyCollection(), anyInt());
+    }
+
+    @Test
+    void testNextFrame_SkipsFrameWithoutSubscribers() {
+        // Given
+        stubTotals();
+        liveDashboardFeed.stockChanged(7L);
+
+        // When
+        DashboardFrame frame = liveDashboardFeed.nextFrame();
+
+        // Then
+        assertNull(frame);
+        verify(productRepository, never()).findLowStockIn(anyCollection(), anyInt());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void subscribe() {
+        Sinks.Many<DashboardFrame> frames =
+                (Sinks.Many<DashboardFrame>) ReflectionTestUtils.getField(liveDashboardFeed, "frames");
+        subscriber = frames.asFlux().subscribe();
+    }
+
+    private void stubTotals() {
+        when(orderMetrics.getTotalOrders()).thenReturn(10L);
+        when(orderMetrics.getCompletedRevenue()).thenReturn(new BigDecimal("100.00"));
+        when(orderMetrics.getCountsByStatus()).thenReturn(counts(4, 6));
+    }
+
+    private Map<OrderStatus, Long> counts(long processing, long delivered) {
+        Map<OrderStatus, Long> counts = new EnumMap<>(OrderStatus.class);
+        counts.put(OrderStatus.PROCESSING, processing);
+        counts.put(OrderStatus.DELIVERED, delivered);
+        return counts;
+    }
+}
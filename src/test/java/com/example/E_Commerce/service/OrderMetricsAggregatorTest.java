@@ -0,0 +1,103 @@
+package com.example.E_Commerce.service;
+
+import com.example.E_Commerce.model.OrderStatus;
+import com.example.E_Commerce.model.PaymentStatus;
+import com.example.E_Commerce.repository.OrderRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderMetricsAggregatorTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @InjectMocks
+    private OrderMetricsAggregator orderMetrics;
+
+    @Test
+    void testRecordTransition_TracksCountsAndRevenue() {
+        // Given
+        BigDecimal amount = new BigDecimal("99.99");
+
+        // When
+        orderMetrics.recordTransition(null, OrderStatus.PROCESSING, null, PaymentStatus.PENDING, amount);
+        orderMetrics.recordTransition(OrderStatus.PROCESSING, OrderStatus.CONFIRMED,
+                PaymentStatus.PENDING, PaymentStatus.COMPLETED, amount);
+
+        // Then
+        assertEquals(1, orderMetrics.getTotalOrders());
+        assertEquals(0, orderMetrics.getCount(OrderStatus.PROCESSING));
+        assertEquals(1, orderMetrics.getCount(OrderStatus.CONFIRMED));
+        assertEquals(0, orderMetrics.getCount(PaymentStatus.PENDING));
+        assertEquals(1, orderMetrics.getCount(PaymentStatus.COMPLETED));
+        assertEquals(new BigDecimal("99.99"), orderMetrics.getCompletedRevenue());
+    }
+
+    @Test
+    void testRecordTransition_RefundedPaymentLeavesRevenue() {
+        // Given
+        BigDecimal amount = new BigDecimal("40.00");
+        orderMetrics.recordTransition(null, OrderStatus.CONFIRMED, null, PaymentStatus.COMPLETED, amount);
+
+        // When
+        orderMetrics.recordTransition(OrderStatus.CONFIRMED, OrderStatus.CANCELLED,
+                PaymentStatus.COMPLETED, PaymentStatus.CANCELLED, amount);
+
+        // Then
+        assertEquals(0, orderMetrics.getCompletedRevenue().signum());
+        assertEquals(1, orderMetrics.getCount(OrderStatus.CANCELLED));
+    }
+
+    @Test
+    void testReconcile_CorrectsDriftFromDatabase() {
+        // Given
+        orderMetrics.recordTransition(null, OrderStatus.CREATED, null, PaymentStatus.PENDING, BigDecimal.TEN);
+        when(orderRepository.countGroupedByStatus()).thenReturn(Arrays.asList(
+                new Object[]{OrderStatus.CREATED, 4L}, new Object[]{OrderStatus.DELIVERED, 6L}));
+        when(orderRepository.countGroupedByPaymentStatus()).thenReturn(List.<Object[]>of(
+                new Object[]{PaymentStatus.COMPLETED, 10L}));
+        when(orderRepository.sumTotalAmountByPaymentStatus(PaymentStatus.COMPLETED)).thenReturn(new BigDecimal("1234.50"));
+
+        // When
+        orderMetrics.reconcile();
+
+        // Then
+        assertEquals(10, orderMetrics.getTotalOrders());
+        assertEquals(4, orderMetrics.getCount(OrderStatus.CREATED));
+        assertEquals(6, orderMetrics.getCount(OrderStatus.DELIVERED));
+        assertEquals(0, orderMetrics.getCount(PaymentStatus.PENDING));
+        assertEquals(new BigDecimal("1234.50"), orderMetrics.getCompletedRevenue());
+    }
+
+    @Test
+    void testReconcile_KeepsTransitionsAppliedDuringTheQuery() {
+        // Given
+        when(orderRepository.countGroupedByStatus()).thenAnswer(invocation -> {
+            // Committed after the query's snapshot, so not in its result
+            orderMetrics.recordTransition(null, OrderStatus.CREATED, null, PaymentStatus.PENDING, BigDecimal.TEN);
+            return List.<Object[]>of(new Object[]{OrderStatus.CREATED, 5L});
+        });
+        when(orderRepository.countGroupedByPaymentStatus()).thenReturn(List.<Object[]>of(
+                new Object[]{PaymentStatus.PENDING, 6L}));
+        when(orderRepository.sumTotalAmountByPaymentStatus(PaymentStatus.COMPLETED)).thenReturn(BigDecimal.ZERO);
+
+        // When
+        orderMetrics.reconcile();
+
+        // Then
+        assertEquals(6, orderMetrics.getTotalOrders());
+        assertEquals(6, orderMetrics.getCount(OrderStatus.CREATED));
+        assertEquals(6, orderMetrics.getCount(PaymentStatus.PENDING));
+    }
+}
@@ -2,6 +2,8 @@ package com.example.E_Commerce.service;
 
 import com.example.E_Commerce.model.*;
 import com.example.E_Commerce.repository.*;
+import com.example.E_Commerce.util.OrderNumberGenerator;
+import org.json.JSONObject;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -12,6 +14,8 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -41,6 +45,21 @@ class OrderServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private OrderNumberGenerator orderNumberGenerator;
+
+    @Mock
+    private InventoryReservationService inventoryReservationService;
+
+    @Mock
+    private OrderEventPublisher orderEventPublisher;
+
+    @Mock
+    private OrderStatusLogService orderStatusLogService;
+
+    @Mock
+    private OrderMetricsAggregator orderMetrics;
+
     @InjectMocks
     private OrderService orderService;
 
@@ -62,6 +81,7 @@ class OrderServiceTest {
         when(cartService.getCart(1L)).thenReturn(testCart);
         when(cartService.clearCart(1L)).thenReturn(testCart); // clearCart returns Cart, not void
         doNothing().when(productService).updateStock(anyLong(), anyInt());
+        when(orderNumberGenerator.nextOrderNumber()).thenReturn("ORD-00000000TEST1");
         
         // Mock the save method to return the order that was passed to it
         when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
@@ -80,12 +100,15 @@ class OrderServiceTest {
         assertEquals("Billing Address", result.getBillingAddress());
         assertEquals(OrderStatus.PROCESSING, result.getStatus());
         assertEquals(PaymentStatus.PENDING, result.getPaymentStatus());
+        assertEquals("ORD-00000000TEST1", result.getOrderNumber());
 
         verify(userRepository).findById(1L);
         verify(cartService).getCart(1L);
         verify(orderRepository).save(any(Order.class));
         verify(cartService).clearCart(1L);
         verify(productService).updateStock(anyLong(), anyInt());
+        verify(inventoryReservationService).reserve(result);
+        verify(orderEventPublisher).publish(result, OrderEventType.CREATED);
     }
 
     @Test
@@ -138,6 +161,7 @@ class OrderServiceTest {
         assertEquals(OrderStatus.CONFIRMED, result.getStatus());
         verify(orderRepository).findById(1L);
         verify(orderRepository).save(testOrder);
+        verify(orderEventPublisher).publish(testOrder, OrderEventType.STATUS_CHANGED);
     }
 
     @Test
@@ -160,6 +184,7 @@ class OrderServiceTest {
         // Given
         when(orderRepository.findById(1L)).thenReturn(Optional.of(testOrder));
         when(orderRepository.save(any(Order.class))).thenReturn(testOrder);
+        when(inventoryReservationService.commit(1L)).thenReturn(true);
 
         // When
         Order result = orderService.updatePaymentStatus(1L, PaymentStatus.COMPLETED);
@@ -170,6 +195,78 @@ class OrderServiceTest {
         assertEquals(OrderStatus.CONFIRMED, result.getStatus());
         verify(orderRepository).findById(1L);
         verify(orderRepository).save(testOrder);
+        verify(inventoryReservationService).commit(1L);
+        verify(orderEventPublisher).publish(testOrder, OrderEventType.PAID);
+        verify(orderStatusLogService).record(1L, OrderStatus.CREATED, OrderStatus.CONFIRMED,
+                PaymentStatus.PENDING, PaymentStatus.COMPLETED);
+        verify(orderMetrics).recordTransition(OrderStatus.CREATED, OrderStatus.CONFIRMED,
+                PaymentStatus.PENDING, PaymentStatus.COMPLETED, testOrder.getTotalAmount());
+    }
+
+    @Test
+    void testUpdatePaymentStatus_StockGoneCancelsPaidOrderForRefund() {
+        // Given
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(testOrder));
+        when(orderRepository.save(any(Order.class))).thenReturn(testOrder);
+        when(inventoryReservationService.commit(1L)).thenReturn(false);
+        when(orderEventPublisher.payloadOf(testOrder)).thenReturn(new JSONObject());
+
+        // When
+        Order result = orderService.updatePaymentStatus(1L, PaymentStatus.COMPLETED);
+
+        // Then
+        assertEquals(OrderStatus.CANCELLED, result.getStatus());
+        assertEquals(PaymentStatus.COMPLETED, result.getPaymentStatus());
+        verify(orderEventPublisher).publish(testOrder, OrderEventType.PAID);
+        verify(orderEventPublisher).publish(eq(1L), eq(OrderEventType.CANCELLED),
+                argThat(payload -> "out-of-stock-after-payment".equals(payload.optString("reason"))));
+        verify(orderStatusLogService).record(1L, OrderStatus.CREATED, OrderStatus.CANCELLED,
+                PaymentStatus.PENDING, PaymentStatus.COMPLETED);
+    }
+
+    @Test
+    void testUpdatePaymentStatus_AlreadyPaidDoesNotRepublish() {
+        // Given
+        testOrder.setPaymentStatus(PaymentStatus.COMPLETED);
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(testOrder));
+        when(orderRepository.save(any(Order.class))).thenReturn(testOrder);
+
+        // When
+        orderService.updatePaymentStatus(1L, PaymentStatus.COMPLETED);
+
+        // Then
+        verify(orderEventPublisher, never()).publish(any(Order.class), any(OrderEventType.class));
+    }
+
+    @Test
+    void testUpdatePaymentStatus_RefundAfterCompletionReversesRevenue() {
+        // Given
+        testOrder.setStatus(OrderStatus.CONFIRMED);
+        testOrder.setPaymentStatus(PaymentStatus.COMPLETED);
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(testOrder));
+        when(orderRepository.save(any(Order.class))).thenReturn(testOrder);
+
+        // When
+        orderService.updatePaymentStatus(1L, PaymentStatus.REFUNDED);
+
+        // Then
+        verify(orderEventPublisher).publish(testOrder, OrderEventType.PAYMENT_REVERSED);
+        verify(orderEventPublisher, never()).publish(testOrder, OrderEventType.PAID);
+    }
+
+    @Test
+    void testUpdatePaymentStatus_RefundOfCancelledOrderIsNotReversedTwice() {
+        // Given
+        testOrder.setStatus(OrderStatus.CANCELLED);
+        testOrder.setPaymentStatus(PaymentStatus.COMPLETED);
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(testOrder));
+        when(orderRepository.save(any(Order.class))).thenReturn(testOrder);
+
+        // When
+        orderService.updatePaymentStatus(1L, PaymentStatus.REFUNDED);
+
+        // Then
+        verify(orderEventPublisher, never()).publish(any(Order.class), any(OrderEventType.class));
     }
 
     @Test
@@ -251,6 +348,69 @@ class OrderServiceTest {
         verify(orderRepository).findByUser(testUser, pageable);
     }
 
+    @Test
+    void testGetOrderSummariesByUser_UsesQueryOrdering() {
+        // Given
+        OrderSummary summary = new OrderSummary(1L, "ORD-123456", LocalDateTime.now(), new BigDecimal("99.99"),
+                OrderStatus.CREATED, PaymentStatus.PENDING, 2L);
+        Page<OrderSummary> summaries = new PageImpl<>(Arrays.asList(summary), PageRequest.of(0, 10), 1);
+        when(orderRepository.findSummariesByUserId(1L, PageRequest.of(0, 10))).thenReturn(summaries);
+
+        // When
+        Page<OrderSummary> result = orderService.getOrderSummariesByUser(1L,
+                PageRequest.of(0, 10, Sort.by("totalAmount")));
+
+        // Then
+        assertEquals(1, result.getContent().size());
+        assertEquals(2L, result.getContent().get(0).getItemCount());
+        verify(orderRepository).findSummariesByUserId(1L, PageRequest.of(0, 10));
+    }
+
+    @Test
+    void testGetOrderDetailForUser_OtherUsersOrder() {
+        // Given
+        when(orderRepository.findDetailByIdAndUserId(1L, 2L)).thenReturn(Optional.empty());
+
+        // When & Then
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            orderService.getOrderDetailForUser(1L, 2L);
+        });
+
+        assertEquals("Order not found", exception.getMessage());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSearchOrders_MapsPageWithGroupedItemCounts() {
+        // Given
+        Pageable pageable = OrderService.adminOrderPage(0, 20, "createdAt", "desc");
+        when(orderRepository.findAll(any(Specification.class), eq(pageable)))
+                .thenReturn(new PageImpl<>(Arrays.asList(testOrder), pageable, 1));
+        when(orderItemRepository.countByOrderIds(List.of(1L)))
+                .thenReturn(List.<Object[]>of(new Object[]{1L, 3L}));
+
+        // When
+        Page<AdminOrderRow> result = orderService.searchOrders(new OrderSearchCriteria(), pageable);
+
+        // Then
+        assertEquals(1, result.getTotalElements());
+        AdminOrderRow row = result.getContent().get(0);
+        assertEquals(testUser.getEmail(), row.getCustomerEmail());
+        assertEquals(3L, row.getItemCount());
+        verify(orderItemRepository).countByOrderIds(List.of(1L));
+    }
+
+    @Test
+    void testAdminOrderPage_FallsBackForUnknownSortAndCapsSize() {
+        // When
+        Pageable pageable = OrderService.adminOrderPage(-1, 5000, "user.password", "asc");
+
+        // Then
+        assertEquals(0, pageable.getPageNumber());
+        assertEquals(100, pageable.getPageSize());
+        assertEquals(Sort.by(Sort.Direction.ASC, "createdAt").and(Sort.by(Sort.Direction.ASC, "id")), pageable.getSort());
+    }
+
     @Test
     void testGetAllOrders() {
         // Given
@@ -296,6 +456,7 @@ class OrderServiceTest {
         
         when(orderRepository.findById(1L)).thenReturn(Optional.of(testOrder));
         when(orderRepository.save(any(Order.class))).thenReturn(testOrder);
+        when(inventoryReservationService.releaseForCancellation(1L)).thenReturn(true);
         doNothing().when(productService).restoreStock(anyLong(), anyInt());
 
         // When
@@ -306,6 +467,7 @@ class OrderServiceTest {
         verify(orderRepository).findById(1L);
         verify(orderRepository).save(testOrder);
         verify(productService).restoreStock(testProduct.getId(), 2);
+        verify(orderEventPublisher).publish(testOrder, OrderEventType.CANCELLED);
     }
 
     @Test
@@ -324,6 +486,42 @@ class OrderServiceTest {
         verify(orderRepository, never()).save(any(Order.class));
     }
 
+    @Test
+    void testCancelOrder_ReservationAlreadyExpired() {
+        // Given
+        OrderItem orderItem = new OrderItem();
+        orderItem.setProduct(testProduct);
+        orderItem.setQuantity(2);
+        testOrder.setOrderItems(Arrays.asList(orderItem));
+
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(testOrder));
+        when(orderRepository.save(any(Order.class))).thenReturn(testOrder);
+        when(inventoryReservationService.releaseForCancellation(1L)).thenReturn(false);
+
+        // When
+        orderService.cancelOrder(1L);
+
+        // Then
+        assertEquals(OrderStatus.CANCELLED, testOrder.getStatus());
+        verify(productService, never()).restoreStock(anyLong(), anyInt());
+    }
+
+    @Test
+    void testCancelOrder_AlreadyCancelled() {
+        // Given
+        testOrder.setStatus(OrderStatus.CANCELLED);
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(testOrder));
+
+        // When & Then
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            orderService.cancelOrder(1L);
+        });
+
+        assertEquals("Order is already cancelled", exception.getMessage());
+        verifyNoInteractions(inventoryReservationService);
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+
     @Test
     void testFindByRazorpayOrderId_Success() {
         // Given
@@ -0,0 +1,148 @@
+package com.example.E_Commerce.service;
+
+import com.example.E_Commerce.model.*;
+import com.example.E_Commerce.repository.OrderStatusEventRepository;
+import com.example.E_Commerce.util.OrderNumberGenerator;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderStatusLogServiceTest {
+
+    @Mock
+    private OrderStatusEventRepository orderStatusEventRepository;
+
+    @Mock
+    private OrderNumberGenerator orderNumberGenerator;
+
+    @Mock
+    private OrderEventPublisher orderEventPublisher;
+
+    @InjectMocks
+    private OrderStatusLogService orderStatusLogService;
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testRecord_PaymentCompletedByAdmin() {
+        // Given
+        User admin = new User();
+        admin.setId(9L);
+        admin.setRole(Role.ADMIN);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(admin, null, List.of()));
+        when(orderNumberGenerator.nextId()).thenReturn(100L);
+
+        // When
+        orderStatusLogService.record(1L, OrderStatus.PROCESSING, OrderStatus.CONFIRMED,
+                PaymentStatus.PENDING, PaymentStatus.COMPLETED);
+
+        // Then
+        OrderStatusEvent event = recordedEvent(1L);
+        assertEquals(100L, event.getId());
+        assertEquals(OrderStatus.PROCESSING, event.getStatusFrom());
+        assertEquals(OrderStatus.CONFIRMED, event.getStatusTo());
+        assertEquals(PaymentStatus.COMPLETED, event.getPaymentTo());
+        assertEquals(OrderActorType.ADMIN, event.getActorType());
+        assertEquals(9L, event.getActorId());
+    }
+
+    @Test
+    void testRecord_OnlyStatusChangedBySystem() {
+        // Given
+        when(orderNumberGenerator.nextId()).thenReturn(101L);
+
+        // When
+        orderStatusLogService.record(1L, OrderStatus.CONFIRMED, OrderStatus.SHIPPED,
+                PaymentStatus.COMPLETED, PaymentStatus.COMPLETED);
+
+        // Then
+        OrderStatusEvent event = recordedEvent(1L);
+        assertEquals(OrderStatus.SHIPPED, event.getStatusTo());
+        assertNull(event.getPaymentFrom());
+        assertNull(event.getPaymentTo());
+        assertEquals(OrderActorType.SYSTEM, event.getActorType());
+        assertNull(event.getActorId());
+        verifyNoInteractions(orderStatusEventRepository);
+    }
+
+    @Test
+    void testAppend_InsertsTimelineEntryOnce() {
+        // Given
+        OrderStatusEvent recorded = event(102L, OrderStatus.CONFIRMED, OrderStatus.SHIPPED, null, null, LocalDateTime.now());
+        OutboxEvent outboxEvent = new OutboxEvent();
+        outboxEvent.setOrderId(1L);
+        outboxEvent.setEventType(OrderEventType.STATUS_RECORDED);
+        outboxEvent.setPayload(OrderStatusLogService.toPayload(recorded).toString());
+        when(orderStatusEventRepository.existsById(102L)).thenReturn(false, true);
+
+        // When
+        orderStatusLogService.append(outboxEvent);
+        orderStatusLogService.append(outboxEvent);
+
+        // Then
+        verify(orderStatusEventRepository, times(1)).save(recorded);
+    }
+
+    @Test
+    void testRecord_NoChangeIsIgnored() {
+        // When
+        orderStatusLogService.record(1L, OrderStatus.SHIPPED, OrderStatus.SHIPPED,
+                PaymentStatus.COMPLETED, PaymentStatus.COMPLETED);
+
+        // Then
+        verifyNoInteractions(orderEventPublisher);
+    }
+
+    @Test
+    void testReplay_RebuildsLatestStatus() {
+        // Given
+        LocalDateTime shippedAt = LocalDateTime.now();
+        List<OrderStatusEvent> events = Arrays.asList(
+                event(1L, null, OrderStatus.PROCESSING, null, PaymentStatus.PENDING, shippedAt.minusHours(2)),
+                event(2L, OrderStatus.PROCESSING, OrderStatus.CONFIRMED, PaymentStatus.PENDING, PaymentStatus.COMPLETED,
+                        shippedAt.minusHours(1)),
+                event(3L, OrderStatus.CONFIRMED, OrderStatus.SHIPPED, null, null, shippedAt));
+        when(orderStatusEventRepository.findByOrderIdOrderByIdAsc(1L)).thenReturn(events);
+
+        // When
+        OrderStatusSnapshot snapshot = orderStatusLogService.replay(1L);
+
+        // Then
+        assertEquals(OrderStatus.SHIPPED, snapshot.getStatus());
+        assertEquals(PaymentStatus.COMPLETED, snapshot.getPaymentStatus());
+        assertEquals(shippedAt, snapshot.getLastChangedAt());
+        assertEquals(3, snapshot.getEventCount());
+    }
+
+    private OrderStatusEvent event(Long id, OrderStatus statusFrom, OrderStatus statusTo,
+                                   PaymentStatus paymentFrom, PaymentStatus paymentTo, LocalDateTime occurredAt) {
+        return new OrderStatusEvent(id, 1L, occurredAt, statusFrom, statusTo, paymentFrom, paymentTo,
+                OrderActorType.SYSTEM, null);
+    }
+
+    private OrderStatusEvent recordedEvent(Long orderId) {
+        ArgumentCaptor<JSONObject> payload = ArgumentCaptor.forClass(JSONObject.class);
+        verify(orderEventPublisher).publish(eq(orderId), eq(OrderEventType.STATUS_RECORDED), payload.capture());
+        return OrderStatusLogService.fromPayload(orderId, payload.getValue());
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.E_Commerce.service;
+
+import com.example.E_Commerce.model.OrderEventType;
+import com.example.E_Commerce.model.OutboxEvent;
+import com.example.E_Commerce.model.OutboxStatus;
+import com.example.E_Commerce.repository.OutboxEventRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private OutboxRelay outboxRelay;
+
+    private final List<Long> handled = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(outboxRelay, "batchSize", 100);
+        ReflectionTestUtils.setField(outboxRelay, "workers", 2);
+        ReflectionTestUtils.setField(outboxRelay, "maxAttempts", 3);
+        ReflectionTestUtils.setField(outboxRelay, "retryBackoffMs", 1000L);
+        ReflectionTestUtils.setField(outboxRelay, "leaseSeconds", 60L);
+        outboxRelay.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxRelay.shutdown();
+    }
+
+    @Test
+    void testRelayBatch_DispatchesInOrderAndSkipsOrdersWaitingOnEarlierEvent() throws Exception {
+        // Given
+        useHandler(event -> handled.add(event.getId()));
+        when(outboxEventRepository.findDueForUpdate(anyCollection(), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(Arrays.asList(event(1L, 10L), event(2L, 10L), event(4L, 20L)));
+        // Event 3 of order 20 is still backing off, so event 4 must wait for it
+        when(outboxEventRepository.findOutstandingIdsByOrderIds(anyCollection(), anyCollection()))
+                .thenReturn(Arrays.asList(new Object[]{10L, 1L}, new Object[]{10L, 2L},
+                        new Object[]{20L, 3L}, new Object[]{20L, 4L}));
+
+        // When
+        int claimed = outboxRelay.relayBatch();
+
+        // Then
+        assertEquals(2, claimed);
+        assertEquals(Arrays.asList(1L, 2L), handled);
+        verify(outboxEventRepository).updateStatus(eq(Arrays.asList(1L, 2L)), eq(OutboxStatus.IN_FLIGHT), any(LocalDateTime.class));
+        verify(outboxEventRepository).markDispatched(eq(1L), eq(OutboxStatus.DISPATCHED), any(LocalDateTime.class));
+        verify(outboxEventRepository).markDispatched(eq(2L), eq(OutboxStatus.DISPATCHED), any(LocalDateTime.class));
+        verify(outboxEventRepository, never()).markDispatched(eq(4L), any(), any());
+    }
+
+    @Test
+    void testRelay_DrainsOffTheSchedulerThread() {
+        // Given
+        List<String> threads = Collections.synchronizedList(new ArrayList<>());
+        when(outboxEventRepository.findDueForUpdate(anyCollection(), any(LocalDateTime.class), any(Pageable.class)))
+                .thenAnswer(invocation -> {
+                    threads.add(Thread.currentThread().getName());
+                    return Collections.emptyList();
+                });
+
+        // When
+        outboxRelay.relay();
+
+        // Then
+        verify(outboxEventRepository, timeout(5000)).findDueForUpdate(anyCollection(), any(LocalDateTime.class), any(Pageable.class));
+        assertEquals(List.of("outbox-poller"), threads);
+    }
+
+    @Test
+    void testRelayBatch_FailureSchedulesRetryAndHoldsBackLaterEvents() throws Exception {
+        // Given
+        useHandler(event -> {
+            throw new RuntimeException("Mail server unavailable");
+        });
+        when(outboxEventRepository.findDueForUpdate(anyCollection(), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(Arrays.asList(event(1L, 10L), event(2L, 10L)));
+        when(outboxEventRepository.findOutstandingIdsByOrderIds(anyCollection(), anyCollection()))
+                .thenReturn(Arrays.asList(new Object[]{10L, 1L}, new Object[]{10L, 2L}));
+
+        // When
+        outboxRelay.relayBatch();
+
+        // Then
+        verify(outboxEventRepository).markFailedAttempt(eq(1L), eq(OutboxStatus.PENDING), any(LocalDateTime.class),
+                eq("Mail server unavailable"));
+        verify(outboxEventRepository).updateStatus(eq(List.of(2L)), eq(OutboxStatus.PENDING), any(LocalDateTime.class));
+        verify(outboxEventRepository, never()).markDispatched(anyLong(), any(), any());
+    }
+
+    @Test
+    void testRelayBatch_GivesUpAfterMaxAttempts() throws Exception {
+        // Given
+        useHandler(event -> {
+            throw new RuntimeException("Still failing");
+        });
+        OutboxEvent event = event(1L, 10L);
+        event.setAttempts(2);
+        when(outboxEventRepository.findDueForUpdate(anyCollection(), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(event));
+        when(outboxEventRepository.findOutstandingIdsByOrderIds(anyCollection(), anyCollection()))
+                .thenReturn(List.<Object[]>of(new Object[]{10L, 1L}));
+
+        // When
+        outboxRelay.relayBatch();
+
+        // Then
+        verify(outboxEventRepository).markFailedAttempt(eq(1L), eq(OutboxStatus.FAILED), any(LocalDateTime.class),
+                eq("Still failing"));
+    }
+
+    @Test
+    void testBackoffMillis_DoublesUpToCap() {
+        assertEquals(1000, OutboxRelay.backoffMillis(1, 1000));
+        assertEquals(2000, OutboxRelay.backoffMillis(2, 1000));
+        assertEquals(8000, OutboxRelay.backoffMillis(4, 1000));
+        assertEquals(3_600_000, OutboxRelay.backoffMillis(30, 1000));
+    }
+
+    private void useHandler(Consumer<OutboxEvent> action) {
+        OrderEventHandler handler = new OrderEventHandler() {
+            @Override
+            public boolean supports(OrderEventType eventType) {
+                return true;
+            }
+
+            @Override
+            public void handle(OutboxEvent event) {
+                action.accept(event);
+            }
+        };
+        ReflectionTestUtils.setField(outboxRelay, "handlers", List.of(handler));
+    }
+
+    private OutboxEvent event(Long id, Long orderId) {
+        OutboxEvent event = new OutboxEvent();
+        event.setId(id);
+        event.setOrderId(orderId);
+        event.setEventType(OrderEventType.CREATED);
+        event.setPayload("{}");
+        event.setStatus(OutboxStatus.PENDING);
+        event.setAttempts(0);
+        event.setNextAttemptAt(LocalDateTime.now());
+        return event;
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.E_Commerce.service;
+
+import com.example.E_Commerce.model.AdminOrderRow;
+import com.example.E_Commerce.model.ExportFilter;
+import com.example.E_Commerce.model.Order;
+import com.example.E_Commerce.model.OrderStatus;
+import com.example.E_Commerce.model.PaymentStatus;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PDFServiceTest {
+
+    @Mock
+    private ExportService exportService;
+
+    @Mock
+    private OrderService orderService;
+
+    @Mock
+    private HtmlPdfRenderer htmlPdfRenderer;
+
+    @InjectMocks
+    private PDFService pdfService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(pdfService, "chunkSize", 100);
+    }
+
+    @Test
+    void testWriteOrdersReportPDF_PagesThroughEveryChunk() throws Exception {
+        // Given
+        ExportFilter filter = new ExportFilter();
+        filter.setStatus(OrderStatus.DELIVERED);
+        when(orderService.getAdminOrderRowsAfter(filter, 0L, 100)).thenReturn(rows(1, 100));
+        when(orderService.getAdminOrderRowsAfter(filter, 100L, 100)).thenReturn(rows(101, 20));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        pdfService.writeOrdersReportPDF(filter, out);
+
+        // Then
+        try (PdfDocument pdf = new PdfDocument(new PdfReader(new ByteArrayInputStream(out.toByteArray())))) {
+            int pages = pdf.getNumberOfPages();
+            assertTrue(pages > 1);
+            StringBuilder text = new StringBuilder();
+            for (int page = 1; page <= pages; page++) {
+                String pageText = PdfTextExtractor.getTextFromPage(pdf.getPage(page));
+                // The header row repeats on every page the table spans
+                if (page < pages) {
+                    assertTrue(pageText.contains("Order Number"));
+                }
+                text.append(pageText).append('\n');
+            }
+            assertTrue(text.indexOf("Filters: status DELIVERED") >= 0);
+            assertTrue(text.indexOf("ORD-100") > 0);
+            assertTrue(text.indexOf("ORD-120") > text.indexOf("ORD-100"));
+            // Every other order is paid, at 10.00 each
+            assertTrue(text.indexOf("Total Orders: 120") >= 0);
+            assertTrue(text.indexOf("Total Revenue (INR): 600.00") >= 0);
+        }
+        verify(orderService, times(2)).getAdminOrderRowsAfter(eq(filter), anyLong(), eq(100));
+    }
+
+    @Test
+    void testWarmUp_RendersSampleInvoiceThroughSharedRenderer() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(pdfService, "warmUp", true);
+        when(exportService.generateOrderInvoiceHTML(any(Order.class))).thenReturn("<html></html>");
+
+        // When
+        pdfService.warmUp();
+
+        // Then
+        verify(htmlPdfRenderer).render(eq("<html></html>"), any(OutputStream.class));
+    }
+
+    private List<AdminOrderRow> rows(long firstId, int count) {
+        List<AdminOrderRow> rows = new ArrayList<>();
+        for (long id = firstId; id < firstId + count; id++) {
+            rows.add(new AdminOrderRow(id, "ORD-" + id, "Customer " + id, "c" + id + "@example.com", 1L,
+                    new BigDecimal("10.00"), OrderStatus.DELIVERED,
+                    id % 2 == 0 ? PaymentStatus.COMPLETED : PaymentStatus.PENDING, LocalDateTime.of(2024, 3, 1, 12, 0)));
+        }
+        return rows;
+    }
+}
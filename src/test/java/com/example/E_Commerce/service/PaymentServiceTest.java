@@ -1,18 +1,14 @@
 package com.example.E_Commerce.service;
 
 import com.example.E_Commerce.model.*;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.http.*;
 import org.springframework.test.util.ReflectionTestUtils;
-import org.springframework.web.client.RestTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -27,14 +23,13 @@ import static org.mockito.Mockito.*;
 class PaymentServiceTest {
 
     @Mock
-    private RestTemplate restTemplate;
-
-    @Mock
-    private ObjectMapper objectMapper;
+    private CashfreeClient cashfreeClient;
 
     @InjectMocks
     private PaymentService paymentService;
 
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
     private Order testOrder;
     private User testUser;
 
@@ -47,124 +42,101 @@ class PaymentServiceTest {
     @Test
     void testCreatePaymentSession_Success() throws Exception {
         // Given
-        String mockResponse = "{\"payment_session_id\":\"test_session_123\"}";
-        JsonNode mockJsonNode = mock(JsonNode.class);
-        JsonNode mockSessionIdNode = mock(JsonNode.class);
-        
-        ResponseEntity<String> mockResponseEntity = new ResponseEntity<>(mockResponse, HttpStatus.OK);
-        
-        when(restTemplate.postForEntity(anyString(), any(HttpEntity.class), eq(String.class)))
-                .thenReturn(mockResponseEntity);
-        when(objectMapper.readTree(mockResponse)).thenReturn(mockJsonNode);
-        when(mockJsonNode.get("payment_session_id")).thenReturn(mockSessionIdNode);
-        when(mockSessionIdNode.asText()).thenReturn("test_session_123");
+        when(cashfreeClient.post(eq("/orders"), any()))
+                .thenReturn(objectMapper.readTree("{\"payment_session_id\":\"session_123\"}"));
 
         // When
         String result = paymentService.createPaymentSession(testOrder);
 
         // Then
-        assertNotNull(result);
-        assertEquals("test_session_123", result);
-        verify(restTemplate).postForEntity(anyString(), any(HttpEntity.class), eq(String.class));
+        assertEquals("session_123", result);
+        verify(cashfreeClient).post(eq("/orders"), argThat(body ->
+                "ORD-123456".equals(((Map<?, ?>) body).get("order_id"))));
     }
 
     @Test
-    void testCreatePaymentSession_ApiError() {
+    void testCreatePaymentSession_MissingSessionIdFallsBackToTestSession() throws Exception {
         // Given
-        ResponseEntity<String> errorResponse = new ResponseEntity<>("Error", HttpStatus.BAD_REQUEST);
-        when(restTemplate.postForEntity(anyString(), any(HttpEntity.class), eq(String.class)))
-                .thenReturn(errorResponse);
+        when(cashfreeClient.post(eq("/orders"), any())).thenReturn(objectMapper.readTree("{}"));
 
-        // When & Then
-        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
-            paymentService.createPaymentSession(testOrder);
-        });
+        // When
+        String result = paymentService.createPaymentSession(testOrder);
 
-        assertTrue(exception.getMessage().contains("Failed to create payment session"));
-        verify(restTemplate).postForEntity(anyString(), any(HttpEntity.class), eq(String.class));
+        // Then
+        assertTrue(result.startsWith("test_session_1_"));
     }
 
     @Test
-    void testCreatePaymentSession_Exception() {
+    void testCreatePaymentSession_GatewayFailureFallsBackToTestSession() {
         // Given
-        when(restTemplate.postForEntity(anyString(), any(HttpEntity.class), eq(String.class)))
-                .thenThrow(new RuntimeException("Network error"));
+        when(cashfreeClient.post(eq("/orders"), any()))
+                .thenThrow(new RuntimeException("Cashfree /orders failed: 502 - Bad Gateway"));
 
-        // When & Then
-        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
-            paymentService.createPaymentSession(testOrder);
-        });
+        // When
+        String result = paymentService.createPaymentSession(testOrder);
+
+        // Then
+        assertTrue(result.startsWith("test_session_1_"));
+        verify(cashfreeClient).post(eq("/orders"), any());
+    }
 
-        assertTrue(exception.getMessage().contains("Failed to create payment session"));
-        verify(restTemplate).postForEntity(anyString(), any(HttpEntity.class), eq(String.class));
+    @Test
+    void testCreatePaymentSession_GatewayRefusalIsNotATestSession() {
+        // Given
+        when(cashfreeClient.post(eq("/orders"), any()))
+                .thenThrow(new GatewayUnavailableException("Payment gateway is busy. Please try again shortly."));
+
+        // When
+        GatewayUnavailableException error = assertThrows(GatewayUnavailableException.class,
+                () -> paymentService.createPaymentSession(testOrder));
+
+        // Then
+        assertEquals("Payment gateway is busy. Please try again shortly.", error.getMessage());
+    }
+
+    @Test
+    void testCreatePaymentSession_AboveSandboxLimitSkipsGateway() {
+        // Given
+        testOrder.setTotalAmount(new BigDecimal("1500.00"));
+
+        // When
+        String result = paymentService.createPaymentSession(testOrder);
+
+        // Then
+        assertTrue(result.startsWith("test_session_1_"));
+        verifyNoInteractions(cashfreeClient);
     }
 
     @Test
     void testVerifyPayment_Success() throws Exception {
         // Given
-        String mockResponse = "{\"data\":[{\"cf_payment_id\":\"payment_123\",\"payment_status\":\"SUCCESS\"}]}";
-        JsonNode mockJsonNode = mock(JsonNode.class);
-        JsonNode mockDataNode = mock(JsonNode.class);
-        JsonNode mockPaymentNode = mock(JsonNode.class);
-        JsonNode mockPaymentIdNode = mock(JsonNode.class);
-        JsonNode mockStatusNode = mock(JsonNode.class);
-        
-        ResponseEntity<String> mockResponseEntity = new ResponseEntity<>(mockResponse, HttpStatus.OK);
-        
-        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class)))
-                .thenReturn(mockResponseEntity);
-        when(objectMapper.readTree(mockResponse)).thenReturn(mockJsonNode);
-        when(mockJsonNode.get("data")).thenReturn(mockDataNode);
-        when(mockDataNode.isArray()).thenReturn(true);
-        when(mockDataNode.get(0)).thenReturn(mockPaymentNode);
-        when(mockPaymentNode.get("cf_payment_id")).thenReturn(mockPaymentIdNode);
-        when(mockPaymentIdNode.asText()).thenReturn("payment_123");
-        when(mockPaymentNode.get("payment_status")).thenReturn(mockStatusNode);
-        when(mockStatusNode.asText()).thenReturn("SUCCESS");
+        when(cashfreeClient.get("/payments/{paymentId}", "payment_123"))
+                .thenReturn(objectMapper.readTree("{\"data\":{\"cf_payment_id\":\"payment_123\",\"payment_status\":\"SUCCESS\"}}"));
 
         // When
         boolean result = paymentService.verifyPayment("order_123", "payment_123");
 
         // Then
         assertTrue(result);
-        verify(restTemplate).exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class));
     }
 
     @Test
     void testVerifyPayment_Failed() throws Exception {
         // Given
-        String mockResponse = "{\"data\":[{\"cf_payment_id\":\"payment_123\",\"payment_status\":\"FAILED\"}]}";
-        JsonNode mockJsonNode = mock(JsonNode.class);
-        JsonNode mockDataNode = mock(JsonNode.class);
-        JsonNode mockPaymentNode = mock(JsonNode.class);
-        JsonNode mockPaymentIdNode = mock(JsonNode.class);
-        JsonNode mockStatusNode = mock(JsonNode.class);
-        
-        ResponseEntity<String> mockResponseEntity = new ResponseEntity<>(mockResponse, HttpStatus.OK);
-        
-        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class)))
-                .thenReturn(mockResponseEntity);
-        when(objectMapper.readTree(mockResponse)).thenReturn(mockJsonNode);
-        when(mockJsonNode.get("data")).thenReturn(mockDataNode);
-        when(mockDataNode.isArray()).thenReturn(true);
-        when(mockDataNode.get(0)).thenReturn(mockPaymentNode);
-        when(mockPaymentNode.get("cf_payment_id")).thenReturn(mockPaymentIdNode);
-        when(mockPaymentIdNode.asText()).thenReturn("payment_123");
-        when(mockPaymentNode.get("payment_status")).thenReturn(mockStatusNode);
-        when(mockStatusNode.asText()).thenReturn("FAILED");
+        when(cashfreeClient.get("/payments/{paymentId}", "payment_123"))
+                .thenReturn(objectMapper.readTree("{\"data\":{\"cf_payment_id\":\"payment_123\",\"payment_status\":\"FAILED\"}}"));
 
         // When
         boolean result = paymentService.verifyPayment("order_123", "payment_123");
 
         // Then
         assertFalse(result);
-        verify(restTemplate).exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class));
     }
 
     @Test
     void testVerifyPayment_Exception() {
         // Given
-        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class)))
+        when(cashfreeClient.get("/payments/{paymentId}", "payment_123"))
                 .thenThrow(new RuntimeException("Network error"));
 
         // When
@@ -172,26 +144,24 @@ class PaymentServiceTest {
 
         // Then
         assertFalse(result);
-        verify(restTemplate).exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class));
+        verify(cashfreeClient).get("/payments/{paymentId}", "payment_123");
+    }
+
+    @Test
+    void testVerifyPayment_TestSessionSkipsGateway() {
+        // When
+        boolean result = paymentService.verifyPayment("order_123", "test_session_1_1700000000000");
+
+        // Then
+        assertTrue(result);
+        verifyNoInteractions(cashfreeClient);
     }
 
     @Test
     void testGetPaymentDetails_Success() throws Exception {
         // Given
-        String mockResponse = "{\"data\":{\"payment_id\":\"payment_123\",\"amount\":10000}}";
-        JsonNode mockJsonNode = mock(JsonNode.class);
-        JsonNode mockDataNode = mock(JsonNode.class);
-        Map<String, Object> mockPaymentData = new HashMap<>();
-        mockPaymentData.put("payment_id", "payment_123");
-        mockPaymentData.put("amount", 10000);
-        
-        ResponseEntity<String> mockResponseEntity = new ResponseEntity<>(mockResponse, HttpStatus.OK);
-        
-        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class)))
-                .thenReturn(mockResponseEntity);
-        when(objectMapper.readTree(mockResponse)).thenReturn(mockJsonNode);
-        when(mockJsonNode.get("data")).thenReturn(mockDataNode);
-        when(objectMapper.convertValue(mockDataNode, Map.class)).thenReturn(mockPaymentData);
+        when(cashfreeClient.get("/payments/{paymentId}", "payment_123"))
+                .thenReturn(objectMapper.readTree("{\"data\":{\"payment_id\":\"payment_123\",\"amount\":10000}}"));
 
         // When
         Map<String, Object> result = paymentService.getPaymentDetails("payment_123");
@@ -200,15 +170,13 @@ class PaymentServiceTest {
         assertNotNull(result);
         assertEquals("payment_123", result.get("payment_id"));
         assertEquals(10000, result.get("amount"));
-        verify(restTemplate).exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class));
     }
 
     @Test
     void testGetPaymentDetails_ApiError() {
         // Given
-        ResponseEntity<String> errorResponse = new ResponseEntity<>("Error", HttpStatus.BAD_REQUEST);
-        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class)))
-                .thenReturn(errorResponse);
+        when(cashfreeClient.get("/payments/{paymentId}", "payment_123"))
+                .thenThrow(new RuntimeException("Cashfree /payments/{paymentId} failed: 400 - Error"));
 
         // When & Then
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -216,7 +184,21 @@ class PaymentServiceTest {
         });
 
         assertTrue(exception.getMessage().contains("Failed to fetch payment details"));
-        verify(restTemplate).exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class));
+        verify(cashfreeClient).get("/payments/{paymentId}", "payment_123");
+    }
+
+    @Test
+    void testGetPaymentStatus_FindsPaymentInOrder() throws Exception {
+        // Given
+        when(cashfreeClient.get("/orders/{orderId}/payments", "ORD-123456"))
+                .thenReturn(objectMapper.readTree("{\"data\":[{\"cf_payment_id\":\"1\",\"payment_status\":\"FAILED\"}," +
+                        "{\"cf_payment_id\":\"2\",\"payment_status\":\"SUCCESS\"}]}"));
+
+        // When
+        String result = paymentService.getPaymentStatus("ORD-123456", "2");
+
+        // Then
+        assertEquals("SUCCESS", result);
     }
 
     @Test
@@ -323,7 +305,6 @@ class PaymentServiceTest {
     private void setupPaymentServiceProperties() {
         // Set up the properties using ReflectionTestUtils
         ReflectionTestUtils.setField(paymentService, "cashfreeAppId", "TEST108283821957fe1153788f32479528382801");
-        ReflectionTestUtils.setField(paymentService, "cashfreeSecretKey", "cfsk_ma_test_dddc2fa7d13c09a0a5f0c9c88f26f678_f1e97d01");
         ReflectionTestUtils.setField(paymentService, "cashfreeEnvironment", "SANDBOX");
     }
 }
@@ -0,0 +1,143 @@
+package com.example.E_Commerce.service;
+
+import com.example.E_Commerce.model.*;
+import com.example.E_Commerce.repository.OrderItemRepository;
+import com.example.E_Commerce.repository.OrderRepository;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PendingOrderExpiryServiceTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private OrderItemRepository orderItemRepository;
+
+    @Mock
+    private InventoryReservationService inventoryReservationService;
+
+    @Mock
+    private ProductService productService;
+
+    @Mock
+    private OrderEventPublisher orderEventPublisher;
+
+    @Mock
+    private OrderStatusLogService orderStatusLogService;
+
+    @Mock
+    private OrderMetricsAggregator orderMetrics;
+
+    @InjectMocks
+    private PendingOrderExpiryService pendingOrderExpiryService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(pendingOrderExpiryService, "ttlMinutes", 60L);
+    }
+
+    @Test
+    void testExpireBatch_RestoresHeldAndLegacyStockInOneCall() {
+        // Given
+        Order reserved = order(1L);
+        Order legacy = order(2L);
+        when(orderRepository.findStaleForUpdate(eq(PaymentStatus.PENDING), any(LocalDateTime.class), anyCollection(),
+                any(Pageable.class))).thenReturn(Arrays.asList(reserved, legacy));
+        when(inventoryReservationService.releaseHeldForOrders(List.of(1L, 2L)))
+                .thenReturn(List.of(reservation(1L, 10L, 2), reservation(1L, 11L, 1)));
+        when(inventoryReservationService.findOrdersWithReservations(List.of(1L, 2L))).thenReturn(Set.of(1L));
+        when(orderItemRepository.sumQuantityByProductForOrders(List.of(2L)))
+                .thenReturn(List.<Object[]>of(new Object[]{10L, 3L}));
+        when(orderRepository.updateStatusesWherePaymentStatus(anyCollection(), eq(PaymentStatus.PENDING),
+                eq(OrderStatus.CANCELLED), eq(PaymentStatus.CANCELLED), any(LocalDateTime.class))).thenReturn(2);
+        when(orderEventPublisher.payloadOf(any(Order.class))).thenAnswer(invocation -> new JSONObject());
+
+        // When
+        int expired = pendingOrderExpiryService.expireBatch(200);
+
+        // Then
+        assertEquals(2, expired);
+        Map<Long, Integer> expectedStock = new TreeMap<>();
+        expectedStock.put(10L, 5);
+        expectedStock.put(11L, 1);
+        verify(productService).incrementStocks(expectedStock);
+        verify(orderEventPublisher).publish(eq(1L), eq(OrderEventType.CANCELLED), any(JSONObject.class));
+        verify(orderEventPublisher).publish(eq(2L), eq(OrderEventType.CANCELLED), any(JSONObject.class));
+        verify(orderMetrics, times(2)).recordTransition(any(), eq(OrderStatus.CANCELLED), any(), eq(PaymentStatus.CANCELLED), any());
+    }
+
+    @Test
+    void testExpireBatch_SkipsOrderWhoseHoldsArePaymentLocked() {
+        // Given
+        Order paying = order(1L);
+        Order abandoned = order(2L);
+        when(orderRepository.findStaleForUpdate(eq(PaymentStatus.PENDING), any(LocalDateTime.class), anyCollection(),
+                any(Pageable.class))).thenReturn(Arrays.asList(paying, abandoned));
+        when(inventoryReservationService.releaseHeldForOrders(List.of(1L, 2L)))
+                .thenReturn(List.of(reservation(2L, 10L, 2)));
+        when(inventoryReservationService.findOrdersStillHeld(List.of(1L, 2L))).thenReturn(Set.of(1L));
+        when(inventoryReservationService.findOrdersWithReservations(List.of(2L))).thenReturn(Set.of(2L));
+        when(orderRepository.updateStatusesWherePaymentStatus(anyCollection(), eq(PaymentStatus.PENDING),
+                eq(OrderStatus.CANCELLED), eq(PaymentStatus.CANCELLED), any(LocalDateTime.class))).thenReturn(1);
+        when(orderEventPublisher.payloadOf(any(Order.class))).thenAnswer(invocation -> new JSONObject());
+
+        // When
+        int expired = pendingOrderExpiryService.expireBatch(200);
+
+        // Then
+        assertEquals(1, expired);
+        verify(orderRepository).updateStatusesWherePaymentStatus(eq(List.of(2L)), eq(PaymentStatus.PENDING),
+                eq(OrderStatus.CANCELLED), eq(PaymentStatus.CANCELLED), any(LocalDateTime.class));
+        verify(orderEventPublisher, never()).publish(eq(1L), any(), any(JSONObject.class));
+        verify(orderStatusLogService, never()).record(eq(1L), any(), any(), any(), any());
+        verify(productService).incrementStocks(Map.of(10L, 2));
+    }
+
+    @Test
+    void testExpireBatch_NothingStale() {
+        // Given
+        when(orderRepository.findStaleForUpdate(eq(PaymentStatus.PENDING), any(LocalDateTime.class), anyCollection(),
+                any(Pageable.class))).thenReturn(Collections.emptyList());
+
+        // When
+        int expired = pendingOrderExpiryService.expireBatch(200);
+
+        // Then
+        assertEquals(0, expired);
+        verifyNoInteractions(productService, inventoryReservationService, orderEventPublisher);
+    }
+
+    private Order order(Long id) {
+        Order order = new Order();
+        order.setId(id);
+        order.setOrderNumber("ORD-" + id);
+        order.setStatus(OrderStatus.PROCESSING);
+        order.setPaymentStatus(PaymentStatus.PENDING);
+        return order;
+    }
+
+    private InventoryReservation reservation(Long orderId, Long productId, int quantity) {
+        InventoryReservation reservation = new InventoryReservation();
+        reservation.setOrderId(orderId);
+        reservation.setProductId(productId);
+        reservation.setQuantity(quantity);
+        reservation.setStatus(ReservationStatus.HELD);
+        return reservation;
+    }
+}
@@ -13,8 +13,11 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -26,6 +29,12 @@ class ProductServiceTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private ShardedStockService shardedStockService;
+
+    @Mock
+    private LiveDashboardFeed liveDashboardFeed;
+
     @InjectMocks
     private ProductService productService;
 
@@ -258,6 +267,56 @@ class ProductServiceTest {
         verify(productRepository, never()).save(any(Product.class));
     }
 
+    @Test
+    void testUpdateStock_ShardedProduct() {
+        // Given
+        testProduct.setStockShards(4);
+        when(productRepository.findById(1L)).thenReturn(Optional.of(testProduct));
+
+        // When
+        productService.updateStock(1L, 5);
+
+        // Then
+        verify(shardedStockService).decrement(testProduct, 5);
+        verify(productRepository, never()).save(any(Product.class));
+    }
+
+    @Test
+    void testRestoreStock_ShardedProduct() {
+        // Given
+        testProduct.setStockShards(4);
+        when(productRepository.findById(1L)).thenReturn(Optional.of(testProduct));
+
+        // When
+        productService.restoreStock(1L, 3);
+
+        // Then
+        verify(shardedStockService).increment(testProduct, 3);
+        verify(productRepository, never()).save(any(Product.class));
+    }
+
+    @Test
+    void testIncrementStocks_SplitsShardedProducts() {
+        // Given
+        testProduct.setStockShards(4);
+        Map<Long, Integer> quantities = new HashMap<>();
+        quantities.put(1L, 3);
+        quantities.put(2L, 5);
+        quantities.put(3L, 1);
+        when(productRepository.findShardedProductIdsIn(anyCollection())).thenReturn(List.of(1L));
+        when(productRepository.findById(1L)).thenReturn(Optional.of(testProduct));
+
+        // When
+        productService.incrementStocks(quantities);
+
+        // Then
+        verify(shardedStockService).increment(testProduct, 3);
+        Map<Long, Integer> unsharded = new TreeMap<>();
+        unsharded.put(2L, 5);
+        unsharded.put(3L, 1);
+        verify(productRepository).incrementStocks(unsharded);
+    }
+
     @Test
     void testRestoreStock_Success() {
         // Given
@@ -0,0 +1,59 @@
+package com.example.E_Commerce.service;
+
+import com.example.E_Commerce.model.OrderEventType;
+import com.example.E_Commerce.model.OutboxEvent;
+import com.example.E_Commerce.model.PaymentStatus;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RevenueRollupHandlerTest {
+
+    @Mock
+    private RevenueRollupService revenueRollupService;
+
+    @InjectMocks
+    private RevenueRollupHandler revenueRollupHandler;
+
+    @Test
+    void testHandle_RefundAfterCompletionRemovesTheRevenue() {
+        // Given
+        OutboxEvent paid = event(100L, OrderEventType.PAID, PaymentStatus.COMPLETED);
+        OutboxEvent refunded = event(101L, OrderEventType.PAYMENT_REVERSED, PaymentStatus.REFUNDED);
+
+        // When
+        revenueRollupHandler.handle(paid);
+        revenueRollupHandler.handle(refunded);
+
+        // Then
+        assertTrue(revenueRollupHandler.supports(OrderEventType.PAYMENT_REVERSED));
+        verify(revenueRollupService).applyOrder(100L, 1L, 1);
+        verify(revenueRollupService).applyOrder(101L, 1L, -1);
+    }
+
+    @Test
+    void testHandle_CancellationOfUnpaidOrderIsIgnored() {
+        // When
+        revenueRollupHandler.handle(event(102L, OrderEventType.CANCELLED, PaymentStatus.CANCELLED));
+
+        // Then
+        verify(revenueRollupService, never()).applyOrder(anyLong(), anyLong(), anyInt());
+    }
+
+    private OutboxEvent event(Long id, OrderEventType type, PaymentStatus paymentStatus) {
+        OutboxEvent event = new OutboxEvent();
+        event.setId(id);
+        event.setOrderId(1L);
+        event.setEventType(type);
+        event.setPayload(new JSONObject().put("paymentStatus", paymentStatus.name()).toString());
+        return event;
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.E_Commerce.service;
+
+import com.example.E_Commerce.model.*;
+import com.example.E_Commerce.repository.OrderItemRepository;
+import com.example.E_Commerce.repository.OrderRepository;
+import com.example.E_Commerce.repository.RevenueRollupAppliedEventRepository;
+import com.example.E_Commerce.repository.RevenueRollupDailyRepository;
+import com.example.E_Commerce.repository.RevenueRollupDailyTotalRepository;
+import com.example.E_Commerce.repository.RevenueRollupHourlyRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RevenueRollupServiceTest {
+
+    @Mock
+    private RevenueRollupHourlyRepository hourlyRepository;
+
+    @Mock
+    private RevenueRollupDailyRepository dailyRepository;
+
+    @Mock
+    private RevenueRollupDailyTotalRepository dailyTotalRepository;
+
+    @Mock
+    private RevenueRollupAppliedEventRepository appliedEventRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private OrderItemRepository orderItemRepository;
+
+    @InjectMocks
+    private RevenueRollupService revenueRollupService;
+
+    @Test
+    void testApplyOrder_AddsToExistingBucketsAndCreatesMissingOnes() {
+        // Given
+        Order order = new Order();
+        order.setId(1L);
+        order.setCreatedAt(LocalDateTime.of(2024, 3, 5, 14, 37));
+        LocalDateTime hour = LocalDateTime.of(2024, 3, 5, 14, 0);
+        when(appliedEventRepository.existsById(100L)).thenReturn(false);
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+        when(orderItemRepository.sumSubtotalByCategoryForOrder(1L)).thenReturn(List.<Object[]>of(
+                new Object[]{ProductCategory.BOOKS, new BigDecimal("30.00")},
+                new Object[]{ProductCategory.TOYS, new BigDecimal("12.00")}));
+        when(hourlyRepository.addToBucket(eq(hour), eq(ProductCategory.BOOKS), eq(new BigDecimal("30.00")), eq(1L),
+                any(LocalDateTime.class))).thenReturn(1);
+        when(dailyRepository.addToBucket(eq(hour.toLocalDate()), eq(ProductCategory.BOOKS), eq(new BigDecimal("30.00")),
+                eq(1L), any(LocalDateTime.class))).thenReturn(0);
+        when(hourlyRepository.addToBucket(eq(hour), eq(ProductCategory.TOYS), eq(new BigDecimal("12.00")), eq(1L),
+                any(LocalDateTime.class))).thenReturn(1);
+        when(dailyRepository.addToBucket(eq(hour.toLocalDate()), eq(ProductCategory.TOYS), eq(new BigDecimal("12.00")),
+                eq(1L), any(LocalDateTime.class))).thenReturn(1);
+        when(dailyTotalRepository.addToBucket(eq(hour.toLocalDate()), eq(new BigDecimal("42.00")), eq(1L),
+                any(LocalDateTime.class))).thenReturn(1);
+
+        // When
+        boolean applied = revenueRollupService.applyOrder(100L, 1L, 1);
+
+        // Then
+        assertTrue(applied);
+        verify(hourlyRepository, never()).saveAndFlush(any());
+        ArgumentCaptor<RevenueRollupDaily> daily = ArgumentCaptor.forClass(RevenueRollupDaily.class);
+        verify(dailyRepository).saveAndFlush(daily.capture());
+        assertEquals(LocalDate.of(2024, 3, 5), daily.getValue().getBucketDate());
+        assertEquals(1L, daily.getValue().getOrderCount());
+        // The order spans two categories but is one order in the day's total
+        verify(dailyTotalRepository).addToBucket(eq(hour.toLocalDate()), eq(new BigDecimal("42.00")), eq(1L),
+                any(LocalDateTime.class));
+        verify(dailyTotalRepository, never()).saveAndFlush(any());
+        verify(appliedEventRepository).save(any(RevenueRollupAppliedEvent.class));
+    }
+
+    @Test
+    void testApplyOrder_SkipsEventAlreadyApplied() {
+        // Given
+        when(appliedEventRepository.existsById(100L)).thenReturn(true);
+
+        // When
+        boolean applied = revenueRollupService.applyOrder(100L, 1L, -1);
+
+        // Then
+        assertFalse(applied);
+        verifyNoInteractions(orderRepository, hourlyRepository, dailyRepository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRebuildDay_WritesHourlyBucketsAndSumsThemPerDay() {
+        // Given
+        LocalDate day = LocalDate.of(2024, 3, 5);
+        when(orderItemRepository.sumRevenueByHourAndCategory(day.atStartOfDay(), day.plusDays(1).atStartOfDay(),
+                PaymentStatus.COMPLETED, OrderStatus.CANCELLED)).thenReturn(Arrays.asList(
+                new Object[]{9, ProductCategory.BOOKS, new BigDecimal("10.00"), 1L},
+                new Object[]{17, ProductCategory.BOOKS, new BigDecimal("25.50"), 2L},
+                new Object[]{17, ProductCategory.TOYS, new BigDecimal("5.00"), 1L}));
+        // One of the 17:00 orders holds both a book and a toy
+        when(orderItemRepository.sumRevenueForDay(day.atStartOfDay(), day.plusDays(1).atStartOfDay(),
+                PaymentStatus.COMPLETED, OrderStatus.CANCELLED)).thenReturn(List.<Object[]>of(
+                new Object[]{new BigDecimal("40.50"), 3L}));
+
+        // When
+        int buckets = revenueRollupService.rebuildDay(day);
+
+        // Then
+        assertEquals(3, buckets);
+        verify(hourlyRepository).deleteBuckets(day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+        verify(dailyRepository).deleteBucket(day);
+        verify(dailyTotalRepository).deleteBucket(day);
+        ArgumentCaptor<Iterable<RevenueRollupDaily>> daily = ArgumentCaptor.forClass(Iterable.class);
+        verify(dailyRepository).saveAll(daily.capture());
+        List<RevenueRollupDaily> days = new ArrayList<>();
+        daily.getValue().forEach(days::add);
+        RevenueRollupDaily books = days.stream().filter(d -> d.getCategory() == ProductCategory.BOOKS).findFirst().orElseThrow();
+        assertEquals(new BigDecimal("35.50"), books.getRevenue());
+        assertEquals(3L, books.getOrderCount());
+        assertEquals(2, days.size());
+        ArgumentCaptor<RevenueRollupDailyTotal> total = ArgumentCaptor.forClass(RevenueRollupDailyTotal.class);
+        verify(dailyTotalRepository).save(total.capture());
+        assertEquals(3L, total.getValue().getOrderCount());
+        assertEquals(new BigDecimal("40.50"), total.getValue().getRevenue());
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.E_Commerce.service;
+
+import com.example.E_Commerce.model.Product;
+import com.example.E_Commerce.model.ProductStockShard;
+import com.example.E_Commerce.repository.ProductRepository;
+import com.example.E_Commerce.repository.ProductStockShardRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ShardedStockServiceTest {
+
+    @Mock
+    private ProductStockShardRepository shardRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @InjectMocks
+    private ShardedStockService shardedStockService;
+
+    @Captor
+    private ArgumentCaptor<List<ProductStockShard>> shardsCaptor;
+
+    private Product testProduct;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(shardedStockService, "rebalanceThreshold", 0.5);
+
+        testProduct = new Product();
+        testProduct.setId(1L);
+        testProduct.setName("Flash Sale Product");
+        testProduct.setPrice(new BigDecimal("49.99"));
+        testProduct.setStockQuantity(10);
+        testProduct.setStockShards(2);
+    }
+
+    @Test
+    void testEvenSplit_DistributesRemainder() {
+        assertArrayEquals(new int[]{4, 3, 3}, ShardedStockService.evenSplit(10, 3));
+        assertArrayEquals(new int[]{0, 0}, ShardedStockService.evenSplit(0, 2));
+    }
+
+    @Test
+    void testDecrement_SingleShardCoversQuantity() {
+        // Given
+        when(shardRepository.decrementIfAvailable(eq(1L), anyInt(), eq(2))).thenReturn(1);
+
+        // When
+        shardedStockService.decrement(testProduct, 2);
+
+        // Then
+        verify(shardRepository, times(1)).decrementIfAvailable(eq(1L), anyInt(), eq(2));
+        verify(shardRepository, never()).findByProductIdForUpdate(anyLong());
+    }
+
+    @Test
+    void testDecrement_SpansShardsWhenNoSingleShardCovers() {
+        // Given
+        ProductStockShard first = shard(0, 3);
+        ProductStockShard second = shard(1, 4);
+        when(shardRepository.decrementIfAvailable(eq(1L), anyInt(), eq(6))).thenReturn(0);
+        when(shardRepository.findByProductIdForUpdate(1L)).thenReturn(Arrays.asList(first, second));
+
+        // When
+        shardedStockService.decrement(testProduct, 6);
+
+        // Then
+        assertEquals(0, first.getQuantity());
+        assertEquals(1, second.getQuantity());
+        verify(shardRepository, times(2)).decrementIfAvailable(eq(1L), anyInt(), eq(6));
+    }
+
+    @Test
+    void testDecrement_InsufficientStock() {
+        // Given
+        when(shardRepository.decrementIfAvailable(eq(1L), anyInt(), eq(8))).thenReturn(0);
+        when(shardRepository.findByProductIdForUpdate(1L)).thenReturn(Arrays.asList(shard(0, 3), shard(1, 4)));
+
+        // When & Then
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            shardedStockService.decrement(testProduct, 8);
+        });
+
+        assertEquals("Insufficient stock. Available: 7, Requested: 8", exception.getMessage());
+        verify(shardRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void testRebalance_EvensOutStarvedShards() {
+        // Given
+        ProductStockShard first = shard(0, 0);
+        ProductStockShard second = shard(1, 9);
+        when(shardRepository.findUnlockedByProductIdForUpdate(1L)).thenReturn(Arrays.asList(first, second));
+        when(shardRepository.sumQuantityByProductId(1L)).thenReturn(9L);
+
+        // When
+        shardedStockService.rebalance(1L);
+
+        // Then
+        assertEquals(5, first.getQuantity());
+        assertEquals(4, second.getQuantity());
+        verify(productRepository).updateStockSnapshot(1L, 9);
+    }
+
+    @Test
+    void testConfigureShards_SplitsCurrentStock() {
+        // Given
+        testProduct.setStockShards(null);
+        when(productRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testProduct));
+
+        // When
+        shardedStockService.configureShards(1L, 4);
+
+        // Then
+        assertEquals(4, testProduct.getStockShards());
+        assertEquals(10, testProduct.getStockQuantity());
+        verify(shardRepository).saveAll(shardsCaptor.capture());
+        List<ProductStockShard> shards = shardsCaptor.getValue();
+        assertEquals(4, shards.size());
+        assertEquals(10, shards.stream().mapToInt(ProductStockShard::getQuantity).sum());
+        verify(productRepository).save(testProduct);
+    }
+
+    private ProductStockShard shard(int index, int quantity) {
+        ProductStockShard shard = new ProductStockShard();
+        shard.setProductId(1L);
+        shard.setShardIndex(index);
+        shard.setQuantity(quantity);
+        return shard;
+    }
+}
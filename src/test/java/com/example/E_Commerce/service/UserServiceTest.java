@@ -2,6 +2,8 @@ package com.example.E_Commerce.service;
 
 import com.example.E_Commerce.model.Role;
 import com.example.E_Commerce.model.User;
+import com.example.E_Commerce.model.UserSearchCriteria;
+import com.example.E_Commerce.model.UserSummary;
 import com.example.E_Commerce.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -9,6 +11,10 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.time.LocalDateTime;
@@ -243,6 +249,36 @@ class UserServiceTest {
         verify(userRepository).findAll();
     }
 
+    @Test
+    void testSearchUsers_DelegatesToProjectionQuery() {
+        // Given
+        UserSearchCriteria criteria = new UserSearchCriteria();
+        criteria.setEmail("test@");
+        Pageable pageable = UserService.adminUserPage(0, 20, "email", "asc");
+        Page<UserSummary> page = new PageImpl<>(List.of(new UserSummary(1L, "testuser", "test@example.com",
+                "Test", "User", null, Role.CUSTOMER, true, LocalDateTime.now())), pageable, 1);
+        when(userRepository.searchSummaries(criteria, pageable)).thenReturn(page);
+
+        // When
+        Page<UserSummary> result = userService.searchUsers(criteria, pageable);
+
+        // Then
+        assertEquals(1, result.getTotalElements());
+        assertEquals("Test User", result.getContent().get(0).getFullName());
+        verify(userRepository, never()).findAll();
+    }
+
+    @Test
+    void testAdminUserPage_RejectsUnknownSortField() {
+        // When
+        Pageable pageable = UserService.adminUserPage(2, 1000, "password", "desc");
+
+        // Then
+        assertEquals(2, pageable.getPageNumber());
+        assertEquals(100, pageable.getPageSize());
+        assertEquals(Sort.by(Sort.Direction.DESC, "createdAt").and(Sort.by(Sort.Direction.DESC, "id")), pageable.getSort());
+    }
+
     @Test
     void testDeleteUser() {
         // Given
@@ -0,0 +1,44 @@
+package com.example.E_Commerce.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdminQueriesTest {
+
+    @Test
+    void testPage_UnknownSortFieldFallsBackToNewestFirst() {
+        // When
+        Pageable pageable = AdminQueries.page(-3, 5000, "password", "asc", Set.of("email"));
+
+        // Then
+        assertEquals(0, pageable.getPageNumber());
+        assertEquals(AdminQueries.MAX_PAGE_SIZE, pageable.getPageSize());
+        assertEquals(Sort.Direction.ASC, pageable.getSort().getOrderFor("createdAt").getDirection());
+        assertNull(pageable.getSort().getOrderFor("password"));
+    }
+
+    @Test
+    void testPage_AllowedSortFieldWithIdTieBreaker() {
+        // When
+        Pageable pageable = AdminQueries.page(2, 20, "email", "desc", Set.of("email"));
+
+        // Then
+        assertEquals(2, pageable.getPageNumber());
+        assertEquals(20, pageable.getPageSize());
+        assertEquals(Sort.by(Sort.Direction.DESC, "email").and(Sort.by(Sort.Direction.DESC, "id")), pageable.getSort());
+    }
+
+    @Test
+    void testLikePrefix_EscapesWildcards() {
+        // When
+        String pattern = AdminQueries.likePrefix("ORD_10%\\");
+
+        // Then
+        assertEquals("ORD\\_10\\%\\\\%", pattern);
+    }
+}
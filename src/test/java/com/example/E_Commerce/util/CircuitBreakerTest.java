@@ -0,0 +1,84 @@
+package com.example.E_Commerce.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private CircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void setUp() {
+        circuitBreaker = new CircuitBreaker("test", 3, Duration.ofSeconds(10), now::get);
+    }
+
+    @Test
+    void testOpensAfterConsecutiveFailures() {
+        // Given
+        fail(2);
+        assertTrue(circuitBreaker.tryAcquire());
+        circuitBreaker.onSuccess();
+        fail(2);
+
+        // When
+        fail(1);
+
+        // Then
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    void testHalfOpenAllowsSingleTrialThenCloses() {
+        // Given
+        fail(3);
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        // When
+        boolean trial = circuitBreaker.tryAcquire();
+        boolean second = circuitBreaker.tryAcquire();
+        circuitBreaker.onSuccess();
+
+        // Then
+        assertTrue(trial);
+        assertFalse(second);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    void testFailedTrialReopens() {
+        // Given
+        fail(3);
+        now.addAndGet(Duration.ofSeconds(11).toNanos());
+
+        // When
+        assertTrue(circuitBreaker.tryAcquire());
+        circuitBreaker.onFailure();
+
+        // Then
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        now.addAndGet(Duration.ofSeconds(9).toNanos());
+        assertFalse(circuitBreaker.tryAcquire());
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertTrue(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    void testRejectsInvalidThreshold() {
+        assertThrows(IllegalArgumentException.class, () -> new CircuitBreaker("test", 0, Duration.ofSeconds(1)));
+    }
+
+    private void fail(int times) {
+        for (int i = 0; i < times; i++) {
+            assertTrue(circuitBreaker.tryAcquire());
+            circuitBreaker.onFailure();
+        }
+    }
+}
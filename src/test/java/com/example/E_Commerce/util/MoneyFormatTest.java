@@ -0,0 +1,56 @@
+package com.example.E_Commerce.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyFormatTest {
+
+    @Test
+    void testFormat_MatchesStringFormat() {
+        // Given
+        String[] amounts = {"0", "0.5", "0.005", "0.004", "1234.5", "99.999", "-12.345", "-0.001", "1E+3", "42.10"};
+
+        for (String amount : amounts) {
+            // When
+            String formatted = MoneyFormat.format(new BigDecimal(amount));
+
+            // Then
+            assertEquals(String.format("%.2f", new BigDecimal(amount)), formatted, amount);
+        }
+    }
+
+    @Test
+    void testFormat_AmountBeyondLongFallsBack() {
+        // Given
+        BigDecimal huge = new BigDecimal("123456789012345678901234.567");
+
+        // When
+        String formatted = MoneyFormat.format(huge);
+
+        // Then
+        assertEquals("123456789012345678901234.57", formatted);
+    }
+
+    @Test
+    void testAppend_WritesIntoCallerBuilder() {
+        // Given
+        StringBuilder out = new StringBuilder("Total: ");
+
+        // When
+        MoneyFormat.append(out, new BigDecimal("7.1"));
+
+        // Then
+        assertEquals("Total: 7.10", out.toString());
+    }
+
+    @Test
+    void testToMinorUnits_RoundsHalfUpAndTreatsNullAsZero() {
+        // When & Then
+        assertEquals(1235, MoneyFormat.toMinorUnits(new BigDecimal("12.345")));
+        assertEquals(-1235, MoneyFormat.toMinorUnits(new BigDecimal("-12.345")));
+        assertEquals(0, MoneyFormat.toMinorUnits(null));
+    }
+}
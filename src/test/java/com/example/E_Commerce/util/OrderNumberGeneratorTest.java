@@ -0,0 +1,99 @@
+package com.example.E_Commerce.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderNumberGeneratorTest {
+
+    @Test
+    void testNextOrderNumber_FormatAndOrdering() {
+        // Given
+        OrderNumberGenerator generator = new OrderNumberGenerator(7);
+
+        // When
+        String first = generator.nextOrderNumber();
+        String second = generator.nextOrderNumber();
+
+        // Then
+        assertTrue(first.startsWith(OrderNumberGenerator.PREFIX));
+        assertEquals(first.length(), second.length());
+        assertTrue(first.compareTo(second) < 0);
+    }
+
+    @Test
+    void testNextId_EmbedsNodeId() {
+        // Given
+        OrderNumberGenerator generator = new OrderNumberGenerator(42);
+
+        // When
+        long id = generator.nextId();
+
+        // Then
+        assertEquals(42, (id >>> 12) & OrderNumberGenerator.MAX_NODE_ID);
+    }
+
+    @Test
+    void testNextId_DifferentNodesNeverCollide() {
+        // Given
+        OrderNumberGenerator nodeA = new OrderNumberGenerator(1);
+        OrderNumberGenerator nodeB = new OrderNumberGenerator(2);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+
+        // When
+        for (int i = 0; i < 10_000; i++) {
+            ids.add(nodeA.nextId());
+            ids.add(nodeB.nextId());
+        }
+
+        // Then
+        assertEquals(20_000, ids.size());
+    }
+
+    @Test
+    void testNextId_UniqueAcrossThreads() throws InterruptedException {
+        // Given
+        OrderNumberGenerator generator = new OrderNumberGenerator(3);
+        int threads = 8;
+        int perThread = 50_000;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    ids.add(generator.nextId());
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+
+        // When
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        // Then
+        assertEquals(threads * perThread, ids.size());
+    }
+
+    @Test
+    void testConstructor_RejectsNodeIdOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new OrderNumberGenerator(OrderNumberGenerator.MAX_NODE_ID + 1));
+    }
+}